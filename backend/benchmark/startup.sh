@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Compares cold start time of the plain jar, the AOT + CDS jar and the GraalVM native image.
+# Each variant is started RUNS times with spring.context.exit=onRefresh, so the measured time is
+# JVM start to a fully refreshed application context. Requires PostgreSQL to be reachable with the
+# settings in application.properties; pass SKIP_NATIVE=1 when GraalVM is not installed.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${RUNS:-5}"
+EXIT_ARGS="-Dspring.context.exit=onRefresh"
+
+time_runs() {
+  local label="$1"; shift
+  local total=0
+  for ((i = 1; i <= RUNS; i++)); do
+    local start end
+    start=$(date +%s%N)
+    "$@" > /dev/null 2>&1
+    end=$(date +%s%N)
+    total=$((total + (end - start) / 1000000))
+  done
+  printf '%-12s %6d ms (mean of %d)\n' "$label" $((total / RUNS)) "$RUNS"
+}
+
+./mvnw -q -DskipTests clean package
+JAR="$(ls target/*.jar | grep -v plain | head -n 1)"
+time_runs "jvm" java $EXIT_ARGS -jar "$JAR"
+
+./mvnw -q -DskipTests -Pcds clean package
+CDS_JAR="target/cds/$(basename "$JAR")"
+time_runs "aot+cds" java -XX:SharedArchiveFile=target/cds/application.jsa -Dspring.aot.enabled=true \
+  $EXIT_ARGS -jar "$CDS_JAR"
+
+if [[ -z "${SKIP_NATIVE:-}" ]]; then
+  ./mvnw -q -DskipTests -Pnative clean native:compile
+  time_runs "native" target/deadline-manager $EXIT_ARGS
+fi
@@ -0,0 +1,258 @@
+import com.erikmlarson5.deadlinemanager.dependency.TaskGraph;
+import com.erikmlarson5.deadlinemanager.dto.DependencyView;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Time to rebuild the dependency graph of a large synthetic project from scratch versus applying a single edit,
+ * and a check that the incrementally maintained graph matches a rebuild after each of a run of edits: the same
+ * critical path, earliest start and longest path for every task, and a cycle rejected exactly when one would be
+ * closed. Edits are timed in a run of their own, so collecting the garbage of the rebuilds does not land in them.
+ * Run through loadtest/dependency-benchmark.sh
+ */
+public class DependencyGraphBenchmark {
+
+    private record Edge(long taskId, long dependsOnTaskId) {
+    }
+
+    private static final class Project {
+        private final Map<Long, Float> hours = new HashMap<>();
+        private final Map<Long, Status> statuses = new HashMap<>();
+        private final Map<Long, Set<Long>> successors = new HashMap<>();
+        private final Map<Edge, Integer> edgeIndex = new HashMap<>();
+        private final List<Edge> edges = new ArrayList<>();
+
+        private void add(Edge edge) {
+            edgeIndex.put(edge, edges.size());
+            edges.add(edge);
+            successors.computeIfAbsent(edge.dependsOnTaskId(), id -> new HashSet<>()).add(edge.taskId());
+        }
+
+        private void remove(Edge edge) {
+            int index = edgeIndex.remove(edge);
+            Edge last = edges.remove(edges.size() - 1);
+            if (index < edges.size()) {
+                edges.set(index, last);
+                edgeIndex.put(last, index);
+            }
+            successors.get(edge.dependsOnTaskId()).remove(edge.taskId());
+        }
+
+        // A dependency of task on dependsOn closes a cycle when dependsOn is reachable from task
+        private boolean reaches(long from, long to) {
+            Set<Long> seen = new HashSet<>(List.of(from));
+            Deque<Long> stack = new ArrayDeque<>(List.of(from));
+            while (!stack.isEmpty()) {
+                for (Long next : successors.getOrDefault(stack.pop(), Set.of())) {
+                    if (next == to) {
+                        return true;
+                    }
+                    if (seen.add(next)) {
+                        stack.push(next);
+                    }
+                }
+            }
+            return false;
+        }
+
+        private DependencyView view(Edge edge) {
+            return new DependencyView(1L, edge.taskId(), hours.get(edge.taskId()), statuses.get(edge.taskId()),
+                    edge.dependsOnTaskId(), hours.get(edge.dependsOnTaskId()), statuses.get(edge.dependsOnTaskId()));
+        }
+
+        private List<DependencyView> views() {
+            List<DependencyView> views = new ArrayList<>(edges.size());
+            for (Edge edge : edges) {
+                views.add(view(edge));
+            }
+            return views;
+        }
+    }
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        // Dependencies point at most this far back in a hidden order, smaller windows make longer chains
+        int window = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int checks = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+
+        Random random = new Random(42);
+        Project project = new Project();
+        for (long taskId = 1; taskId <= taskCount; taskId++) {
+            project.hours.put(taskId, 0.5f + random.nextInt(16) / 2f);
+            project.statuses.put(taskId, random.nextInt(10) == 0 ? Status.COMPLETED : Status.NOT_STARTED);
+        }
+        // Task ids are shuffled against the hidden order, so the graph cannot rely on ids being topological
+        long[] hidden = new long[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            hidden[i] = i + 1;
+        }
+        for (int i = taskCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = hidden[i];
+            hidden[i] = hidden[j];
+            hidden[j] = swap;
+        }
+        while (project.edges.size() < edgeCount) {
+            int to = 1 + random.nextInt(taskCount - 1);
+            int from = Math.max(0, to - 1 - random.nextInt(window));
+            Edge edge = new Edge(hidden[to], hidden[from]);
+            if (!project.edgeIndex.containsKey(edge)) {
+                project.add(edge);
+            }
+        }
+
+        long start = System.nanoTime();
+        TaskGraph incremental = TaskGraph.of(project.views());
+        double initialMillis = (System.nanoTime() - start) / 1e6;
+        long initialCriticalPath = incremental.criticalPathMinutes();
+
+        // Warm up the JIT so the measured runs compare the approaches rather than compilation
+        for (int i = 0; i < 500; i++) {
+            edit(random, project, incremental, hidden, window, new HashMap<>());
+        }
+        for (int i = 0; i < 3; i++) {
+            TaskGraph.of(project.views());
+        }
+
+        Map<String, List<Double>> editMillis = new LinkedHashMap<>();
+        System.gc();
+        for (int i = 0; i < iterations; i++) {
+            edit(random, project, incremental, hidden, window, editMillis);
+        }
+
+        double[] fullMillis = new double[checks];
+        for (int i = 0; i < checks; i++) {
+            edit(random, project, incremental, hidden, window, new HashMap<>());
+            List<DependencyView> views = project.views();
+            start = System.nanoTime();
+            TaskGraph rebuilt = TaskGraph.of(views);
+            fullMillis[i] = (System.nanoTime() - start) / 1e6;
+            if (!sameSchedule(rebuilt, incremental, taskCount)) {
+                throw new IllegalStateException("Incremental graph diverged from a rebuild at check " + i);
+            }
+        }
+
+        System.out.printf("%d tasks, %d dependencies, window %d, critical path %.1f hours, %d edits%n",
+                taskCount, edgeCount, window, initialCriticalPath / 60.0, iterations);
+        System.out.printf("%-28s %10.3f ms%n", "initial build", initialMillis);
+        System.out.printf("%-28s %10.3f ms  (%d runs)%n", "full rebuild", median(fullMillis), checks);
+        for (Map.Entry<String, List<Double>> entry : editMillis.entrySet()) {
+            double[] millis = entry.getValue().stream().mapToDouble(Double::doubleValue).toArray();
+            System.out.printf("%-28s %10.3f ms  (p99 %.3f ms, %d runs)%n", entry.getKey(), median(millis),
+                    percentile(millis, 0.99), millis.length);
+        }
+        System.out.printf("incremental graph matched a rebuild after each of %d edits, cycles rejected exactly%n",
+                checks);
+    }
+
+    // Adds a dependency, possibly one closing a cycle, removes one, re-estimates, completes or reopens a task, or
+    // deletes one, in both the source project and the incremental graph
+    private static void edit(Random random, Project project, TaskGraph graph, long[] hidden, int window,
+                             Map<String, List<Double>> editMillis) {
+        int kind = random.nextInt(6);
+        long start;
+        String label;
+        switch (kind) {
+            case 0, 1 -> {
+                // Mostly forward in the hidden order, a quarter reverse an existing dependency and close a cycle
+                int to = 1 + random.nextInt(hidden.length - 1);
+                int from = Math.max(0, to - 1 - random.nextInt(window));
+                Edge existing = project.edges.get(random.nextInt(project.edges.size()));
+                Edge edge = random.nextInt(4) == 0 ? new Edge(existing.dependsOnTaskId(), existing.taskId())
+                        : new Edge(hidden[to], hidden[from]);
+                if (project.edgeIndex.containsKey(edge)) {
+                    return;
+                }
+                boolean cycle = project.reaches(edge.taskId(), edge.dependsOnTaskId());
+                DependencyView view = project.view(edge);
+                start = System.nanoTime();
+                boolean added = graph.addDependency(view.taskId(), view.taskEstimatedHours(), view.taskStatus(),
+                        view.dependsOnTaskId(), view.dependsOnEstimatedHours(), view.dependsOnStatus());
+                label = added ? "add dependency" : "reject cycle";
+                if (added == cycle) {
+                    throw new IllegalStateException("Cycle check disagreed for " + edge);
+                }
+                if (added) {
+                    project.add(edge);
+                }
+            }
+            case 2 -> {
+                Edge edge = project.edges.get(random.nextInt(project.edges.size()));
+                project.remove(edge);
+                start = System.nanoTime();
+                graph.removeDependency(edge.taskId(), edge.dependsOnTaskId());
+                label = "remove dependency";
+            }
+            case 3, 4 -> {
+                long taskId = hidden[random.nextInt(hidden.length)];
+                Float hours = 0.5f + random.nextInt(16) / 2f;
+                Status status = kind == 4 && project.statuses.get(taskId) != Status.COMPLETED
+                        ? Status.COMPLETED : Status.IN_PROGRESS;
+                if (kind == 3) {
+                    project.hours.put(taskId, hours);
+                    status = project.statuses.get(taskId);
+                } else {
+                    hours = project.hours.get(taskId);
+                    project.statuses.put(taskId, status);
+                }
+                start = System.nanoTime();
+                graph.updateTask(taskId, hours, status);
+                label = kind == 3 ? "change estimate" : "complete or reopen task";
+            }
+            default -> {
+                // Deleting a task drops its dependencies, the task id is reused with fresh dependencies later
+                long taskId = hidden[random.nextInt(hidden.length)];
+                for (Edge edge : List.copyOf(project.edges)) {
+                    if (edge.taskId() == taskId || edge.dependsOnTaskId() == taskId) {
+                        project.remove(edge);
+                    }
+                }
+                start = System.nanoTime();
+                graph.removeTask(taskId);
+                label = "delete task";
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        editMillis.computeIfAbsent(label, key -> new ArrayList<>()).add(millis);
+    }
+
+    private static boolean sameSchedule(TaskGraph expected, TaskGraph actual, int taskCount) {
+        if (expected.criticalPathMinutes() != actual.criticalPathMinutes() || expected.size() != actual.size()) {
+            return false;
+        }
+        for (long taskId = 1; taskId <= taskCount; taskId++) {
+            if (expected.contains(taskId) != actual.contains(taskId)) {
+                return false;
+            }
+            if (expected.contains(taskId) && (expected.earliestStartMinutes(taskId) != actual.earliestStartMinutes(
+                    taskId) || expected.longestPathMinutes(taskId) != actual.longestPathMinutes(taskId)
+                    || expected.isBlocked(taskId) != actual.isBlocked(taskId))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double median(double[] values) {
+        return percentile(values, 0.5);
+    }
+
+    private static double percentile(double[] values, double percentile) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+}
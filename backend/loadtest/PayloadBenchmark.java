@@ -0,0 +1,148 @@
+import com.erikmlarson5.deadlinemanager.config.BinaryEncodingConfig;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload size and encode/decode time of a synthetic account's project list in JSON, gzipped JSON, CBOR and
+ * Smile, using the same mapper settings as the API. Run through loadtest/payload-benchmark.sh
+ */
+public class PayloadBenchmark {
+    private static final String[] STATUSES = {"NOT_STARTED", "IN_PROGRESS", "COMPLETED"};
+    private static final String[] CATEGORIES = {"School", "Work", "Personal", "Research", "Side project"};
+
+    public static void main(String[] args) throws IOException {
+        int projects = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int tasksPerProject = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        List<ProjectOutputDTO> account = syntheticAccount(projects, tasksPerProject);
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ObjectMapper cbor = BinaryEncodingConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory());
+        ObjectMapper smile = BinaryEncodingConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(),
+                SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build());
+
+        System.out.printf("%d projects x %d tasks, median of %d runs%n", projects, tasksPerProject, iterations);
+        System.out.printf("%-10s %12s %12s %12s%n", "encoding", "bytes", "encode ms", "decode ms");
+        run("json", json, account, iterations, false);
+        run("json+gzip", json, account, iterations, true);
+        run("cbor", cbor, account, iterations, false);
+        run("smile", smile, account, iterations, false);
+    }
+
+    private static void run(String name, ObjectMapper mapper, List<ProjectOutputDTO> account, int iterations,
+                            boolean gzip) throws IOException {
+        byte[] encoded = encode(mapper, account, gzip);
+        // Warm up the JIT so the measured runs compare the encodings rather than compilation
+        for (int i = 0; i < iterations; i++) {
+            decode(mapper, encode(mapper, account, gzip), gzip);
+        }
+
+        double[] encodeMillis = new double[iterations];
+        double[] decodeMillis = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            encode(mapper, account, gzip);
+            encodeMillis[i] = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            decode(mapper, encoded, gzip);
+            decodeMillis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        System.out.printf("%-10s %12d %12.2f %12.2f%n", name, encoded.length, median(encodeMillis),
+                median(decodeMillis));
+    }
+
+    private static byte[] encode(ObjectMapper mapper, List<ProjectOutputDTO> account, boolean gzip)
+            throws IOException {
+        if (!gzip) {
+            return mapper.writeValueAsBytes(account);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(out, account);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ProjectOutputDTO[] decode(ObjectMapper mapper, byte[] encoded, boolean gzip)
+            throws IOException {
+        if (!gzip) {
+            return mapper.readValue(encoded, ProjectOutputDTO[].class);
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            return mapper.readValue(in, ProjectOutputDTO[].class);
+        }
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static List<ProjectOutputDTO> syntheticAccount(int projects, int tasksPerProject) {
+        Random random = new Random(42);
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<ProjectOutputDTO> account = new ArrayList<>(projects);
+        long taskId = 1;
+        for (long projectId = 1; projectId <= projects; projectId++) {
+            ProjectOutputDTO project = new ProjectOutputDTO();
+            project.setProjectId(projectId);
+            project.setTitle("Project " + projectId);
+            project.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            project.setDueDate(LocalDate.now().plusDays(random.nextInt(120)));
+            project.setDifficulty(1 + random.nextInt(10));
+            project.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            project.setPriority(random.nextFloat() * 100);
+            project.setCreatedAt(now.minusDays(random.nextInt(60)));
+            project.setUpdatedAt(now.minusHours(random.nextInt(48)));
+            project.setVersion((long) random.nextInt(20));
+
+            List<TaskOutputDTO> tasks = new ArrayList<>(tasksPerProject);
+            float hours = 0;
+            for (int i = 0; i < tasksPerProject; i++) {
+                TaskOutputDTO task = new TaskOutputDTO();
+                task.setTaskId(taskId++);
+                task.setProjectId(projectId);
+                task.setTitle("Task " + i + " of project " + projectId);
+                task.setDueDate(project.getDueDate().minusDays(random.nextInt(14)));
+                task.setEstimatedHours(0.5f + random.nextInt(16) / 2f);
+                task.setDifficulty(1 + random.nextInt(10));
+                task.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+                task.setCreatedAt(now.minusDays(random.nextInt(60)));
+                task.setUpdatedAt(now.minusHours(random.nextInt(48)));
+                if ("COMPLETED".equals(task.getStatus())) {
+                    task.setCompletedAt(now.minusHours(random.nextInt(24)));
+                }
+                task.setVersion((long) random.nextInt(10));
+                hours += task.getEstimatedHours();
+                tasks.add(task);
+            }
+            project.setEstimatedHours(hours);
+            project.setTasks(tasks);
+            account.add(project);
+        }
+        return account;
+    }
+}
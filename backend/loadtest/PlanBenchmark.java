@@ -0,0 +1,136 @@
+import com.erikmlarson5.deadlinemanager.dto.PlanTaskView;
+import com.erikmlarson5.deadlinemanager.dto.StudyPlanDTO;
+import com.erikmlarson5.deadlinemanager.planner.StudyPlan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Time to replan a synthetic account from scratch versus after a single task change, and a check that the
+ * incrementally maintained plan matches a plan rebuilt from scratch after every change. Run through
+ * loadtest/plan-benchmark.sh
+ */
+public class PlanBenchmark {
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        double hoursPerDay = args.length > 2 ? Double.parseDouble(args[2]) : 6;
+        int days = 14;
+
+        // Deadlines spread so the account fits the daily capacity with 25% slack, a few tasks still run late
+        int spanDays = (int) (taskCount * 4.25 * 1.25 / hoursPerDay);
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        Map<Long, PlanTaskView> views = new LinkedHashMap<>();
+        for (long taskId = 1; taskId <= taskCount; taskId++) {
+            views.put(taskId, randomTask(random, taskId, today, spanDays));
+        }
+        List<Long> taskIds = new ArrayList<>(views.keySet());
+        StudyPlan incremental = new StudyPlan(views.values());
+
+        // Warm up the JIT so the measured runs compare the approaches rather than compilation
+        for (int i = 0; i < iterations; i++) {
+            new StudyPlan(views.values()).render(today, hoursPerDay, days, 100);
+            change(random, views, taskIds, incremental, today, spanDays);
+            incremental.render(today, hoursPerDay, days, 100);
+        }
+
+        double[] fullMillis = new double[iterations];
+        double[] updateMillis = new double[iterations];
+        double[] incrementalMillis = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            StudyPlanDTO rebuilt = new StudyPlan(views.values()).render(today, hoursPerDay, days, 100);
+            fullMillis[i] = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            change(random, views, taskIds, incremental, today, spanDays);
+            updateMillis[i] = (System.nanoTime() - start) / 1e6;
+            StudyPlanDTO replanned = incremental.render(today, hoursPerDay, days, 100);
+            incrementalMillis[i] = (System.nanoTime() - start) / 1e6;
+
+            // The rebuilt plan predates the change, so compare against a fresh rebuild instead
+            rebuilt = new StudyPlan(views.values()).render(today, hoursPerDay, days, 100);
+            if (!sameSchedule(rebuilt, replanned)) {
+                throw new IllegalStateException("Incremental plan diverged from a full replan at iteration " + i);
+            }
+        }
+
+        StudyPlanDTO plan = incremental.render(today, hoursPerDay, days, 100);
+        System.out.printf("%d tasks, %.1f hours per day, %.0f hours planned through %s, %d late, median of %d runs%n",
+                taskCount, hoursPerDay, plan.getTotalHours(), plan.getFinishDate(), plan.getLateTaskCount(),
+                iterations);
+        System.out.printf("%-28s %10.3f ms%n", "full replan", median(fullMillis));
+        System.out.printf("%-28s %10.3f ms%n", "single-task update", median(updateMillis));
+        System.out.printf("%-28s %10.3f ms%n", "single-task update + render", median(incrementalMillis));
+        System.out.println("incremental plans matched full replans after every change");
+    }
+
+    // Moves, re-estimates, completes or adds one task, in both the source tasks and the incremental plan
+    private static void change(Random random, Map<Long, PlanTaskView> views, List<Long> taskIds, StudyPlan plan,
+                               LocalDate today, int spanDays) {
+        int index = random.nextInt(taskIds.size());
+        PlanTaskView task = views.get(taskIds.get(index));
+        PlanTaskView changed = switch (random.nextInt(4)) {
+            case 0 -> new PlanTaskView(task.taskId(), task.projectId(), task.title(),
+                    today.plusDays(random.nextInt(spanDays)), task.projectDueDate(), task.estimatedHours());
+            case 1 -> new PlanTaskView(task.taskId(), task.projectId(), task.title(), task.dueDate(),
+                    task.projectDueDate(), 0.5f + random.nextInt(16) / 2f);
+            case 2 -> null;
+            default -> randomTask(random, taskIds.size() + 1_000_000L + random.nextInt(1_000_000), today, spanDays);
+        };
+
+        if (changed == null) {
+            views.remove(task.taskId());
+            taskIds.set(index, taskIds.get(taskIds.size() - 1));
+            taskIds.remove(taskIds.size() - 1);
+            plan.replaceTasks(List.of(task.taskId()), List.of());
+        } else {
+            if (views.put(changed.taskId(), changed) == null) {
+                taskIds.add(changed.taskId());
+            }
+            plan.replaceTasks(List.of(changed.taskId()), List.of(changed));
+        }
+    }
+
+    private static PlanTaskView randomTask(Random random, long taskId, LocalDate today, int spanDays) {
+        LocalDate projectDueDate = today.plusDays(random.nextInt(spanDays));
+        LocalDate dueDate = random.nextInt(4) == 0 ? null : projectDueDate.minusDays(random.nextInt(14));
+        return new PlanTaskView(taskId, taskId / 20 + 1, "Task " + taskId, dueDate, projectDueDate,
+                0.5f + random.nextInt(16) / 2f);
+    }
+
+    private static boolean sameSchedule(StudyPlanDTO expected, StudyPlanDTO actual) {
+        if (expected.getTotalTasks() != actual.getTotalTasks() || expected.getTotalHours() != actual.getTotalHours()
+                || expected.getLateTaskCount() != actual.getLateTaskCount()
+                || expected.getDays().size() != actual.getDays().size()) {
+            return false;
+        }
+        for (int day = 0; day < expected.getDays().size(); day++) {
+            var expectedDay = expected.getDays().get(day).getAllocations();
+            var actualDay = actual.getDays().get(day).getAllocations();
+            if (expectedDay.size() != actualDay.size()) {
+                return false;
+            }
+            for (int i = 0; i < expectedDay.size(); i++) {
+                if (!expectedDay.get(i).getTaskId().equals(actualDay.get(i).getTaskId())
+                        || expectedDay.get(i).getHours() != actualDay.get(i).getHours()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
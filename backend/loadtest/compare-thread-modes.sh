@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Runs the k6 thread-mode load test against the app started once with platform threads and once
+# with virtual threads, and writes each k6 summary to loadtest/results/.
+#
+# Requires: k6, a running PostgreSQL configured in application.properties, and TOKEN set to a
+# valid access token for a user that already has projects and tasks.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${TOKEN:?TOKEN must be set to a valid access token}"
+PORT="${PORT:-8080}"
+RESULTS_DIR="loadtest/results"
+mkdir -p "$RESULTS_DIR"
+
+./mvnw -q -DskipTests package
+JAR="$(ls target/*.jar | grep -v plain | head -n 1)"
+
+run_mode() {
+  local mode="$1" virtual="$2"
+  echo "==> Starting app with $mode threads"
+  java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" \
+    --diagnostics.virtual-threads.pinning.enabled="$virtual" > "$RESULTS_DIR/$mode-app.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+
+  until curl -s -o /dev/null "http://localhost:$PORT/api/v1/projects"; do sleep 1; done
+
+  k6 run -e BASE_URL="http://localhost:$PORT/api/v1" -e TOKEN="$TOKEN" \
+    --summary-export "$RESULTS_DIR/$mode-summary.json" loadtest/thread-mode.js
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_mode platform false
+run_mode virtual true
+
+for mode in platform virtual; do
+  echo "$mode: $(jq -r '"reqs/s=\(.metrics.http_reqs.rate | floor) p99=\(.metrics.http_req_duration["p(99)"])ms"' \
+    "$RESULTS_DIR/$mode-summary.json")"
+done
+echo "Pinned virtual threads by origin:"
+grep -oh "pinned for [0-9]*ms in [a-z]*" "$RESULTS_DIR/virtual-app.log" | sed 's/.* in //' | sort | uniq -c | sort -rn || true
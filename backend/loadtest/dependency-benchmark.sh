@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Compares rebuilding the dependency graph of a large synthetic project (TASKS tasks, DEPENDENCIES dependencies)
+# from scratch with applying single edits incrementally, and checks the incremental graph against a rebuild after
+# each of CHECKS edits. A second run times a course-sized project. When TOKEN is set it also times adding and
+# removing a dependency and reading the critical path on a running app (BASE_URL).
+#
+# Requires: a JDK 21. Live timings additionally need curl, a running app, TOKEN set to a valid access token, and
+# PROJECT_ID with TASK_ID and DEPENDS_ON_ID of two tasks of that project that do not depend on each other yet.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+TASKS="${TASKS:-50000}"
+DEPENDENCIES="${DEPENDENCIES:-200000}"
+EDITS="${EDITS:-2000}"
+WINDOW="${WINDOW:-200}"
+CHECKS="${CHECKS:-50}"
+BASE_URL="${BASE_URL:-http://localhost:8080/api/v1}"
+RESULTS_DIR="loadtest/results"
+mkdir -p "$RESULTS_DIR"
+
+./mvnw -q -DskipTests compile
+{
+  java -cp target/classes loadtest/DependencyGraphBenchmark.java "$TASKS" "$DEPENDENCIES" "$EDITS" "$WINDOW" "$CHECKS"
+  echo
+  java -cp target/classes loadtest/DependencyGraphBenchmark.java 200 400 "$EDITS" 20 "$CHECKS"
+} | tee "$RESULTS_DIR/dependency-benchmark.txt"
+
+if [ -n "${TOKEN:-}" ] && [ -n "${PROJECT_ID:-}" ] && [ -n "${TASK_ID:-}" ] && [ -n "${DEPENDS_ON_ID:-}" ]; then
+  echo
+  echo "Live timings against $BASE_URL"
+  DEPENDENCY_URL="$BASE_URL/projects/$PROJECT_ID/tasks/$TASK_ID/dependencies/$DEPENDS_ON_ID"
+  timed() {
+    curl -sf -o /dev/null -w '%{time_total}' -X "$1" -H "Authorization: Bearer $TOKEN" "$2"
+  }
+  printf '%-24s %8ss\n' "critical path" "$(timed GET "$BASE_URL/projects/$PROJECT_ID/critical-path")"
+  printf '%-24s %8ss\n' "add dependency" "$(timed PUT "$DEPENDENCY_URL")"
+  printf '%-24s %8ss\n' "critical path" "$(timed GET "$BASE_URL/projects/$PROJECT_ID/critical-path")"
+  printf '%-24s %8ss\n' "remove dependency" "$(timed DELETE "$DEPENDENCY_URL")"
+fi
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Compares payload size and encode/decode time of JSON, gzipped JSON, CBOR and Smile for a large synthetic
+# account (PROJECTS x TASKS_PER_PROJECT) with the API's mapper settings. When TOKEN is set it also reports the
+# size of GET /projects from a running app (BASE_URL) for each Accept and Accept-Encoding.
+#
+# Requires: a JDK 21. Live sizes additionally need curl, a running app and TOKEN set to a valid access token.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PROJECTS="${PROJECTS:-500}"
+TASKS_PER_PROJECT="${TASKS_PER_PROJECT:-40}"
+ITERATIONS="${ITERATIONS:-20}"
+BASE_URL="${BASE_URL:-http://localhost:8080/api/v1}"
+RESULTS_DIR="loadtest/results"
+mkdir -p "$RESULTS_DIR"
+
+./mvnw -q -DskipTests compile dependency:build-classpath -Dmdep.outputFile="$RESULTS_DIR/classpath.txt"
+java -cp "target/classes:$(cat "$RESULTS_DIR/classpath.txt")" loadtest/PayloadBenchmark.java \
+  "$PROJECTS" "$TASKS_PER_PROJECT" "$ITERATIONS" | tee "$RESULTS_DIR/payload-benchmark.txt"
+
+if [ -n "${TOKEN:-}" ]; then
+  echo
+  echo "Live GET $BASE_URL/projects"
+  live_size() {
+    curl -sf -o /dev/null -w '%{size_download}' -H "Authorization: Bearer $TOKEN" "$@" "$BASE_URL/projects"
+  }
+  printf '%-10s %12s\n' json "$(live_size -H 'Accept: application/json')"
+  printf '%-10s %12s\n' json+gzip "$(live_size -H 'Accept: application/json' -H 'Accept-Encoding: gzip')"
+  printf '%-10s %12s\n' cbor "$(live_size -H 'Accept: application/cbor')"
+  printf '%-10s %12s\n' smile "$(live_size -H 'Accept: application/x-jackson-smile')"
+fi
@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Compares replanning a synthetic account of TASKS tasks from scratch with replanning after a single task change,
+# and checks the incrementally maintained plan against a full replan after every change. When TOKEN is set it also
+# times GET /plan on a running app (BASE_URL) before and after a task write.
+#
+# Requires: a JDK 21. Live timings additionally need curl, a running app and TOKEN set to a valid access token,
+# and PROJECT_ID/TASK_ID of a task of that user to update.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+TASKS="${TASKS:-10000}"
+ITERATIONS="${ITERATIONS:-200}"
+HOURS_PER_DAY="${HOURS_PER_DAY:-6}"
+BASE_URL="${BASE_URL:-http://localhost:8080/api/v1}"
+RESULTS_DIR="loadtest/results"
+mkdir -p "$RESULTS_DIR"
+
+./mvnw -q -DskipTests compile
+java -cp target/classes loadtest/PlanBenchmark.java "$TASKS" "$ITERATIONS" "$HOURS_PER_DAY" \
+  | tee "$RESULTS_DIR/plan-benchmark.txt"
+
+if [ -n "${TOKEN:-}" ]; then
+  echo
+  echo "Live GET $BASE_URL/plan?hoursPerDay=$HOURS_PER_DAY"
+  plan_time() {
+    curl -sf -o /dev/null -w '%{time_total}' -H "Authorization: Bearer $TOKEN" \
+      "$BASE_URL/plan?hoursPerDay=$HOURS_PER_DAY"
+  }
+  printf '%-24s %8ss\n' "first (full load)" "$(plan_time)"
+  printf '%-24s %8ss\n' "repeat (cached)" "$(plan_time)"
+  if [ -n "${PROJECT_ID:-}" ] && [ -n "${TASK_ID:-}" ]; then
+    curl -sf -o /dev/null -X PATCH -H "Authorization: Bearer $TOKEN" \
+      "$BASE_URL/projects/$PROJECT_ID/tasks/$TASK_ID/status?newStatus=IN_PROGRESS"
+    printf '%-24s %8ss\n' "after a task write" "$(plan_time)"
+  fi
+fi
@@ -0,0 +1,49 @@
+// k6 stress test for concurrent task writes on a single project. Every iteration replaces one of the
+// project's tasks with a new title, estimate and status, so every successful write bumps that task's version.
+// Usage: k6 run -e BASE_URL=http://localhost:8080/api/v1 -e TOKEN=<jwt> -e PROJECT_ID=<id> \
+//          -e TASK_IDS=<id,id,...> loadtest/task-contention.js
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api/v1';
+const TOKEN = __ENV.TOKEN;
+const PROJECT_ID = __ENV.PROJECT_ID;
+const TASK_IDS = (__ENV.TASK_IDS || '').split(',').filter((id) => id !== '');
+const STATUSES = ['NOT_STARTED', 'IN_PROGRESS', 'COMPLETED'];
+
+// Compared by the driver against the sum of task versions once the run is over
+const taskWrites = new Counter('task_writes_ok');
+
+export const options = {
+  scenarios: {
+    contention: {
+      executor: 'shared-iterations',
+      vus: Number(__ENV.VUS || 200),
+      iterations: Number(__ENV.ITERATIONS || 2000),
+      maxDuration: '5m',
+    },
+  },
+  thresholds: {
+    // Writes to one project queue on its row lock, none should fail with 409 or 5xx
+    http_req_failed: ['rate==0'],
+  },
+};
+
+const params = { headers: { Authorization: `Bearer ${TOKEN}`, 'Content-Type': 'application/json' } };
+
+export default function () {
+  const taskId = TASK_IDS[Math.floor(Math.random() * TASK_IDS.length)];
+  const body = JSON.stringify({
+    title: `contention ${__VU}-${__ITER}`,
+    estimatedHours: 1 + Math.floor(Math.random() * 20),
+    difficulty: 1 + Math.floor(Math.random() * 10),
+    status: STATUSES[Math.floor(Math.random() * STATUSES.length)],
+  });
+
+  const response = http.put(`${BASE_URL}/projects/${PROJECT_ID}/tasks/${taskId}`, body,
+    { ...params, tags: { endpoint: 'update-task' } });
+  if (check(response, { 'update 200': (r) => r.status === 200 })) {
+    taskWrites.add(1);
+  }
+}
@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Stress test for concurrent task writes on one project. Starts the app once with write-behind priority
+# recalculation and once fully synchronous, runs hundreds of parallel task updates against a fresh project,
+# then checks that no write was lost and that the stored priority matches a recalculation from the final tasks.
+#
+# Requires: k6, jq, a running PostgreSQL configured in application.properties, and TOKEN set to a valid
+# access token. Exits non-zero when either check fails.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${TOKEN:?TOKEN must be set to a valid access token}"
+PORT="${PORT:-8080}"
+TASKS="${TASKS:-20}"
+RESULTS_DIR="loadtest/results"
+API="http://localhost:$PORT/api/v1"
+AUTH=(-H "Authorization: Bearer $TOKEN" -H "Content-Type: application/json")
+mkdir -p "$RESULTS_DIR"
+
+./mvnw -q -DskipTests package
+JAR="$(ls target/*.jar | grep -v plain | head -n 1)"
+FAILED=0
+
+run_mode() {
+  local mode="$1" write_behind="$2"
+  echo "==> Starting app with priority.write-behind.enabled=$write_behind"
+  java -jar "$JAR" --server.port="$PORT" --priority.write-behind.enabled="$write_behind" \
+    > "$RESULTS_DIR/contention-$mode-app.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+
+  until curl -s -o /dev/null "$API/projects"; do sleep 1; done
+
+  local due project_id task_ids
+  due="$(date -d '+14 days' +%F 2>/dev/null || date -v+14d +%F)"
+  project_id="$(curl -sf "${AUTH[@]}" -X POST "$API/projects" -d "{\"title\":\"contention-$mode-$$\",
+    \"dueDate\":\"$due\",\"status\":\"NOT_STARTED\",\"difficulty\":5}" | jq -r '.projectId')"
+  for i in $(seq 1 "$TASKS"); do
+    curl -sf "${AUTH[@]}" -X POST "$API/projects/$project_id/tasks" -o /dev/null \
+      -d "{\"title\":\"task $i\",\"estimatedHours\":2,\"difficulty\":3,\"status\":\"NOT_STARTED\"}"
+  done
+  task_ids="$(curl -sf "${AUTH[@]}" "$API/projects/$project_id/tasks" | jq -r '[.[].taskId] | join(",")')"
+
+  k6 run -e BASE_URL="$API" -e TOKEN="$TOKEN" -e PROJECT_ID="$project_id" -e TASK_IDS="$task_ids" \
+    --summary-export "$RESULTS_DIR/contention-$mode-summary.json" loadtest/task-contention.js || FAILED=1
+
+  # Let the write-behind queue settle past its debounce window before reading the stored priority
+  sleep 3
+
+  local writes versions stored fresh
+  writes="$(jq -r '.metrics.task_writes_ok.count // 0' "$RESULTS_DIR/contention-$mode-summary.json")"
+  versions="$(curl -sf "${AUTH[@]}" "$API/projects/$project_id/tasks" | jq '[.[].version] | add')"
+  # The status list returns stored priorities, the single project lookup recalculates from the tasks
+  stored="$(curl -sf "${AUTH[@]}" "$API/projects/status?status=NOT_STARTED" \
+    | jq -r ".[] | select(.projectId == $project_id) | .priority")"
+  fresh="$(curl -sf "${AUTH[@]}" "$API/projects/$project_id" | jq -r '.priority')"
+
+  echo "$mode: successful writes=$writes, task version total=$versions, stored priority=$stored, fresh=$fresh"
+  if [ "$writes" != "$versions" ]; then
+    echo "$mode: FAIL lost task writes"
+    FAILED=1
+  fi
+  if [ "$stored" != "$fresh" ]; then
+    echo "$mode: FAIL stored priority is stale"
+    FAILED=1
+  fi
+
+  curl -sf "${AUTH[@]}" -X DELETE "$API/projects/$project_id" -o /dev/null || true
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_mode write-behind true
+run_mode synchronous false
+exit "$FAILED"
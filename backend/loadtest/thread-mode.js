@@ -0,0 +1,36 @@
+// k6 load test for comparing platform and virtual thread request handling.
+// Usage: k6 run -e BASE_URL=http://localhost:8080/api/v1 -e TOKEN=<jwt> loadtest/thread-mode.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api/v1';
+const TOKEN = __ENV.TOKEN;
+
+export const options = {
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  scenarios: {
+    mixed: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: Number(__ENV.VUS || 200) },
+        { duration: __ENV.DURATION || '2m', target: Number(__ENV.VUS || 200) },
+        { duration: '15s', target: 0 },
+      ],
+    },
+  },
+};
+
+const params = { headers: { Authorization: `Bearer ${TOKEN}` } };
+
+export default function () {
+  // Same read-heavy mix the dashboard produces on load: full project list, priority view, all tasks
+  const projects = http.get(`${BASE_URL}/projects`, { ...params, tags: { endpoint: 'projects' } });
+  check(projects, { 'projects 200': (r) => r.status === 200 });
+
+  const priority = http.get(`${BASE_URL}/projects/priority`, { ...params, tags: { endpoint: 'priority' } });
+  check(priority, { 'priority 200': (r) => r.status === 200 });
+
+  const tasks = http.get(`${BASE_URL}/tasks`, { ...params, tags: { endpoint: 'tasks' } });
+  check(tasks, { 'tasks 200': (r) => r.status === 200 });
+}
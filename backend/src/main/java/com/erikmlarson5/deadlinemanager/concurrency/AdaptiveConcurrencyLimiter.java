@@ -0,0 +1,117 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient based concurrency limit for the API. The limit grows while request latency stays near its long-term
+ * average and shrinks as soon as latency rises above it or requests fail, so excess load is rejected up front
+ * instead of queueing on Tomcat threads and the Hikari pool until every request times out
+ */
+public class AdaptiveConcurrencyLimiter {
+    // Weight of each sample in the short and long latency averages
+    private static final double SHORT_SMOOTHING = 0.2;
+    private static final double LONG_SMOOTHING = 0.01;
+    // How far a single sample may move the limit towards its new estimate
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    /**
+     * Limiter starting at the initial limit and adapting within the given bounds
+     * @param initialLimit the concurrency allowed before any latency was measured
+     * @param minLimit the lowest the limit can drop to
+     * @param maxLimit the highest the limit can grow to
+     * @param meterRegistry the registry for the limit and in-flight gauges
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+
+        Gauge.builder("api.concurrency.limit", this, limiter -> limiter.limit)
+                .description("Current adaptive concurrency limit of the API")
+                .register(meterRegistry);
+        Gauge.builder("api.concurrency.inflight", inFlight, AtomicInteger::get)
+                .description("API requests currently holding concurrency permits")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes permits for a request if the limit allows it
+     * @param cost the number of permits, writes cost more than reads
+     * @return true when the request may proceed, it must then call release
+     */
+    public boolean tryAcquire(int cost) {
+        while (true) {
+            int current = inFlight.get();
+            if (current + cost > limit && current > 0) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + cost)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a request's permits and feeds its latency into the limit
+     * @param cost the number of permits taken by tryAcquire
+     * @param rttNanos how long the request took
+     * @param dropped true when the request failed on the server side, which backs the limit off
+     */
+    public void release(int cost, long rttNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndAdd(-cost);
+        update(rttNanos, dropped, inFlightBefore);
+    }
+
+    private synchronized void update(long rttNanos, boolean dropped, int inFlightBefore) {
+        double currentLimit = limit;
+        if (dropped) {
+            limit = Math.max(minLimit, currentLimit * BACKOFF_RATIO);
+            return;
+        }
+
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) * SHORT_SMOOTHING;
+            longRttNanos += (rttNanos - longRttNanos) * LONG_SMOOTHING;
+        }
+
+        // Recovering from a spike, let the baseline follow latency back down rather than hold the limit low
+        if (longRttNanos > shortRttNanos * 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Under 1 the short-term latency exceeds the baseline and the limit shrinks proportionally
+        double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / shortRttNanos));
+        double estimate = currentLimit * gradient + Math.sqrt(currentLimit);
+
+        // Only grow when the limit was actually being used, idle periods prove nothing about capacity
+        if (estimate > currentLimit && inFlightBefore < currentLimit / 2) {
+            return;
+        }
+
+        double smoothed = currentLimit * (1 - LIMIT_SMOOTHING) + estimate * LIMIT_SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    /**
+     * Gets the current limit
+     * @return the concurrency limit, rounded down
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+}
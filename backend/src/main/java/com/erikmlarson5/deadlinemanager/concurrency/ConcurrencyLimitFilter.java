@@ -0,0 +1,118 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import com.erikmlarson5.deadlinemanager.dto.ErrorResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load shedding in front of the API controllers. A request first pays its cost from the user's token bucket,
+ * answered with 429 when the user is over their share, then takes permits from the adaptive concurrency limit,
+ * answered with 503 when the server is at capacity. Both carry Retry-After and are rejected before any
+ * database work, so latency of admitted requests stays bounded under spikes
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD");
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final UserRateLimiter userRateLimiter;
+    private final ObjectMapper objectMapper;
+    private final int writeCost;
+    private final long capacityRetryAfterSeconds;
+
+    private final Counter userRateRejections;
+    private final Counter capacityRejections;
+
+    /**
+     * Filter which admits or sheds API requests
+     * @param limiter the adaptive limit on concurrent requests
+     * @param userRateLimiter the per-user token buckets
+     * @param objectMapper the mapper used to write error bodies
+     * @param writeCost the permits and tokens a write costs, reads cost one
+     * @param capacityRetryAfterSeconds the Retry-After sent with 503 responses
+     * @param meterRegistry the registry for rejection counters
+     */
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, UserRateLimiter userRateLimiter,
+                                  ObjectMapper objectMapper, int writeCost, long capacityRetryAfterSeconds,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.userRateLimiter = userRateLimiter;
+        this.objectMapper = objectMapper;
+        this.writeCost = writeCost;
+        this.capacityRetryAfterSeconds = capacityRetryAfterSeconds;
+        this.userRateRejections = rejectionCounter(meterRegistry, "user-rate");
+        this.capacityRejections = rejectionCounter(meterRegistry, "capacity");
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("api.concurrency.rejected")
+                .description("API requests shed before reaching a controller")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userId = authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+        int cost = READ_METHODS.contains(request.getMethod()) ? 1 : writeCost;
+
+        if (userId != null) {
+            long waitNanos = userRateLimiter.tryConsume(userId, cost);
+            if (waitNanos > 0) {
+                userRateRejections.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(
+                        waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)), "Too many requests, slow down and retry");
+                return;
+            }
+        }
+
+        if (!limiter.tryAcquire(cost)) {
+            if (userId != null) {
+                userRateLimiter.refund(userId, cost);
+            }
+            capacityRejections.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, capacityRetryAfterSeconds,
+                    "Server is at capacity, retry shortly");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            limiter.release(cost, System.nanoTime() - start, dropped);
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponseDTO(message, LocalDateTime.now()));
+    }
+}
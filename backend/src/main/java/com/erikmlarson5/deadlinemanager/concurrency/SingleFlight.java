@@ -0,0 +1,147 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent reads. The first caller for a (userId, operation) key runs the work, callers
+ * arriving while it is in flight wait for and share its result instead of repeating the same queries. Entries
+ * only live while their work runs, capped at max-keys, and a flight older than the timeout is never joined
+ */
+public class SingleFlight {
+    private record Key(String userId, String operation) {
+    }
+
+    private record Flight(CompletableFuture<Object> result, long startedNanos) {
+    }
+
+    private final Map<Key, Flight> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxKeys;
+    private final long timeoutNanos;
+
+    private final Counter leaderCalls;
+    private final Counter sharedCalls;
+    private final Counter bypassedCalls;
+    private final Counter timedOutCalls;
+
+    /**
+     * Single-flight group which reports how calls were served
+     * @param enabled whether reads are coalesced, false runs every call on its own
+     * @param maxKeys the most flights tracked at once, further distinct calls run uncoalesced
+     * @param timeout how long a caller waits for a shared result, and the age after which a flight is not joined
+     * @param meterRegistry the registry for call and in-flight metrics
+     */
+    public SingleFlight(boolean enabled, int maxKeys, Duration timeout, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        this.timeoutNanos = timeout.toNanos();
+
+        this.leaderCalls = callCounter(meterRegistry, "leader");
+        this.sharedCalls = callCounter(meterRegistry, "shared");
+        this.bypassedCalls = callCounter(meterRegistry, "bypassed");
+        this.timedOutCalls = callCounter(meterRegistry, "timeout");
+        Gauge.builder("singleflight.inflight", inFlight, Map::size)
+                .description("Distinct reads currently in flight")
+                .register(meterRegistry);
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("singleflight.calls")
+                .description("Coalescable reads, by whether they ran the work or shared another call's result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the work, or waits for an identical call of the same user that is already running it
+     * @param userId the id of the user, results are never shared between users
+     * @param operation the endpoint and parameters that identify identical reads
+     * @param work the read to run, called outside any transaction of the caller
+     * @return the result of this call's work or of the shared flight
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String userId, String operation, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        Key key = new Key(userId, operation);
+        Flight flight = new Flight(new CompletableFuture<>(), System.nanoTime());
+        Flight existing = inFlight.get(key);
+
+        if (existing != null && System.nanoTime() - existing.startedNanos() > timeoutNanos) {
+            // A stuck flight is taken over rather than joined, its own caller still completes it
+            if (inFlight.replace(key, existing, flight)) {
+                return lead(key, flight, work);
+            }
+            existing = inFlight.get(key);
+        }
+
+        if (existing == null) {
+            if (inFlight.size() >= maxKeys) {
+                bypassedCalls.increment();
+                return work.get();
+            }
+            existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, work);
+            }
+        }
+
+        sharedCalls.increment();
+        try {
+            return (T) existing.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timedOutCalls.increment();
+            return work.get();
+        } catch (ExecutionException e) {
+            // Followers see the same failure as the caller that ran the work, e.g. a 404
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Shared read failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared read", e);
+        }
+    }
+
+    private <T> T lead(Key key, Flight flight, Supplier<T> work) {
+        leaderCalls.increment();
+        try {
+            T result = work.get();
+            flight.result().complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Stops new callers from joining the user's running flights, so reads that arrive after one of the
+     * user's writes never share a result computed before it
+     * @param userId the id of the user who wrote
+     */
+    public void invalidate(String userId) {
+        if (!inFlight.isEmpty()) {
+            inFlight.keySet().removeIf(key -> key.userId().equals(userId));
+        }
+    }
+}
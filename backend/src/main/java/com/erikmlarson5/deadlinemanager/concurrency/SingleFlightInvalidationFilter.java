@@ -0,0 +1,53 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Detaches the authenticated user's in-flight reads around every mutating API request, before it runs and
+ * again once it has committed, so no read issued after the write joins a flight that started before it
+ */
+public class SingleFlightInvalidationFilter extends OncePerRequestFilter {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final SingleFlight singleFlight;
+
+    /**
+     * Filter which invalidates the user's flights on writes
+     * @param singleFlight the single-flight group shared by the read endpoints
+     */
+    public SingleFlightInvalidationFilter(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || READ_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        invalidateCurrentUser();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            invalidateCurrentUser();
+        }
+    }
+
+    private void invalidateCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            singleFlight.invalidate(authentication.getName());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user token buckets, so one user's bulk import cannot take the whole concurrency limit from everyone
+ * else. Each bucket refills at the configured rate up to the burst size, and buckets that have refilled
+ * completely are dropped because a fresh bucket is identical
+ */
+public class UserRateLimiter {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final double tokensPerSecond;
+    private final double burst;
+    private final int maxBuckets;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Rate limiter giving every user the same refill rate and burst
+     * @param tokensPerSecond the sustained cost per second each user may spend
+     * @param burst the most tokens a user can accumulate
+     * @param maxBuckets the number of tracked users above which idle buckets are evicted early
+     */
+    public UserRateLimiter(double tokensPerSecond, double burst, int maxBuckets) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Spends tokens from the user's bucket
+     * @param userId the id of the user
+     * @param cost the number of tokens the request costs
+     * @return 0 when the tokens were spent, otherwise the nanoseconds until the bucket can pay the cost
+     */
+    public long tryConsume(String userId, int cost) {
+        if (buckets.size() >= maxBuckets && !buckets.containsKey(userId)) {
+            evictIdle();
+        }
+        return buckets.computeIfAbsent(userId, id -> new TokenBucket(burst, System.nanoTime()))
+                .tryConsume(cost, System.nanoTime());
+    }
+
+    /**
+     * Returns tokens for a request that was rejected for another reason after paying
+     * @param userId the id of the user
+     * @param cost the number of tokens to give back
+     */
+    public void refund(String userId, int cost) {
+        TokenBucket bucket = buckets.get(userId);
+        if (bucket != null) {
+            bucket.refund(cost);
+        }
+    }
+
+    /**
+     * Drops every bucket that has refilled to its burst size, called periodically to bound memory
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private final class TokenBucket {
+        private double tokens;
+        private long refilledAtNanos;
+
+        private TokenBucket(double tokens, long refilledAtNanos) {
+            this.tokens = tokens;
+            this.refilledAtNanos = refilledAtNanos;
+        }
+
+        private synchronized long tryConsume(int cost, long now) {
+            refill(now);
+            if (tokens >= cost) {
+                tokens -= cost;
+                return 0;
+            }
+            return (long) Math.ceil((cost - tokens) / tokensPerSecond * NANOS_PER_SECOND);
+        }
+
+        private synchronized void refund(int cost) {
+            tokens = Math.min(burst, tokens + cost);
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAtNanos) * tokensPerSecond / NANOS_PER_SECOND);
+            refilledAtNanos = now;
+        }
+    }
+}
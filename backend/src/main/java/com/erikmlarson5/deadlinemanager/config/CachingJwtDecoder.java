@@ -0,0 +1,112 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JWT decoder which remembers tokens that already passed signature and claim validation, so the
+ * frontend's repeated requests with the same access token skip the RSA check. Entries are keyed
+ * by a SHA-256 hash of the token, evicted least-recently-used, and never served past their exp.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+    private final JwtDecoder delegate;
+    private final Clock clock;
+    private final Map<String, Jwt> cache;
+    private final Timer cacheHitTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+
+    /**
+     * Caching decoder which delegates cache misses to a fully validating decoder
+     * @param delegate the decoder that verifies signatures and validates claims
+     * @param maxEntries the maximum number of cached tokens
+     * @param meterRegistry the registry for verification timers
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, MeterRegistry meterRegistry) {
+        this(delegate, maxEntries, meterRegistry, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, int maxEntries, MeterRegistry meterRegistry, Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Jwt> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.cacheHitTimer = verificationTimer(meterRegistry, "cache_hit");
+        this.verifiedTimer = verificationTimer(meterRegistry, "verified");
+        this.rejectedTimer = verificationTimer(meterRegistry, "rejected");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long start = System.nanoTime();
+        String key = hash(token);
+
+        Jwt cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            if (isUnexpired(cached)) {
+                cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return cached;
+            }
+            synchronized (cache) {
+                cache.remove(key);
+            }
+        }
+
+        try {
+            Jwt jwt = delegate.decode(token);
+            // Tokens without exp could otherwise be served forever
+            if (jwt.getExpiresAt() != null) {
+                synchronized (cache) {
+                    cache.put(key, jwt);
+                }
+            }
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return jwt;
+        } catch (JwtException e) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private boolean isUnexpired(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        return expiresAt != null && expiresAt.isAfter(clock.instant());
+    }
+
+    private static Timer verificationTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("auth.jwt.decode")
+                .description("Time spent decoding and verifying bearer tokens")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hashed);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.erikmlarson5.deadlinemanager.concurrency.AdaptiveConcurrencyLimiter;
+import com.erikmlarson5.deadlinemanager.concurrency.ConcurrencyLimitFilter;
+import com.erikmlarson5.deadlinemanager.concurrency.UserRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limiting and per-user rate limiting of the API. The filter runs right after the security
+ * filter chain, so requests are authenticated but no controller or database work has started when they are shed.
+ * concurrency-limit.enabled is read when the filter is registered instead of through a bean condition, which an
+ * AOT-processed build would fix at build time
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Value("${concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${concurrency-limit.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${concurrency-limit.min-limit:4}")
+    private int minLimit;
+
+    @Value("${concurrency-limit.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${concurrency-limit.write-cost:2}")
+    private int writeCost;
+
+    @Value("${concurrency-limit.retry-after:1s}")
+    private Duration retryAfter;
+
+    @Value("${concurrency-limit.user.rate:20}")
+    private double userRate;
+
+    @Value("${concurrency-limit.user.burst:40}")
+    private double userBurst;
+
+    @Value("${concurrency-limit.user.max-buckets:10000}")
+    private int maxBuckets;
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, meterRegistry);
+    }
+
+    @Bean
+    public UserRateLimiter userRateLimiter(TaskScheduler taskScheduler) {
+        UserRateLimiter userRateLimiter = new UserRateLimiter(userRate, userBurst, maxBuckets);
+        taskScheduler.scheduleWithFixedDelay(userRateLimiter::evictIdle, Duration.ofMinutes(1));
+        return userRateLimiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            AdaptiveConcurrencyLimiter limiter, UserRateLimiter userRateLimiter, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, userRateLimiter, objectMapper, writeCost,
+                        Math.max(1, retryAfter.toSeconds()), meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
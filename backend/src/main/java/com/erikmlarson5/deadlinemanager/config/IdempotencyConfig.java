@@ -0,0 +1,36 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.erikmlarson5.deadlinemanager.idempotency.IdempotencyFilter;
+import com.erikmlarson5.deadlinemanager.idempotency.IdempotencyStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Idempotency-Key handling for writes. The filter runs after authentication and load shedding, so a retry
+ * rejected with 429 or 503 never claims its key and only admitted requests are deduplicated. Turning
+ * idempotency.enabled off leaves the filter unregistered at startup, in AOT-processed builds as well
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    @Value("${idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${idempotency.max-body-size:1MB}")
+    private DataSize maxBodySize;
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore,
+                                                                       ObjectMapper objectMapper) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(idempotencyStore, objectMapper, (int) maxBodySize.toBytes()));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 2);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,119 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.erikmlarson5.deadlinemanager.dto.BulkDeleteResultDTO;
+import com.erikmlarson5.deadlinemanager.dto.CategoryFacetDTO;
+import com.erikmlarson5.deadlinemanager.dto.CategoryFacetView;
+import com.erikmlarson5.deadlinemanager.dto.CriticalPathDTO;
+import com.erikmlarson5.deadlinemanager.dto.DependencyView;
+import com.erikmlarson5.deadlinemanager.dto.DueDateView;
+import com.erikmlarson5.deadlinemanager.dto.ErrorResponseDTO;
+import com.erikmlarson5.deadlinemanager.dto.PlanAllocationDTO;
+import com.erikmlarson5.deadlinemanager.dto.PlanDayDTO;
+import com.erikmlarson5.deadlinemanager.dto.PlanLateTaskDTO;
+import com.erikmlarson5.deadlinemanager.dto.PlanTaskView;
+import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectPriorityDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOwnerView;
+import com.erikmlarson5.deadlinemanager.dto.ProjectView;
+import com.erikmlarson5.deadlinemanager.dto.SearchResultDTO;
+import com.erikmlarson5.deadlinemanager.dto.StudyPlanDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskScheduleDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskStatusBulkInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskStatusBulkResultDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
+import com.erikmlarson5.deadlinemanager.entity.ArchivedProject;
+import com.erikmlarson5.deadlinemanager.entity.ArchivedTask;
+import com.erikmlarson5.deadlinemanager.entity.ArchivedTaskDependency;
+import com.erikmlarson5.deadlinemanager.entity.Category;
+import com.erikmlarson5.deadlinemanager.entity.IdempotencyRecord;
+import com.erikmlarson5.deadlinemanager.entity.Project;
+import com.erikmlarson5.deadlinemanager.entity.Task;
+import com.erikmlarson5.deadlinemanager.entity.TaskDependency;
+import com.erikmlarson5.deadlinemanager.metrics.RequestStatisticsSessionListener;
+import com.erikmlarson5.deadlinemanager.reminder.Reminder;
+import com.erikmlarson5.deadlinemanager.repository.ArchivedProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.ArchivedTaskDependencyRepository;
+import com.erikmlarson5.deadlinemanager.repository.ArchivedTaskRepository;
+import com.erikmlarson5.deadlinemanager.repository.CategoryRepository;
+import com.erikmlarson5.deadlinemanager.repository.IdempotencyRecordRepository;
+import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskDependencyRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Reflection and proxy hints for the AOT/CDS and native image builds. Spring AOT infers most of
+ * these from the context, but anything reached only through Hibernate, Jackson or a JDK proxy
+ * created outside the context is registered here explicitly.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.ApplicationHints.class)
+public class NativeHintsConfig {
+
+    static class ApplicationHints implements RuntimeHintsRegistrar {
+        private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Hibernate reads and writes entity fields directly and calls lifecycle callbacks reflectively
+            for (Class<?> entity : new Class<?>[] {Project.class, Task.class, Category.class,
+                    ArchivedProject.class, ArchivedTask.class, ArchivedTaskDependency.class, IdempotencyRecord.class,
+                    TaskDependency.class}) {
+                hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+
+            // JPQL constructor expressions instantiate the read projections reflectively
+            for (Class<?> view : new Class<?>[] {ProjectView.class, TaskView.class, CategoryFacetView.class,
+                    DueDateView.class, PlanTaskView.class, DependencyView.class, ProjectOwnerView.class}) {
+                hints.reflection().registerType(view, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            }
+
+            // Jackson binds request bodies and serializes responses through getters and setters
+            bindingHints.registerReflectionHints(hints.reflection(), ProjectInputDTO.class, ProjectOutputDTO.class,
+                    TaskInputDTO.class, TaskOutputDTO.class, TaskStatusBulkInputDTO.class,
+                    TaskStatusBulkResultDTO.class, ProjectPriorityDTO.class, BulkDeleteResultDTO.class,
+                    SearchResultDTO.class, CategoryFacetDTO.class, ErrorResponseDTO.class, Reminder.class,
+                    StudyPlanDTO.class, PlanDayDTO.class, PlanAllocationDTO.class, PlanLateTaskDTO.class,
+                    CriticalPathDTO.class, TaskScheduleDTO.class);
+
+            // Spring Data repositories are JDK proxies over the repository interface
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(ProjectRepository.class));
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(TaskRepository.class));
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(ArchivedProjectRepository.class));
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(ArchivedTaskRepository.class));
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(CategoryRepository.class));
+            hints.proxies().registerJdkProxy(
+                    AopProxyUtils.completeJdkProxyInterfaces(IdempotencyRecordRepository.class));
+            hints.proxies().registerJdkProxy(
+                    AopProxyUtils.completeJdkProxyInterfaces(TaskDependencyRepository.class));
+            hints.proxies().registerJdkProxy(
+                    AopProxyUtils.completeJdkProxyInterfaces(ArchivedTaskDependencyRepository.class));
+
+            // Instantiated by name from hibernate.session.events.auto
+            hints.reflection().registerType(RequestStatisticsSessionListener.class,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+            // datasource-proxy wraps JDBC objects in JDK proxies
+            for (Class<?> jdbcType : new Class<?>[] {Connection.class, Statement.class, PreparedStatement.class,
+                    CallableStatement.class}) {
+                hints.proxies().registerJdkProxy(ProxyJdbcObject.class, jdbcType);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A JWK source which loads the issuer's key set on first use instead of at startup. The last
+ * fetched key set is optionally written to a local file so a restart can verify tokens without
+ * reaching the identity provider, and the remote set is only refetched when a token references
+ * an unknown key id.
+ */
+public class PersistentJwkSource implements JWKSource<SecurityContext> {
+    private static final Logger log = LoggerFactory.getLogger(PersistentJwkSource.class);
+
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+    private static final int READ_TIMEOUT_MS = 2000;
+    private static final int SIZE_LIMIT_BYTES = 50 * 1024;
+
+    // Prevents tokens with a bogus kid from turning every request into a JWKS fetch
+    private static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    private final URL jwksUrl;
+    private final Path cacheFile;
+    // Not synchronized: loading blocks on the network and the cache file, which would pin a virtual thread
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile JWKSet jwkSet;
+    private volatile Instant lastFetch = Instant.EPOCH;
+
+    /**
+     * Lazy JWK source backed by a remote key set and an optional local cache file
+     * @param jwksUrl the issuer's JWKS endpoint
+     * @param cacheFile the file to persist fetched keys to, or null to disable persistence
+     */
+    public PersistentJwkSource(URL jwksUrl, Path cacheFile) {
+        this.jwksUrl = jwksUrl;
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        JWKSet current = jwkSet;
+        if (current == null) {
+            current = loadInitial();
+        }
+
+        List<JWK> matches = jwkSelector.select(current);
+        if (matches.isEmpty()) {
+            // An unknown key id usually means the issuer rotated its signing keys
+            matches = jwkSelector.select(refresh(current));
+        }
+        return matches;
+    }
+
+    /**
+     * Loads the key set from the cache file when present, otherwise from the issuer
+     * @return the loaded key set
+     */
+    private JWKSet loadInitial() throws KeySourceException {
+        loadLock.lock();
+        try {
+            if (jwkSet != null) {
+                return jwkSet;
+            }
+
+            if (cacheFile != null && Files.isReadable(cacheFile)) {
+                try {
+                    jwkSet = JWKSet.parse(Files.readString(cacheFile));
+                    log.info("Loaded {} signing keys from {}", jwkSet.getKeys().size(), cacheFile);
+                    return jwkSet;
+                } catch (IOException | ParseException e) {
+                    log.warn("Ignoring unreadable JWKS cache file {}: {}", cacheFile, e.getMessage());
+                }
+            }
+            return fetch();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Refetches the key set unless another thread already did or the last fetch was too recent
+     * @param seen the key set the caller failed to find a key in
+     * @return the newest available key set
+     */
+    private JWKSet refresh(JWKSet seen) throws KeySourceException {
+        loadLock.lock();
+        try {
+            if (jwkSet != seen) {
+                return jwkSet;
+            }
+            if (Instant.now().isBefore(lastFetch.plus(MIN_REFRESH_INTERVAL))) {
+                return seen;
+            }
+            return fetch();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private JWKSet fetch() throws KeySourceException {
+        lastFetch = Instant.now();
+        try {
+            JWKSet fetched = JWKSet.load(jwksUrl, CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS, SIZE_LIMIT_BYTES);
+            jwkSet = fetched;
+            persist(fetched);
+            return fetched;
+        } catch (IOException | ParseException e) {
+            // Keep verifying with the keys we already have rather than rejecting every token
+            if (jwkSet != null) {
+                log.warn("JWKS refresh from {} failed, keeping cached keys: {}", jwksUrl, e.getMessage());
+                return jwkSet;
+            }
+            throw new KeySourceException("Unable to load JWKS from " + jwksUrl, e);
+        }
+    }
+
+    private void persist(JWKSet fetched) {
+        if (cacheFile == null) {
+            return;
+        }
+        try {
+            Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            Files.writeString(tempFile, fetched.toPublicJWKSet().toString());
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write JWKS cache file {}: {}", cacheFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.erikmlarson5.deadlinemanager.reminder.FileReminderSender;
+import com.erikmlarson5.deadlinemanager.reminder.ReminderSender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Default delivery of deadline reminders. Reminders are appended to a local file until a real sender, e.g. mail
+ * or push, is declared as a ReminderSender bean
+ */
+@Configuration
+public class ReminderConfig {
+
+    @Value("${reminders.sender.file:reminders.log}")
+    private String reminderFile;
+
+    @Bean
+    @ConditionalOnMissingBean(ReminderSender.class)
+    public ReminderSender fileReminderSender(ObjectMapper objectMapper) {
+        return new FileReminderSender(Path.of(reminderFile), objectMapper);
+    }
+}
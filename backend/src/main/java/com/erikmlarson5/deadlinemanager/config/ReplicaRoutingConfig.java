@@ -0,0 +1,126 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.erikmlarson5.deadlinemanager.routing.ReadYourWritesFilter;
+import com.erikmlarson5.deadlinemanager.routing.ReadYourWritesTracker;
+import com.erikmlarson5.deadlinemanager.routing.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to read replicas when datasource.replicas.urls is set. The application data
+ * source becomes a LazyConnectionDataSourceProxy over the primary pool, which only fetches a physical
+ * connection once Spring has marked the transaction read-only and then takes it from the ReplicaDataSource.
+ * Without replica urls this configuration is skipped and Spring Boot's single data source is used unchanged.
+ * Read-your-writes is tracked per node, running more than one node needs sticky sessions, see ReadYourWritesTracker
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReplicaRoutingConfig implements DisposableBean {
+    private final List<AutoCloseable> pools = new ArrayList<>();
+
+    @Value("${datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${datasource.replicas.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${datasource.replicas.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${datasource.replicas.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${datasource.replicas.max-lag:2s}")
+    private Duration maxLag;
+
+    @Value("${datasource.replicas.lag-check-interval:1s}")
+    private Duration lagCheckInterval;
+
+    @Value("${datasource.replicas.sticky-window:30s}")
+    private Duration stickyWindow;
+
+    // Replay lag in seconds, 0 while the replica has replayed everything it received
+    @Value("${datasource.replicas.lag-query:select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() " +
+            "then 0 else extract(epoch from now() - pg_last_xact_replay_timestamp()) end}")
+    private String lagQuery;
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(stickyWindow);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWritesTracker tracker) {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(tracker));
+    }
+
+    /**
+     * Builds the routing data source. The primary and replica pools are created here rather than exposed as
+     * beans, so the query-counting proxy wraps only this data source and counts each statement once
+     * @param properties the spring.datasource properties of the primary
+     * @param environment the environment holding spring.datasource.hikari settings
+     * @param tracker the tracker of each user's latest write
+     * @param taskScheduler the scheduler running replica lag checks
+     * @param meterRegistry the registry for routing metrics
+     * @return a data source sending read-only transactions to replicas
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 ReadYourWritesTracker tracker, TaskScheduler taskScheduler,
+                                 MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        pools.add(primary);
+
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setConnectionTimeout(primary.getConnectionTimeout());
+            replica.setReadOnly(true);
+            // Start without connecting so an unreachable replica never blocks startup
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+
+        ReplicaDataSource replicaDataSource = new ReplicaDataSource(primary, replicas, tracker, lagQuery, maxLag,
+                lagCheckInterval, meterRegistry);
+        pools.add(replicaDataSource);
+        taskScheduler.scheduleWithFixedDelay(replicaDataSource::refreshLag, lagCheckInterval);
+
+        LazyConnectionDataSourceProxy routingDataSource = new LazyConnectionDataSourceProxy(primary);
+        routingDataSource.setReadOnlyDataSource(replicaDataSource);
+        return routingDataSource;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (AutoCloseable pool : pools) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Hibernate second-level and query caches on Ehcache through JCache. Project, Task, Category and
+ * the Project.tasks collection are cached read-write, and regions are bounded in ehcache.xml. Per-region hit
+ * and miss counts are published by hibernate-micrometer when hibernate.generate_statistics is on
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${cache.second-level.enabled:true}")
+    private boolean enabled;
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", enabled);
+            properties.put("hibernate.cache.use_query_cache", enabled);
+            if (!enabled) {
+                return;
+            }
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+            properties.put("hibernate.javax.cache.uri", "ehcache.xml");
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        };
+    }
+}
@@ -1,6 +1,12 @@
 package com.erikmlarson5.deadlinemanager.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,13 +17,16 @@ import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.JwtDecoders;
 import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
 import java.util.List;
 
 @Configuration
@@ -32,25 +41,57 @@ public class SecurityConfig {
     @Value("${allowed.origins}")
     private String allowedOrigins;
 
+    @Value("${auth.jwks-uri:}")
+    private String jwksUri; // Defaults to the issuer's well-known JWKS location when blank
+
+    @Value("${auth.jwks.cache-file:}")
+    private String jwksCacheFile;
+
+    @Value("${auth.token-cache.max-size:10000}")
+    private int tokenCacheMaxSize;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
         // Configure security to require JWT authentication for all requests, use JWTs for OAuth2 resource server, and set up CORS
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> auth
+                .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
                 .anyRequest().authenticated()
             )
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.decoder(jwtDecoder()))
+                .jwt(jwt -> jwt.decoder(jwtDecoder))
             );
         return http.build();
     }
 
     @Bean
-    JwtDecoder jwtDecoder() {
-        // Set up a JWT decoder that validates the issuer and audience of incoming JWTs
-        NimbusJwtDecoder jwtDecoder = JwtDecoders.fromOidcIssuerLocation(issuer);
+    JwtDecoder jwtDecoder(MeterRegistry meterRegistry) throws MalformedURLException {
+        Path cacheFile = jwksCacheFile.isBlank() ? null : Path.of(jwksCacheFile);
+        return buildJwtDecoder(resolveJwksUrl(), cacheFile, issuer, audience, tokenCacheMaxSize, meterRegistry);
+    }
+
+    /**
+     * Builds the decoder that validates the issuer and audience of incoming JWTs. Keys are loaded on the first
+     * request (or from the cache file) so startup does not depend on reaching Auth0
+     * @param jwksUrl the issuer's JWKS endpoint
+     * @param cacheFile the file fetched keys are persisted to, or null to disable persistence
+     * @param issuer the expected iss claim
+     * @param audience the audience that must be present in the aud claim
+     * @param tokenCacheMaxSize the number of verified tokens kept in memory
+     * @param meterRegistry the registry for verification timers
+     * @return the caching, validating decoder
+     */
+    static JwtDecoder buildJwtDecoder(URL jwksUrl, Path cacheFile, String issuer, String audience,
+                                      int tokenCacheMaxSize, MeterRegistry meterRegistry) {
+        PersistentJwkSource jwkSource = new PersistentJwkSource(jwksUrl, cacheFile);
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Claims are checked by the Spring validators below, not by Nimbus
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> { });
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
 
         // Custom validator to check the audience claim in the JWT
         OAuth2TokenValidator<Jwt> audienceValidator = token -> {
@@ -69,7 +110,20 @@ public class SecurityConfig {
 
         jwtDecoder.setJwtValidator(withAudience);
 
-        return jwtDecoder;
+        // Skip signature verification for tokens that were already validated and have not expired
+        return new CachingJwtDecoder(jwtDecoder, tokenCacheMaxSize, meterRegistry);
+    }
+
+    /**
+     * Resolves the JWKS endpoint without an OIDC discovery round trip
+     * @return the configured JWKS URL, or the issuer's well-known JWKS location
+     */
+    private URL resolveJwksUrl() throws MalformedURLException {
+        if (!jwksUri.isBlank()) {
+            return URI.create(jwksUri).toURL();
+        }
+        String base = issuer.endsWith("/") ? issuer : issuer + "/";
+        return URI.create(base + ".well-known/jwks.json").toURL();
     }
 
     @Bean
@@ -78,6 +132,8 @@ public class SecurityConfig {
         config.setAllowedOrigins(List.of(allowedOrigins));
         config.setAllowedMethods(List.of("GET","POST","PUT", "PATCH","DELETE","OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("X-Query-Count", "X-Query-Time-Ms", "ETag", "Retry-After",
+                "Idempotent-Replayed"));
         config.setAllowCredentials(true);
 
         // Register the CORS configuration for all paths
@@ -0,0 +1,39 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.erikmlarson5.deadlinemanager.concurrency.SingleFlight;
+import com.erikmlarson5.deadlinemanager.concurrency.SingleFlightInvalidationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Single-flight coalescing of identical concurrent reads, such as the overlapping project and task list
+ * requests the frontend fires on page load
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    @Value("${singleflight.enabled:true}")
+    private boolean enabled;
+
+    @Value("${singleflight.max-keys:1000}")
+    private int maxKeys;
+
+    @Value("${singleflight.timeout:5s}")
+    private Duration timeout;
+
+    @Bean
+    public SingleFlight singleFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight(enabled, maxKeys, timeout, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SingleFlightInvalidationFilter> singleFlightInvalidationFilter(
+            SingleFlight singleFlight) {
+        return new FilterRegistrationBean<>(new SingleFlightInvalidationFilter(singleFlight));
+    }
+}
@@ -0,0 +1,101 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Enables @Async and @Scheduled work and reports how the thread mode interacts with the
+ * connection pool. When spring.threads.virtual.enabled=true, Spring Boot runs Tomcat requests,
+ * @Async methods and scheduled jobs on virtual threads, so the Hikari pool (not the Tomcat
+ * thread pool) becomes the real limit on concurrent database work.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class VirtualThreadConfig {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    // Every handler holds a connection for the whole transaction, so more waiters than this per
+    // pooled connection usually means requests are queueing on Hikari instead of doing work
+    private static final int MAX_WAITERS_PER_CONNECTION = 4;
+
+    private final DataSource dataSource;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int tomcatMaxThreads;
+
+    /**
+     * Thread mode configuration which inspects the pool behind the injected data source
+     * @param dataSource the application data source
+     */
+    public VirtualThreadConfig(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Logs the active thread mode and Hikari sizing guidance once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportThreadMode() {
+        HikariDataSource hikari = unwrapHikari();
+        if (hikari == null) {
+            log.info("Request threads: {}, connection pool is not Hikari", threadModeName());
+            return;
+        }
+
+        int poolSize = hikari.getMaximumPoolSize();
+        if (!virtualThreadsEnabled) {
+            log.info("Request threads: platform (max {}), Hikari maximumPoolSize={}", tomcatMaxThreads, poolSize);
+            if (tomcatMaxThreads > poolSize * MAX_WAITERS_PER_CONNECTION) {
+                log.info("Up to {} request threads may block waiting on {} connections; " +
+                        "connectionTimeout={}ms bounds that wait", tomcatMaxThreads, poolSize,
+                        hikari.getConnectionTimeout());
+            }
+            return;
+        }
+
+        // Virtual threads remove the Tomcat cap, so Hikari alone bounds concurrent JDBC work and
+        // connectionTimeout decides how long excess requests queue before failing
+        log.info("Request threads: virtual (unbounded), Hikari maximumPoolSize={} is now the concurrency limit " +
+                "for database work, connectionTimeout={}ms", poolSize, hikari.getConnectionTimeout());
+        if (hikari.getConnectionTimeout() > 5000) {
+            log.warn("Hikari connectionTimeout={}ms is long for virtual-thread mode; a burst of requests will " +
+                    "park on the pool instead of failing fast. Consider 2000-5000ms", hikari.getConnectionTimeout());
+        }
+    }
+
+    /**
+     * Finds the Hikari pool behind the data source, if any
+     * @return the Hikari data source, or null when another pool is in use
+     */
+    private HikariDataSource unwrapHikari() {
+        if (dataSource instanceof HikariDataSource hikari) {
+            return hikari;
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            log.debug("Could not unwrap data source to Hikari", e);
+        }
+        return null;
+    }
+
+    private String threadModeName() {
+        return virtualThreadsEnabled ? "virtual" : "platform";
+    }
+}
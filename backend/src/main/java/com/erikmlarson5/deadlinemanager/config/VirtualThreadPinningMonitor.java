@@ -0,0 +1,136 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams the JFR jdk.VirtualThreadPinned event in-process and reports where virtual threads are
+ * pinned to their carrier. Pinning inside the JDBC driver, Hikari or Hibernate blocks a carrier
+ * for the whole database round trip, which is what turns virtual-thread mode slower than the
+ * platform pool. Enabled with diagnostics.virtual-threads.pinning.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "diagnostics.virtual-threads.pinning.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    // Package prefixes grouped into the layer that caused the pin, checked top of stack first
+    private static final Map<String, String> ORIGINS = Map.of(
+            "org.postgresql.", "jdbc",
+            "com.zaxxer.hikari.", "hikari",
+            "org.hibernate.", "hibernate",
+            "org.springframework.", "spring",
+            "com.erikmlarson5.", "application"
+    );
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final Map<String, LongAdder> pinnedCounts = new ConcurrentHashMap<>();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private RecordingStream stream;
+
+    /**
+     * Pinning monitor which only records pins lasting at least the given threshold
+     * @param threshold minimum pinned duration to record
+     */
+    public VirtualThreadPinningMonitor(
+            @Value("${diagnostics.virtual-threads.pinning.threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public synchronized void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold {})", threshold);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    /**
+     * Gets the number of recorded pins grouped by the layer that caused them
+     * @return a sorted snapshot of pin counts per origin
+     */
+    public Map<String, Long> getPinnedCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        pinnedCounts.forEach((origin, count) -> snapshot.put(origin, count.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Gets the total time virtual threads have spent pinned above the threshold
+     * @return the total pinned duration
+     */
+    public Duration getTotalPinnedTime() {
+        return Duration.ofNanos(pinnedNanos.sum());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String origin = classifyOrigin(frames);
+
+        pinnedCounts.computeIfAbsent(origin, key -> new LongAdder()).increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+
+        StringBuilder trace = new StringBuilder();
+        for (int i = 0; i < Math.min(frames.size(), LOGGED_FRAMES); i++) {
+            RecordedFrame frame = frames.get(i);
+            trace.append("\n\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+        }
+        log.warn("Virtual thread pinned for {}ms in {}{}", event.getDuration().toMillis(), origin, trace);
+    }
+
+    /**
+     * Finds the first frame belonging to a known layer
+     * @param frames the stack frames of the pinned event, innermost first
+     * @return the name of the layer, or "other" when no frame matches
+     */
+    private String classifyOrigin(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod() == null) {
+                continue;
+            }
+            String className = frame.getMethod().getType().getName();
+            for (Map.Entry<String, String> origin : ORIGINS.entrySet()) {
+                if (className.startsWith(origin.getKey())) {
+                    return origin.getValue();
+                }
+            }
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,57 @@
+package com.erikmlarson5.deadlinemanager.controller;
+
+import com.erikmlarson5.deadlinemanager.concurrency.SingleFlight;
+import com.erikmlarson5.deadlinemanager.dto.StudyPlanDTO;
+import com.erikmlarson5.deadlinemanager.planner.StudyPlanner;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * A controller for the study plan spreading a user's remaining task hours across the coming days
+ */
+@Validated
+@RestController
+@RequestMapping(path = "/api/v1")
+public class PlanController {
+    private final StudyPlanner studyPlanner;
+    private final SingleFlight singleFlight;
+
+    /**
+     * Plan controller which connects to the study planner
+     * @param studyPlanner the injected planner holding recently planned users' tasks
+     * @param singleFlight the injected group that coalesces identical concurrent reads
+     */
+    @Autowired
+    public PlanController(StudyPlanner studyPlanner, SingleFlight singleFlight) {
+        this.studyPlanner = studyPlanner;
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Creates an endpoint to plan all incomplete task hours across the days from today, earliest deadline first
+     * @param hoursPerDay the hours available for work each day
+     * @param days the number of days whose allocations are listed
+     * @return a response entity containing the plan and the tasks it cannot finish before their deadline
+     */
+    @GetMapping(path = "/plan")
+    public ResponseEntity<StudyPlanDTO> getPlan(
+            @RequestParam(defaultValue = "4") @DecimalMin("0.25") @DecimalMax("24") double hoursPerDay,
+            @RequestParam(defaultValue = "14") @Positive @Max(366) int days,
+            @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        StudyPlanDTO plan = singleFlight.execute(userId, "plan?hoursPerDay=" + hoursPerDay + "&days=" + days,
+                () -> studyPlanner.plan(userId, hoursPerDay, days));
+        return ResponseEntity.ok(plan);
+    }
+}
@@ -1,13 +1,20 @@
 package com.erikmlarson5.deadlinemanager.controller;
 
+import com.erikmlarson5.deadlinemanager.concurrency.SingleFlight;
+import com.erikmlarson5.deadlinemanager.dto.BulkDeleteResultDTO;
+import com.erikmlarson5.deadlinemanager.dto.CategoryFacetDTO;
 import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
 import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.service.ArchiveService;
 import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.erikmlarson5.deadlinemanager.utils.ETags;
 import com.erikmlarson5.deadlinemanager.utils.Status;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +23,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.oauth2.jwt.Jwt;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A controller which sets all project related endpoints and connects to the service logic layer
@@ -24,15 +32,24 @@ import java.util.List;
 @RestController
 @RequestMapping(path = "/api/v1/projects")
 public class ProjectController {
+    private static final int MAX_IDS = 500;
+
     private final ProjectService projectService;
+    private final ArchiveService archiveService;
+    private final SingleFlight singleFlight;
 
     /**
      * Project controller which connects to the service layer
      * @param projectService the injected service to connect to
+     * @param archiveService the injected service for archived projects
+     * @param singleFlight the injected group that coalesces identical concurrent reads
      */
     @Autowired
-    public ProjectController(ProjectService projectService) {
+    public ProjectController(ProjectService projectService, ArchiveService archiveService,
+                             SingleFlight singleFlight) {
         this.projectService = projectService;
+        this.archiveService = archiveService;
+        this.singleFlight = singleFlight;
     }
 
     /**
@@ -44,19 +61,25 @@ public class ProjectController {
     public ResponseEntity<ProjectOutputDTO> createProject(@RequestBody @Valid ProjectInputDTO dto, @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         ProjectOutputDTO createdProject = projectService.createProject(dto, userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdProject);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(ETags.of(createdProject.getVersion()))
+                .body(createdProject);
     }
 
     /**
      * Creates an endpoint to get a project by its unique id
      * @param id the id of the project to get
-     * @return a response entity containing the found project
+     * @return a response entity containing the found project, tagged with its version, task revision and priority
+     * so a matching If-None-Match is answered with 304 Not Modified only while none of them changed
      */
     @GetMapping(path = "/{id}")
     public ResponseEntity<ProjectOutputDTO> getProjectById(@PathVariable @Positive Long id, @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        ProjectOutputDTO project = projectService.getProjectById(id, userId);
-        return ResponseEntity.ok(project);
+        ProjectOutputDTO project = singleFlight.execute(userId, "projects/" + id,
+                () -> projectService.getProjectById(id, userId));
+        return ResponseEntity.ok()
+                .eTag(ETags.ofAggregate(project.getVersion(), project.getAggregateRevision(), project.getPriority()))
+                .body(project);
     }
 
     /**
@@ -66,10 +89,53 @@ public class ProjectController {
     @GetMapping
     public ResponseEntity<List<ProjectOutputDTO>> getAllProjects(@AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        List<ProjectOutputDTO> allProjects = projectService.getAllProjects(userId);
+        List<ProjectOutputDTO> allProjects = singleFlight.execute(userId, "projects",
+                () -> projectService.getAllProjects(userId));
         return ResponseEntity.ok(allProjects);
     }
 
+    /**
+     * Creates an endpoint to get many projects by id, e.g. ?ids=1,2,3
+     * @param ids the ids of the projects, at most 500, ids not owned by the user are left out
+     * @return a response entity containing the found projects
+     */
+    @GetMapping(params = {"ids", "!fields"})
+    public ResponseEntity<List<ProjectOutputDTO>> getProjectsByIds(
+            @RequestParam @Size(max = MAX_IDS) List<@Positive Long> ids, @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        List<ProjectOutputDTO> projects = singleFlight.execute(userId, "projects?ids=" + ids,
+                () -> projectService.getProjectsByIds(ids, userId));
+        return ResponseEntity.ok(projects);
+    }
+
+    /**
+     * Creates an endpoint to get only some fields of projects, e.g. ?ids=1,2,3&fields=title,dueDate,priority
+     * @param ids the ids of the projects, at most 500, or absent for all of the user's projects
+     * @param fields the names of the fields to return, projectId is always included
+     * @return a response entity containing one object per project with just the requested fields
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getProjectFields(
+            @RequestParam(required = false) @Size(max = MAX_IDS) List<@Positive Long> ids,
+            @RequestParam List<String> fields, @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        List<Map<String, Object>> projects = singleFlight.execute(userId, "projects?ids=" + ids + "&fields=" + fields,
+                () -> projectService.getProjectFields(ids, fields, userId));
+        return ResponseEntity.ok(projects);
+    }
+
+    /**
+     * Creates an endpoint to get the user's categories with project counts per status
+     * @return a response entity containing the category facets
+     */
+    @GetMapping(path = "/categories")
+    public ResponseEntity<List<CategoryFacetDTO>> getCategoryFacets(@AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        List<CategoryFacetDTO> facets = singleFlight.execute(userId, "projects/categories",
+                () -> projectService.getCategoryFacets(userId));
+        return ResponseEntity.ok(facets);
+    }
+
     /**
      * Creates an endpoint to get all projects by a given category
      * @param category the category to search by
@@ -107,16 +173,37 @@ public class ProjectController {
     }
 
     /**
-     * Creates an endpoint to get all completed projects
+     * Creates an endpoint to get all completed projects, or one page of archived projects
+     * @param archived whether to page through the archive instead of the active completed projects
+     * @param page the zero-based archive page, ignored for active projects
+     * @param size the archive page size, ignored for active projects
      * @return a response entity containing the found projects
      */
     @GetMapping(path = "/completed")
-    public ResponseEntity<List<ProjectOutputDTO>> getCompletedProjects(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<List<ProjectOutputDTO>> getCompletedProjects(@RequestParam(defaultValue = "false") boolean archived,
+                                                                       @RequestParam(defaultValue = "0") @PositiveOrZero int page,
+                                                                       @RequestParam(defaultValue = "20") @Positive @Max(100) int size,
+                                                                       @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        List<ProjectOutputDTO> completedProjects = projectService.getCompletedProjects(userId);
+        List<ProjectOutputDTO> completedProjects = archived
+                ? archiveService.getArchivedProjects(userId, page, size)
+                : projectService.getCompletedProjects(userId);
         return ResponseEntity.ok(completedProjects);
     }
 
+    /**
+     * Creates an endpoint to move an archived project back into the active projects
+     * @param id the id of the archived project
+     * @return a response entity containing the restored project
+     */
+    @PostMapping(path = "/archive/{id}/restore")
+    public ResponseEntity<ProjectOutputDTO> restoreProject(@PathVariable @Positive Long id,
+                                                           @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        ProjectOutputDTO restoredProject = archiveService.restoreProject(id, userId);
+        return ResponseEntity.ok(restoredProject);
+    }
+
     /**
      * Creates an endpoint to get all project sorted by priority
      * @return a response entity containing the found projects, sorted by priority descending
@@ -124,7 +211,8 @@ public class ProjectController {
     @GetMapping(path = "/priority")
     public ResponseEntity<List<ProjectOutputDTO>> getProjectsSortedByPriority(@AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        List<ProjectOutputDTO> sortedProjects = projectService.getProjectsSortedByPriority(userId);
+        List<ProjectOutputDTO> sortedProjects = singleFlight.execute(userId, "projects/priority",
+                () -> projectService.getProjectsSortedByPriority(userId));
         return ResponseEntity.ok(sortedProjects);
     }
 
@@ -132,21 +220,25 @@ public class ProjectController {
      * Creates an endpoint to update a specific project
      * @param id the id of the project to be updated
      * @param dto the new inputDTO to be saved
+     * @param ifMatch the project's ETag, when present the update only applies to that version
      * @return a response entity of the updated project
      */
     @PutMapping(path = "/{id}")
     public ResponseEntity<ProjectOutputDTO> updateProject(@PathVariable @Positive Long id,
                                                           @RequestBody @Valid ProjectInputDTO dto,
+                                                          @RequestHeader(value = "If-Match", required = false)
+                                                          String ifMatch,
                                                           @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        ProjectOutputDTO updatedProject = projectService.updateProject(id, dto, userId);
-        return ResponseEntity.ok(updatedProject);
+        ProjectOutputDTO updatedProject = projectService.updateProject(id, dto, userId, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedProject.getVersion())).body(updatedProject);
     }
 
     /**
      * Creates an endpoint to update a specific project's status field
      * @param id the id of the project to be updated
      * @param newStatus the new enum status to be saved
+     * @param ifMatch the project's ETag, when present the update only applies to that version
      * @return a response entity of the updated project
      */
         @PatchMapping(path = "/{id}/status")
@@ -155,10 +247,12 @@ public class ProjectController {
                                     @Pattern(regexp = "(?i)^(NOT_STARTED|IN_PROGRESS|COMPLETED)$",
                                         message = "newStatus must be one of: NOT_STARTED, IN_PROGRESS, COMPLETED")
                                     String newStatus,
+                                    @RequestHeader(value = "If-Match", required = false) String ifMatch,
                                     @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        ProjectOutputDTO updatedProject = projectService.updateProjectStatus(id, newStatus, userId);
-        return ResponseEntity.ok(updatedProject);
+        ProjectOutputDTO updatedProject = projectService.updateProjectStatus(id, newStatus, userId,
+                ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedProject.getVersion())).body(updatedProject);
     }
 
     /**
@@ -175,12 +269,28 @@ public class ProjectController {
     /**
      * Creates an endpoint to delete a specific project
      * @param id the id of the project to be deleted
+     * @param ifMatch the project's ETag, when present the delete only applies to that version
      * @return a response entity that displays the successful deletion
      */
     @DeleteMapping(path = "/{id}")
-    public ResponseEntity<Void> deleteProject(@PathVariable @Positive Long id, @AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<Void> deleteProject(@PathVariable @Positive Long id,
+                                              @RequestHeader(value = "If-Match", required = false) String ifMatch,
+                                              @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        projectService.deleteProject(id, userId);
+        projectService.deleteProject(id, userId, ETags.parseIfMatch(ifMatch));
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Creates an endpoint to delete all projects completed more than X days ago
+     * @param olderThanDays the minimum number of days since completion
+     * @return a response entity containing the number of deleted projects and tasks
+     */
+    @DeleteMapping(path = "/completed")
+    public ResponseEntity<BulkDeleteResultDTO> deleteCompletedProjects(@RequestParam @PositiveOrZero int olderThanDays,
+                                                                       @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        BulkDeleteResultDTO result = projectService.deleteCompletedProjectsOlderThan(olderThanDays, userId);
+        return ResponseEntity.ok(result);
+    }
 }
@@ -0,0 +1,56 @@
+package com.erikmlarson5.deadlinemanager.controller;
+
+import com.erikmlarson5.deadlinemanager.dto.SearchResultDTO;
+import com.erikmlarson5.deadlinemanager.search.SearchBackend;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * A controller for full-text search across a user's projects and tasks
+ */
+@Validated
+@RestController
+@RequestMapping(path = "/api/v1")
+public class SearchController {
+    private final SearchBackend searchBackend;
+
+    /**
+     * Search controller which connects to the active search backend
+     * @param searchBackend the injected backend, Postgres full-text search outside the test profile
+     */
+    @Autowired
+    public SearchController(SearchBackend searchBackend) {
+        this.searchBackend = searchBackend;
+    }
+
+    /**
+     * Creates an endpoint to search project titles, categories and descriptions and task titles and descriptions
+     * @param q the free-text query
+     * @param page the zero-based page number
+     * @param size the number of results per page
+     * @return a response entity containing the ranked matches with highlighted text
+     */
+    @GetMapping(path = "/search")
+    public ResponseEntity<List<SearchResultDTO>> search(@RequestParam @NotBlank @Size(max = 200) String q,
+                                                        @RequestParam(defaultValue = "0") @PositiveOrZero int page,
+                                                        @RequestParam(defaultValue = "20") @Positive @Max(100) int size,
+                                                        @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        List<SearchResultDTO> results = searchBackend.search(userId, q.trim(), page, size);
+        return ResponseEntity.ok(results);
+    }
+}
@@ -1,13 +1,19 @@
 package com.erikmlarson5.deadlinemanager.controller;
 
+import com.erikmlarson5.deadlinemanager.concurrency.SingleFlight;
+import com.erikmlarson5.deadlinemanager.dto.CriticalPathDTO;
 import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
 import com.erikmlarson5.deadlinemanager.dto.TaskInputDTO;
 import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskStatusBulkInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskStatusBulkResultDTO;
 import com.erikmlarson5.deadlinemanager.service.TaskService;
+import com.erikmlarson5.deadlinemanager.utils.ETags;
 import com.erikmlarson5.deadlinemanager.utils.Status;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +23,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * A controller which sets all task related endpoints and connects to the service logic layer
@@ -25,15 +32,20 @@ import java.util.List;
 @RestController
 @RequestMapping(path = "/api/v1")
 public class TaskController {
+    private static final int MAX_IDS = 500;
+
     private final TaskService taskService;
+    private final SingleFlight singleFlight;
 
     /**
      * Task controller which connects to the service layer
      * @param taskService the injected service to connect to
+     * @param singleFlight the injected group that coalesces identical concurrent reads
      */
     @Autowired
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, SingleFlight singleFlight) {
         this.taskService = taskService;
+        this.singleFlight = singleFlight;
     }
 
     /**
@@ -55,7 +67,8 @@ public class TaskController {
      * Creates an endpoint to get a task by its unique id
      * @param projectId the id of the associated project
      * @param taskId the id of the task to get
-     * @return a response entity containing the found task
+     * @return a response entity containing the found task, tagged with its version so a matching
+     * If-None-Match is answered with 304 Not Modified
      */
     @GetMapping(path = "projects/{projectId}/tasks/{taskId}")
     public ResponseEntity<TaskOutputDTO> getTaskById(@PathVariable @Positive Long projectId,
@@ -63,7 +76,7 @@ public class TaskController {
                                                      @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         TaskOutputDTO task = taskService.getTaskById(projectId, taskId, userId);
-        return ResponseEntity.ok(task);
+        return ResponseEntity.ok().eTag(ETags.of(task.getVersion())).body(task);
     }
 
     /**
@@ -73,10 +86,40 @@ public class TaskController {
     @GetMapping(path = "/tasks")
     public ResponseEntity<List<TaskOutputDTO>> getAllTasks(@AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        List<TaskOutputDTO> allTasks = taskService.getAllTasks(userId);
+        List<TaskOutputDTO> allTasks = singleFlight.execute(userId, "tasks", () -> taskService.getAllTasks(userId));
         return ResponseEntity.ok(allTasks);
     }
 
+    /**
+     * Creates an endpoint to get many tasks by id, e.g. ?ids=1,2,3
+     * @param ids the ids of the tasks, at most 500, ids not owned by the user are left out
+     * @return a response entity containing the found tasks
+     */
+    @GetMapping(path = "/tasks", params = {"ids", "!fields"})
+    public ResponseEntity<List<TaskOutputDTO>> getTasksByIds(
+            @RequestParam @Size(max = MAX_IDS) List<@Positive Long> ids, @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        List<TaskOutputDTO> tasks = singleFlight.execute(userId, "tasks?ids=" + ids,
+                () -> taskService.getTasksByIds(ids, userId));
+        return ResponseEntity.ok(tasks);
+    }
+
+    /**
+     * Creates an endpoint to get only some fields of tasks, e.g. ?ids=1,2,3&fields=title,status
+     * @param ids the ids of the tasks, at most 500, or absent for all of the user's tasks
+     * @param fields the names of the fields to return, taskId is always included
+     * @return a response entity containing one object per task with just the requested fields
+     */
+    @GetMapping(path = "/tasks", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getTaskFields(
+            @RequestParam(required = false) @Size(max = MAX_IDS) List<@Positive Long> ids,
+            @RequestParam List<String> fields, @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        List<Map<String, Object>> tasks = singleFlight.execute(userId, "tasks?ids=" + ids + "&fields=" + fields,
+                () -> taskService.getTaskFields(ids, fields, userId));
+        return ResponseEntity.ok(tasks);
+    }
+
     /**
      * Creates an endpoint to get all tasks in a given project
      * @param projectId the id of the associated project
@@ -118,15 +161,19 @@ public class TaskController {
      * @param projectId the id of the associated project
      * @param taskId the id of the task to update
      * @param dto the new inputDTO to be saved
+     * @param ifMatch the task's ETag, when present the update only applies to that version
      * @return a response entity of the updated task
      */
     @PutMapping(path = "/projects/{projectId}/tasks/{taskId}")
     public ResponseEntity<ProjectOutputDTO> updateTask(@PathVariable @Positive Long projectId,
                                                        @PathVariable @Positive Long taskId,
                                                        @RequestBody @Valid TaskInputDTO dto,
+                                                       @RequestHeader(value = "If-Match", required = false)
+                                                       String ifMatch,
                                                        @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        ProjectOutputDTO updatedProject = taskService.updateTask(projectId, taskId, dto, userId);
+        ProjectOutputDTO updatedProject = taskService.updateTask(projectId, taskId, dto, userId,
+                ETags.parseIfMatch(ifMatch));
         return ResponseEntity.ok(updatedProject);
     }
 
@@ -135,6 +182,7 @@ public class TaskController {
      * @param projectId the id of the associated project
      * @param taskId the id of the task to update
      * @param newStatus the new enum status to be saved
+     * @param ifMatch the task's ETag, when present the update only applies to that version
      * @return a response entity of the updated task
      */
     @PatchMapping(path = "/projects/{projectId}/tasks/{taskId}/status")
@@ -144,24 +192,90 @@ public class TaskController {
                                      @Pattern(regexp = "(?i)^(NOT_STARTED|IN_PROGRESS|COMPLETED)$",
                                          message = "newStatus must be one of: NOT_STARTED, IN_PROGRESS, COMPLETED")
                                      String newStatus,
+                                     @RequestHeader(value = "If-Match", required = false) String ifMatch,
                                      @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        ProjectOutputDTO updatedProject = taskService.updateTaskStatus(projectId, taskId, newStatus, userId);
+        ProjectOutputDTO updatedProject = taskService.updateTaskStatus(projectId, taskId, newStatus, userId,
+                ETags.parseIfMatch(ifMatch));
         return ResponseEntity.ok(updatedProject);
     }
 
+    /**
+     * Creates an endpoint to update the status of many tasks at once
+     * @param dto the inputDTO of task ids and their new status
+     * @return a response entity of the update counts and the recalculated project priorities
+     */
+    @PatchMapping(path = "/tasks/status")
+    public ResponseEntity<TaskStatusBulkResultDTO> updateTaskStatuses(@RequestBody @Valid TaskStatusBulkInputDTO dto,
+                                                                      @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        TaskStatusBulkResultDTO result = taskService.updateTaskStatuses(dto, userId);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Creates an endpoint to delete a specific project
      * @param projectId the id of the associated project
      * @param taskId the id of the task to update
+     * @param ifMatch the task's ETag, when present the delete only applies to that version
      * @return a response entity of the updated task
      */
     @DeleteMapping("/projects/{projectId}/tasks/{taskId}")
     public ResponseEntity<ProjectOutputDTO> deleteTask(@PathVariable @Positive Long projectId,
                                                        @PathVariable @Positive Long taskId,
+                                                       @RequestHeader(value = "If-Match", required = false)
+                                                       String ifMatch,
                                                        @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        ProjectOutputDTO updatedProject = taskService.deleteTask(projectId, taskId, userId);
+        ProjectOutputDTO updatedProject = taskService.deleteTask(projectId, taskId, userId,
+                ETags.parseIfMatch(ifMatch));
         return ResponseEntity.ok(updatedProject);
     }
+
+    /**
+     * Creates an endpoint to make a task depend on another task of the same project
+     * @param projectId the id of the associated project
+     * @param taskId the id of the dependent task
+     * @param dependsOnId the id of the task it depends on
+     * @return a response entity of the project's critical path, 409 when the dependency would close a cycle
+     */
+    @PutMapping(path = "/projects/{projectId}/tasks/{taskId}/dependencies/{dependsOnId}")
+    public ResponseEntity<CriticalPathDTO> addDependency(@PathVariable @Positive Long projectId,
+                                                         @PathVariable @Positive Long taskId,
+                                                         @PathVariable @Positive Long dependsOnId,
+                                                         @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        CriticalPathDTO criticalPath = taskService.addDependency(projectId, taskId, dependsOnId, userId);
+        return ResponseEntity.ok(criticalPath);
+    }
+
+    /**
+     * Creates an endpoint to remove a dependency between two tasks
+     * @param projectId the id of the associated project
+     * @param taskId the id of the dependent task
+     * @param dependsOnId the id of the task it depends on
+     * @return a response entity of the project's critical path
+     */
+    @DeleteMapping(path = "/projects/{projectId}/tasks/{taskId}/dependencies/{dependsOnId}")
+    public ResponseEntity<CriticalPathDTO> removeDependency(@PathVariable @Positive Long projectId,
+                                                            @PathVariable @Positive Long taskId,
+                                                            @PathVariable @Positive Long dependsOnId,
+                                                            @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        CriticalPathDTO criticalPath = taskService.removeDependency(projectId, taskId, dependsOnId, userId);
+        return ResponseEntity.ok(criticalPath);
+    }
+
+    /**
+     * Creates an endpoint to get a project's critical path and the slack of each of its tasks
+     * @param projectId the id of the associated project
+     * @return a response entity of the project's critical path
+     */
+    @GetMapping(path = "/projects/{projectId}/critical-path")
+    public ResponseEntity<CriticalPathDTO> getCriticalPath(@PathVariable @Positive Long projectId,
+                                                           @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        CriticalPathDTO criticalPath = taskService.getCriticalPath(projectId, userId);
+        return ResponseEntity.ok(criticalPath);
+    }
 }
@@ -0,0 +1,345 @@
+package com.erikmlarson5.deadlinemanager.dependency;
+
+import com.erikmlarson5.deadlinemanager.dto.CriticalPathDTO;
+import com.erikmlarson5.deadlinemanager.dto.DependencyView;
+import com.erikmlarson5.deadlinemanager.dto.TaskScheduleDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
+import com.erikmlarson5.deadlinemanager.repository.TaskDependencyRepository;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the dependency graphs of recently used projects in memory, so the critical path feeding a project's
+ * priority is read without a query and an edit only recomputes the tasks it reaches. Writes apply to a held
+ * graph straight away, so the writing request already sees them, and the graph is dropped again when the
+ * transaction rolls back or a load overlapped it. A graph the writing transaction loads itself, after its write,
+ * already includes the write and is kept once it commits, so a write to a project without a held graph costs one
+ * load rather than one for the write and another for the next read. Writes made on another node are picked up
+ * when the held graph expires after the state ttl
+ */
+@Component
+public class DependencyGraphs {
+    private static final int WRITE_STRIPES = 64;
+
+    private static final class ProjectGraph {
+        private final TaskGraph graph;
+        private final long loadedAtMillis;
+
+        private ProjectGraph(TaskGraph graph, long loadedAtMillis) {
+            this.graph = graph;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    private final Map<Long, ProjectGraph> graphs = new ConcurrentHashMap<>();
+    // Completed writes per stripe of project ids, a load that overlapped one is not kept
+    private final AtomicLongArray completedWrites = new AtomicLongArray(WRITE_STRIPES);
+    private final TaskDependencyRepository dependencyRepository;
+    private final Duration stateTtl;
+    private final int maxProjects;
+    private final Counter fullLoads;
+    private final Counter incrementalUpdates;
+
+    /**
+     * Dependency graphs loaded through the dependency repository
+     * @param dependencyRepository the injected repository of dependency projections
+     * @param meterRegistry the injected registry for graph metrics
+     * @param stateTtl how long a project's graph is held before it is reloaded
+     * @param maxProjects the most project graphs held at once
+     */
+    @Autowired
+    public DependencyGraphs(TaskDependencyRepository dependencyRepository, MeterRegistry meterRegistry,
+                            @Value("${dependencies.state-ttl:5m}") Duration stateTtl,
+                            @Value("${dependencies.max-projects:10000}") int maxProjects) {
+        this.dependencyRepository = dependencyRepository;
+        this.stateTtl = stateTtl;
+        this.maxProjects = maxProjects;
+        this.fullLoads = changeCounter(meterRegistry, "full");
+        this.incrementalUpdates = changeCounter(meterRegistry, "incremental");
+        Gauge.builder("dependencies.projects", graphs, Map::size)
+                .description("Projects whose dependency graph is held in memory")
+                .register(meterRegistry);
+    }
+
+    private static Counter changeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("dependencies.graph.changes")
+                .description("Dependency graph state changes, by whether a graph was loaded or edited in place")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets the longest chain of dependent incomplete work in each project, loading the graphs not held with one
+     * query
+     * @param projectIds the ids of the projects, already scoped to one user
+     * @return the chain hours keyed by project id, 0 for projects without dependencies
+     */
+    public Map<Long, Double> dependencyChainHours(Collection<Long> projectIds) {
+        Map<Long, Double> hours = new HashMap<>();
+        for (Map.Entry<Long, TaskGraph> entry : graphs(projectIds).entrySet()) {
+            TaskGraph graph = entry.getValue();
+            synchronized (graph) {
+                hours.put(entry.getKey(), hours(graph.criticalPathMinutes()));
+            }
+        }
+        return hours;
+    }
+
+    /**
+     * Gets the longest chain of dependent incomplete work in a project
+     * @param projectId the id of the project, null for one not saved yet
+     * @return the chain hours, 0 without dependencies
+     */
+    public double dependencyChainHours(Long projectId) {
+        if (projectId == null) {
+            return 0.0;
+        }
+        return dependencyChainHours(List.of(projectId)).getOrDefault(projectId, 0.0);
+    }
+
+    /**
+     * Schedules a project's tasks as early as their dependencies allow, with unlimited parallel work
+     * @param projectId the id of the project
+     * @param tasks the project's tasks
+     * @return the critical path of the project and each task's earliest start and slack
+     */
+    public CriticalPathDTO schedule(Long projectId, List<TaskView> tasks) {
+        TaskGraph graph = graphs(List.of(projectId)).get(projectId);
+        synchronized (graph) {
+            // Tasks without dependencies can run alongside any chain, the longest of them may still be critical
+            long criticalPath = graph.criticalPathMinutes();
+            for (TaskView task : tasks) {
+                if (!graph.contains(task.taskId())) {
+                    criticalPath = Math.max(criticalPath, duration(task));
+                }
+            }
+
+            List<TaskScheduleDTO> schedule = new ArrayList<>(tasks.size());
+            for (TaskView task : tasks) {
+                boolean held = graph.contains(task.taskId());
+                long duration = duration(task);
+                long earliestStart = held ? graph.earliestStartMinutes(task.taskId()) : 0;
+                long slack = criticalPath - (held ? graph.longestPathMinutes(task.taskId()) : duration);
+                boolean critical = task.status() != Status.COMPLETED && duration > 0 && slack == 0;
+                schedule.add(new TaskScheduleDTO(task.taskId(), task.title(), task.estimatedHours(),
+                        task.status() == null ? null : task.status().name(), graph.prerequisites(task.taskId()),
+                        hours(earliestStart), hours(slack), critical, graph.isBlocked(task.taskId())));
+            }
+            return new CriticalPathDTO(projectId, hours(criticalPath), schedule);
+        }
+    }
+
+    /**
+     * Adds a dependency the caller has checked and saved
+     * @param dependency the new dependency with the estimate and status of both tasks
+     */
+    public void dependencyAdded(DependencyView dependency) {
+        // The database found no cycle, a held graph rejecting the dependency is out of date
+        update(dependency.projectId(), graph -> graph.addDependency(dependency.taskId(),
+                dependency.taskEstimatedHours(), dependency.taskStatus(), dependency.dependsOnTaskId(),
+                dependency.dependsOnEstimatedHours(), dependency.dependsOnStatus()));
+    }
+
+    /**
+     * Removes a deleted dependency
+     * @param projectId the id of the project
+     * @param taskId the id of the dependent task
+     * @param dependsOnTaskId the id of the prerequisite task
+     */
+    public void dependencyRemoved(Long projectId, Long taskId, Long dependsOnTaskId) {
+        update(projectId, graph -> {
+            graph.removeDependency(taskId, dependsOnTaskId);
+            return true;
+        });
+    }
+
+    /**
+     * Applies a task's new estimate or status
+     * @param projectId the id of the task's project
+     * @param taskId the id of the task
+     * @param estimatedHours the task's estimate
+     * @param status the task's status
+     */
+    public void taskChanged(Long projectId, Long taskId, Float estimatedHours, Status status) {
+        update(projectId, graph -> {
+            graph.updateTask(taskId, estimatedHours, status);
+            return true;
+        });
+    }
+
+    /**
+     * Removes a deleted task, the database has already removed its dependencies
+     * @param projectId the id of the task's project
+     * @param taskId the id of the deleted task
+     */
+    public void taskDeleted(Long projectId, Long taskId) {
+        update(projectId, graph -> {
+            graph.removeTask(taskId);
+            return true;
+        });
+    }
+
+    /**
+     * Drops a project's graph after a set-based write to its tasks or its deletion, the next read reloads it
+     * @param projectId the id of the project
+     */
+    public void projectChanged(Long projectId) {
+        graphs.remove(projectId);
+        afterCompletion(projectId, null);
+    }
+
+    // change returns false when the held graph turned out to be out of date, it is dropped then
+    private void update(Long projectId, Predicate<TaskGraph> change) {
+        // Projects without a held graph get theirs loaded, with this write, on their next read
+        ProjectGraph held = graphs.get(projectId);
+        if (held != null) {
+            synchronized (held.graph) {
+                if (change.test(held.graph)) {
+                    incrementalUpdates.increment();
+                } else {
+                    graphs.remove(projectId, held);
+                    held = null;
+                }
+            }
+        }
+        afterCompletion(projectId, held);
+    }
+
+    // A rolled back write leaves its edit in the held graph, and a load by another transaction during the write
+    // may have missed it. Only the graph this write edited, or one this transaction loaded itself, is kept
+    private void afterCompletion(Long projectId, ProjectGraph updated) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            completedWrites.incrementAndGet(stripe(projectId));
+            return;
+        }
+        Map<Long, ProjectGraph> loadedByWriter = loadedByWritingTransaction();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                completedWrites.incrementAndGet(stripe(projectId));
+                ProjectGraph current = graphs.get(projectId);
+                if (current != null && (status != STATUS_COMMITTED
+                        || (current != updated && current != loadedByWriter.get(projectId)))) {
+                    graphs.remove(projectId, current);
+                }
+            }
+        });
+    }
+
+    // Graphs loaded by the current transaction once it has written, bound to it until it completes
+    @SuppressWarnings("unchecked")
+    private Map<Long, ProjectGraph> loadedByWritingTransaction() {
+        Map<Long, ProjectGraph> loaded = (Map<Long, ProjectGraph>) TransactionSynchronizationManager.getResource(this);
+        if (loaded == null) {
+            Map<Long, ProjectGraph> bound = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DependencyGraphs.this);
+                }
+            });
+            loaded = bound;
+        }
+        return loaded;
+    }
+
+    private Map<Long, TaskGraph> graphs(Collection<Long> projectIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, TaskGraph> found = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long projectId : projectIds) {
+            ProjectGraph held = graphs.get(projectId);
+            if (held != null && now - held.loadedAtMillis < stateTtl.toMillis()) {
+                found.put(projectId, held.graph);
+            } else {
+                missing.add(projectId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(load(missing, now));
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, TaskGraph> load(Set<Long> projectIds, long now) {
+        // Only bound once the current transaction has written, reads leave it unset
+        Map<Long, ProjectGraph> loadedByWriter = (Map<Long, ProjectGraph>) TransactionSynchronizationManager
+                .getResource(this);
+        long[] writesBefore = new long[WRITE_STRIPES];
+        for (int stripe = 0; stripe < WRITE_STRIPES; stripe++) {
+            writesBefore[stripe] = completedWrites.get(stripe);
+        }
+
+        Map<Long, List<DependencyView>> dependenciesByProject = new HashMap<>();
+        for (DependencyView dependency : dependencyRepository.findViewsByProjectIds(projectIds)) {
+            dependenciesByProject.computeIfAbsent(dependency.projectId(), id -> new ArrayList<>()).add(dependency);
+        }
+
+        Map<Long, TaskGraph> loaded = new HashMap<>();
+        for (Long projectId : projectIds) {
+            TaskGraph graph = TaskGraph.of(dependenciesByProject.getOrDefault(projectId, List.of()));
+            fullLoads.increment();
+            loaded.put(projectId, graph);
+
+            if (graphs.size() >= maxProjects && !graphs.containsKey(projectId)) {
+                evictOldest();
+            }
+            ProjectGraph held = new ProjectGraph(graph, now);
+            graphs.put(projectId, held);
+            // Put before checking, so a write completing in between either sees this graph or is seen here
+            if (completedWrites.get(stripe(projectId)) != writesBefore[stripe(projectId)]) {
+                graphs.remove(projectId, held);
+            } else if (loadedByWriter != null) {
+                loadedByWriter.put(projectId, held);
+            }
+        }
+        return loaded;
+    }
+
+    private void evictOldest() {
+        Long oldestProject = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<Long, ProjectGraph> entry : graphs.entrySet()) {
+            if (entry.getValue().loadedAtMillis < oldest) {
+                oldest = entry.getValue().loadedAtMillis;
+                oldestProject = entry.getKey();
+            }
+        }
+        if (oldestProject != null) {
+            graphs.remove(oldestProject);
+        }
+    }
+
+    private static int stripe(Long projectId) {
+        return Math.floorMod(projectId.hashCode(), WRITE_STRIPES);
+    }
+
+    private static long duration(TaskView task) {
+        return task.status() == Status.COMPLETED ? 0 : TaskGraph.minutes(task.estimatedHours());
+    }
+
+    private static double hours(long minutes) {
+        return Math.round(minutes / 60.0 * 100.0) / 100.0;
+    }
+}
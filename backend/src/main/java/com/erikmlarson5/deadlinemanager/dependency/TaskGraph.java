@@ -0,0 +1,442 @@
+package com.erikmlarson5.deadlinemanager.dependency;
+
+import com.erikmlarson5.deadlinemanager.dto.DependencyView;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The dependency DAG of one project's tasks with its critical path kept current under edits. Only tasks with at
+ * least one dependency are held. Each task keeps a topological order, maintained on insert with the Pearce-Kelly
+ * algorithm which only reorders the tasks between the two ends of a new edge and detects a cycle while doing so,
+ * along with its earliest start (the longest chain of prerequisite work before it) and its tail (the longest
+ * chain from its start to the end of the project). An edit recomputes those only for the tasks downstream or
+ * upstream of it, in topological order so each is recomputed once, and stops where a value does not change.
+ * Durations are whole minutes and a completed task takes none. Not thread-safe, callers synchronize
+ */
+public class TaskGraph {
+    private static final Comparator<Node> TOPOLOGICAL = Comparator.comparingInt(node -> node.order);
+
+    private static final class Node {
+        private final Long taskId;
+        private long duration;
+        private boolean completed;
+        private int order;
+        private long earliestStart;
+        private long tail;
+        private final Set<Node> predecessors = new HashSet<>();
+        private final Set<Node> successors = new HashSet<>();
+
+        private Node(Long taskId, long duration, boolean completed) {
+            this.taskId = taskId;
+            this.duration = duration;
+            this.completed = completed;
+            this.tail = duration;
+        }
+
+        private long longestPath() {
+            return earliestStart + tail;
+        }
+    }
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    // Multiset of the longest path through each task, its largest key is the critical path
+    private final TreeMap<Long, Integer> longestPaths = new TreeMap<>();
+    private int nextOrder;
+
+    /**
+     * Builds the graph of a project's dependencies in one pass
+     * @param dependencies the project's dependency rows, with the estimate and status of both tasks
+     * @return the graph
+     * @throws IllegalStateException when the dependencies contain a cycle
+     */
+    public static TaskGraph of(Collection<DependencyView> dependencies) {
+        TaskGraph graph = new TaskGraph();
+        for (DependencyView dependency : dependencies) {
+            Node task = graph.node(dependency.taskId(), dependency.taskEstimatedHours(), dependency.taskStatus());
+            Node prerequisite = graph.node(dependency.dependsOnTaskId(), dependency.dependsOnEstimatedHours(),
+                    dependency.dependsOnStatus());
+            prerequisite.successors.add(task);
+            task.predecessors.add(prerequisite);
+        }
+        graph.computeAll();
+        return graph;
+    }
+
+    private Node node(Long taskId, Float estimatedHours, Status status) {
+        return nodes.computeIfAbsent(taskId, id -> {
+            boolean completed = status == Status.COMPLETED;
+            Node node = new Node(id, completed ? 0 : minutes(estimatedHours), completed);
+            node.order = nextOrder++;
+            addLongestPath(node.longestPath());
+            return node;
+        });
+    }
+
+    // Kahn's algorithm for the order, then one forward and one backward pass
+    private void computeAll() {
+        Map<Node, Integer> unresolved = new HashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            unresolved.put(node, node.predecessors.size());
+            if (node.predecessors.isEmpty()) {
+                ready.add(node);
+            }
+        }
+        List<Node> order = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            order.add(node);
+            for (Node successor : node.successors) {
+                if (unresolved.merge(successor, -1, Integer::sum) == 0) {
+                    ready.add(successor);
+                }
+            }
+        }
+        if (order.size() != nodes.size()) {
+            throw new IllegalStateException("Task dependencies contain a cycle");
+        }
+
+        nextOrder = 0;
+        for (Node node : order) {
+            node.order = nextOrder++;
+            node.earliestStart = 0;
+            for (Node predecessor : node.predecessors) {
+                node.earliestStart = Math.max(node.earliestStart, predecessor.earliestStart + predecessor.duration);
+            }
+        }
+        longestPaths.clear();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Node node = order.get(i);
+            long longestSuccessor = 0;
+            for (Node successor : node.successors) {
+                longestSuccessor = Math.max(longestSuccessor, successor.tail);
+            }
+            node.tail = node.duration + longestSuccessor;
+            addLongestPath(node.longestPath());
+        }
+    }
+
+    /**
+     * Adds a dependency unless it would close a cycle
+     * @param taskId the id of the dependent task
+     * @param taskEstimatedHours the estimate of the dependent task
+     * @param taskStatus the status of the dependent task
+     * @param dependsOnTaskId the id of the prerequisite task
+     * @param dependsOnEstimatedHours the estimate of the prerequisite task
+     * @param dependsOnStatus the status of the prerequisite task
+     * @return false when the prerequisite already depends on the task, directly or not, nothing is added then
+     */
+    public boolean addDependency(Long taskId, Float taskEstimatedHours, Status taskStatus, Long dependsOnTaskId,
+                                 Float dependsOnEstimatedHours, Status dependsOnStatus) {
+        if (taskId.equals(dependsOnTaskId)) {
+            return false;
+        }
+        Node task = node(taskId, taskEstimatedHours, taskStatus);
+        Node prerequisite = node(dependsOnTaskId, dependsOnEstimatedHours, dependsOnStatus);
+        if (prerequisite.successors.contains(task)) {
+            return true;
+        }
+        if (prerequisite.order > task.order && !reorder(prerequisite, task)) {
+            dropIfIsolated(task);
+            dropIfIsolated(prerequisite);
+            return false;
+        }
+
+        prerequisite.successors.add(task);
+        task.predecessors.add(prerequisite);
+        updateEarliestStarts(List.of(task));
+        updateTails(List.of(prerequisite));
+        return true;
+    }
+
+    // Pearce-Kelly: for a new edge from prerequisite to task where the task comes first, the tasks reachable from
+    // the task and the tasks reaching the prerequisite between the two positions swap places. Reaching the
+    // prerequisite from the task means a cycle
+    private boolean reorder(Node prerequisite, Node task) {
+        int lowerBound = task.order;
+        int upperBound = prerequisite.order;
+
+        List<Node> downstream = new ArrayList<>();
+        Set<Node> seen = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(task);
+        seen.add(task);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            downstream.add(node);
+            for (Node successor : node.successors) {
+                if (successor == prerequisite) {
+                    return false;
+                }
+                if (successor.order < upperBound && seen.add(successor)) {
+                    stack.push(successor);
+                }
+            }
+        }
+
+        List<Node> upstream = new ArrayList<>();
+        stack.push(prerequisite);
+        seen.add(prerequisite);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            upstream.add(node);
+            for (Node predecessor : node.predecessors) {
+                if (predecessor.order > lowerBound && seen.add(predecessor)) {
+                    stack.push(predecessor);
+                }
+            }
+        }
+
+        upstream.sort(TOPOLOGICAL);
+        downstream.sort(TOPOLOGICAL);
+        int[] orders = new int[upstream.size() + downstream.size()];
+        int i = 0;
+        for (Node node : upstream) {
+            orders[i++] = node.order;
+        }
+        for (Node node : downstream) {
+            orders[i++] = node.order;
+        }
+        Arrays.sort(orders);
+        i = 0;
+        for (Node node : upstream) {
+            node.order = orders[i++];
+        }
+        for (Node node : downstream) {
+            node.order = orders[i++];
+        }
+        return true;
+    }
+
+    /**
+     * Removes a dependency
+     * @param taskId the id of the dependent task
+     * @param dependsOnTaskId the id of the prerequisite task
+     */
+    public void removeDependency(Long taskId, Long dependsOnTaskId) {
+        Node task = nodes.get(taskId);
+        Node prerequisite = nodes.get(dependsOnTaskId);
+        if (task == null || prerequisite == null || !prerequisite.successors.remove(task)) {
+            return;
+        }
+        task.predecessors.remove(prerequisite);
+        updateEarliestStarts(List.of(task));
+        updateTails(List.of(prerequisite));
+        dropIfIsolated(task);
+        dropIfIsolated(prerequisite);
+    }
+
+    /**
+     * Applies a task's new estimate or status, a no-op for tasks without dependencies
+     * @param taskId the id of the task
+     * @param estimatedHours the task's estimate
+     * @param status the task's status
+     */
+    public void updateTask(Long taskId, Float estimatedHours, Status status) {
+        Node node = nodes.get(taskId);
+        if (node == null) {
+            return;
+        }
+        node.completed = status == Status.COMPLETED;
+        long duration = node.completed ? 0 : minutes(estimatedHours);
+        if (duration == node.duration) {
+            return;
+        }
+        node.duration = duration;
+        updateTails(List.of(node));
+        updateEarliestStarts(node.successors);
+    }
+
+    /**
+     * Removes a deleted task and all of its dependencies
+     * @param taskId the id of the task
+     */
+    public void removeTask(Long taskId) {
+        Node node = nodes.get(taskId);
+        if (node == null) {
+            return;
+        }
+        List<Node> successors = new ArrayList<>(node.successors);
+        List<Node> predecessors = new ArrayList<>(node.predecessors);
+        for (Node successor : successors) {
+            successor.predecessors.remove(node);
+        }
+        for (Node predecessor : predecessors) {
+            predecessor.successors.remove(node);
+        }
+        node.successors.clear();
+        node.predecessors.clear();
+        dropIfIsolated(node);
+
+        updateEarliestStarts(successors);
+        updateTails(predecessors);
+        successors.forEach(this::dropIfIsolated);
+        predecessors.forEach(this::dropIfIsolated);
+    }
+
+    // Recomputes earliest starts downstream of the given tasks, in topological order
+    private void updateEarliestStarts(Collection<Node> from) {
+        PriorityQueue<Node> queue = new PriorityQueue<>(TOPOLOGICAL);
+        Set<Node> queued = new HashSet<>(from);
+        queue.addAll(from);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            long earliestStart = 0;
+            for (Node predecessor : node.predecessors) {
+                earliestStart = Math.max(earliestStart, predecessor.earliestStart + predecessor.duration);
+            }
+            if (earliestStart == node.earliestStart) {
+                continue;
+            }
+            removeLongestPath(node.longestPath());
+            node.earliestStart = earliestStart;
+            addLongestPath(node.longestPath());
+            for (Node successor : node.successors) {
+                if (queued.add(successor)) {
+                    queue.add(successor);
+                }
+            }
+        }
+    }
+
+    // Recomputes tails upstream of the given tasks, in reverse topological order
+    private void updateTails(Collection<Node> from) {
+        PriorityQueue<Node> queue = new PriorityQueue<>(TOPOLOGICAL.reversed());
+        Set<Node> queued = new HashSet<>(from);
+        queue.addAll(from);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            long longestSuccessor = 0;
+            for (Node successor : node.successors) {
+                longestSuccessor = Math.max(longestSuccessor, successor.tail);
+            }
+            long tail = node.duration + longestSuccessor;
+            if (tail == node.tail) {
+                continue;
+            }
+            removeLongestPath(node.longestPath());
+            node.tail = tail;
+            addLongestPath(node.longestPath());
+            for (Node predecessor : node.predecessors) {
+                if (queued.add(predecessor)) {
+                    queue.add(predecessor);
+                }
+            }
+        }
+    }
+
+    private void dropIfIsolated(Node node) {
+        if (node.predecessors.isEmpty() && node.successors.isEmpty() && nodes.remove(node.taskId, node)) {
+            removeLongestPath(node.longestPath());
+        }
+    }
+
+    private void addLongestPath(long minutes) {
+        longestPaths.merge(minutes, 1, Integer::sum);
+    }
+
+    private void removeLongestPath(long minutes) {
+        longestPaths.computeIfPresent(minutes, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Gets the length of the longest chain of dependent work
+     * @return the critical path in minutes, 0 without dependencies
+     */
+    public long criticalPathMinutes() {
+        return longestPaths.isEmpty() ? 0 : longestPaths.lastKey();
+    }
+
+    /**
+     * Checks whether a task has dependencies
+     * @param taskId the id of the task
+     * @return true when the task depends on or is depended on by another task
+     */
+    public boolean contains(Long taskId) {
+        return nodes.containsKey(taskId);
+    }
+
+    /**
+     * Gets the prerequisite work that must finish before a task can start
+     * @param taskId the id of a task held by the graph
+     * @return the longest chain of prerequisite minutes
+     */
+    public long earliestStartMinutes(Long taskId) {
+        return nodes.get(taskId).earliestStart;
+    }
+
+    /**
+     * Gets the longest chain of work through a task
+     * @param taskId the id of a task held by the graph
+     * @return the minutes of the longest chain through the task, from its first prerequisite to its last dependent
+     */
+    public long longestPathMinutes(Long taskId) {
+        return nodes.get(taskId).longestPath();
+    }
+
+    /**
+     * Checks whether an incomplete prerequisite keeps a task from being worked on
+     * @param taskId the id of the task
+     * @return true when a direct prerequisite is not completed
+     */
+    public boolean isBlocked(Long taskId) {
+        Node node = nodes.get(taskId);
+        if (node == null) {
+            return false;
+        }
+        for (Node predecessor : node.predecessors) {
+            if (!predecessor.completed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the direct prerequisites of a task
+     * @param taskId the id of the task
+     * @return the ids of the tasks it depends on, empty without dependencies
+     */
+    public List<Long> prerequisites(Long taskId) {
+        Node node = nodes.get(taskId);
+        if (node == null) {
+            return List.of();
+        }
+        List<Long> prerequisites = new ArrayList<>(node.predecessors.size());
+        for (Node predecessor : node.predecessors) {
+            prerequisites.add(predecessor.taskId);
+        }
+        prerequisites.sort(null);
+        return prerequisites;
+    }
+
+    /**
+     * Gets the number of tasks with dependencies
+     * @return the number of tasks held
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Converts an estimate to the graph's whole minutes
+     * @param estimatedHours the estimate in hours, may be null
+     * @return the estimate in minutes, 0 when missing or not positive
+     */
+    public static long minutes(Float estimatedHours) {
+        return estimatedHours == null || estimatedHours <= 0 ? 0 : Math.round(estimatedHours * 60.0);
+    }
+}
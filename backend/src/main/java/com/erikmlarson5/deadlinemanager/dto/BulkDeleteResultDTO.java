@@ -0,0 +1,21 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+/**
+ * A compact DTO with the number of projects and tasks removed by a bulk delete
+ */
+public class BulkDeleteResultDTO {
+
+    private int deletedProjects;
+    private int deletedTasks;
+
+    public BulkDeleteResultDTO(int deletedProjects, int deletedTasks) {
+        this.deletedProjects = deletedProjects;
+        this.deletedTasks = deletedTasks;
+    }
+
+    public int getDeletedProjects() { return deletedProjects; }
+    public void setDeletedProjects(int deletedProjects) { this.deletedProjects = deletedProjects; }
+
+    public int getDeletedTasks() { return deletedTasks; }
+    public void setDeletedTasks(int deletedTasks) { this.deletedTasks = deletedTasks; }
+}
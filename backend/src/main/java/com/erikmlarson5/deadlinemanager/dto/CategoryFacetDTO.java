@@ -0,0 +1,33 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.util.Map;
+
+/**
+ * A DTO for one category facet, with the total number of projects and the count per status
+ */
+public class CategoryFacetDTO {
+
+    private Long categoryId;
+    private String name;
+    private long total;
+    private Map<String, Long> statusCounts;
+
+    public CategoryFacetDTO(Long categoryId, String name, long total, Map<String, Long> statusCounts) {
+        this.categoryId = categoryId;
+        this.name = name;
+        this.total = total;
+        this.statusCounts = statusCounts;
+    }
+
+    public Long getCategoryId() { return categoryId; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public Map<String, Long> getStatusCounts() { return statusCounts; }
+    public void setStatusCounts(Map<String, Long> statusCounts) { this.statusCounts = statusCounts; }
+}
@@ -0,0 +1,10 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import com.erikmlarson5.deadlinemanager.utils.Status;
+
+/**
+ * One row of the category facet aggregate, the number of a user's projects in a category with a given status.
+ * A null category id and name stand for uncategorized projects
+ */
+public record CategoryFacetView(Long categoryId, String name, Status status, long count) {
+}
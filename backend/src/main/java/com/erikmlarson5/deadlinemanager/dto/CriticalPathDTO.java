@@ -0,0 +1,29 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.util.List;
+
+/**
+ * A DTO of a project's critical path: the hours its incomplete tasks need at the least when every task starts as
+ * soon as its dependencies are done, and how far each task can slip without delaying that
+ */
+public class CriticalPathDTO {
+
+    private Long projectId;
+    private double criticalPathHours;
+    private List<TaskScheduleDTO> tasks;
+
+    public CriticalPathDTO(Long projectId, double criticalPathHours, List<TaskScheduleDTO> tasks) {
+        this.projectId = projectId;
+        this.criticalPathHours = criticalPathHours;
+        this.tasks = tasks;
+    }
+
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public double getCriticalPathHours() { return criticalPathHours; }
+    public void setCriticalPathHours(double criticalPathHours) { this.criticalPathHours = criticalPathHours; }
+
+    public List<TaskScheduleDTO> getTasks() { return tasks; }
+    public void setTasks(List<TaskScheduleDTO> tasks) { this.tasks = tasks; }
+}
@@ -0,0 +1,18 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import com.erikmlarson5.deadlinemanager.utils.Status;
+
+/**
+ * A read-only projection of a task dependency with the estimate and status of both tasks, all the dependency
+ * graph keeps in memory for it
+ * @param projectId the id of the project both tasks belong to
+ * @param taskId the id of the dependent task
+ * @param taskEstimatedHours the estimate of the dependent task
+ * @param taskStatus the status of the dependent task
+ * @param dependsOnTaskId the id of the prerequisite task
+ * @param dependsOnEstimatedHours the estimate of the prerequisite task
+ * @param dependsOnStatus the status of the prerequisite task
+ */
+public record DependencyView(Long projectId, Long taskId, Float taskEstimatedHours, Status taskStatus,
+                             Long dependsOnTaskId, Float dependsOnEstimatedHours, Status dependsOnStatus) {
+}
@@ -0,0 +1,18 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A read-only projection of an incomplete project or task with a due date, all the reminder scheduler keeps
+ * in memory for it
+ * @param type PROJECT or TASK
+ * @param id the id of the project or task
+ * @param projectId the id of the project, or of the task's project
+ * @param userId the id of the owning user
+ * @param title the title shown in the reminder
+ * @param dueDate the date the project or task is due
+ */
+public record DueDateView(String type, Long id, Long projectId, String userId, String title, LocalDate dueDate) {
+    public static final String PROJECT = "PROJECT";
+    public static final String TASK = "TASK";
+}
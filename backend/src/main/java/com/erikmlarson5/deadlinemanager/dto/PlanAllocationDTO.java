@@ -0,0 +1,38 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO of the hours of one task planned on one day
+ */
+public class PlanAllocationDTO {
+
+    private Long taskId;
+    private Long projectId;
+    private String title;
+    private LocalDate deadline;
+    private double hours;
+
+    public PlanAllocationDTO(Long taskId, Long projectId, String title, LocalDate deadline, double hours) {
+        this.taskId = taskId;
+        this.projectId = projectId;
+        this.title = title;
+        this.deadline = deadline;
+        this.hours = hours;
+    }
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public LocalDate getDeadline() { return deadline; }
+    public void setDeadline(LocalDate deadline) { this.deadline = deadline; }
+
+    public double getHours() { return hours; }
+    public void setHours(double hours) { this.hours = hours; }
+}
@@ -0,0 +1,29 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A DTO of one day of a study plan and the task hours planned on it
+ */
+public class PlanDayDTO {
+
+    private LocalDate date;
+    private double hours;
+    private List<PlanAllocationDTO> allocations;
+
+    public PlanDayDTO(LocalDate date, double hours, List<PlanAllocationDTO> allocations) {
+        this.date = date;
+        this.hours = hours;
+        this.allocations = allocations;
+    }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public double getHours() { return hours; }
+    public void setHours(double hours) { this.hours = hours; }
+
+    public List<PlanAllocationDTO> getAllocations() { return allocations; }
+    public void setAllocations(List<PlanAllocationDTO> allocations) { this.allocations = allocations; }
+}
@@ -0,0 +1,38 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO of a task the study plan cannot finish by its deadline at the requested hours per day
+ */
+public class PlanLateTaskDTO {
+
+    private Long taskId;
+    private Long projectId;
+    private String title;
+    private LocalDate deadline;
+    private LocalDate finishDate;
+
+    public PlanLateTaskDTO(Long taskId, Long projectId, String title, LocalDate deadline, LocalDate finishDate) {
+        this.taskId = taskId;
+        this.projectId = projectId;
+        this.title = title;
+        this.deadline = deadline;
+        this.finishDate = finishDate;
+    }
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public LocalDate getDeadline() { return deadline; }
+    public void setDeadline(LocalDate deadline) { this.deadline = deadline; }
+
+    public LocalDate getFinishDate() { return finishDate; }
+    public void setFinishDate(LocalDate finishDate) { this.finishDate = finishDate; }
+}
@@ -0,0 +1,28 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A read-only projection of an incomplete task with the due date of its project, all the study planner keeps in
+ * memory for it
+ * @param taskId the id of the task
+ * @param projectId the id of the task's project
+ * @param title the title of the task
+ * @param dueDate the task's own due date, may be null
+ * @param projectDueDate the due date of the task's project, may be null
+ * @param estimatedHours the hours the task is estimated to take
+ */
+public record PlanTaskView(Long taskId, Long projectId, String title, LocalDate dueDate, LocalDate projectDueDate,
+                           Float estimatedHours) {
+
+    /**
+     * Gets the date the task must be finished by, the earlier of its own and its project's due date
+     * @return the deadline, or null when neither has a due date
+     */
+    public LocalDate deadline() {
+        if (dueDate == null) {
+            return projectDueDate;
+        }
+        return projectDueDate == null || dueDate.isBefore(projectDueDate) ? dueDate : projectDueDate;
+    }
+}
@@ -1,5 +1,8 @@
 package com.erikmlarson5.deadlinemanager.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -11,6 +14,8 @@ public class ProjectOutputDTO {
 
     private Long projectId;
     private String title;
+    // Omitted from list responses, which do not select descriptions
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String description;
     private String category;
     private LocalDate dueDate;
@@ -21,6 +26,11 @@ public class ProjectOutputDTO {
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
     private OffsetDateTime completedAt;
+    // Echoed as the ETag, clients send it back in If-Match to make a write conditional
+    private Long version;
+    // Only feeds the ETag of a read, task writes bump it without touching version
+    @JsonIgnore
+    private Long aggregateRevision;
     private List<TaskOutputDTO> tasks;
 
     public Long getProjectId() { return projectId; }
@@ -58,6 +68,11 @@ public class ProjectOutputDTO {
     public OffsetDateTime getUpdatedAt() { return updatedAt; }
     public OffsetDateTime getCompletedAt() { return completedAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Long getAggregateRevision() { return aggregateRevision; }
+    public void setAggregateRevision(Long aggregateRevision) { this.aggregateRevision = aggregateRevision; }
 
     public List<TaskOutputDTO> getTasks() { return tasks; }
     public void setTasks(List<TaskOutputDTO> tasks) { this.tasks = tasks; }
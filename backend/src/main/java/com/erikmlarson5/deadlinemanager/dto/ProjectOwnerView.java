@@ -0,0 +1,9 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+/**
+ * A read-only projection of which user owns a project, for writes that only have project ids at hand
+ * @param projectId the id of the project
+ * @param userId the id of the owning user
+ */
+public record ProjectOwnerView(Long projectId, String userId) {
+}
@@ -0,0 +1,21 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+/**
+ * A DTO pairing a project id with its current priority, returned by bulk endpoints instead of full projects
+ */
+public class ProjectPriorityDTO {
+
+    private Long projectId;
+    private float priority;
+
+    public ProjectPriorityDTO(Long projectId, float priority) {
+        this.projectId = projectId;
+        this.priority = priority;
+    }
+
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public float getPriority() { return priority; }
+    public void setPriority(float priority) { this.priority = priority; }
+}
@@ -0,0 +1,37 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import com.erikmlarson5.deadlinemanager.utils.Status;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * A read-only projection of a Project row, selected with a JPQL constructor expression so read
+ * endpoints never hydrate or dirty-check managed entities
+ */
+public record ProjectView(Long projectId, String title, String description, String category, LocalDate dueDate,
+                          Float estimatedHours, Integer difficulty, Status status, float priority,
+                          OffsetDateTime createdAt, OffsetDateTime updatedAt, OffsetDateTime completedAt,
+                          Long version, Long aggregateRevision) {
+
+    /**
+     * Summary projection used by list queries, which never select the lazy description column
+     */
+    public ProjectView(Long projectId, String title, String category, LocalDate dueDate, Float estimatedHours,
+                       Integer difficulty, Status status, float priority, OffsetDateTime createdAt,
+                       OffsetDateTime updatedAt, OffsetDateTime completedAt, Long version,
+                       Long aggregateRevision) {
+        this(projectId, title, null, category, dueDate, estimatedHours, difficulty, status, priority,
+                createdAt, updatedAt, completedAt, version, aggregateRevision);
+    }
+
+    /**
+     * Copies this view with a recalculated priority
+     * @param newPriority the recalculated priority
+     * @return a view identical to this one except for its priority
+     */
+    public ProjectView withPriority(float newPriority) {
+        return new ProjectView(projectId, title, description, category, dueDate, estimatedHours, difficulty,
+                status, newPriority, createdAt, updatedAt, completedAt, version, aggregateRevision);
+    }
+}
@@ -0,0 +1,41 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+/**
+ * A DTO for one search match, a project or a task, with its rank and highlighted text
+ */
+public class SearchResultDTO {
+
+    private String type;
+    private Long id;
+    private Long projectId;
+    private float rank;
+    private String title;
+    private String snippet;
+
+    public SearchResultDTO(String type, Long id, Long projectId, float rank, String title, String snippet) {
+        this.type = type;
+        this.id = id;
+        this.projectId = projectId;
+        this.rank = rank;
+        this.title = title;
+        this.snippet = snippet;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public float getRank() { return rank; }
+    public void setRank(float rank) { this.rank = rank; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getSnippet() { return snippet; }
+    public void setSnippet(String snippet) { this.snippet = snippet; }
+}
@@ -0,0 +1,57 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A DTO of a user's study plan: the incomplete task hours spread across the coming days in deadline order, and
+ * the tasks that cannot be finished in time
+ */
+public class StudyPlanDTO {
+
+    private LocalDate startDate;
+    private double hoursPerDay;
+    private int totalTasks;
+    private double totalHours;
+    private LocalDate finishDate;
+    private int lateTaskCount;
+    private List<PlanDayDTO> days;
+    private List<PlanLateTaskDTO> lateTasks;
+
+    public StudyPlanDTO(LocalDate startDate, double hoursPerDay, int totalTasks, double totalHours,
+                        LocalDate finishDate, int lateTaskCount, List<PlanDayDTO> days,
+                        List<PlanLateTaskDTO> lateTasks) {
+        this.startDate = startDate;
+        this.hoursPerDay = hoursPerDay;
+        this.totalTasks = totalTasks;
+        this.totalHours = totalHours;
+        this.finishDate = finishDate;
+        this.lateTaskCount = lateTaskCount;
+        this.days = days;
+        this.lateTasks = lateTasks;
+    }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public double getHoursPerDay() { return hoursPerDay; }
+    public void setHoursPerDay(double hoursPerDay) { this.hoursPerDay = hoursPerDay; }
+
+    public int getTotalTasks() { return totalTasks; }
+    public void setTotalTasks(int totalTasks) { this.totalTasks = totalTasks; }
+
+    public double getTotalHours() { return totalHours; }
+    public void setTotalHours(double totalHours) { this.totalHours = totalHours; }
+
+    public LocalDate getFinishDate() { return finishDate; }
+    public void setFinishDate(LocalDate finishDate) { this.finishDate = finishDate; }
+
+    public int getLateTaskCount() { return lateTaskCount; }
+    public void setLateTaskCount(int lateTaskCount) { this.lateTaskCount = lateTaskCount; }
+
+    public List<PlanDayDTO> getDays() { return days; }
+    public void setDays(List<PlanDayDTO> days) { this.days = days; }
+
+    public List<PlanLateTaskDTO> getLateTasks() { return lateTasks; }
+    public void setLateTasks(List<PlanLateTaskDTO> lateTasks) { this.lateTasks = lateTasks; }
+}
@@ -1,5 +1,7 @@
 package com.erikmlarson5.deadlinemanager.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 
@@ -10,6 +12,8 @@ public class TaskOutputDTO {
 
     private Long taskId;
     private String title;
+    // Omitted from list responses, which do not select descriptions
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String description;
     private LocalDate dueDate;
     private float estimatedHours;
@@ -19,6 +23,8 @@ public class TaskOutputDTO {
     private OffsetDateTime updatedAt;
     private OffsetDateTime completedAt;
     private Long projectId;
+    // Sent back in If-Match to make a task write conditional
+    private Long version;
 
     public Long getTaskId() { return taskId; }
     public void setTaskId(Long taskId) { this.taskId = taskId; }
@@ -51,4 +57,7 @@ public class TaskOutputDTO {
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public OffsetDateTime getUpdatedAt() { return updatedAt; }
     public OffsetDateTime getCompletedAt() { return completedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,60 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.util.List;
+
+/**
+ * A DTO of a task's place in its project's critical path schedule. Completed tasks take no hours, a blocked task
+ * has a direct dependency that is not completed yet
+ */
+public class TaskScheduleDTO {
+
+    private Long taskId;
+    private String title;
+    private Float estimatedHours;
+    private String status;
+    private List<Long> dependsOn;
+    private double earliestStartHours;
+    private double slackHours;
+    private boolean critical;
+    private boolean blocked;
+
+    public TaskScheduleDTO(Long taskId, String title, Float estimatedHours, String status, List<Long> dependsOn,
+                           double earliestStartHours, double slackHours, boolean critical, boolean blocked) {
+        this.taskId = taskId;
+        this.title = title;
+        this.estimatedHours = estimatedHours;
+        this.status = status;
+        this.dependsOn = dependsOn;
+        this.earliestStartHours = earliestStartHours;
+        this.slackHours = slackHours;
+        this.critical = critical;
+        this.blocked = blocked;
+    }
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public Float getEstimatedHours() { return estimatedHours; }
+    public void setEstimatedHours(Float estimatedHours) { this.estimatedHours = estimatedHours; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public List<Long> getDependsOn() { return dependsOn; }
+    public void setDependsOn(List<Long> dependsOn) { this.dependsOn = dependsOn; }
+
+    public double getEarliestStartHours() { return earliestStartHours; }
+    public void setEarliestStartHours(double earliestStartHours) { this.earliestStartHours = earliestStartHours; }
+
+    public double getSlackHours() { return slackHours; }
+    public void setSlackHours(double slackHours) { this.slackHours = slackHours; }
+
+    public boolean isCritical() { return critical; }
+    public void setCritical(boolean critical) { this.critical = critical; }
+
+    public boolean isBlocked() { return blocked; }
+    public void setBlocked(boolean blocked) { this.blocked = blocked; }
+}
@@ -0,0 +1,26 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import jakarta.validation.constraints.*;
+
+import java.util.List;
+
+/**
+ * A DTO which validates a bulk task status change, applying one status to many tasks
+ */
+public class TaskStatusBulkInputDTO {
+
+    @NotEmpty(message = "At least one task id is required")
+    @Size(max = 500, message = "At most 500 tasks can be updated at once")
+    private List<@NotNull @Positive Long> taskIds;
+
+    @NotBlank(message = "Status is required")
+    @Pattern(regexp = "(?i)^(NOT_STARTED|IN_PROGRESS|COMPLETED)$",
+            message = "Status must be one of: NOT_STARTED, IN_PROGRESS, COMPLETED")
+    private String status;
+
+    public List<Long> getTaskIds() { return taskIds; }
+    public void setTaskIds(List<Long> taskIds) { this.taskIds = taskIds; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
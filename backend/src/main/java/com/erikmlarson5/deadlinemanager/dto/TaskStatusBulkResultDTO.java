@@ -0,0 +1,34 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import java.util.List;
+
+/**
+ * A compact DTO summarizing a bulk task status change and the recalculated priorities of the affected projects
+ */
+public class TaskStatusBulkResultDTO {
+
+    private String status;
+    private int matchedTasks;
+    private int updatedTasks;
+    private List<ProjectPriorityDTO> projects;
+
+    public TaskStatusBulkResultDTO(String status, int matchedTasks, int updatedTasks,
+                                   List<ProjectPriorityDTO> projects) {
+        this.status = status;
+        this.matchedTasks = matchedTasks;
+        this.updatedTasks = updatedTasks;
+        this.projects = projects;
+    }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getMatchedTasks() { return matchedTasks; }
+    public void setMatchedTasks(int matchedTasks) { this.matchedTasks = matchedTasks; }
+
+    public int getUpdatedTasks() { return updatedTasks; }
+    public void setUpdatedTasks(int updatedTasks) { this.updatedTasks = updatedTasks; }
+
+    public List<ProjectPriorityDTO> getProjects() { return projects; }
+    public void setProjects(List<ProjectPriorityDTO> projects) { this.projects = projects; }
+}
@@ -0,0 +1,25 @@
+package com.erikmlarson5.deadlinemanager.dto;
+
+import com.erikmlarson5.deadlinemanager.utils.Status;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * A read-only projection of a Task row, selected with a JPQL constructor expression so read
+ * endpoints never hydrate or dirty-check managed entities
+ */
+public record TaskView(Long taskId, String title, String description, LocalDate dueDate, Float estimatedHours,
+                       Integer difficulty, Status status, OffsetDateTime createdAt, OffsetDateTime updatedAt,
+                       OffsetDateTime completedAt, Long projectId, Long version) {
+
+    /**
+     * Summary projection used by list queries, which never select the lazy description column
+     */
+    public TaskView(Long taskId, String title, LocalDate dueDate, Float estimatedHours, Integer difficulty,
+                    Status status, OffsetDateTime createdAt, OffsetDateTime updatedAt, OffsetDateTime completedAt,
+                    Long projectId, Long version) {
+        this(taskId, title, null, dueDate, estimatedHours, difficulty, status, createdAt, updatedAt, completedAt,
+                projectId, version);
+    }
+}
@@ -0,0 +1,94 @@
+package com.erikmlarson5.deadlinemanager.entity;
+
+import com.erikmlarson5.deadlinemanager.utils.Status;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * The archive copy of a long-completed Project, kept out of the hot project table. Rows are moved in and out
+ * with set-based statements, keeping the original project id so a restore is lossless
+ */
+@Entity
+@Table(name = "project_archive", indexes = @Index(name = "idx_project_archive_user_completed",
+        columnList = "user_id, completed_at"))
+public class ArchivedProject {
+    @Id
+    private Long projectId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Basic(fetch = FetchType.LAZY)
+    @Column(columnDefinition = "text")
+    private String description;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private LocalDate dueDate;
+
+    private Integer difficulty;
+
+    private float priority;
+
+    private Float estimatedHours;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private OffsetDateTime completedAt;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    // The project's optimistic lock version at archive time, carried back on restore
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    @Column(name = "archived_at", nullable = false)
+    private OffsetDateTime archivedAt;
+
+    protected ArchivedProject() {
+
+    }
+
+    public Long getProjectId() { return projectId; }
+
+    public String getUserId() { return userId; }
+
+    public String getTitle() { return title; }
+
+    public String getDescription() { return description; }
+
+    public Long getCategoryId() { return categoryId; }
+
+    public LocalDate getDueDate() { return dueDate; }
+
+    public Integer getDifficulty() { return difficulty; }
+
+    public float getPriority() { return priority; }
+
+    public Float getEstimatedHours() { return estimatedHours; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+
+    public OffsetDateTime getCompletedAt() { return completedAt; }
+
+    public Status getStatus() { return status; }
+
+    public Long getVersion() { return version; }
+
+    public OffsetDateTime getArchivedAt() { return archivedAt; }
+}
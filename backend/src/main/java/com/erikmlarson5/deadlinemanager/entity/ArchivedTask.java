@@ -0,0 +1,77 @@
+package com.erikmlarson5.deadlinemanager.entity;
+
+import com.erikmlarson5.deadlinemanager.utils.Status;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * The archive copy of a Task whose project was archived, keeping the original task and project ids
+ */
+@Entity
+@Table(name = "task_archive", indexes = @Index(name = "idx_task_archive_project", columnList = "project_id"))
+public class ArchivedTask {
+    @Id
+    private Long taskId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Basic(fetch = FetchType.LAZY)
+    private String description;
+
+    private LocalDate dueDate;
+
+    @Column(nullable = false)
+    private Float estimatedHours;
+
+    private Integer difficulty;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private OffsetDateTime completedAt;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    // The task's optimistic lock version at archive time, carried back on restore
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    protected ArchivedTask() {
+
+    }
+
+    public Long getTaskId() { return taskId; }
+
+    public String getTitle() { return title; }
+
+    public String getDescription() { return description; }
+
+    public LocalDate getDueDate() { return dueDate; }
+
+    public Float getEstimatedHours() { return estimatedHours; }
+
+    public Integer getDifficulty() { return difficulty; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+
+    public OffsetDateTime getCompletedAt() { return completedAt; }
+
+    public Status getStatus() { return status; }
+
+    public Long getVersion() { return version; }
+
+    public Long getProjectId() { return projectId; }
+}
@@ -0,0 +1,36 @@
+package com.erikmlarson5.deadlinemanager.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * The archive copy of a TaskDependency whose project was archived, keeping the original ids. The project id is
+ * copied from the dependent task so an archived project's dependencies are found without the archived tasks
+ */
+@Entity
+@Table(name = "task_dependency_archive",
+        indexes = @Index(name = "idx_task_dependency_archive_project", columnList = "project_id"))
+public class ArchivedTaskDependency {
+    @Id
+    private Long dependencyId;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    @Column(name = "depends_on_id", nullable = false)
+    private Long dependsOnId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    protected ArchivedTaskDependency() {
+
+    }
+
+    public Long getDependencyId() { return dependencyId; }
+
+    public Long getTaskId() { return taskId; }
+
+    public Long getDependsOnId() { return dependsOnId; }
+
+    public Long getProjectId() { return projectId; }
+}
@@ -0,0 +1,74 @@
+package com.erikmlarson5.deadlinemanager.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.util.Locale;
+
+/**
+ * A per-user dictionary entry for project categories. Projects reference categories by id, and the unique
+ * (user_id, normalized_name) index serves case-insensitive lookups without scanning projects
+ */
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_category_user_normalized_name",
+        columnNames = {"user_id", "normalized_name"}))
+public class Category {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "normalized_name", nullable = false)
+    private String normalizedName;
+
+    public Category() {
+
+    }
+
+    public Category(String userId, String name) {
+        this.userId = userId;
+        this.name = name.trim();
+        this.normalizedName = normalize(name);
+    }
+
+    /**
+     * Normalizes a category name for case-insensitive lookup
+     * @param name the category name as entered by the user
+     * @return the trimmed, lower-cased name
+     */
+    public static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    @Override
+    public String toString() {
+        return "Category{" +
+                "categoryId=" + categoryId +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
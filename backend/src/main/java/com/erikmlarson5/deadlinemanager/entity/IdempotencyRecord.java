@@ -0,0 +1,84 @@
+package com.erikmlarson5.deadlinemanager.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A request made with an Idempotency-Key, shared by every node. The row is claimed before the request runs,
+ * identified by the user and key, and holds the response to replay once the request has completed
+ */
+@Entity
+@Table(name = "idempotency_record",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_record_user_key",
+                columnNames = {"user_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_record_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long recordId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 of the method, path, Accept header and body, a reused key with a different request is rejected
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    // Null while the request is still running
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    private String etag;
+
+    private byte[] body;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    public IdempotencyRecord() {
+
+    }
+
+    public Long getRecordId() {
+        return recordId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -2,6 +2,9 @@ package com.erikmlarson5.deadlinemanager.entity;
 
 import com.erikmlarson5.deadlinemanager.utils.Status;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -13,7 +16,10 @@ import java.util.List;
  * The database entity of all Projects and its included fields
  */
 @Entity
-@Table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "project")
+@Table(indexes = {@Index(name = "idx_project_category", columnList = "category_id"),
+        @Index(name = "idx_project_due_date", columnList = "due_date")})
 public class Project {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,16 +31,22 @@ public class Project {
     @Column(nullable = false)
     private String title;
 
+    // Loaded on first access through bytecode enhancement, list queries never need it
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "text")
     private String description;
 
-    private String category;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", foreignKey = @ForeignKey(name = "fk_project_category"))
+    private Category category;
 
     @Column(nullable = false)
     private LocalDate dueDate;
 
     private Integer difficulty;
 
+    // Derived from the tasks and recalculated on every task write, so it never conflicts with a client's edit
+    @OptimisticLock(excluded = true)
     private float priority = 0.0f;
 
     private Float estimatedHours;
@@ -42,6 +54,7 @@ public class Project {
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
+    @OptimisticLock(excluded = true)
     @Column(name = "updated_at")
     private OffsetDateTime updatedAt;
 
@@ -51,17 +64,31 @@ public class Project {
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    // Compared against If-Match on every conditional write, incremented by Hibernate on each update
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Bumped on the row-locked entity by every write to the priority inputs, so concurrent task writes of one
+    // project serialize. Excluded from optimistic locking, task writes do not conflict with edits to the project
+    @OptimisticLock(excluded = true)
+    @Column(name = "aggregate_revision", nullable = false, columnDefinition = "bigint default 0")
+    private Long aggregateRevision = 0L;
+
     @Transient
     private Status previousStatus;
 
+    // Tasks carry their own version, adding or removing one does not conflict with edits to the project
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "project", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "project.tasks")
     private List<Task> tasks = new ArrayList<>();
 
     public Project() {
 
     }
 
-    public Project(String title, String description, String category, LocalDate dueDate,
+    public Project(String title, String description, Category category, LocalDate dueDate,
                    Float estimatedHours, Integer difficulty, Status status) {
         this.title = title;
         this.description = description;
@@ -100,11 +127,11 @@ public class Project {
         this.description = description;
     }
 
-    public String getCategory() {
+    public Category getCategory() {
         return category;
     }
 
-    public void setCategory(String category) {
+    public void setCategory(Category category) {
         this.category = category;
     }
 
@@ -172,6 +199,18 @@ public class Project {
         this.completedAt = completedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public Long getAggregateRevision() {
+        return aggregateRevision;
+    }
+
+    public void incrementAggregateRevision() {
+        aggregateRevision++;
+    }
+
     public List<Task> getTasks() {
         return tasks;
     }
@@ -223,8 +262,6 @@ public class Project {
         return "Project{" +
                 "projectId=" + projectId +
                 ", title='" + title + '\'' +
-                ", description='" + description + '\'' +
-                ", category='" + category + '\'' +
                 ", dueDate=" + dueDate +
                 ", estimatedHours=" + estimatedHours +
                 ", difficulty=" + difficulty +
@@ -233,6 +270,7 @@ public class Project {
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
                 ", completedAt=" + completedAt +
+                ", version=" + version +
                 '}';
     }
 }
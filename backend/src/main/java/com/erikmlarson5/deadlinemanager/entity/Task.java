@@ -2,6 +2,10 @@ package com.erikmlarson5.deadlinemanager.entity;
 
 import com.erikmlarson5.deadlinemanager.utils.Status;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -11,7 +15,9 @@ import java.time.ZoneOffset;
  * The database entity of all Tasks and its included fields
  */
 @Entity
-@Table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task")
+@Table(indexes = @Index(name = "idx_task_due_date", columnList = "due_date"))
 public class Task {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +26,8 @@ public class Task {
     @Column(nullable = false)
     private String title;
 
+    // Loaded on first access through bytecode enhancement, list queries never need it
+    @Basic(fetch = FetchType.LAZY)
     private String description;
 
     private LocalDate dueDate;
@@ -41,11 +49,18 @@ public class Task {
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    // Compared against If-Match on every conditional write, incremented by Hibernate on each update
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @Transient
     private Status previousStatus;
 
+    // The database removes a project's tasks with it, so bulk project deletes never load tasks
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "project_id", nullable = false)
+    @JoinColumn(name = "project_id", nullable = false, foreignKey = @ForeignKey(name = "fk_task_project"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Project project;
 
     public Task() {
@@ -127,6 +142,10 @@ public class Task {
         return completedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public Float getEstimatedHours() { return estimatedHours; }
     public void setEstimatedHours(Float estimatedHours) { this.estimatedHours = estimatedHours; }
 
@@ -163,13 +182,13 @@ public class Task {
         return "Task{" +
                 "taskId=" + taskId +
                 ", title='" + title + '\'' +
-                ", description='" + description + '\'' +
                 ", dueDate=" + dueDate +
                 ", difficulty=" + difficulty +
                 ", status=" + status +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
                 ", completedAt=" + completedAt +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,52 @@
+package com.erikmlarson5.deadlinemanager.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * An ordering between two tasks of the same project: the task cannot start until the task it depends on is done
+ */
+@Entity
+@Table(name = "task_dependency",
+        uniqueConstraints = @UniqueConstraint(name = "uk_task_dependency",
+                columnNames = {"task_id", "depends_on_id"}),
+        indexes = @Index(name = "idx_task_dependency_depends_on", columnList = "depends_on_id"))
+public class TaskDependency {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long dependencyId;
+
+    // Deleting either task removes the dependency in the database, task deletes never load dependencies
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "task_id", nullable = false, foreignKey = @ForeignKey(name = "fk_task_dependency_task"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Task task;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "depends_on_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_task_dependency_depends_on"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Task dependsOn;
+
+    public TaskDependency() {
+
+    }
+
+    public TaskDependency(Task task, Task dependsOn) {
+        this.task = task;
+        this.dependsOn = dependsOn;
+    }
+
+    public Long getDependencyId() {
+        return dependencyId;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public Task getDependsOn() {
+        return dependsOn;
+    }
+}
@@ -1,7 +1,9 @@
 package com.erikmlarson5.deadlinemanager.exception;
 
 import com.erikmlarson5.deadlinemanager.dto.ErrorResponseDTO;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
@@ -41,6 +43,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.CONFLICT);
     }
 
+    /**
+     * Handles a conditional write whose If-Match version is no longer current
+     * @param e the PreconditionFailedException to be handled
+     * @return an error message and an HTTP precondition failed status
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponseDTO> handlePreconditionFailedException(PreconditionFailedException e) {
+        ErrorResponseDTO error = new ErrorResponseDTO(e.getMessage(), LocalDateTime.now());
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Handles a write that lost a race with a concurrent write to the same row, detected at flush
+     * through the version column
+     * @param e the optimistic locking exception to be handled
+     * @return an error message and an HTTP conflict status
+     */
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public ResponseEntity<ErrorResponseDTO> handleOptimisticLockingFailure(RuntimeException e) {
+        ErrorResponseDTO error = new ErrorResponseDTO("The resource was modified by another request, " +
+                "reload it and try again", LocalDateTime.now());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles any thrown No Such Element Exception
      * @param e the NoSuchElementException to be handled
@@ -0,0 +1,15 @@
+package com.erikmlarson5.deadlinemanager.exception;
+
+/**
+ * Thrown when a conditional write names a version of a resource that is no longer current
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    /**
+     * Creates the exception with a message describing the failed precondition
+     * @param message the error message returned to the client
+     */
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,249 @@
+package com.erikmlarson5.deadlinemanager.idempotency;
+
+import com.erikmlarson5.deadlinemanager.entity.IdempotencyRecord;
+import com.erikmlarson5.deadlinemanager.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dedupe store for requests made with an Idempotency-Key. A request claims its (userId, key) before it runs
+ * and stores its response when it completes, retries then replay that response instead of running again.
+ * With persistent=true the claim is a row in idempotency_record so it holds across nodes, and completed
+ * responses are also kept in a bounded in-memory map so hot retries skip the database. With persistent=false
+ * the in-memory map is the whole store. Records expire after the ttl either way
+ */
+@Component
+public class IdempotencyStore {
+    /**
+     * How a request with an Idempotency-Key should be handled
+     */
+    public enum Outcome {
+        // First request with the key, run it and complete or release the claim
+        ACQUIRED,
+        // Same request already completed, replay the stored response
+        REPLAY,
+        // Same key is still running on this or another node
+        IN_PROGRESS,
+        // Key was already used for a different request
+        MISMATCH,
+        // In-memory store is full, run the request without deduplication
+        UNTRACKED
+    }
+
+    /**
+     * The result of claiming a key
+     * @param outcome how the request should be handled
+     * @param response the response to replay, only set for REPLAY
+     */
+    public record Claim(Outcome outcome, StoredResponse response) {
+    }
+
+    private record Key(String userId, String idempotencyKey) {
+    }
+
+    // response is null while the request runs, createdAtMillis is wall-clock so it matches the database rows
+    private record Entry(String fingerprint, StoredResponse response, long createdAtMillis) {
+    }
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final IdempotencyRecordRepository repository;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final int maxEntries;
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    /**
+     * Idempotency store backed by memory and optionally by the database
+     * @param repository the injected repository of claimed and completed requests
+     * @param meterRegistry the injected registry for outcome and size metrics
+     * @param persistent whether claims are shared through the database, false keeps them on this node only
+     * @param ttl how long a completed response is replayed
+     * @param inProgressTimeout the age after which a claim that never completed is treated as abandoned
+     * @param maxEntries the most records kept in memory
+     */
+    @Autowired
+    public IdempotencyStore(IdempotencyRecordRepository repository, MeterRegistry meterRegistry,
+                            @Value("${idempotency.persistent:true}") boolean persistent,
+                            @Value("${idempotency.ttl:24h}") Duration ttl,
+                            @Value("${idempotency.in-progress-timeout:1m}") Duration inProgressTimeout,
+                            @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.repository = repository;
+        this.persistent = persistent;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.maxEntries = maxEntries;
+
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("idempotency.requests")
+                    .description("Requests made with an Idempotency-Key, by how they were handled")
+                    .tag("result", outcome.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("idempotency.entries", entries, Map::size)
+                .description("Idempotency records held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims a key for a request, or finds the earlier request that used it
+     * @param userId the id of the user, keys of different users never collide
+     * @param idempotencyKey the Idempotency-Key sent by the client
+     * @param fingerprint the hash of the request, a retry must send the same request
+     * @return the claim, telling the caller whether to run, replay or reject the request
+     */
+    public Claim claim(String userId, String idempotencyKey, String fingerprint) {
+        Key key = new Key(userId, idempotencyKey);
+        long now = System.currentTimeMillis();
+
+        // In persistent mode only completed responses are held in memory, claims live in the database
+        Entry cached = entries.get(key);
+        Claim claim;
+        if (cached != null && isLive(cached, now)) {
+            claim = resolve(cached, fingerprint);
+        } else {
+            claim = persistent ? claimRecord(key, fingerprint) : claimEntry(key, fingerprint, now);
+        }
+
+        outcomes.get(claim.outcome()).increment();
+        return claim;
+    }
+
+    private Claim claimEntry(Key key, String fingerprint, long now) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evictExpired(now);
+            if (entries.size() >= maxEntries) {
+                return new Claim(Outcome.UNTRACKED, null);
+            }
+        }
+
+        Entry claimed = new Entry(fingerprint, null, now);
+        Entry current = entries.compute(key, (k, existing) ->
+                existing == null || !isLive(existing, now) ? claimed : existing);
+        return current == claimed ? new Claim(Outcome.ACQUIRED, null) : resolve(current, fingerprint);
+    }
+
+    private Claim claimRecord(Key key, String fingerprint) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        if (repository.insertIfAbsent(key.userId(), key.idempotencyKey(), fingerprint, now) == 1) {
+            return new Claim(Outcome.ACQUIRED, null);
+        }
+
+        IdempotencyRecord record = findRecord(key);
+        OffsetDateTime expiredBefore = now.minus(ttl);
+        OffsetDateTime abandonedBefore = now.minus(inProgressTimeout);
+        if (record != null && (record.getCreatedAt().isBefore(expiredBefore)
+                || (record.getStatusCode() == null && record.getCreatedAt().isBefore(abandonedBefore)))) {
+            // Purging runs periodically, an expired or abandoned row found in between is replaced right away
+            if (repository.deleteStale(key.userId(), key.idempotencyKey(), expiredBefore, abandonedBefore) > 0
+                    && repository.insertIfAbsent(key.userId(), key.idempotencyKey(), fingerprint, now) == 1) {
+                return new Claim(Outcome.ACQUIRED, null);
+            }
+            record = findRecord(key);
+        }
+
+        if (record == null) {
+            // Released by a failed request between the insert and the read, the client retries
+            return new Claim(Outcome.IN_PROGRESS, null);
+        }
+
+        StoredResponse response = record.getStatusCode() == null ? null
+                : new StoredResponse(record.getStatusCode(), record.getContentType(), record.getEtag(),
+                        record.getBody());
+        Entry entry = new Entry(record.getFingerprint(), response, record.getCreatedAt().toInstant().toEpochMilli());
+        if (response != null) {
+            cache(key, entry);
+        }
+        return resolve(entry, fingerprint);
+    }
+
+    private IdempotencyRecord findRecord(Key key) {
+        return repository.findByUserIdAndIdempotencyKey(key.userId(), key.idempotencyKey()).orElse(null);
+    }
+
+    private static Claim resolve(Entry entry, String fingerprint) {
+        if (!entry.fingerprint().equals(fingerprint)) {
+            return new Claim(Outcome.MISMATCH, null);
+        }
+        if (entry.response() == null) {
+            return new Claim(Outcome.IN_PROGRESS, null);
+        }
+        return new Claim(Outcome.REPLAY, entry.response());
+    }
+
+    /**
+     * Stores the response of a claimed request so retries replay it
+     * @param userId the id of the user
+     * @param idempotencyKey the key the request was claimed with
+     * @param fingerprint the hash of the request
+     * @param response the response the request completed with
+     */
+    public void complete(String userId, String idempotencyKey, String fingerprint, StoredResponse response) {
+        Key key = new Key(userId, idempotencyKey);
+        if (persistent) {
+            repository.complete(userId, idempotencyKey, response.statusCode(), response.contentType(),
+                    response.etag(), response.body());
+            cache(key, new Entry(fingerprint, response, System.currentTimeMillis()));
+        } else {
+            entries.computeIfPresent(key, (k, existing) ->
+                    new Entry(existing.fingerprint(), response, existing.createdAtMillis()));
+        }
+    }
+
+    /**
+     * Gives up the claim of a request that failed on the server, so a retry runs it again
+     * @param userId the id of the user
+     * @param idempotencyKey the key the request was claimed with
+     */
+    public void release(String userId, String idempotencyKey) {
+        if (persistent) {
+            repository.deleteInProgress(userId, idempotencyKey);
+        } else {
+            entries.computeIfPresent(new Key(userId, idempotencyKey), (k, existing) ->
+                    existing.response() == null ? null : existing);
+        }
+    }
+
+    /**
+     * Removes expired records from memory and the database
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        evictExpired(System.currentTimeMillis());
+        if (persistent) {
+            repository.deleteCreatedBefore(OffsetDateTime.now(ZoneOffset.UTC).minus(ttl));
+        }
+    }
+
+    private void cache(Key key, Entry entry) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evictExpired(System.currentTimeMillis());
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> !isLive(entry, now));
+    }
+
+    private boolean isLive(Entry entry, long now) {
+        long age = now - entry.createdAtMillis();
+        return age < ttl.toMillis() && (entry.response() != null || age < inProgressTimeout.toMillis());
+    }
+}
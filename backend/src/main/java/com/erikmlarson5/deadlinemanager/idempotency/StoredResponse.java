@@ -0,0 +1,11 @@
+package com.erikmlarson5.deadlinemanager.idempotency;
+
+/**
+ * The parts of a completed response replayed to retries of the same idempotent request
+ * @param statusCode the HTTP status of the original response
+ * @param contentType the content type of the body, null when there was none
+ * @param etag the ETag header of the original response, null when there was none
+ * @param body the response body as written by the controller
+ */
+public record StoredResponse(int statusCode, String contentType, String etag, byte[] body) {
+}
@@ -0,0 +1,59 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Registers the Hibernate hooks behind per-request statistics. Statement and flush counts come
+ * from RequestStatisticsSessionListener, and entity loads from a post-load event listener.
+ */
+@Configuration
+public class HibernateMetricsConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer requestStatisticsCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session.events.auto", RequestStatisticsSessionListener.class.getName());
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> List.of(new EntityLoadCountingIntegrator()));
+        };
+    }
+
+    /**
+     * Appends a post-load listener which counts hydrated entities for the current request
+     */
+    static class EntityLoadCountingIntegrator implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            PostLoadEventListener listener = event -> {
+                RequestStatistics statistics = RequestStatistics.current();
+                if (statistics != null) {
+                    statistics.incrementEntityLoads();
+                }
+            };
+            sessionFactory.getServiceRegistry()
+                    .requireService(EventListenerRegistry.class)
+                    .appendListeners(EventType.POST_LOAD, listener);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                 SessionFactoryServiceRegistry serviceRegistry) {
+
+        }
+    }
+}
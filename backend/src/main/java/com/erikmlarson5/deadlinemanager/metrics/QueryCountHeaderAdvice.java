@@ -0,0 +1,53 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds the statement count and JDBC time of the current request as response headers. Headers are
+ * written just before the body, after the handler has finished all of its database work. Meant
+ * for local and staging use, enabled with diagnostics.query-budget.response-headers=true. The advice
+ * is always registered and checks the flag itself, so the dev profile turns the headers on in an
+ * AOT-processed build too.
+ */
+@ControllerAdvice
+public class QueryCountHeaderAdvice implements ResponseBodyAdvice<Object> {
+    static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    private final boolean enabled;
+
+    /**
+     * Advice which adds the headers only when they are enabled
+     * @param enabled whether responses get the query count headers
+     */
+    public QueryCountHeaderAdvice(@Value("${diagnostics.query-budget.response-headers:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            response.getHeaders().set(QUERY_COUNT_HEADER, String.valueOf(statistics.getStatements()));
+            response.getHeaders().set(QUERY_TIME_HEADER,
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcTimeNanos())));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,28 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Datasource-proxy listener which counts every statement round trip and its JDBC time into the
+ * current request's statistics, regardless of whether Hibernate or plain JDBC issued it
+ */
+public class QueryCountingListener implements QueryExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            statistics.recordStatement(TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+/**
+ * Per-request counters of database work, bound to the thread handling the request. The JDBC
+ * proxy and Hibernate listeners increment the current instance and RequestStatisticsFilter
+ * publishes it once the request completes. Work outside of a request (startup, scheduled jobs)
+ * is ignored unless a test measures it with QueryCount.measure.
+ */
+public final class RequestStatistics {
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long jdbcTimeNanos;
+    private long entityLoads;
+    private long flushes;
+
+    RequestStatistics() {
+
+    }
+
+    /**
+     * Starts collecting statistics for the request on the current thread
+     * @return the new statistics holder
+     */
+    static RequestStatistics begin() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stops collecting statistics on the current thread
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Replaces the statistics bound to the current thread
+     * @param statistics the statistics to bind, or null to unbind
+     */
+    static void bind(RequestStatistics statistics) {
+        if (statistics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics);
+        }
+    }
+
+    /**
+     * Gets the statistics of the request on the current thread
+     * @return the current statistics, or null outside of a request
+     */
+    public static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(long elapsedNanos) {
+        statements++;
+        jdbcTimeNanos += elapsedNanos;
+    }
+
+    void incrementEntityLoads() {
+        entityLoads++;
+    }
+
+    void incrementFlushes() {
+        flushes++;
+    }
+
+    /**
+     * Adds the counts of a nested measurement to these statistics
+     * @param nested the statistics collected by the nested measurement
+     */
+    void add(RequestStatistics nested) {
+        statements += nested.statements;
+        jdbcTimeNanos += nested.jdbcTimeNanos;
+        entityLoads += nested.entityLoads;
+        flushes += nested.flushes;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getJdbcTimeNanos() {
+        return jdbcTimeNanos;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestStatistics{" +
+                "statements=" + statements +
+                ", jdbcTimeMs=" + jdbcTimeNanos / 1_000_000 +
+                ", entityLoads=" + entityLoads +
+                ", flushes=" + flushes +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects database statistics for each API request, publishes them tagged by endpoint, and logs
+ * requests which exceed the configured statement, JDBC time or latency budget
+ */
+@Component
+public class RequestStatisticsFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RequestStatisticsFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final long maxStatements;
+    private final Duration maxJdbcTime;
+    private final Duration maxLatency;
+
+    /**
+     * Filter which records per-request database statistics and enforces the query budget
+     * @param meterRegistry the registry to publish statistics to
+     * @param maxStatements the statement budget per request
+     * @param maxJdbcTime the total JDBC time budget per request
+     * @param maxLatency the end-to-end latency budget per request
+     */
+    public RequestStatisticsFilter(MeterRegistry meterRegistry,
+                                   @Value("${diagnostics.query-budget.max-statements:20}") long maxStatements,
+                                   @Value("${diagnostics.query-budget.max-jdbc-time:250ms}") Duration maxJdbcTime,
+                                   @Value("${diagnostics.query-budget.max-latency:1s}") Duration maxLatency) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxJdbcTime = maxJdbcTime;
+        this.maxLatency = maxLatency;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        RequestStatistics statistics = RequestStatistics.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestStatistics.end();
+            long elapsedNanos = System.nanoTime() - start;
+            String uri = endpointPattern(request);
+            record(request.getMethod(), uri, statistics);
+            enforceBudget(request.getMethod(), uri, statistics, elapsedNanos);
+        }
+    }
+
+    /**
+     * Gets the mapped pattern so /projects/1 and /projects/2 share one set of series
+     * @param request the current request
+     * @return the handler pattern, or UNKNOWN when no handler matched
+     */
+    private String endpointPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    private void record(String method, String uri, RequestStatistics statistics) {
+        summary("jdbc.request.statements", "JDBC statements executed per request", method, uri)
+                .record(statistics.getStatements());
+        Timer.builder("jdbc.request.time")
+                .description("Total JDBC execution time per request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statistics.getJdbcTimeNanos(), TimeUnit.NANOSECONDS);
+        summary("hibernate.request.entity.loads", "Entities loaded per request", method, uri)
+                .record(statistics.getEntityLoads());
+        summary("hibernate.request.flushes", "Session flushes per request", method, uri)
+                .record(statistics.getFlushes());
+    }
+
+    private void enforceBudget(String method, String uri, RequestStatistics statistics, long elapsedNanos) {
+        boolean overStatements = statistics.getStatements() > maxStatements;
+        boolean overJdbcTime = statistics.getJdbcTimeNanos() > maxJdbcTime.toNanos();
+        boolean overLatency = elapsedNanos > maxLatency.toNanos();
+        if (!overStatements && !overJdbcTime && !overLatency) {
+            return;
+        }
+
+        meterRegistry.counter("jdbc.request.budget.exceeded", "method", method, "uri", uri).increment();
+        log.warn("{} {} exceeded query budget: {} statements (max {}), {}ms JDBC (max {}ms), {}ms total (max {}ms)",
+                method, uri, statistics.getStatements(), maxStatements,
+                TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcTimeNanos()), maxJdbcTime.toMillis(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), maxLatency.toMillis());
+    }
+
+    private DistributionSummary summary(String name, String description, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", method)
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Hibernate session listener which counts flushes into the current request's statistics.
+ * Registered for every session through hibernate.session.events.auto, so it must keep a public
+ * no-argument constructor. Statements are counted by the JDBC proxy instead.
+ */
+public class RequestStatisticsSessionListener implements SessionEventListener {
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            statistics.incrementFlushes();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.erikmlarson5.deadlinemanager.planner;
+
+import com.erikmlarson5.deadlinemanager.dto.PlanAllocationDTO;
+import com.erikmlarson5.deadlinemanager.dto.PlanDayDTO;
+import com.erikmlarson5.deadlinemanager.dto.PlanLateTaskDTO;
+import com.erikmlarson5.deadlinemanager.dto.PlanTaskView;
+import com.erikmlarson5.deadlinemanager.dto.StudyPlanDTO;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * One user's incomplete tasks kept in earliest-deadline-first order. With the same capacity every day, filling
+ * each day in that order is the plan that minimizes the worst lateness, and a task's place in it is just the sum
+ * of the hours ordered before it. Changing a task therefore only moves that task in the order, O(log n), and
+ * rendering is one pass over the ordered tasks without reloading or sorting them. Not thread-safe, callers
+ * synchronize
+ */
+public class StudyPlan {
+    private static final Comparator<LocalDate> DEADLINE_ORDER = Comparator.nullsLast(Comparator.naturalOrder());
+
+    // EDF order, ties broken by task id so a plan is stable between renders
+    private record Key(LocalDate deadline, Long taskId) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byDeadline = DEADLINE_ORDER.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : taskId.compareTo(other.taskId);
+        }
+    }
+
+    private final TreeMap<Key, PlanTaskView> tasks = new TreeMap<>();
+    private final Map<Long, Key> keysByTask = new HashMap<>();
+    private final Map<Long, Set<Long>> tasksByProject = new HashMap<>();
+    private long totalMinutes;
+
+    /**
+     * Plan of the given tasks
+     * @param views the user's incomplete tasks, in any order
+     */
+    public StudyPlan(Collection<PlanTaskView> views) {
+        for (PlanTaskView view : views) {
+            put(view);
+        }
+    }
+
+    /**
+     * Adds a task, or moves it when its deadline or estimate changed
+     * @param view the current state of the task
+     */
+    public void put(PlanTaskView view) {
+        remove(view.taskId());
+        Key key = new Key(view.deadline(), view.taskId());
+        tasks.put(key, view);
+        keysByTask.put(view.taskId(), key);
+        tasksByProject.computeIfAbsent(view.projectId(), id -> new HashSet<>()).add(view.taskId());
+        totalMinutes += minutes(view);
+    }
+
+    /**
+     * Removes a task that was completed or deleted
+     * @param taskId the id of the task
+     */
+    public void remove(Long taskId) {
+        Key key = keysByTask.remove(taskId);
+        if (key == null) {
+            return;
+        }
+        PlanTaskView removed = tasks.remove(key);
+        totalMinutes -= minutes(removed);
+        Set<Long> projectTasks = tasksByProject.get(removed.projectId());
+        projectTasks.remove(taskId);
+        if (projectTasks.isEmpty()) {
+            tasksByProject.remove(removed.projectId());
+        }
+    }
+
+    /**
+     * Replaces the given tasks with their current state, removing those no longer incomplete
+     * @param taskIds the ids of the tasks that changed
+     * @param current the changed tasks that are still incomplete
+     */
+    public void replaceTasks(Collection<Long> taskIds, Collection<PlanTaskView> current) {
+        for (Long taskId : taskIds) {
+            remove(taskId);
+        }
+        for (PlanTaskView view : current) {
+            put(view);
+        }
+    }
+
+    /**
+     * Replaces every task of a project with their current state, after the project's due date, status or tasks
+     * changed
+     * @param projectId the id of the project
+     * @param current the project's incomplete tasks, empty when the project was completed or deleted
+     */
+    public void replaceProject(Long projectId, Collection<PlanTaskView> current) {
+        replaceTasks(List.copyOf(tasksByProject.getOrDefault(projectId, Set.of())), current);
+    }
+
+    /**
+     * Gets the number of planned tasks
+     * @return the number of incomplete tasks
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Spreads the task hours across the days from today, filling each day up to its capacity in deadline order
+     * @param today the first day of the plan
+     * @param hoursPerDay the hours available each day
+     * @param days the number of days whose allocations are listed, later days are only totalled
+     * @param maxLateTasks the most late tasks listed, all are counted
+     * @return the plan
+     */
+    public StudyPlanDTO render(LocalDate today, double hoursPerDay, int days, int maxLateTasks) {
+        // Whole minutes, so hours split across days always add back up to the estimate
+        long capacity = Math.max(1, Math.round(hoursPerDay * 60));
+        long windowEnd = capacity * days;
+        List<PlanDayDTO> planDays = new ArrayList<>();
+        List<PlanLateTaskDTO> lateTasks = new ArrayList<>();
+        int lateTaskCount = 0;
+        long cursor = 0;
+        long lastDayMinutes = 0;
+
+        for (PlanTaskView task : tasks.values()) {
+            long start = cursor;
+            long end = start + minutes(task);
+            cursor = end;
+
+            // Days fill contiguously, so a task's slices go on the last listed day or open the next one
+            for (long at = start; at < Math.min(end, windowEnd); ) {
+                int dayIndex = (int) (at / capacity);
+                long slice = Math.min(end, (dayIndex + 1) * capacity) - at;
+                if (planDays.size() == dayIndex) {
+                    planDays.add(new PlanDayDTO(today.plusDays(dayIndex), 0, new ArrayList<>()));
+                    lastDayMinutes = 0;
+                }
+                PlanDayDTO day = planDays.get(dayIndex);
+                day.getAllocations().add(new PlanAllocationDTO(task.taskId(), task.projectId(), task.title(),
+                        task.deadline(), hours(slice)));
+                lastDayMinutes += slice;
+                day.setHours(hours(lastDayMinutes));
+                at += slice;
+            }
+
+            LocalDate finishDate = today.plusDays((end > start ? end - 1 : start) / capacity);
+            LocalDate deadline = task.deadline();
+            if (deadline != null && finishDate.isAfter(deadline)) {
+                lateTaskCount++;
+                if (lateTasks.size() < maxLateTasks) {
+                    lateTasks.add(new PlanLateTaskDTO(task.taskId(), task.projectId(), task.title(), deadline,
+                            finishDate));
+                }
+            }
+        }
+
+        LocalDate finishDate = totalMinutes > 0 ? today.plusDays((totalMinutes - 1) / capacity) : null;
+        return new StudyPlanDTO(today, hoursPerDay, tasks.size(), hours(totalMinutes), finishDate, lateTaskCount,
+                planDays, lateTasks);
+    }
+
+    private static long minutes(PlanTaskView task) {
+        Float estimatedHours = task.estimatedHours();
+        return estimatedHours == null || estimatedHours <= 0 ? 0 : Math.round(estimatedHours * 60.0);
+    }
+
+    private static double hours(long minutes) {
+        return Math.round(minutes / 60.0 * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,230 @@
+package com.erikmlarson5.deadlinemanager.planner;
+
+import com.erikmlarson5.deadlinemanager.dto.PlanTaskView;
+import com.erikmlarson5.deadlinemanager.dto.StudyPlanDTO;
+import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Builds study plans and keeps each recently planned user's tasks in memory, so replanning after a write moves
+ * only the changed tasks instead of reloading and re-sorting all of them. Task and project writes update the
+ * held plan once their transaction commits, and only for users who have one. Those updates read the changed
+ * tasks in a new read-write transaction, so they are served by the primary rather than a replica that may not
+ * have replayed the write yet. Writes made on another node are picked up when the held plan expires after the
+ * state ttl
+ */
+@Component
+public class StudyPlanner {
+    private static final int MAX_LATE_TASKS = 100;
+
+    // plan is null while the initial load runs, a write landing then marks the loaded plan stale
+    private static final class UserPlan {
+        private StudyPlan plan;
+        private boolean stale;
+        private long loadedAtMillis;
+        private RenderKey renderedFor;
+        private StudyPlanDTO rendered;
+    }
+
+    private record RenderKey(LocalDate today, double hoursPerDay, int days) {
+    }
+
+    private final Map<String, UserPlan> plans = new ConcurrentHashMap<>();
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate primaryReads;
+    private final ZoneId zone;
+    private final Duration stateTtl;
+    private final int maxUsers;
+    private final Counter fullReplans;
+    private final Counter incrementalReplans;
+
+    /**
+     * Study planner loading tasks through the task repository
+     * @param taskRepository the injected repository of task plan projections
+     * @param transactionManager the injected transaction manager the post-commit reads run in
+     * @param meterRegistry the injected registry for replan metrics
+     * @param zone the time zone whose current date a plan starts from
+     * @param stateTtl how long a user's tasks are held before the next plan reloads them
+     * @param maxUsers the most users whose tasks are held at once
+     */
+    @Autowired
+    public StudyPlanner(TaskRepository taskRepository, PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${plan.zone:${reminders.zone:UTC}}") String zone,
+                        @Value("${plan.state-ttl:5m}") Duration stateTtl,
+                        @Value("${plan.max-users:1000}") int maxUsers) {
+        this.taskRepository = taskRepository;
+        // A read-only transaction could be routed to a replica, and after commit the write's own transaction
+        // can no longer be joined
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.zone = ZoneId.of(zone);
+        this.stateTtl = stateTtl;
+        this.maxUsers = maxUsers;
+        this.fullReplans = replanCounter(meterRegistry, "full");
+        this.incrementalReplans = replanCounter(meterRegistry, "incremental");
+        Gauge.builder("plan.users", plans, Map::size)
+                .description("Users whose tasks are held in memory by the study planner")
+                .register(meterRegistry);
+    }
+
+    private static Counter replanCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("plan.replans")
+                .description("Study plan state changes, by whether all tasks were reloaded or only changed ones")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Plans a user's incomplete task hours across the days from today in earliest-deadline-first order
+     * @param userId the id of the user
+     * @param hoursPerDay the hours the user can work each day
+     * @param days the number of days whose allocations are listed
+     * @return the plan
+     */
+    public StudyPlanDTO plan(String userId, double hoursPerDay, int days) {
+        long now = System.currentTimeMillis();
+        UserPlan userPlan = plans.get(userId);
+        boolean current;
+        if (userPlan != null) {
+            synchronized (userPlan) {
+                current = userPlan.plan != null && now - userPlan.loadedAtMillis < stateTtl.toMillis();
+            }
+        } else {
+            current = false;
+        }
+        if (!current) {
+            userPlan = load(userId, now);
+        }
+
+        RenderKey key = new RenderKey(LocalDate.now(zone), hoursPerDay, days);
+        synchronized (userPlan) {
+            if (!key.equals(userPlan.renderedFor)) {
+                userPlan.rendered = userPlan.plan.render(key.today(), hoursPerDay, days, MAX_LATE_TASKS);
+                userPlan.renderedFor = key;
+            }
+            return userPlan.rendered;
+        }
+    }
+
+    private UserPlan load(String userId, long now) {
+        if (plans.size() >= maxUsers && !plans.containsKey(userId)) {
+            evictOldest();
+        }
+        UserPlan userPlan = new UserPlan();
+        plans.put(userId, userPlan);
+
+        List<PlanTaskView> views = taskRepository.findPlanViewsByUserIdAndStatusNot(userId, Status.COMPLETED);
+        StudyPlan plan = new StudyPlan(views);
+        fullReplans.increment();
+        synchronized (userPlan) {
+            userPlan.plan = plan;
+            // A write that committed during the load may be missing from it, reload on the next plan
+            userPlan.loadedAtMillis = userPlan.stale ? 0 : now;
+            userPlan.stale = false;
+        }
+        return userPlan;
+    }
+
+    private void evictOldest() {
+        String oldestUser = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<String, UserPlan> entry : plans.entrySet()) {
+            synchronized (entry.getValue()) {
+                if (entry.getValue().loadedAtMillis < oldest) {
+                    oldest = entry.getValue().loadedAtMillis;
+                    oldestUser = entry.getKey();
+                }
+            }
+        }
+        if (oldestUser != null) {
+            plans.remove(oldestUser);
+        }
+    }
+
+    /**
+     * Replans the given tasks after they were updated, completed or deleted
+     * @param userId the id of the owning user
+     * @param taskIds the ids of the changed tasks
+     */
+    public void tasksChanged(String userId, Collection<Long> taskIds) {
+        List<Long> ids = List.copyOf(taskIds);
+        afterCommit(userId, () -> taskRepository.findPlanViewsByTaskIdsAndUserIdAndStatusNot(ids, userId,
+                Status.COMPLETED), (plan, views) -> plan.replaceTasks(ids, views));
+    }
+
+    /**
+     * Replans every task of a project after the project changed or a task was added to it
+     * @param userId the id of the owning user
+     * @param projectId the id of the project
+     */
+    public void projectChanged(String userId, Long projectId) {
+        afterCommit(userId, () -> taskRepository.findPlanViewsByProjectIdAndUserIdAndStatusNot(projectId, userId,
+                Status.COMPLETED), (plan, views) -> plan.replaceProject(projectId, views));
+    }
+
+    /**
+     * Removes a deleted project's tasks from the plan
+     * @param userId the id of the owning user
+     * @param projectId the id of the deleted project
+     */
+    public void projectDeleted(String userId, Long projectId) {
+        afterCommit(userId, List::of, (plan, views) -> plan.replaceProject(projectId, views));
+    }
+
+    private void afterCommit(String userId, Supplier<List<PlanTaskView>> query,
+                             BiConsumer<StudyPlan, List<PlanTaskView>> update) {
+        Runnable action = () -> apply(userId, query, update);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void apply(String userId, Supplier<List<PlanTaskView>> query,
+                       BiConsumer<StudyPlan, List<PlanTaskView>> update) {
+        // Users without a held plan get theirs built from scratch on their next request
+        UserPlan userPlan = plans.get(userId);
+        if (userPlan == null) {
+            return;
+        }
+        List<PlanTaskView> views = primaryReads.execute(status -> query.get());
+        synchronized (userPlan) {
+            if (userPlan.plan == null) {
+                userPlan.stale = true;
+                return;
+            }
+            update.accept(userPlan.plan, views);
+            userPlan.renderedFor = null;
+            userPlan.rendered = null;
+        }
+        incrementalReplans.increment();
+    }
+}
@@ -0,0 +1,40 @@
+package com.erikmlarson5.deadlinemanager.reminder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends each reminder as one JSON line to a local file, a stand-in for a mail or push sender in development
+ * and tests
+ */
+public class FileReminderSender implements ReminderSender {
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Sender writing to the given file
+     * @param file the file reminders are appended to, created when missing
+     * @param objectMapper the mapper used to write each reminder
+     */
+    public FileReminderSender(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void send(Reminder reminder) {
+        try {
+            String line = objectMapper.writeValueAsString(reminder) + System.lineSeparator();
+            Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write reminder to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.erikmlarson5.deadlinemanager.reminder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding timers keyed by K. Level i has wheelSize slots of wheelSize^i ticks each,
+ * so a few levels of 64 slots cover months of one-second ticks. Scheduling and cancelling are O(1), and
+ * advancing touches only the slots whose boundaries it passes: a timer is moved to a finer level at most once
+ * per level before it fires. Not thread-safe, callers synchronize
+ * @param <K> the key identifying a timer, scheduling an existing key replaces its timer
+ * @param <V> the value handed back when the timer fires
+ */
+public class HierarchicalTimingWheel<K, V> {
+    private static final class Timer<K, V> {
+        private final K key;
+        private final V value;
+        private final long deadlineTick;
+        private Set<Timer<K, V>> slot;
+
+        private Timer(K key, V value, long deadlineTick) {
+            this.key = key;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    private final int maxTimers;
+    private final List<List<Set<Timer<K, V>>>> wheels;
+    private final Map<K, Timer<K, V>> timers = new HashMap<>();
+    // Timers at or before the current tick, handed out on the next advance
+    private final Set<Timer<K, V>> due = new LinkedHashSet<>();
+    private long currentTick;
+
+    /**
+     * Timing wheel starting at the given time
+     * @param tickMillis the resolution of the wheel, timers fire on the first tick at or after their deadline
+     * @param wheelSize the number of slots per level
+     * @param levels the number of levels, the wheel spans wheelSize^levels ticks
+     * @param maxTimers the most timers held at once
+     * @param startMillis the current time in epoch milliseconds
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, int maxTimers, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1 || Math.pow(wheelSize, levels) > Long.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.maxTimers = maxTimers;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<Set<Timer<K, V>>> slots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            wheels.add(slots);
+        }
+    }
+
+    /**
+     * Gets the latest deadline the wheel can hold
+     * @return the end of the wheel's span in epoch milliseconds
+     */
+    public long horizonMillis() {
+        return (currentTick + (long) Math.pow(wheelSize, levels) - 1) * tickMillis;
+    }
+
+    /**
+     * Schedules a timer, replacing any timer with the same key
+     * @param key the key of the timer
+     * @param deadlineMillis when the timer fires, in epoch milliseconds, past deadlines fire on the next advance
+     * @param value the value handed back when it fires
+     * @return false when the deadline is beyond the horizon or the wheel is full, nothing is scheduled then
+     */
+    public boolean schedule(K key, long deadlineMillis, V value) {
+        long deadlineTick = Math.max(currentTick, Math.ceilDiv(deadlineMillis, tickMillis));
+        if (deadlineMillis > horizonMillis()) {
+            cancel(key);
+            return false;
+        }
+        if (timers.size() >= maxTimers && !timers.containsKey(key)) {
+            return false;
+        }
+
+        cancel(key);
+        Timer<K, V> timer = new Timer<>(key, value, deadlineTick);
+        timers.put(key, timer);
+        place(timer);
+        return true;
+    }
+
+    /**
+     * Cancels a timer
+     * @param key the key of the timer
+     * @return true when a timer was removed
+     */
+    public boolean cancel(K key) {
+        Timer<K, V> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        timer.slot.remove(timer);
+        return true;
+    }
+
+    /**
+     * Gets the number of scheduled timers
+     * @return the number of timers that have not fired or been cancelled
+     */
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Moves the wheel forward, firing every timer whose deadline has been reached
+     * @param nowMillis the current time in epoch milliseconds
+     * @param expired receives the value of each fired timer, in deadline order
+     */
+    public void advance(long nowMillis, Consumer<V> expired) {
+        long targetTick = nowMillis / tickMillis;
+        fireDue(expired);
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Coarse levels first, so timers cascading through several levels reach level 0 in the same step
+            long span = (long) Math.pow(wheelSize, levels - 1);
+            for (int level = levels - 1; level > 0; level--, span /= wheelSize) {
+                if (currentTick % span == 0) {
+                    cascade(wheels.get(level).get((int) ((currentTick / span) % wheelSize)));
+                }
+            }
+            cascade(wheels.get(0).get((int) (currentTick % wheelSize)));
+            fireDue(expired);
+        }
+    }
+
+    private void cascade(Set<Timer<K, V>> slot) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timer<K, V>> timersInSlot = new ArrayList<>(slot);
+        slot.clear();
+        for (Timer<K, V> timer : timersInSlot) {
+            place(timer);
+        }
+    }
+
+    private void fireDue(Consumer<V> expired) {
+        if (due.isEmpty()) {
+            return;
+        }
+        List<Timer<K, V>> fired = new ArrayList<>(due);
+        due.clear();
+        for (Timer<K, V> timer : fired) {
+            timers.remove(timer.key);
+            expired.accept(timer.value);
+        }
+    }
+
+    // Places a timer on the level of the highest base-wheelSize digit where its deadline differs from the
+    // current tick. That slot's boundary lies after the current tick and at or before the deadline. Deadlines
+    // differing above the top level stay on the top level, which re-places them each time their slot comes round
+    private void place(Timer<K, V> timer) {
+        if (timer.deadlineTick <= currentTick) {
+            timer.slot = due;
+            due.add(timer);
+            return;
+        }
+
+        long deadline = timer.deadlineTick;
+        long current = currentTick;
+        int level = 0;
+        while (level < levels - 1 && deadline / wheelSize != current / wheelSize) {
+            deadline /= wheelSize;
+            current /= wheelSize;
+            level++;
+        }
+        Set<Timer<K, V>> slot = wheels.get(level).get((int) (deadline % wheelSize));
+        timer.slot = slot;
+        slot.add(timer);
+    }
+}
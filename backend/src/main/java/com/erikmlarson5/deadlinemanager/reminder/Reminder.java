@@ -0,0 +1,20 @@
+package com.erikmlarson5.deadlinemanager.reminder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * A reminder that a project or task is coming due, handed to the ReminderSender when its time is reached
+ * @param type PROJECT or TASK
+ * @param id the id of the project or task
+ * @param projectId the id of the project, or of the task's project
+ * @param userId the id of the user to remind
+ * @param title the title of the project or task
+ * @param dueDate the date it is due
+ * @param leadTime how long before the due time the reminder fires
+ * @param fireAt when the reminder was scheduled to fire
+ */
+public record Reminder(String type, Long id, Long projectId, String userId, String title, LocalDate dueDate,
+                       Duration leadTime, OffsetDateTime fireAt) {
+}
@@ -0,0 +1,376 @@
+package com.erikmlarson5.deadlinemanager.reminder;
+
+import com.erikmlarson5.deadlinemanager.dto.DueDateView;
+import com.erikmlarson5.deadlinemanager.entity.Project;
+import com.erikmlarson5.deadlinemanager.entity.Task;
+import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Fires reminders ahead of project and task due dates without polling the database per user. Incomplete
+ * projects and tasks due within the horizon are held in a hierarchical timing wheel, one timer per lead time,
+ * and every refill reloads the whole window. Service writes on this node reschedule or cancel their timers once
+ * their transaction commits, reading any due dates not at hand from the primary. A write handled by another
+ * node, including every write of a user owned by another shard, only reaches this node's wheel on its next
+ * refill, so a reminder falling due before then is missed.
+ * Fired reminders are checked against the database in one query per tick before they are sent, so a project
+ * or task completed, deleted or moved to another date is not reminded, unless the check runs on a replica that
+ * has not seen the write yet or the write commits between the check and the send. Memory is bounded by
+ * max-pending timers, and with shard.count above 1 each node only keeps the users of its own shard
+ */
+@Component
+public class ReminderScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ReminderScheduler.class);
+    private static final int WHEEL_SIZE = 64;
+
+    private record TimerKey(String type, Long id, Duration leadTime) {
+    }
+
+    private final ProjectRepository projectRepository;
+    private final TaskRepository taskRepository;
+    private final ReminderSender sender;
+    private final TransactionTemplate primaryReads;
+    private final boolean enabled;
+    private final List<Duration> leadTimes;
+    private final LocalTime dueTime;
+    private final ZoneId zone;
+    private final Duration horizon;
+    private final int shardCount;
+    private final int shardIndex;
+    // Guarded by this, the wheel is not thread-safe
+    private final HierarchicalTimingWheel<TimerKey, Reminder> wheel;
+    // Last due date loaded into the wheel, null until the first refill
+    private LocalDate loadedThrough;
+
+    private final Counter sentReminders;
+    private final Counter staleReminders;
+    private final Counter failedReminders;
+    private final Counter droppedReminders;
+
+    /**
+     * Reminder scheduler delivering through the configured sender
+     * @param projectRepository the injected repository loading and re-checking project due dates
+     * @param taskRepository the injected repository loading and re-checking task due dates
+     * @param sender the injected sender reminders are delivered through
+     * @param transactionManager the injected transaction manager the post-commit reads run in
+     * @param meterRegistry the injected registry for delivery and wheel size metrics
+     * @param enabled whether reminders are scheduled at all
+     * @param leadTimes how long before the due time reminders fire, one reminder per lead time
+     * @param dueTime the time of day a due date falls due
+     * @param zone the time zone due dates are interpreted in
+     * @param horizon how far ahead due dates are held in memory
+     * @param tick the resolution of the timing wheel
+     * @param maxPending the most timers held in memory, further timers are dropped and counted
+     * @param shardCount the number of nodes sharing the reminder load
+     * @param shardIndex the shard of this node, from 0 to shardCount - 1
+     */
+    @Autowired
+    public ReminderScheduler(ProjectRepository projectRepository, TaskRepository taskRepository,
+                             ReminderSender sender, PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${reminders.enabled:true}") boolean enabled,
+                             @Value("${reminders.lead-times:24h,1h}") Duration[] leadTimes,
+                             @Value("${reminders.due-time:09:00}") String dueTime,
+                             @Value("${reminders.zone:UTC}") String zone,
+                             @Value("${reminders.horizon:7d}") Duration horizon,
+                             @Value("${reminders.tick:1s}") Duration tick,
+                             @Value("${reminders.max-pending:100000}") int maxPending,
+                             @Value("${reminders.shard.count:1}") int shardCount,
+                             @Value("${reminders.shard.index:0}") int shardIndex) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("reminders.shard.index must be between 0 and shard.count - 1");
+        }
+        this.projectRepository = projectRepository;
+        this.taskRepository = taskRepository;
+        this.sender = sender;
+        // A read-only transaction could be routed to a replica that has not replayed the write yet, and after
+        // commit the write's own transaction can no longer be joined
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.leadTimes = List.copyOf(Arrays.asList(leadTimes));
+        this.dueTime = LocalTime.parse(dueTime);
+        this.zone = ZoneId.of(zone);
+        this.horizon = horizon;
+        this.shardCount = shardCount;
+        this.shardIndex = shardIndex;
+
+        // Enough levels to hold the furthest due date of the window plus a day of slack while it slides
+        long spanTicks = horizon.plusDays(2).toMillis() / tick.toMillis();
+        int levels = 1;
+        for (long ticks = WHEEL_SIZE; ticks < spanTicks; ticks *= WHEEL_SIZE) {
+            levels++;
+        }
+        this.wheel = new HierarchicalTimingWheel<>(tick.toMillis(), WHEEL_SIZE, levels, maxPending,
+                System.currentTimeMillis());
+
+        this.sentReminders = reminderCounter(meterRegistry, "sent");
+        this.staleReminders = reminderCounter(meterRegistry, "stale");
+        this.failedReminders = reminderCounter(meterRegistry, "failed");
+        this.droppedReminders = Counter.builder("reminders.dropped")
+                .description("Reminders not scheduled because the timing wheel was full")
+                .register(meterRegistry);
+        Gauge.builder("reminders.pending", this, ReminderScheduler::pending)
+                .description("Reminders waiting in the timing wheel")
+                .register(meterRegistry);
+    }
+
+    private static Counter reminderCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("reminders.fired")
+                .description("Reminders whose time was reached, by how they were handled")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reschedules a project's reminders after it was created or updated
+     * @param project the saved project
+     */
+    public void projectChanged(Project project) {
+        DueDateView view = new DueDateView(DueDateView.PROJECT, project.getProjectId(), project.getProjectId(),
+                project.getUserId(), project.getTitle(), project.getDueDate());
+        afterCommit(() -> reschedule(view, project.getStatus() == Status.COMPLETED));
+    }
+
+    /**
+     * Reschedules a task's reminders after it was updated
+     * @param task the saved task
+     */
+    public void taskChanged(Task task) {
+        Project project = task.getProject();
+        DueDateView view = new DueDateView(DueDateView.TASK, task.getTaskId(), project.getProjectId(),
+                project.getUserId(), task.getTitle(), task.getDueDate());
+        afterCommit(() -> reschedule(view, task.getStatus() == Status.COMPLETED));
+    }
+
+    /**
+     * Reloads the reminders of tasks whose ids are not at hand, after a task was added or many were updated
+     * @param taskIds the ids of the changed tasks, an empty collection reloads nothing
+     */
+    public void tasksChanged(Collection<Long> taskIds) {
+        if (!enabled || taskIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(taskIds);
+        afterCommit(() -> {
+            Map<Long, DueDateView> current = byId(primaryReads.execute(status ->
+                    taskRepository.findDueDateViewsByTaskIdsAndStatusNot(ids, Status.COMPLETED)));
+            for (Long id : ids) {
+                DueDateView view = current.get(id);
+                if (view == null) {
+                    cancel(DueDateView.TASK, id);
+                } else {
+                    reschedule(view, false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reloads the reminders of every incomplete task of a project within the window, after a task was added
+     * @param projectId the id of the project
+     */
+    public void projectTasksChanged(Long projectId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            LocalDate through = loadedThrough();
+            if (through == null) {
+                return;
+            }
+            List<DueDateView> views = primaryReads.execute(status ->
+                    taskRepository.findDueDateViewsByProjectIdAndDueDateBetweenAndStatusNot(projectId,
+                            LocalDate.now(zone), through, Status.COMPLETED));
+            for (DueDateView view : views) {
+                reschedule(view, false);
+            }
+        });
+    }
+
+    /**
+     * Cancels a deleted project's reminders. Reminders of its tasks are dropped when they fire and are found
+     * to no longer exist
+     * @param projectId the id of the deleted project
+     */
+    public void projectDeleted(Long projectId) {
+        afterCommit(() -> cancel(DueDateView.PROJECT, projectId));
+    }
+
+    /**
+     * Cancels a deleted task's reminders
+     * @param taskId the id of the deleted task
+     */
+    public void taskDeleted(Long taskId) {
+        afterCommit(() -> cancel(DueDateView.TASK, taskId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Reloads every due date of the window. Loading only the days that entered the window would never pick up
+     * projects and tasks created or moved by writes on other nodes, reloading bounds that gap to the refill
+     * interval. Scheduling replaces timers by key, so reloaded due dates are not reminded twice
+     */
+    @Scheduled(fixedDelayString = "${reminders.refill-interval:1h}")
+    public void refill() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now(zone);
+        LocalDate through = today.plusDays(horizon.toDays());
+
+        List<DueDateView> views = new ArrayList<>(projectRepository.findDueDateViewsByDueDateBetweenAndStatusNot(
+                today, through, Status.COMPLETED));
+        views.addAll(taskRepository.findDueDateViewsByDueDateBetweenAndStatusNot(today, through,
+                Status.COMPLETED));
+        synchronized (this) {
+            for (DueDateView view : views) {
+                schedule(view);
+            }
+            loadedThrough = through;
+        }
+        log.debug("Loaded {} due dates from {} through {}", views.size(), today, through);
+    }
+
+    /**
+     * Advances the wheel and sends every reminder whose time was reached and whose project or task is still
+     * incomplete and due on the same date
+     */
+    @Scheduled(fixedDelayString = "${reminders.tick:1s}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Reminder> fired = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), fired::add);
+        }
+        if (fired.isEmpty()) {
+            return;
+        }
+
+        List<Long> projectIds = new ArrayList<>();
+        List<Long> taskIds = new ArrayList<>();
+        for (Reminder reminder : fired) {
+            (DueDateView.PROJECT.equals(reminder.type()) ? projectIds : taskIds).add(reminder.id());
+        }
+        Map<Long, DueDateView> projects = projectIds.isEmpty() ? Map.of()
+                : byId(projectRepository.findDueDateViewsByProjectIdsAndStatusNot(projectIds, Status.COMPLETED));
+        Map<Long, DueDateView> tasks = taskIds.isEmpty() ? Map.of()
+                : byId(taskRepository.findDueDateViewsByTaskIdsAndStatusNot(taskIds, Status.COMPLETED));
+
+        for (Reminder reminder : fired) {
+            DueDateView current = (DueDateView.PROJECT.equals(reminder.type()) ? projects : tasks)
+                    .get(reminder.id());
+            if (current == null || !Objects.equals(current.dueDate(), reminder.dueDate())) {
+                staleReminders.increment();
+                continue;
+            }
+            try {
+                sender.send(new Reminder(reminder.type(), reminder.id(), current.projectId(), current.userId(),
+                        current.title(), current.dueDate(), reminder.leadTime(), reminder.fireAt()));
+                sentReminders.increment();
+            } catch (RuntimeException e) {
+                failedReminders.increment();
+                log.warn("Could not send the {} reminder for {} {}", reminder.leadTime(), reminder.type(),
+                        reminder.id(), e);
+            }
+        }
+    }
+
+    private synchronized void reschedule(DueDateView view, boolean completed) {
+        cancel(view.type(), view.id());
+        if (!completed && loadedThrough != null && view.dueDate() != null
+                && !view.dueDate().isAfter(loadedThrough)) {
+            schedule(view);
+        }
+    }
+
+    // Callers hold the lock. Reminders whose time has already passed are not sent late
+    private void schedule(DueDateView view) {
+        if (view.dueDate() == null || Math.floorMod(Objects.hashCode(view.userId()), shardCount) != shardIndex) {
+            return;
+        }
+        OffsetDateTime due = view.dueDate().atTime(dueTime).atZone(zone).toOffsetDateTime();
+        long now = System.currentTimeMillis();
+        for (Duration leadTime : leadTimes) {
+            OffsetDateTime fireAt = due.minus(leadTime);
+            long fireAtMillis = fireAt.toInstant().toEpochMilli();
+            TimerKey key = new TimerKey(view.type(), view.id(), leadTime);
+            if (fireAtMillis <= now) {
+                wheel.cancel(key);
+                continue;
+            }
+            Reminder reminder = new Reminder(view.type(), view.id(), view.projectId(), view.userId(),
+                    view.title(), view.dueDate(), leadTime, fireAt);
+            if (!wheel.schedule(key, fireAtMillis, reminder)) {
+                droppedReminders.increment();
+            }
+        }
+    }
+
+    private synchronized void cancel(String type, Long id) {
+        for (Duration leadTime : leadTimes) {
+            wheel.cancel(new TimerKey(type, id, leadTime));
+        }
+    }
+
+    private synchronized LocalDate loadedThrough() {
+        return loadedThrough;
+    }
+
+    private synchronized int pending() {
+        return wheel.size();
+    }
+
+    private static Map<Long, DueDateView> byId(List<DueDateView> views) {
+        Map<Long, DueDateView> byId = new HashMap<>(views.size() * 2);
+        for (DueDateView view : views) {
+            byId.put(view.id(), view);
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.erikmlarson5.deadlinemanager.reminder;
+
+/**
+ * Delivers reminders to users. The default writes them to a local file; declaring another ReminderSender bean,
+ * e.g. one sending mail, replaces it
+ */
+public interface ReminderSender {
+
+    /**
+     * Delivers one reminder
+     * @param reminder the reminder to deliver
+     * @throws RuntimeException when delivery failed, the reminder is counted as failed and not retried
+     */
+    void send(Reminder reminder);
+}
@@ -0,0 +1,65 @@
+package com.erikmlarson5.deadlinemanager.repository;
+
+import com.erikmlarson5.deadlinemanager.dto.ProjectView;
+import com.erikmlarson5.deadlinemanager.entity.ArchivedProject;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A JPA repository for archived projects, moving rows between the project and project_archive tables
+ */
+@Repository
+public interface ArchivedProjectRepository extends JpaRepository<ArchivedProject, Long> {
+    // Summary projection of archived projects, leaving out descriptions like the active list queries
+    String ARCHIVED_PROJECT_SUMMARY = "select new com.erikmlarson5.deadlinemanager.dto.ProjectView(a.projectId, " +
+            "a.title, c.name, a.dueDate, a.estimatedHours, a.difficulty, a.status, a.priority, " +
+            "a.createdAt, a.updatedAt, a.completedAt, a.version, 0L) from ArchivedProject a " +
+            "left join Category c on c.categoryId = a.categoryId ";
+
+    boolean existsByProjectIdAndUserId(Long projectId, String userId);
+
+    // Newest completions first so the first page matches what the user just finished
+    @Query(ARCHIVED_PROJECT_SUMMARY + "where a.userId = :userId order by a.completedAt desc, a.projectId desc")
+    List<ProjectView> findViewsByUserId(@Param("userId") String userId, Pageable pageable);
+
+    // Native writes name the table they write, so Hibernate evicts only the cache regions mapped to it instead of
+    // every second-level cache region on each archive batch and restore
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_archive"))
+    @Query(value = "insert into project_archive (project_id, user_id, title, description, category_id, due_date, " +
+            "difficulty, priority, estimated_hours, created_at, updated_at, completed_at, status, version, " +
+            "archived_at) " +
+            "select project_id, user_id, title, description, category_id, due_date, difficulty, priority, " +
+            "estimated_hours, created_at, updated_at, completed_at, status, version, :archivedAt from project " +
+            "where project_id in (:projectIds)", nativeQuery = true)
+    int archiveByProjectIds(@Param("projectIds") Collection<Long> projectIds,
+                            @Param("archivedAt") OffsetDateTime archivedAt);
+
+    // Copies the archived row back with its original id, the identity column accepts explicit values
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project"))
+    @Query(value = "insert into project (project_id, user_id, title, description, category_id, due_date, " +
+            "difficulty, priority, estimated_hours, created_at, updated_at, completed_at, status, version) " +
+            "select project_id, user_id, title, description, category_id, due_date, difficulty, priority, " +
+            "estimated_hours, created_at, updated_at, completed_at, status, version from project_archive " +
+            "where project_id = :projectId and user_id = :userId", nativeQuery = true)
+    int restoreByProjectIdAndUserId(@Param("projectId") Long projectId, @Param("userId") String userId);
+
+    @Modifying
+    @Query("delete from ArchivedProject a where a.projectId = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+
+    @Query("select a.title from ArchivedProject a where a.projectId = :projectId")
+    String findTitleByProjectId(@Param("projectId") Long projectId);
+}
@@ -0,0 +1,42 @@
+package com.erikmlarson5.deadlinemanager.repository;
+
+import com.erikmlarson5.deadlinemanager.entity.ArchivedTaskDependency;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * A JPA repository for archived task dependencies, moving rows between the task_dependency and
+ * task_dependency_archive tables
+ */
+@Repository
+public interface ArchivedTaskDependencyRepository extends JpaRepository<ArchivedTaskDependency, Long> {
+
+    // Must run before the tasks are deleted, deleting either task cascades to its dependencies. Named tables keep
+    // Hibernate from evicting every second-level cache region, see ArchivedProjectRepository
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "task_dependency_archive"))
+    @Query(value = "insert into task_dependency_archive (dependency_id, task_id, depends_on_id, project_id) " +
+            "select d.dependency_id, d.task_id, d.depends_on_id, t.project_id from task_dependency d " +
+            "join task t on t.task_id = d.task_id where t.project_id in (:projectIds)", nativeQuery = true)
+    int archiveByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    // Must run after the tasks are restored, both ends of every dependency reference them
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "task_dependency"))
+    @Query(value = "insert into task_dependency (dependency_id, task_id, depends_on_id) " +
+            "select dependency_id, task_id, depends_on_id from task_dependency_archive " +
+            "where project_id = :projectId", nativeQuery = true)
+    int restoreByProjectId(@Param("projectId") Long projectId);
+
+    @Modifying
+    @Query("delete from ArchivedTaskDependency a where a.projectId = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+}
@@ -0,0 +1,51 @@
+package com.erikmlarson5.deadlinemanager.repository;
+
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
+import com.erikmlarson5.deadlinemanager.entity.ArchivedTask;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A JPA repository for archived tasks, moving rows between the task and task_archive tables
+ */
+@Repository
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+
+    @Query("select new com.erikmlarson5.deadlinemanager.dto.TaskView(a.taskId, a.title, a.dueDate, " +
+            "a.estimatedHours, a.difficulty, a.status, a.createdAt, a.updatedAt, a.completedAt, a.projectId, " +
+            "a.version) " +
+            "from ArchivedTask a where a.projectId in :projectIds")
+    List<TaskView> findViewsByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    // Named tables keep Hibernate from evicting every second-level cache region, see ArchivedProjectRepository
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "task_archive"))
+    @Query(value = "insert into task_archive (task_id, title, description, due_date, estimated_hours, difficulty, " +
+            "created_at, updated_at, completed_at, status, version, project_id) " +
+            "select task_id, title, description, due_date, estimated_hours, difficulty, created_at, updated_at, " +
+            "completed_at, status, version, project_id from task where project_id in (:projectIds)",
+            nativeQuery = true)
+    int archiveByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "task"))
+    @Query(value = "insert into task (task_id, title, description, due_date, estimated_hours, difficulty, " +
+            "created_at, updated_at, completed_at, status, version, project_id) " +
+            "select task_id, title, description, due_date, estimated_hours, difficulty, created_at, updated_at, " +
+            "completed_at, status, version, project_id from task_archive where project_id = :projectId",
+            nativeQuery = true)
+    int restoreByProjectId(@Param("projectId") Long projectId);
+
+    @Modifying
+    @Query("delete from ArchivedTask a where a.projectId = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+}
@@ -0,0 +1,32 @@
+package com.erikmlarson5.deadlinemanager.repository;
+
+import com.erikmlarson5.deadlinemanager.entity.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * A JPA repository for the per-user category dictionary, connecting to PostgresSQL
+ */
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Category> findByUserIdAndNormalizedName(String userId, String normalizedName);
+
+    // Concurrent creates of the same category both succeed, the unique index keeps a single row. Naming the table
+    // keeps Hibernate from evicting every second-level cache region on each new category
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category"))
+    @Query(value = "insert into category (user_id, name, normalized_name) values (:userId, :name, :normalizedName) " +
+            "on conflict (user_id, normalized_name) do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") String userId, @Param("name") String name,
+                       @Param("normalizedName") String normalizedName);
+}
@@ -0,0 +1,66 @@
+package com.erikmlarson5.deadlinemanager.repository;
+
+import com.erikmlarson5.deadlinemanager.entity.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * A JPA repository for requests made with an Idempotency-Key, connecting to PostgresSQL. Every write commits on
+ * its own, so a claim is visible to other nodes before the claimed request starts running
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(String userId, String idempotencyKey);
+
+    // The unique index makes the claim atomic across nodes, exactly one concurrent insert affects a row. The
+    // native spaces hint names the only table written, otherwise Hibernate evicts every second-level cache region
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_record"))
+    @Query(value = "insert into idempotency_record (user_id, idempotency_key, fingerprint, created_at) " +
+            "values (:userId, :idempotencyKey, :fingerprint, :createdAt) " +
+            "on conflict (user_id, idempotency_key) do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") String userId, @Param("idempotencyKey") String idempotencyKey,
+                       @Param("fingerprint") String fingerprint, @Param("createdAt") OffsetDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.statusCode = :statusCode, r.contentType = :contentType, " +
+            "r.etag = :etag, r.body = :body " +
+            "where r.userId = :userId and r.idempotencyKey = :idempotencyKey and r.statusCode is null")
+    int complete(@Param("userId") String userId, @Param("idempotencyKey") String idempotencyKey,
+                 @Param("statusCode") int statusCode, @Param("contentType") String contentType,
+                 @Param("etag") String etag, @Param("body") byte[] body);
+
+    // Gives up a claim whose request failed on the server, so a retry runs it again
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r " +
+            "where r.userId = :userId and r.idempotencyKey = :idempotencyKey and r.statusCode is null")
+    int deleteInProgress(@Param("userId") String userId, @Param("idempotencyKey") String idempotencyKey);
+
+    // Removes an expired record, or a claim abandoned by a node that stopped while running the request
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.userId = :userId and r.idempotencyKey = :idempotencyKey " +
+            "and (r.createdAt < :expiredBefore or (r.statusCode is null and r.createdAt < :abandonedBefore))")
+    int deleteStale(@Param("userId") String userId, @Param("idempotencyKey") String idempotencyKey,
+                    @Param("expiredBefore") OffsetDateTime expiredBefore,
+                    @Param("abandonedBefore") OffsetDateTime abandonedBefore);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
@@ -1,11 +1,26 @@
 package com.erikmlarson5.deadlinemanager.repository;
 
+import com.erikmlarson5.deadlinemanager.dto.CategoryFacetView;
+import com.erikmlarson5.deadlinemanager.dto.DueDateView;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOwnerView;
+import com.erikmlarson5.deadlinemanager.dto.ProjectView;
 import com.erikmlarson5.deadlinemanager.entity.Project;
 import com.erikmlarson5.deadlinemanager.utils.Status;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,17 +29,133 @@ import java.util.Optional;
  */
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
-  Optional<Project> findByProjectIdAndUserId(Long projectId, String userId);
+    // Constructor expression shared by all read-only project projections
+    String PROJECT_VIEW = "select new com.erikmlarson5.deadlinemanager.dto.ProjectView(p.projectId, p.title, " +
+            "p.description, c.name, p.dueDate, p.estimatedHours, p.difficulty, p.status, p.priority, " +
+            "p.createdAt, p.updatedAt, p.completedAt, p.version, p.aggregateRevision) " +
+            "from Project p left join p.category c ";
 
-    List<Project> findByUserId(String userId);
+    // List projection which leaves out the lazy description column, only detail lookups select it
+    String PROJECT_SUMMARY = "select new com.erikmlarson5.deadlinemanager.dto.ProjectView(p.projectId, p.title, " +
+            "c.name, p.dueDate, p.estimatedHours, p.difficulty, p.status, p.priority, " +
+            "p.createdAt, p.updatedAt, p.completedAt, p.version, p.aggregateRevision) " +
+            "from Project p left join p.category c ";
 
-    List<Project> findByCategoryIgnoreCaseAndUserId(String category, String userId);
+    // Due dates of incomplete projects across all users, loaded by the reminder scheduler
+    String PROJECT_DUE_DATE = "select new com.erikmlarson5.deadlinemanager.dto.DueDateView('PROJECT', " +
+            "p.projectId, p.projectId, p.userId, p.title, p.dueDate) from Project p ";
 
-    List<Project> findByStatusAndUserId(Status status, String userId);
+    // Hot user-scoped finders use the query cache, Hibernate invalidates it whenever the project table changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Project> findByProjectIdAndUserId(Long projectId, String userId);
 
-    List<Project> findByDueDateBetweenAndUserId(LocalDate start, LocalDate end, String userId);
+    boolean existsByTitleAndUserId(String title, String userId);
 
-    List<Project> findAllByUserIdOrderByPriorityDesc(String userId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    boolean existsByProjectIdAndUserId(Long projectId, String userId);
 
-    boolean existsByTitleAndUserId(String title, String userId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(PROJECT_VIEW + "where p.projectId = :projectId and p.userId = :userId")
+    Optional<ProjectView> findViewByProjectIdAndUserId(@Param("projectId") Long projectId,
+                                                       @Param("userId") String userId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(PROJECT_SUMMARY + "where p.userId = :userId")
+    List<ProjectView> findViewsByUserId(@Param("userId") String userId);
+
+    @Query(PROJECT_VIEW + "where p.userId = :userId")
+    List<ProjectView> findDetailViewsByUserId(@Param("userId") String userId);
+
+    @Query(PROJECT_SUMMARY + "where p.projectId in :projectIds and p.userId = :userId")
+    List<ProjectView> findViewsByProjectIdsAndUserId(@Param("projectIds") Collection<Long> projectIds,
+                                                     @Param("userId") String userId);
+
+    // Unscoped by user, only for background recalculation of ids that came from the user's own writes
+    @Query(PROJECT_SUMMARY + "where p.projectId in :projectIds")
+    List<ProjectView> findViewsByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    // Matches through the dictionary's (user_id, normalized_name) index instead of lower() over every project
+    @Query(PROJECT_SUMMARY + "where c.normalizedName = :normalizedName and c.userId = :userId and p.userId = :userId")
+    List<ProjectView> findViewsByNormalizedCategoryAndUserId(@Param("normalizedName") String normalizedName,
+                                                             @Param("userId") String userId);
+
+    // One aggregate over the user's projects, grouped by category and status
+    @Query("select new com.erikmlarson5.deadlinemanager.dto.CategoryFacetView(c.categoryId, c.name, p.status, " +
+            "count(p)) from Project p left join p.category c where p.userId = :userId " +
+            "group by c.categoryId, c.name, p.status")
+    List<CategoryFacetView> countByCategoryAndStatus(@Param("userId") String userId);
+
+    @Query(PROJECT_SUMMARY + "where p.status = :status and p.userId = :userId")
+    List<ProjectView> findViewsByStatusAndUserId(@Param("status") Status status, @Param("userId") String userId);
+
+    @Query(PROJECT_SUMMARY + "where p.dueDate between :start and :end and p.userId = :userId")
+    List<ProjectView> findViewsByDueDateBetweenAndUserId(@Param("start") LocalDate start, @Param("end") LocalDate end,
+                                                        @Param("userId") String userId);
+
+    @Query("select p.version from Project p where p.projectId = :projectId and p.userId = :userId")
+    Optional<Long> findVersionByProjectIdAndUserId(@Param("projectId") Long projectId,
+                                                   @Param("userId") String userId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Project p where p.projectId = :projectId and p.userId = :userId")
+    int deleteByProjectIdAndUserId(@Param("projectId") Long projectId, @Param("userId") String userId);
+
+    // Conditional delete, matches nothing once another writer has moved the project past the expected version
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Project p where p.projectId = :projectId and p.userId = :userId and p.version = :version")
+    int deleteByProjectIdAndUserIdAndVersion(@Param("projectId") Long projectId, @Param("userId") String userId,
+                                             @Param("version") Long version);
+
+    // Locks the user's projects completed before the cutoff until their bulk delete commits, so the deleted ids
+    // are exactly the ones selected
+    @Query(value = "select project_id from project where user_id = :userId and status = :status " +
+            "and completed_at < :cutoff for update", nativeQuery = true)
+    List<Long> lockIdsByUserIdAndStatusCompletedBefore(@Param("userId") String userId, @Param("status") String status,
+                                                       @Param("cutoff") OffsetDateTime cutoff);
+
+    // Oldest completions first, locking each archival batch until it commits. Rows locked by a batch on another
+    // node, or by a write in progress, are skipped rather than waited on, so schedulers on several nodes split
+    // the backlog instead of archiving the same projects twice
+    @Query(value = "select project_id from project where status = :status and completed_at < :cutoff " +
+            "order by completed_at limit :limit for update skip locked", nativeQuery = true)
+    List<Long> lockIdsByStatusCompletedBefore(@Param("status") String status, @Param("cutoff") OffsetDateTime cutoff,
+                                              @Param("limit") int limit);
+
+    @Query("select new com.erikmlarson5.deadlinemanager.dto.ProjectOwnerView(p.projectId, p.userId) " +
+            "from Project p where p.projectId in :projectIds")
+    List<ProjectOwnerView> findOwnerViewsByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Project p where p.projectId in :projectIds")
+    int deleteByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    // Selects the projects for update to write recalculated priorities on the entities, so each write replaces
+    // only that project's cache entry where a bulk update would evict every cached project. A lock timeout of -2
+    // skips rows locked by a write in progress rather than waiting, that writer recalculates the priority itself
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select p from Project p where p.projectId in :projectIds")
+    List<Project> lockUnlockedByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    // Selects the project for update, the row lock is held until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Project p where p.projectId = :projectId and p.userId = :userId")
+    Optional<Project> lockByProjectIdAndUserId(@Param("projectId") Long projectId, @Param("userId") String userId);
+
+    // Taken first by every write to a project's priority inputs, so concurrent task writes of one project queue
+    // on the row lock instead of overwriting each other's priority, while writes to other projects proceed in
+    // parallel. The revision is bumped on the managed entity: a bulk update would evict every cached project,
+    // the entity update only replaces this project's cache entry
+    default void incrementAggregateRevision(Long projectId, String userId) {
+        lockByProjectIdAndUserId(projectId, userId).ifPresent(Project::incrementAggregateRevision);
+    }
+
+    @Query(PROJECT_DUE_DATE + "where p.dueDate between :from and :to and (p.status is null or p.status <> :status)")
+    List<DueDateView> findDueDateViewsByDueDateBetweenAndStatusNot(@Param("from") LocalDate from,
+                                                                   @Param("to") LocalDate to,
+                                                                   @Param("status") Status status);
+
+    @Query(PROJECT_DUE_DATE + "where p.projectId in :projectIds and (p.status is null or p.status <> :status)")
+    List<DueDateView> findDueDateViewsByProjectIdsAndStatusNot(@Param("projectIds") Collection<Long> projectIds,
+                                                               @Param("status") Status status);
 }
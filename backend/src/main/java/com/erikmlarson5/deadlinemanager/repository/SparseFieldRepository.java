@@ -0,0 +1,136 @@
+package com.erikmlarson5.deadlinemanager.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects only the requested fields of projects and tasks. The select list is built from a fixed whitelist of
+ * field names, so only those columns are read from the database and the rows map straight to JSON objects
+ * containing just those fields, in the order they were requested
+ */
+@Repository
+public class SparseFieldRepository {
+    private static final Map<String, String> PROJECT_FIELDS = fields(
+            "projectId", "p.projectId",
+            "title", "p.title",
+            "description", "p.description",
+            "category", "c.name",
+            "dueDate", "p.dueDate",
+            "estimatedHours", "p.estimatedHours",
+            "difficulty", "p.difficulty",
+            "status", "p.status",
+            "priority", "p.priority",
+            "createdAt", "p.createdAt",
+            "updatedAt", "p.updatedAt",
+            "completedAt", "p.completedAt",
+            "version", "p.version");
+
+    private static final Map<String, String> TASK_FIELDS = fields(
+            "taskId", "t.taskId",
+            "projectId", "t.project.projectId",
+            "title", "t.title",
+            "description", "t.description",
+            "dueDate", "t.dueDate",
+            "estimatedHours", "t.estimatedHours",
+            "difficulty", "t.difficulty",
+            "status", "t.status",
+            "createdAt", "t.createdAt",
+            "updatedAt", "t.updatedAt",
+            "completedAt", "t.completedAt",
+            "version", "t.version");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static Map<String, String> fields(String... namesAndPaths) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndPaths.length; i += 2) {
+            fields.put(namesAndPaths[i], namesAndPaths[i + 1]);
+        }
+        return fields;
+    }
+
+    /**
+     * Selects the requested fields of the user's projects
+     * @param userId the id of the user who owns the projects
+     * @param projectIds the ids of the projects to select, null for all of the user's projects
+     * @param fields the names of the fields to select, projectId is always included
+     * @return one map per project found, ordered by project id
+     */
+    public List<Map<String, Object>> findProjectFields(String userId, Collection<Long> projectIds,
+                                                       Collection<String> fields) {
+        List<String> selected = resolve(PROJECT_FIELDS, "projectId", fields);
+        // The category name is the only field needing a join, plain projections stay single-table
+        String from = selected.contains("category") ? "from Project p left join p.category c " : "from Project p ";
+        String where = "where p.userId = :userId" + (projectIds != null ? " and p.projectId in :ids" : "");
+        return select(PROJECT_FIELDS, selected, from + where + " order by p.projectId", userId, projectIds);
+    }
+
+    /**
+     * Selects the requested fields of the user's tasks
+     * @param userId the id of the user who owns the tasks' projects
+     * @param taskIds the ids of the tasks to select, null for all of the user's tasks
+     * @param fields the names of the fields to select, taskId is always included
+     * @return one map per task found, ordered by task id
+     */
+    public List<Map<String, Object>> findTaskFields(String userId, Collection<Long> taskIds,
+                                                    Collection<String> fields) {
+        List<String> selected = resolve(TASK_FIELDS, "taskId", fields);
+        String where = "where t.project.userId = :userId" + (taskIds != null ? " and t.taskId in :ids" : "");
+        return select(TASK_FIELDS, selected, "from Task t " + where + " order by t.taskId", userId, taskIds);
+    }
+
+    private static List<String> resolve(Map<String, String> whitelist, String idField, Collection<String> fields) {
+        List<String> selected = new ArrayList<>();
+        selected.add(idField);
+        for (String field : fields) {
+            String name = field.trim();
+            if (!whitelist.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected one of "
+                        + String.join(", ", whitelist.keySet()));
+            }
+            if (!selected.contains(name)) {
+                selected.add(name);
+            }
+        }
+        return selected;
+    }
+
+    private List<Map<String, Object>> select(Map<String, String> whitelist, List<String> selected,
+                                             String fromWhere, String userId, Collection<Long> ids) {
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        List<String> paths = new ArrayList<>(selected.size());
+        for (String field : selected) {
+            paths.add(whitelist.get(field));
+        }
+
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                "select " + String.join(", ", paths) + " " + fromWhere, Tuple.class)
+                .setParameter("userId", userId);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+
+        List<Tuple> rows = query.getResultList();
+        List<Map<String, Object>> results = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                result.put(selected.get(i), row.get(i));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,40 @@
+package com.erikmlarson5.deadlinemanager.repository;
+
+import com.erikmlarson5.deadlinemanager.dto.DependencyView;
+import com.erikmlarson5.deadlinemanager.entity.TaskDependency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A JPA repository for dependencies between tasks, connecting to PostgresSQL
+ */
+@Repository
+public interface TaskDependencyRepository extends JpaRepository<TaskDependency, Long> {
+
+    // Loads the dependencies of many projects in one query, callers have already scoped the ids to one user
+    @Query("select new com.erikmlarson5.deadlinemanager.dto.DependencyView(t.project.projectId, t.taskId, " +
+            "t.estimatedHours, t.status, p.taskId, p.estimatedHours, p.status) " +
+            "from TaskDependency d join d.task t join d.dependsOn p where t.project.projectId in :projectIds")
+    List<DependencyView> findViewsByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    boolean existsByTask_TaskIdAndDependsOn_TaskId(Long taskId, Long dependsOnTaskId);
+
+    // Walks the prerequisites of a task, a new dependency closes a cycle when its prerequisite already reaches
+    // its dependent. Callers hold the project's row lock so no concurrent insert can slip in between
+    @Query(value = "with recursive reachable(task_id) as (" +
+            "select depends_on_id from task_dependency where task_id = :taskId " +
+            "union select d.depends_on_id from task_dependency d join reachable r on d.task_id = r.task_id) " +
+            "select exists (select 1 from reachable where task_id = :prerequisiteId)", nativeQuery = true)
+    boolean dependsOnTransitively(@Param("taskId") Long taskId, @Param("prerequisiteId") Long prerequisiteId);
+
+    @Modifying
+    @Query("delete from TaskDependency d where d.task.taskId = :taskId and d.dependsOn.taskId = :dependsOnTaskId")
+    int deleteByTaskIdAndDependsOnTaskId(@Param("taskId") Long taskId,
+                                         @Param("dependsOnTaskId") Long dependsOnTaskId);
+}
@@ -1,9 +1,21 @@
 package com.erikmlarson5.deadlinemanager.repository;
+import com.erikmlarson5.deadlinemanager.dto.DueDateView;
+import com.erikmlarson5.deadlinemanager.dto.PlanTaskView;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
 import com.erikmlarson5.deadlinemanager.entity.Task;
 import com.erikmlarson5.deadlinemanager.utils.Status;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,16 +24,120 @@ import java.util.Optional;
  */
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
-    List<Task> findByProject_UserId(String userId);
+    // Constructor expression shared by all read-only task projections
+    String TASK_VIEW = "select new com.erikmlarson5.deadlinemanager.dto.TaskView(t.taskId, t.title, t.description, " +
+            "t.dueDate, t.estimatedHours, t.difficulty, t.status, t.createdAt, t.updatedAt, t.completedAt, " +
+            "t.project.projectId, t.version) from Task t ";
 
-    List<Task> findByProject_ProjectIdAndProject_UserId(Long projectId, String userId);
+    // List projection which leaves out the lazy description column, only detail lookups select it
+    String TASK_SUMMARY = "select new com.erikmlarson5.deadlinemanager.dto.TaskView(t.taskId, t.title, " +
+            "t.dueDate, t.estimatedHours, t.difficulty, t.status, t.createdAt, t.updatedAt, t.completedAt, " +
+            "t.project.projectId, t.version) from Task t ";
 
-    Optional<Task> findByTaskIdAndProject_UserId(Long taskId, String userId);
+    // Due dates of incomplete tasks across all users, loaded by the reminder scheduler
+    String TASK_DUE_DATE = "select new com.erikmlarson5.deadlinemanager.dto.DueDateView('TASK', t.taskId, " +
+            "t.project.projectId, t.project.userId, t.title, t.dueDate) from Task t ";
+
+    // Incomplete tasks of incomplete projects with the project's due date, loaded by the study planner
+    String PLAN_TASK = "select new com.erikmlarson5.deadlinemanager.dto.PlanTaskView(t.taskId, p.projectId, " +
+            "t.title, t.dueDate, p.dueDate, t.estimatedHours) from Task t join t.project p ";
+
+    String PLAN_INCOMPLETE = "and (t.status is null or t.status <> :status) " +
+            "and (p.status is null or p.status <> :status)";
 
     // Strongly-typed user-scoped lookup enforcing task->project->user ownership in a single query
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Task> findByTaskIdAndProject_ProjectIdAndProject_UserId(Long taskId, Long projectId, String userId);
 
-    // Push status + user filter down to the database
-    List<Task> findByStatusAndProject_UserId(Status status, String userId);
+    @Query(TASK_VIEW + "where t.taskId = :taskId and t.project.projectId = :projectId and t.project.userId = :userId")
+    Optional<TaskView> findViewByTaskIdAndProjectIdAndUserId(@Param("taskId") Long taskId,
+                                                             @Param("projectId") Long projectId,
+                                                             @Param("userId") String userId);
+
+    @Query(TASK_SUMMARY + "where t.project.userId = :userId")
+    List<TaskView> findViewsByUserId(@Param("userId") String userId);
+
+    @Query(TASK_SUMMARY + "where t.taskId in :taskIds and t.project.userId = :userId order by t.taskId")
+    List<TaskView> findViewsByTaskIdsAndUserId(@Param("taskIds") Collection<Long> taskIds,
+                                               @Param("userId") String userId);
+
+    @Query(TASK_SUMMARY + "where t.status = :status and t.project.userId = :userId")
+    List<TaskView> findViewsByStatusAndUserId(@Param("status") Status status, @Param("userId") String userId);
+
+    @Query(TASK_SUMMARY + "where t.project.projectId = :projectId and t.project.userId = :userId")
+    List<TaskView> findViewsByProjectIdAndUserId(@Param("projectId") Long projectId, @Param("userId") String userId);
+
+    @Query(TASK_SUMMARY + "where t.project.projectId = :projectId and t.project.userId = :userId " +
+            "and (t.status is null or t.status <> :status)")
+    List<TaskView> findViewsByProjectIdAndUserIdAndStatusNot(@Param("projectId") Long projectId,
+                                                            @Param("userId") String userId,
+                                                            @Param("status") Status status);
+
+    // Loads the tasks of many projects in one query, callers have already scoped the ids to one user
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(TASK_SUMMARY + "where t.project.projectId in :projectIds")
+    List<TaskView> findViewsByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    @Query(TASK_VIEW + "where t.project.userId = :userId")
+    List<TaskView> findDetailViewsByUserId(@Param("userId") String userId);
+
+    // Detail projection of one project's tasks, including descriptions
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(TASK_VIEW + "where t.project.projectId = :projectId")
+    List<TaskView> findDetailViewsByProjectId(@Param("projectId") Long projectId);
+
+    // Removes the tasks of one owned project in a single statement, ahead of the project delete
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Task t where t.project.projectId in " +
+            "(select p.projectId from Project p where p.projectId = :projectId and p.userId = :userId)")
+    int deleteByProjectIdAndUserId(@Param("projectId") Long projectId, @Param("userId") String userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Task t where t.project.projectId in :projectIds")
+    int deleteByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+
+    // Project id of every listed task the user owns, one entry per task found
+    @Query("select t.project.projectId from Task t where t.taskId in :taskIds and t.project.userId = :userId")
+    List<Long> findProjectIdsByTaskIdsAndUserId(@Param("taskIds") Collection<Long> taskIds,
+                                                @Param("userId") String userId);
+
+    // Applies one status to many tasks in a single statement, skipping tasks already in that status so their
+    // completedAt, updatedAt and version stay untouched, as the entity lifecycle callbacks would
+    @Modifying(flushAutomatically = true)
+    @Query("update Task t set t.status = :status, t.completedAt = :completedAt, t.updatedAt = :updatedAt, " +
+            "t.version = t.version + 1 " +
+            "where t.taskId in :taskIds and (t.status is null or t.status <> :status)")
+    int updateStatusByTaskIds(@Param("taskIds") Collection<Long> taskIds, @Param("status") Status status,
+                              @Param("completedAt") OffsetDateTime completedAt,
+                              @Param("updatedAt") OffsetDateTime updatedAt);
+
+    @Query(TASK_DUE_DATE + "where t.dueDate between :from and :to and (t.status is null or t.status <> :status)")
+    List<DueDateView> findDueDateViewsByDueDateBetweenAndStatusNot(@Param("from") LocalDate from,
+                                                                   @Param("to") LocalDate to,
+                                                                   @Param("status") Status status);
+
+    @Query(TASK_DUE_DATE + "where t.project.projectId = :projectId and t.dueDate between :from and :to " +
+            "and (t.status is null or t.status <> :status)")
+    List<DueDateView> findDueDateViewsByProjectIdAndDueDateBetweenAndStatusNot(@Param("projectId") Long projectId,
+                                                                               @Param("from") LocalDate from,
+                                                                               @Param("to") LocalDate to,
+                                                                               @Param("status") Status status);
+
+    @Query(TASK_DUE_DATE + "where t.taskId in :taskIds and (t.status is null or t.status <> :status)")
+    List<DueDateView> findDueDateViewsByTaskIdsAndStatusNot(@Param("taskIds") Collection<Long> taskIds,
+                                                            @Param("status") Status status);
+
+    @Query(PLAN_TASK + "where p.userId = :userId " + PLAN_INCOMPLETE)
+    List<PlanTaskView> findPlanViewsByUserIdAndStatusNot(@Param("userId") String userId,
+                                                         @Param("status") Status status);
+
+    @Query(PLAN_TASK + "where t.taskId in :taskIds and p.userId = :userId " + PLAN_INCOMPLETE)
+    List<PlanTaskView> findPlanViewsByTaskIdsAndUserIdAndStatusNot(@Param("taskIds") Collection<Long> taskIds,
+                                                                   @Param("userId") String userId,
+                                                                   @Param("status") Status status);
 
+    @Query(PLAN_TASK + "where p.projectId = :projectId and p.userId = :userId " + PLAN_INCOMPLETE)
+    List<PlanTaskView> findPlanViewsByProjectIdAndUserIdAndStatusNot(@Param("projectId") Long projectId,
+                                                                     @Param("userId") String userId,
+                                                                     @Param("status") Status status);
 }
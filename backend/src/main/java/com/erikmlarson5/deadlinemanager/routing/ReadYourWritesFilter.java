@@ -0,0 +1,51 @@
+package com.erikmlarson5.deadlinemanager.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Records a write for the authenticated user after every successful mutating API request, so their following
+ * reads avoid replicas that have not caught up yet. Runs inside the security filter chain, where the
+ * authentication is still available after the request completes
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReadYourWritesTracker tracker;
+
+    /**
+     * Filter which reports successful writes to the tracker
+     * @param tracker the tracker of each user's latest write
+     */
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || READ_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            // Failed requests may still have committed earlier statements, only client errors are skipped
+            if (authentication != null && authentication.isAuthenticated()
+                    && (response.getStatus() < 400 || response.getStatus() >= 500)) {
+                tracker.recordWrite(authentication.getName());
+            }
+        }
+    }
+}
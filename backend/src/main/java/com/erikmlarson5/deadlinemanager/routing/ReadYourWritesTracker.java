@@ -0,0 +1,64 @@
+package com.erikmlarson5.deadlinemanager.routing;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each user last mutated data, so their reads only go to replicas that have already replayed
+ * that write. Entries older than the sticky window are dropped, after which any healthy replica may serve them.
+ * Writes are held in this node's memory only: with several application nodes the load balancer has to keep each
+ * user on one node (session affinity, e.g. hashing the token subject), otherwise a read landing on another node
+ * within the sticky window can be served by a replica that has not replayed the write yet
+ */
+public class ReadYourWritesTracker {
+    private final long stickyWindowNanos;
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Tracker which forgets writes once the sticky window has passed
+     * @param stickyWindow the longest time a user's reads stay pinned after a write
+     */
+    public ReadYourWritesTracker(Duration stickyWindow) {
+        this.stickyWindowNanos = stickyWindow.toNanos();
+    }
+
+    /**
+     * Records that the user has just committed a write
+     * @param userId the id of the user
+     */
+    public void recordWrite(String userId) {
+        lastWriteNanos.put(userId, System.nanoTime());
+    }
+
+    /**
+     * Gets how long ago the user last wrote, if within the sticky window
+     * @param userId the id of the user, may be null outside a request
+     * @return nanoseconds since the last write, or Long.MAX_VALUE when there is no recent write
+     */
+    public long nanosSinceLastWrite(String userId) {
+        if (userId == null) {
+            return Long.MAX_VALUE;
+        }
+
+        Long lastWrite = lastWriteNanos.get(userId);
+        if (lastWrite == null) {
+            return Long.MAX_VALUE;
+        }
+
+        long elapsed = System.nanoTime() - lastWrite;
+        if (elapsed > stickyWindowNanos) {
+            lastWriteNanos.remove(userId, lastWrite);
+            return Long.MAX_VALUE;
+        }
+        return elapsed;
+    }
+
+    /**
+     * Drops every entry older than the sticky window, called periodically to bound memory
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(lastWrite -> now - lastWrite > stickyWindowNanos);
+    }
+}
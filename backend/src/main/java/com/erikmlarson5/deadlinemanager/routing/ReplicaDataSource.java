@@ -0,0 +1,164 @@
+package com.erikmlarson5.deadlinemanager.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read-only target of the routing data source. Hands out connections to replicas round-robin, skipping
+ * replicas whose measured lag is over the limit or too large to include the current user's latest write,
+ * and falls back to the primary when no replica qualifies
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker tracker;
+    private final String lagQuery;
+    private final long maxLagNanos;
+    private final long lagCheckIntervalNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaConnections;
+    private final Counter primaryFallbacks;
+
+    /**
+     * Replica data source over already configured replica pools
+     * @param primary the primary data source used when no replica qualifies
+     * @param replicas the replica pools, in configuration order
+     * @param tracker the tracker of each user's latest write
+     * @param lagQuery a query returning the replica's replay lag in seconds
+     * @param maxLag the largest lag at which a replica still serves reads
+     * @param lagCheckInterval how often lag is measured, added as a margin since measurements age
+     * @param meterRegistry the registry for routing metrics
+     */
+    public ReplicaDataSource(DataSource primary, List<HikariDataSource> replicas, ReadYourWritesTracker tracker,
+                             String lagQuery, Duration maxLag, Duration lagCheckInterval,
+                             MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.tracker = tracker;
+        this.lagQuery = lagQuery;
+        this.maxLagNanos = maxLag.toNanos();
+        this.lagCheckIntervalNanos = lagCheckInterval.toNanos();
+        this.replicaConnections = Counter.builder("datasource.routing.connections")
+                .description("Read-only connections by routing target")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.primaryFallbacks = Counter.builder("datasource.routing.connections")
+                .description("Read-only connections by routing target")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        for (Replica replica : this.replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagNanos == Long.MAX_VALUE ? Double.NaN
+                            : r.lagNanos / 1_000_000_000.0)
+                    .description("Last measured replay lag of a read replica")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.pool.getPoolName())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = selectReplica(tracker.nanosSinceLastWrite(currentUserId()));
+        if (replica == null) {
+            primaryFallbacks.increment();
+            return primary.getConnection();
+        }
+
+        try {
+            Connection connection = replica.pool.getConnection();
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException e) {
+            // Take the replica out of rotation until the next lag check succeeds
+            replica.lagNanos = Long.MAX_VALUE;
+            log.warn("Replica {} unavailable, reading from primary: {}", replica.pool.getPoolName(), e.getMessage());
+            primaryFallbacks.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Picks the next replica, round-robin, whose lag both stays within the limit and is shorter than the time
+     * since the user's last write
+     * @param nanosSinceLastWrite time since the current user's last write, Long.MAX_VALUE if none
+     * @return a qualifying replica, or null to read from the primary
+     */
+    private Replica selectReplica(long nanosSinceLastWrite) {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            long lag = replica.lagNanos;
+            if (lag <= maxLagNanos && (nanosSinceLastWrite == Long.MAX_VALUE
+                    || lag + lagCheckIntervalNanos < nanosSinceLastWrite)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    /**
+     * Measures the replay lag of every replica, marking unreachable replicas as unusable
+     */
+    public void refreshLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                double lagSeconds = resultSet.next() ? resultSet.getDouble(1) : Double.NaN;
+                replica.lagNanos = Double.isNaN(lagSeconds) ? Long.MAX_VALUE : (long) (lagSeconds * 1_000_000_000L);
+            } catch (SQLException e) {
+                if (replica.lagNanos != Long.MAX_VALUE) {
+                    log.warn("Lag check failed for replica {}: {}", replica.pool.getPoolName(), e.getMessage());
+                }
+                replica.lagNanos = Long.MAX_VALUE;
+            }
+        }
+        tracker.evictExpired();
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        // Unknown until the first lag check, so a replica never serves reads before it has been measured
+        private volatile long lagNanos = Long.MAX_VALUE;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
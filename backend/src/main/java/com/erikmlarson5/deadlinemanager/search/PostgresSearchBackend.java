@@ -0,0 +1,86 @@
+package com.erikmlarson5.deadlinemanager.search;
+
+import com.erikmlarson5.deadlinemanager.dto.SearchResultDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searches the generated search_vector columns through their GIN indexes, ranking with ts_rank and
+ * highlighting only the rows of the requested page with ts_headline. Titles and descriptions are user input,
+ * so ts_headline marks matches with control characters and the text is HTML-escaped before they become
+ * mark tags
+ */
+@Component
+public class PostgresSearchBackend implements SearchBackend {
+    private static final char START_MATCH = '\u0002';
+    private static final char STOP_MATCH = '\u0003';
+
+    // websearch_to_tsquery accepts user input such as quoted phrases and -exclusions without syntax errors.
+    // The marker characters are stripped from the text first, so every marker in a headline came from a match
+    private static final String SEARCH_SQL = """
+            select hit.type, hit.id, hit.project_id, hit.rank,
+                   ts_headline('english', translate(hit.title, chr(2) || chr(3), ''), hit.query,
+                               'HighlightAll=true, StartSel=' || chr(2) || ', StopSel=' || chr(3)),
+                   ts_headline('english', translate(coalesce(hit.description, ''), chr(2) || chr(3), ''), hit.query,
+                               'MaxFragments=2, MaxWords=20, MinWords=5, StartSel=' || chr(2) || ', StopSel=' ||
+                               chr(3))
+            from (
+                select 'PROJECT' as type, p.project_id as id, p.project_id, p.title, p.description, q.query,
+                       ts_rank(p.search_vector, q.query) as rank
+                from project p, websearch_to_tsquery('english', :query) as q(query)
+                where p.user_id = :userId and p.search_vector @@ q.query
+                union all
+                select 'TASK', t.task_id, t.project_id, t.title, t.description, q.query,
+                       ts_rank(t.search_vector, q.query)
+                from task t join project p on p.project_id = t.project_id,
+                     websearch_to_tsquery('english', :query) as q(query)
+                where p.user_id = :userId and t.search_vector @@ q.query
+                order by rank desc, id
+                limit :limit offset :offset
+            ) hit
+            order by hit.rank desc, hit.id
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SearchResultDTO> search(String userId, String query, int page, int size) {
+        List<?> rows = entityManager.createNativeQuery(SEARCH_SQL)
+                .setParameter("query", query)
+                .setParameter("userId", userId)
+                .setParameter("limit", size)
+                .setParameter("offset", (long) page * size)
+                .getResultList();
+
+        List<SearchResultDTO> results = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            results.add(new SearchResultDTO((String) columns[0], ((Number) columns[1]).longValue(),
+                    ((Number) columns[2]).longValue(), ((Number) columns[3]).floatValue(),
+                    highlight((String) columns[4]), highlight((String) columns[5])));
+        }
+        return results;
+    }
+
+    /**
+     * Escapes a headline for HTML and turns its match markers into mark tags
+     * @param headline the ts_headline output with match markers
+     * @return the HTML to render
+     */
+    static String highlight(String headline) {
+        if (headline == null) {
+            return "";
+        }
+        return HtmlUtils.htmlEscape(headline)
+                .replace(String.valueOf(START_MATCH), "<mark>")
+                .replace(String.valueOf(STOP_MATCH), "</mark>");
+    }
+}
@@ -0,0 +1,21 @@
+package com.erikmlarson5.deadlinemanager.search;
+
+import com.erikmlarson5.deadlinemanager.dto.SearchResultDTO;
+
+import java.util.List;
+
+/**
+ * Ranks a user's projects and tasks against a free-text query
+ */
+public interface SearchBackend {
+
+    /**
+     * Searches project titles, categories and descriptions and task titles and descriptions
+     * @param userId the id of the user whose data is searched
+     * @param query the free-text query, already validated as non-blank
+     * @param page the zero-based page number
+     * @param size the number of results per page
+     * @return one page of matches, best match first
+     */
+    List<SearchResultDTO> search(String userId, String query, int page, int size);
+}
@@ -0,0 +1,45 @@
+package com.erikmlarson5.deadlinemanager.search;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies db/search.sql once Hibernate has created or updated the tables, adding the tsvector columns,
+ * trigger and GIN indexes that ddl-auto cannot express. search.schema-init.enabled=false skips the script, which
+ * the CDS training run relies on to start without a database
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SearchSchemaInitializer {
+    private final DataSource dataSource;
+    private final boolean enabled;
+
+    /**
+     * Search schema initializer which runs against the application data source
+     * @param dataSource the injected data source
+     * @param enabled whether the script is applied at startup
+     */
+    public SearchSchemaInitializer(DataSource dataSource,
+                                   @Value("${search.schema-init.enabled:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void applySearchSchema() {
+        if (!enabled) {
+            return;
+        }
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("db/search.sql"));
+        // Sent as one script so the driver, which understands dollar quoting, splits the function body correctly
+        populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+        populator.execute(dataSource);
+    }
+}
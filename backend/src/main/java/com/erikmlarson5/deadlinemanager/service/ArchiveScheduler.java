@@ -0,0 +1,58 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Periodically moves projects completed more than archive.after-days ago into the archive tables.
+ * Each batch is its own transaction so a large backlog never holds locks on the hot tables for long.
+ * Every node runs the schedule, a batch skips the projects another node's batch has locked
+ */
+@Component
+@ConditionalOnProperty(name = "archive.enabled", havingValue = "true", matchIfMissing = true)
+public class ArchiveScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ArchiveScheduler.class);
+
+    private final ArchiveService archiveService;
+
+    @Value("${archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${archive.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Archive scheduler which runs batches through the archive service
+     * @param archiveService the injected service that moves each batch
+     */
+    @Autowired
+    public ArchiveScheduler(ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Archives every project completed before the cutoff, one batch at a time
+     */
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void archiveCompletedProjects() {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusDays(afterDays);
+        int total = 0;
+        int archived;
+        do {
+            archived = archiveService.archiveCompletedBefore(cutoff, batchSize);
+            total += archived;
+        } while (archived == batchSize);
+
+        if (total > 0) {
+            log.info("Archived {} projects completed before {}", total, cutoff);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import com.erikmlarson5.deadlinemanager.dependency.DependencyGraphs;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOwnerView;
+import com.erikmlarson5.deadlinemanager.dto.ProjectView;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
+import com.erikmlarson5.deadlinemanager.planner.StudyPlanner;
+import com.erikmlarson5.deadlinemanager.reminder.ReminderScheduler;
+import com.erikmlarson5.deadlinemanager.repository.ArchivedProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.ArchivedTaskDependencyRepository;
+import com.erikmlarson5.deadlinemanager.repository.ArchivedTaskRepository;
+import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
+import com.erikmlarson5.deadlinemanager.utils.ProjectMapper;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Service layer for the archive tier, which moves long-completed projects and their tasks out of the hot
+ * project and task tables and back again on request
+ */
+@Service
+@Transactional
+public class ArchiveService {
+    private final ProjectRepository projectRepository;
+    private final TaskRepository taskRepository;
+    private final ArchivedProjectRepository archivedProjectRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final ArchivedTaskDependencyRepository archivedDependencyRepository;
+    private final ProjectService projectService;
+    private final DependencyGraphs dependencyGraphs;
+    private final ReminderScheduler reminderScheduler;
+    private final StudyPlanner studyPlanner;
+
+    /**
+     * Archive service which connects to the active and archive repositories
+     * @param projectRepository injected repository of active projects
+     * @param taskRepository injected repository of active tasks
+     * @param archivedProjectRepository injected repository of archived projects
+     * @param archivedTaskRepository injected repository of archived tasks
+     * @param archivedDependencyRepository injected repository of archived task dependencies
+     * @param projectService injected service for priority recalculation and detail responses
+     * @param dependencyGraphs injected holder of the dependency graphs of active projects
+     * @param reminderScheduler injected scheduler whose reminders follow the tasks of restored projects
+     * @param studyPlanner injected planner whose held study plans follow archived and restored projects
+     */
+    @Autowired
+    public ArchiveService(ProjectRepository projectRepository, TaskRepository taskRepository,
+                          ArchivedProjectRepository archivedProjectRepository,
+                          ArchivedTaskRepository archivedTaskRepository,
+                          ArchivedTaskDependencyRepository archivedDependencyRepository,
+                          ProjectService projectService, DependencyGraphs dependencyGraphs,
+                          ReminderScheduler reminderScheduler, StudyPlanner studyPlanner) {
+        this.projectRepository = projectRepository;
+        this.taskRepository = taskRepository;
+        this.archivedProjectRepository = archivedProjectRepository;
+        this.archivedTaskRepository = archivedTaskRepository;
+        this.archivedDependencyRepository = archivedDependencyRepository;
+        this.projectService = projectService;
+        this.dependencyGraphs = dependencyGraphs;
+        this.reminderScheduler = reminderScheduler;
+        this.studyPlanner = studyPlanner;
+    }
+
+    /**
+     * Moves one batch of projects completed before the cutoff, with their tasks and dependencies, into the archive
+     * tables. Batches running at the same time on other nodes take different projects
+     * @param cutoff projects completed before this instant are archived
+     * @param batchSize the maximum number of projects to move in this transaction
+     * @return the number of projects archived, less than batchSize once nothing is left
+     */
+    public int archiveCompletedBefore(OffsetDateTime cutoff, int batchSize) {
+        List<Long> projectIds = projectRepository.lockIdsByStatusCompletedBefore(Status.COMPLETED.name(), cutoff,
+                batchSize);
+        if (projectIds.isEmpty()) {
+            return 0;
+        }
+
+        List<ProjectOwnerView> owners = projectRepository.findOwnerViewsByProjectIds(projectIds);
+
+        // Copy first and delete after, all in one transaction so a failure leaves both tiers unchanged
+        archivedProjectRepository.archiveByProjectIds(projectIds, OffsetDateTime.now(ZoneOffset.UTC));
+        archivedTaskRepository.archiveByProjectIds(projectIds);
+        archivedDependencyRepository.archiveByProjectIds(projectIds);
+        taskRepository.deleteByProjectIds(projectIds);
+        projectRepository.deleteByProjectIds(projectIds);
+        projectIds.forEach(dependencyGraphs::projectChanged);
+        for (ProjectOwnerView owner : owners) {
+            studyPlanner.projectDeleted(owner.userId(), owner.projectId());
+        }
+        return projectIds.size();
+    }
+
+    /**
+     * Gets one page of a user's archived projects, most recently completed first
+     * @param page the zero-based page number
+     * @param size the number of projects per page
+     * @return a page of archived projects with their tasks, converted to outputDTOs
+     */
+    @Transactional(readOnly = true)
+    public List<ProjectOutputDTO> getArchivedProjects(String userId, int page, int size) {
+        List<ProjectView> projects = archivedProjectRepository.findViewsByUserId(userId, PageRequest.of(page, size));
+        if (projects.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> projectIds = new ArrayList<>(projects.size());
+        for (ProjectView project : projects) {
+            projectIds.add(project.projectId());
+        }
+
+        Map<Long, List<TaskView>> tasksByProject = new HashMap<>();
+        for (TaskView task : archivedTaskRepository.findViewsByProjectIds(projectIds)) {
+            tasksByProject.computeIfAbsent(task.projectId(), id -> new ArrayList<>()).add(task);
+        }
+
+        List<ProjectOutputDTO> allOutputDTOs = new ArrayList<>(projects.size());
+        for (ProjectView project : projects) {
+            allOutputDTOs.add(ProjectMapper.toOutputDto(project,
+                    tasksByProject.getOrDefault(project.projectId(), List.of())));
+        }
+        return allOutputDTOs;
+    }
+
+    /**
+     * Moves an archived project with its tasks and dependencies back into the active tables under their original ids
+     * @param id the id of the archived project
+     * @return an outputDTO of the restored project
+     */
+    public ProjectOutputDTO restoreProject(Long id, String userId) {
+        if (!archivedProjectRepository.existsByProjectIdAndUserId(id, userId)) {
+            throw new NoSuchElementException("Archived project with id: " + id + " not found!");
+        }
+
+        String title = archivedProjectRepository.findTitleByProjectId(id);
+        if (projectRepository.existsByTitleAndUserId(title, userId)) {
+            throw new IllegalStateException("Project with the same title already exists!");
+        }
+
+        archivedProjectRepository.restoreByProjectIdAndUserId(id, userId);
+        archivedTaskRepository.restoreByProjectId(id);
+        archivedDependencyRepository.restoreByProjectId(id);
+        archivedDependencyRepository.deleteByProjectId(id);
+        archivedTaskRepository.deleteByProjectId(id);
+        archivedProjectRepository.deleteByProjectId(id);
+        dependencyGraphs.projectChanged(id);
+        reminderScheduler.projectTasksChanged(id);
+        studyPlanner.projectChanged(userId, id);
+
+        // Priorities age while archived, so refresh before returning the restored project
+        projectService.refreshProjectPriorities(List.of(id), userId);
+        return projectService.getProjectDetail(id, userId);
+    }
+}
@@ -0,0 +1,298 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue of projects whose priority is stale after a task write. Task mutations mark their
+ * project dirty once their transaction commits, repeated marks of the same project coalesce into one entry,
+ * and a worker pool recalculates and persists the priorities of projects first marked a debounce window ago
+ * in batches. The window runs from the first mark and is not extended by later ones, so a project written
+ * continuously is still recalculated at least once per window. When the queue is disabled or full, callers
+ * fall back to recalculating synchronously. A failed batch is retried after a backoff that doubles with each
+ * failure, and given up after max-attempts, leaving those priorities to be recalculated by their next read
+ */
+@Component
+public class PriorityRecalculationQueue {
+    private static final Logger log = LoggerFactory.getLogger(PriorityRecalculationQueue.class);
+
+    // Project id -> System.nanoTime() of the first unprocessed mark, later marks keep the original time
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    // Projects with a batch in progress, never handed to a second worker so an older read cannot win
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    // Projects whose last batch failed, with the failures in a row and the System.nanoTime() to retry after
+    private final Map<Long, Retry> retries = new ConcurrentHashMap<>();
+
+    private record Retry(int attempts, long notBefore) {
+    }
+
+    private final ProjectService projectService;
+    private final boolean enabled;
+    private final long debounceNanos;
+    private final int batchSize;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final ExecutorService workers;
+
+    private final Counter queuedEvents;
+    private final Counter coalescedEvents;
+    private final Counter synchronousEvents;
+    private final Counter failedBatches;
+    private final Counter abandonedProjects;
+    private final Timer staleness;
+
+    /**
+     * Write-behind queue which recalculates priorities through the project service
+     * @param projectService the injected service that recalculates and persists each batch
+     * @param meterRegistry the injected registry for queue depth and staleness metrics
+     * @param enabled whether task writes are queued, false recalculates every write synchronously
+     * @param debounce how long after its first mark a project is recalculated, marks in between coalesce
+     * @param batchSize the maximum number of projects recalculated in one transaction
+     * @param workerCount the number of threads persisting batches
+     * @param maxPending the queue depth above which new marks fall back to synchronous recalculation
+     * @param maxAttempts the number of failed batches in a row after which a project is no longer retried
+     */
+    @Autowired
+    public PriorityRecalculationQueue(ProjectService projectService, MeterRegistry meterRegistry,
+                                      @Value("${priority.write-behind.enabled:true}") boolean enabled,
+                                      @Value("${priority.write-behind.debounce:500ms}") Duration debounce,
+                                      @Value("${priority.write-behind.batch-size:100}") int batchSize,
+                                      @Value("${priority.write-behind.workers:2}") int workerCount,
+                                      @Value("${priority.write-behind.max-pending:10000}") int maxPending,
+                                      @Value("${priority.write-behind.max-attempts:5}") int maxAttempts) {
+        this.projectService = projectService;
+        this.enabled = enabled;
+        this.debounceNanos = debounce.toNanos();
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                Thread.ofPlatform().name("priority-write-behind-", 0).daemon().factory());
+
+        this.queuedEvents = eventCounter(meterRegistry, "queued");
+        this.coalescedEvents = eventCounter(meterRegistry, "coalesced");
+        this.synchronousEvents = eventCounter(meterRegistry, "synchronous");
+        this.failedBatches = Counter.builder("projects.priority.write-behind.failures")
+                .description("Write-behind batches that failed")
+                .register(meterRegistry);
+        this.abandonedProjects = Counter.builder("projects.priority.write-behind.abandoned")
+                .description("Projects no longer retried after max-attempts failed batches in a row")
+                .register(meterRegistry);
+        this.staleness = Timer.builder("projects.priority.write-behind.staleness")
+                .description("Time from a project's first dirty mark until its priority was persisted")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("projects.priority.write-behind.pending", pending, Map::size)
+                .description("Projects waiting for their priority to be recalculated")
+                .register(meterRegistry);
+        Gauge.builder("projects.priority.write-behind.oldest.age", this, queue -> queue.oldestPendingAgeSeconds())
+                .description("Seconds the longest waiting project has had a stale priority")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("projects.priority.write-behind.events")
+                .description("Project dirty marks from task writes, by how they were handled")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks a project's priority stale, queueing it once the current transaction commits so a rolled back
+     * write is never recalculated
+     * @param projectId the id of the project whose tasks changed
+     * @return false when the caller must recalculate synchronously, because the queue is disabled or full
+     */
+    public boolean offer(Long projectId) {
+        if (!enabled || pending.size() >= maxPending) {
+            synchronousEvents.increment();
+            return false;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markDirty(projectId);
+                }
+            });
+        } else {
+            markDirty(projectId);
+        }
+        return true;
+    }
+
+    private void markDirty(Long projectId) {
+        if (pending.putIfAbsent(projectId, System.nanoTime()) == null) {
+            queuedEvents.increment();
+        } else {
+            coalescedEvents.increment();
+        }
+    }
+
+    /**
+     * Hands every project first marked at least the debounce window ago to the worker pool, in batches
+     */
+    @Scheduled(fixedDelayString = "${priority.write-behind.flush-interval:250ms}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        dispatch(System.nanoTime(), debounceNanos);
+    }
+
+    /**
+     * Removes due projects from the pending map and submits them to the workers
+     * @param now the current System.nanoTime() value
+     * @param debounceNanos only projects first marked at least this long ago, and past any retry backoff, are
+     *                      dispatched
+     */
+    private void dispatch(long now, long debounceNanos) {
+        long markedBefore = now - debounceNanos;
+        List<Long> batch = new ArrayList<>(batchSize);
+        List<Long> markTimes = new ArrayList<>(batchSize);
+
+        for (Map.Entry<Long, Long> entry : pending.entrySet()) {
+            Long projectId = entry.getKey();
+            Long markedAt = entry.getValue();
+            if (markedAt - markedBefore > 0 || inFlight.contains(projectId)) {
+                continue;
+            }
+            Retry retry = retries.get(projectId);
+            if (retry != null && retry.notBefore() - now > 0) {
+                continue;
+            }
+
+            // Removed before the recalculation reads, so a commit racing this batch marks the project again
+            if (pending.remove(projectId, markedAt)) {
+                inFlight.add(projectId);
+                batch.add(projectId);
+                markTimes.add(markedAt);
+            }
+
+            if (batch.size() == batchSize) {
+                submit(batch, markTimes);
+                batch = new ArrayList<>(batchSize);
+                markTimes = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            submit(batch, markTimes);
+        }
+    }
+
+    private void submit(List<Long> batch, List<Long> markTimes) {
+        try {
+            workers.execute(() -> recalculate(batch, markTimes));
+        } catch (RejectedExecutionException e) {
+            // Only happens during shutdown, the final drain picks the batch up on the calling thread
+            requeue(batch, markTimes);
+        }
+    }
+
+    /**
+     * Recalculates and persists one batch in a single transaction, requeueing it with a backoff if that fails
+     * @param batch the ids of the projects to recalculate
+     * @param markTimes the first mark time of each project, in the same order
+     */
+    private void recalculate(List<Long> batch, List<Long> markTimes) {
+        try {
+            projectService.recalculatePriorities(batch);
+            long now = System.nanoTime();
+            for (Long markedAt : markTimes) {
+                staleness.record(now - markedAt, TimeUnit.NANOSECONDS);
+            }
+            batch.forEach(retries::remove);
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.warn("Priority recalculation of {} projects failed, requeueing", batch.size(), e);
+            requeueAfterFailure(batch, markTimes);
+        } finally {
+            inFlight.removeAll(batch);
+        }
+    }
+
+    private void requeueAfterFailure(List<Long> batch, List<Long> markTimes) {
+        long now = System.nanoTime();
+        List<Long> retried = new ArrayList<>(batch.size());
+        List<Long> retriedMarkTimes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Long projectId = batch.get(i);
+            Retry previous = retries.get(projectId);
+            int attempts = previous == null ? 1 : previous.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                // Every read recalculates the priority it returns, so the stored value is corrected by the next one
+                retries.remove(projectId);
+                abandonedProjects.increment();
+                log.error("Giving up on the priority of project {} after {} failed batches", projectId, attempts);
+                continue;
+            }
+            retries.put(projectId, new Retry(attempts, now + (debounceNanos << Math.min(attempts - 1, 16))));
+            retried.add(projectId);
+            retriedMarkTimes.add(markTimes.get(i));
+        }
+        requeue(retried, retriedMarkTimes);
+    }
+
+    private void requeue(List<Long> batch, List<Long> markTimes) {
+        for (int i = 0; i < batch.size(); i++) {
+            pending.putIfAbsent(batch.get(i), markTimes.get(i));
+        }
+    }
+
+    private double oldestPendingAgeSeconds() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (Long markedAt : pending.values()) {
+            oldest = Math.max(oldest, now - markedAt);
+        }
+        return oldest / 1_000_000_000.0;
+    }
+
+    /**
+     * Stops the workers and persists everything still pending on the calling thread, so a shutdown never
+     * leaves a stored priority stale
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Priority write-behind workers did not finish within 10s");
+        }
+
+        List<Long> remaining = new ArrayList<>(pending.keySet());
+        pending.clear();
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            List<Long> batch = remaining.subList(from, Math.min(from + batchSize, remaining.size()));
+            try {
+                projectService.recalculatePriorities(batch);
+            } catch (RuntimeException e) {
+                log.warn("Priority recalculation of {} projects failed during shutdown", batch.size(), e);
+            }
+        }
+    }
+}
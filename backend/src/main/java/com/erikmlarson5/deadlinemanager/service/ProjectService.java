@@ -1,21 +1,45 @@
 package com.erikmlarson5.deadlinemanager.service;
 
+import com.erikmlarson5.deadlinemanager.dependency.DependencyGraphs;
+import com.erikmlarson5.deadlinemanager.dto.BulkDeleteResultDTO;
+import com.erikmlarson5.deadlinemanager.dto.CategoryFacetDTO;
+import com.erikmlarson5.deadlinemanager.dto.CategoryFacetView;
 import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
 import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectView;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
+import com.erikmlarson5.deadlinemanager.entity.Category;
 import com.erikmlarson5.deadlinemanager.entity.Project;
-import com.erikmlarson5.deadlinemanager.entity.Task;
+import com.erikmlarson5.deadlinemanager.exception.PreconditionFailedException;
+import com.erikmlarson5.deadlinemanager.planner.StudyPlanner;
+import com.erikmlarson5.deadlinemanager.reminder.ReminderScheduler;
+import com.erikmlarson5.deadlinemanager.repository.CategoryRepository;
 import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.SparseFieldRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
+import com.erikmlarson5.deadlinemanager.utils.ETags;
 import com.erikmlarson5.deadlinemanager.utils.ProjectMapper;
 import com.erikmlarson5.deadlinemanager.utils.Status;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * Service layer for all project endpoints which connects to the repository layer
@@ -23,15 +47,62 @@ import java.util.NoSuchElementException;
 @Service
 @Transactional
 public class ProjectService {
+    // The pace a chain of dependent tasks is assumed to be worked at, each step must finish before the next
+    private static final double CHAIN_HOURS_PER_DAY = 4.0;
+
     private final ProjectRepository projectRepository;
+    private final TaskRepository taskRepository;
+    private final CategoryRepository categoryRepository;
+    private final SparseFieldRepository sparseFieldRepository;
+    private final ReminderScheduler reminderScheduler;
+    private final StudyPlanner studyPlanner;
+    private final DependencyGraphs dependencyGraphs;
+    private final MeterRegistry meterRegistry;
+    private final Timer priorityCalculationTimer;
+    private final Counter readTriggeredPriorityWrites;
+    private final Counter refreshTriggeredPriorityWrites;
+    private final Counter bulkTriggeredPriorityWrites;
+    private final Counter writeBehindTriggeredPriorityWrites;
 
     /**
      * Project service which connects to the repository layer
      * @param projectRepository injected repository to manage projects
+     * @param taskRepository injected repository for read-only task projections
+     * @param categoryRepository injected repository of the per-user category dictionary
+     * @param sparseFieldRepository injected repository selecting only requested project fields
+     * @param reminderScheduler injected scheduler whose due-date reminders follow project writes
+     * @param studyPlanner injected planner whose held study plans follow project due dates and statuses
+     * @param dependencyGraphs injected holder of the task dependency graphs whose critical paths feed priority
+     * @param meterRegistry injected registry for priority engine metrics
      */
     @Autowired
-    public ProjectService(ProjectRepository projectRepository) {
+    public ProjectService(ProjectRepository projectRepository, TaskRepository taskRepository,
+                          CategoryRepository categoryRepository, SparseFieldRepository sparseFieldRepository,
+                          ReminderScheduler reminderScheduler, StudyPlanner studyPlanner,
+                          DependencyGraphs dependencyGraphs, MeterRegistry meterRegistry) {
         this.projectRepository = projectRepository;
+        this.taskRepository = taskRepository;
+        this.categoryRepository = categoryRepository;
+        this.sparseFieldRepository = sparseFieldRepository;
+        this.reminderScheduler = reminderScheduler;
+        this.studyPlanner = studyPlanner;
+        this.dependencyGraphs = dependencyGraphs;
+        this.meterRegistry = meterRegistry;
+        this.priorityCalculationTimer = Timer.builder("projects.priority.calculation")
+                .description("Time spent calculating a single project's priority")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.readTriggeredPriorityWrites = priorityWriteCounter("read");
+        this.refreshTriggeredPriorityWrites = priorityWriteCounter("refresh");
+        this.bulkTriggeredPriorityWrites = priorityWriteCounter("bulk");
+        this.writeBehindTriggeredPriorityWrites = priorityWriteCounter("write-behind");
+    }
+
+    private Counter priorityWriteCounter(String trigger) {
+        return Counter.builder("projects.priority.writes")
+                .description("Projects saved because their recalculated priority changed")
+                .tag("trigger", trigger)
+                .register(meterRegistry);
     }
 
     /**
@@ -45,12 +116,14 @@ public class ProjectService {
 
         Project project = ProjectMapper.toEntity(dto);
         project.setUserId(userId);
+        project.setCategory(resolveCategory(dto.getCategory(), userId));
         if (projectRepository.existsByTitleAndUserId(project.getTitle(), userId)) {
             throw new IllegalStateException("Project with the same title already exists!");
         }
         recalculateProjectPriority(project);
 
         Project savedProject = projectRepository.save(project);
+        reminderScheduler.projectChanged(savedProject);
         return ProjectMapper.toOutputDto(savedProject);
     }
 
@@ -60,13 +133,13 @@ public class ProjectService {
      * @return an outputDTO of the found project
      */
     public ProjectOutputDTO getProjectById(Long id, String userId) {
-        Project project = projectRepository.findByProjectIdAndUserId(id, userId)
+        ProjectView project = projectRepository.findViewByProjectIdAndUserId(id, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Project with id: " + id + " not found!"));
 
-        if (recalculateProjectPriority(project)) {
-            projectRepository.save(project);
-        }
-        return ProjectMapper.toOutputDto(project);
+        List<TaskView> tasks = taskRepository.findDetailViewsByProjectId(id);
+        ProjectView refreshedProject = applyFreshPriorities(List.of(project), Map.of(id, tasks),
+                readTriggeredPriorityWrites).get(0);
+        return ProjectMapper.toOutputDto(refreshedProject, tasks);
     }
 
     /**
@@ -74,13 +147,64 @@ public class ProjectService {
      * @param category the name of the category to search by
      * @return a list of all projects in the provided category, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<ProjectOutputDTO> getProjectsInCategory(String category, String userId) {
-        List<Project> allProjects = projectRepository.findByCategoryIgnoreCaseAndUserId(category, userId);
-        List<ProjectOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Project project : allProjects) {
-            allOutputDTOs.add(ProjectMapper.toOutputDto(project));
+        List<ProjectView> projects = projectRepository.findViewsByNormalizedCategoryAndUserId(
+                Category.normalize(category), userId);
+        return toOutputDtos(projects, loadTasksByProject(projects));
+    }
+
+    /**
+     * Gets the user's categories with project counts per status, from a single aggregate query
+     * @return the category facets sorted by name, with uncategorized projects last
+     */
+    @Transactional(readOnly = true)
+    public List<CategoryFacetDTO> getCategoryFacets(String userId) {
+        Map<Long, CategoryFacetDTO> facets = new HashMap<>();
+        CategoryFacetDTO uncategorized = null;
+
+        for (CategoryFacetView row : projectRepository.countByCategoryAndStatus(userId)) {
+            CategoryFacetDTO facet;
+            if (row.categoryId() == null) {
+                if (uncategorized == null) {
+                    uncategorized = new CategoryFacetDTO(null, null, 0, new LinkedHashMap<>());
+                }
+                facet = uncategorized;
+            } else {
+                facet = facets.computeIfAbsent(row.categoryId(),
+                        id -> new CategoryFacetDTO(id, row.name(), 0, new LinkedHashMap<>()));
+            }
+            facet.setTotal(facet.getTotal() + row.count());
+            facet.getStatusCounts().merge(row.status() != null ? row.status().name() : "NONE", row.count(), Long::sum);
         }
-        return allOutputDTOs;
+
+        List<CategoryFacetDTO> sortedFacets = new ArrayList<>(facets.values());
+        sortedFacets.sort(Comparator.comparing(CategoryFacetDTO::getName, String.CASE_INSENSITIVE_ORDER));
+        if (uncategorized != null) {
+            sortedFacets.add(uncategorized);
+        }
+        return sortedFacets;
+    }
+
+    /**
+     * Finds the user's dictionary entry for a category name, creating it on first use
+     * @param name the category name from the input DTO, may be blank
+     * @return the managed category, or null when no category was given
+     */
+    private Category resolveCategory(String name, String userId) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+
+        String normalizedName = Category.normalize(name);
+        Optional<Category> existing = categoryRepository.findByUserIdAndNormalizedName(userId, normalizedName);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        categoryRepository.insertIfAbsent(userId, name.trim(), normalizedName);
+        return categoryRepository.findByUserIdAndNormalizedName(userId, normalizedName)
+                .orElseThrow(() -> new IllegalStateException("Category " + name + " could not be created"));
     }
 
     /**
@@ -88,19 +212,60 @@ public class ProjectService {
      * @return a list of all projects, converted to outputDTOs
      */
     public List<ProjectOutputDTO> getAllProjects(String userId) {
-        List<Project> allProjects = projectRepository.findByUserId(userId);
+        List<ProjectView> allProjects = projectRepository.findViewsByUserId(userId);
+        Map<Long, List<TaskView>> tasksByProject = loadTasksByProject(allProjects);
+        return toOutputDtos(applyFreshPriorities(allProjects, tasksByProject, readTriggeredPriorityWrites),
+                tasksByProject);
+    }
 
-        for (Project project : allProjects) {
-            if (recalculateProjectPriority(project)) {
-                projectRepository.save(project);
-            }
+    /**
+     * Gets many projects by id in one round trip
+     * @param projectIds the ids of the projects, ids not owned by the user are left out of the result
+     * @return a list of the found projects, converted to outputDTOs
+     */
+    public List<ProjectOutputDTO> getProjectsByIds(Collection<Long> projectIds, String userId) {
+        if (projectIds.isEmpty()) {
+            return List.of();
         }
+        List<ProjectView> projects = projectRepository.findViewsByProjectIdsAndUserId(projectIds, userId);
+        Map<Long, List<TaskView>> tasksByProject = loadTasksByProject(projects);
+        return toOutputDtos(applyFreshPriorities(projects, tasksByProject, readTriggeredPriorityWrites),
+                tasksByProject);
+    }
 
-        List<ProjectOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Project project : allProjects) {
-            allOutputDTOs.add(ProjectMapper.toOutputDto(project));
+    /**
+     * Gets only the requested fields of projects, selecting just those columns. The stored priority ages with
+     * the due date, so when priority is requested it is recalculated from the selected projects' projections
+     * and tasks like any other project read, costing those two queries on top of the sparse one
+     * @param projectIds the ids of the projects, null for all of the user's projects
+     * @param fields the names of the fields to return, projectId is always included
+     * @return one map of field name to value per project found
+     */
+    public List<Map<String, Object>> getProjectFields(Collection<Long> projectIds, Collection<String> fields,
+                                                      String userId) {
+        List<Map<String, Object>> rows = sparseFieldRepository.findProjectFields(userId, projectIds, fields);
+        if (rows.isEmpty() || !rows.get(0).containsKey("priority")) {
+            return rows;
         }
-        return allOutputDTOs;
+
+        List<Long> selectedIds = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            selectedIds.add((Long) row.get("projectId"));
+        }
+        List<ProjectView> projects = projectRepository.findViewsByProjectIdsAndUserId(selectedIds, userId);
+        Map<Long, Float> priorities = new HashMap<>();
+        for (ProjectView project : applyFreshPriorities(projects, loadTasksByProject(projects),
+                readTriggeredPriorityWrites)) {
+            priorities.put(project.projectId(), project.priority());
+        }
+        for (Map<String, Object> row : rows) {
+            // A project deleted between the two reads keeps its stored priority
+            Float priority = priorities.get((Long) row.get("projectId"));
+            if (priority != null) {
+                row.put("priority", priority);
+            }
+        }
+        return rows;
     }
 
     /**
@@ -108,16 +273,12 @@ public class ProjectService {
      * @param days the number of days until a given deadline
      * @return a list of all projects due in X days, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<ProjectOutputDTO> getProjectsDueInDays(int days, String userId) {
         LocalDate today = LocalDate.now();
         LocalDate deadline = today.plusDays(days);
-        List<Project> projects = projectRepository.findByDueDateBetweenAndUserId(today, deadline, userId);
-
-        List<ProjectOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Project project : projects) {
-            allOutputDTOs.add(ProjectMapper.toOutputDto(project));
-        }
-        return allOutputDTOs;
+        List<ProjectView> projects = projectRepository.findViewsByDueDateBetweenAndUserId(today, deadline, userId);
+        return toOutputDtos(projects, loadTasksByProject(projects));
     }
 
     /**
@@ -125,19 +286,17 @@ public class ProjectService {
      * @param status the status query to search by
      * @return a list of all projects by specific status, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<ProjectOutputDTO> getProjectsByStatus(Status status, String userId) {
-        List<Project> allProjects = projectRepository.findByStatusAndUserId(status, userId);
-        List<ProjectOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Project project : allProjects) {
-            allOutputDTOs.add(ProjectMapper.toOutputDto(project));
-        }
-        return allOutputDTOs;
+        List<ProjectView> projects = projectRepository.findViewsByStatusAndUserId(status, userId);
+        return toOutputDtos(projects, loadTasksByProject(projects));
     }
 
     /**
      * Gets all projects with a status of COMPLETED
      * @return a list of all incomplete tasks in a project, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<ProjectOutputDTO> getCompletedProjects(String userId) {
         return getProjectsByStatus(Status.COMPLETED, userId);
     }
@@ -147,16 +306,116 @@ public class ProjectService {
      * @return a list of projects in priority order, converted to outputDTOs
      */
     public List<ProjectOutputDTO> getProjectsSortedByPriority(String userId) {
-        updateAllProjectPriorities(userId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<ProjectView> allProjects = projectRepository.findViewsByUserId(userId);
+        Map<Long, List<TaskView>> tasksByProject = loadTasksByProject(allProjects);
+        List<ProjectView> refreshedProjects = applyFreshPriorities(allProjects, tasksByProject,
+                readTriggeredPriorityWrites);
+        sample.stop(priorityRefreshTimer(allProjects.size()));
 
-        List<Project> allProjects = projectRepository.findAllByUserIdOrderByPriorityDesc(userId);
-        List<ProjectOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Project project : allProjects) {
-            allOutputDTOs.add(ProjectMapper.toOutputDto(project));
+        List<ProjectOutputDTO> allOutputDTOs = toOutputDtos(refreshedProjects, tasksByProject);
+
+        // Sort after refreshing so the order reflects today's priorities without a second query
+        allOutputDTOs.sort(Comparator.comparingDouble(ProjectOutputDTO::getPriority).reversed());
+        return allOutputDTOs;
+    }
+
+    /**
+     * Builds the detail response of a project after a write, selecting descriptions with projections so
+     * the lazy description of every task is not loaded one row at a time
+     * @param projectId the id of the written project, already flushed in the current transaction
+     * @param userId the id of the owning user
+     * @return an outputDTO of the project and its tasks, including descriptions
+     */
+    public ProjectOutputDTO getProjectDetail(Long projectId, String userId) {
+        ProjectView project = projectRepository.findViewByProjectIdAndUserId(projectId, userId)
+                .orElseThrow(() -> new NoSuchElementException("Project with id " + projectId + " not found!"));
+        List<TaskView> tasks = taskRepository.findDetailViewsByProjectId(projectId);
+
+        // The stored priority may still be queued for write-behind, the response always shows the current one
+        return ProjectMapper.toOutputDto(project.withPriority(calculatePriority(project, tasks)), tasks);
+    }
+
+    /**
+     * Maps project projections and their grouped task projections to outputDTOs
+     * @param projects the project projections to map
+     * @param tasksByProject the task projections keyed by project id
+     * @return the projects with their tasks, converted to outputDTOs
+     */
+    private List<ProjectOutputDTO> toOutputDtos(List<ProjectView> projects, Map<Long, List<TaskView>> tasksByProject) {
+        List<ProjectOutputDTO> allOutputDTOs = new ArrayList<>(projects.size());
+        for (ProjectView project : projects) {
+            allOutputDTOs.add(ProjectMapper.toOutputDto(project,
+                    tasksByProject.getOrDefault(project.projectId(), List.of())));
         }
         return allOutputDTOs;
     }
 
+    /**
+     * Recalculates the priorities of project projections, writing only the priorities that changed on their
+     * row-locked entities in one locking select. A write is skipped when the project's tasks changed after its
+     * projection was read, or a write to them is in progress, the writer that changed them recalculates instead
+     * @param projects the project projections to recalculate
+     * @param tasksByProject the task projections keyed by project id
+     * @param writeCounter the counter of priority writes for the calling path
+     * @return the projections with their current priorities, in the same order
+     */
+    private List<ProjectView> applyFreshPriorities(List<ProjectView> projects, Map<Long, List<TaskView>> tasksByProject,
+                                                   Counter writeCounter) {
+        List<ProjectView> refreshedProjects = new ArrayList<>(projects.size());
+        List<Long> projectIds = new ArrayList<>(projects.size());
+        for (ProjectView project : projects) {
+            projectIds.add(project.projectId());
+        }
+        Map<Long, Double> chainHours = dependencyGraphs.dependencyChainHours(projectIds);
+
+        Map<Long, ProjectView> changedProjects = new HashMap<>();
+        for (ProjectView project : projects) {
+            List<TaskView> tasks = tasksByProject.getOrDefault(project.projectId(), List.of());
+            float recalculatedPriority = calculatePriority(project.dueDate(), project.difficulty(),
+                    project.estimatedHours(), ProjectWorkload.ofViews(tasks)
+                            .withDependencyChainHours(chainHours.getOrDefault(project.projectId(), 0.0)));
+            if (Float.compare(project.priority(), recalculatedPriority) != 0) {
+                project = project.withPriority(recalculatedPriority);
+                changedProjects.put(project.projectId(), project);
+            }
+            refreshedProjects.add(project);
+        }
+
+        if (!changedProjects.isEmpty()) {
+            for (Project locked : projectRepository.lockUnlockedByProjectIds(changedProjects.keySet())) {
+                ProjectView changed = changedProjects.get(locked.getProjectId());
+                if (locked.getAggregateRevision().equals(changed.aggregateRevision())) {
+                    locked.setPriority(changed.priority());
+                    writeCounter.increment();
+                }
+            }
+        }
+        return refreshedProjects;
+    }
+
+    /**
+     * Loads the task projections of all given projects and groups them by project id
+     * @param projects the projects to load tasks for
+     * @return the task projections keyed by project id
+     */
+    private Map<Long, List<TaskView>> loadTasksByProject(List<ProjectView> projects) {
+        if (projects.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> projectIds = new ArrayList<>(projects.size());
+        for (ProjectView project : projects) {
+            projectIds.add(project.projectId());
+        }
+
+        Map<Long, List<TaskView>> tasksByProject = new HashMap<>();
+        for (TaskView task : taskRepository.findViewsByProjectIds(projectIds)) {
+            tasksByProject.computeIfAbsent(task.projectId(), id -> new ArrayList<>()).add(task);
+        }
+        return tasksByProject;
+    }
+
     /**
      * Recalculates a project's priority and applies it only when it changes.
      * @param project the project to recalculate
@@ -177,11 +436,15 @@ public class ProjectService {
      * and tasks
      * @param id the id of the project to update
      * @param dto an inputDTO object of all fields to replace
+     * @param expectedVersion the project version from If-Match, null for an unconditional update
      * @return an outputDTO of the updated and saved task
      */
-    public ProjectOutputDTO updateProject(Long id, ProjectInputDTO dto, String userId) {
+    public ProjectOutputDTO updateProject(Long id, ProjectInputDTO dto, String userId, Long expectedVersion) {
+        // Due date, difficulty and estimate feed the priority, so the edit serializes with task writes
+        projectRepository.incrementAggregateRevision(id, userId);
         Project existingProject = projectRepository.findByProjectIdAndUserId(id, userId)
                 .orElseThrow(() -> new NoSuchElementException("Project with id " + id + " not found!"));
+        ETags.checkPrecondition(expectedVersion, existingProject.getVersion(), "Project with id " + id);
 
         if (!existingProject.getTitle().equals(dto.getTitle()) &&
             projectRepository.existsByTitleAndUserId(dto.getTitle(), userId)) {
@@ -192,7 +455,7 @@ public class ProjectService {
 
         existingProject.setTitle(dto.getTitle());
         existingProject.setDescription(dto.getDescription());
-        existingProject.setCategory(dto.getCategory());
+        existingProject.setCategory(resolveCategory(dto.getCategory(), userId));
         existingProject.setDueDate(dto.getDueDate());
         existingProject.setEstimatedHours(dto.getEstimatedHours());
         existingProject.setDifficulty(dto.getDifficulty());
@@ -200,8 +463,10 @@ public class ProjectService {
 
         recalculateProjectPriority(existingProject);
 
-        Project savedProject = projectRepository.saveAndFlush(existingProject);
-        return ProjectMapper.toOutputDto(savedProject);
+        projectRepository.saveAndFlush(existingProject);
+        reminderScheduler.projectChanged(existingProject);
+        studyPlanner.projectChanged(userId, id);
+        return getProjectDetail(id, userId);
     }
 
     /**
@@ -252,44 +517,119 @@ public class ProjectService {
      * Updates only a project's enum status
      * @param id the id of the project to update
      * @param newStatus the new status to change to
+     * @param expectedVersion the project version from If-Match, null for an unconditional update
      * @return an outputDTO of the updated and saved task
      */
-    public ProjectOutputDTO updateProjectStatus(Long id, String newStatus, String userId) {
+    public ProjectOutputDTO updateProjectStatus(Long id, String newStatus, String userId, Long expectedVersion) {
         Project project = projectRepository.findByProjectIdAndUserId(id, userId)
                 .orElseThrow(() -> new NoSuchElementException("Project with id " + id + " not " + "found!"));
+        ETags.checkPrecondition(expectedVersion, project.getVersion(), "Project with id " + id);
 
         project.setStatus(Status.valueOf(newStatus.toUpperCase()));
         projectRepository.saveAndFlush(project);
+        reminderScheduler.projectChanged(project);
+        studyPlanner.projectChanged(userId, id);
 
-        return ProjectMapper.toOutputDto(project);
+        return getProjectDetail(id, userId);
     }
 
     /**
      * Recalculates all project priorities to account for the current date and time
      */
     public void updateAllProjectPriorities(String userId) {
-        List<Project> projects = projectRepository.findByUserId(userId);
-        List<Project> changedProjects = new ArrayList<>();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<ProjectView> projects = projectRepository.findViewsByUserId(userId);
+        applyFreshPriorities(projects, loadTasksByProject(projects), refreshTriggeredPriorityWrites);
+        sample.stop(priorityRefreshTimer(projects.size()));
+    }
 
-        for (Project project : projects) {
-            if (recalculateProjectPriority(project)) {
-                changedProjects.add(project);
-            }
+    /**
+     * Recalculates the priorities of specific projects once each, after their tasks were changed in bulk
+     * @param projectIds the ids of the projects to recalculate
+     * @param userId the id of the owning user
+     * @return the current priority of each project, keyed by project id
+     */
+    public Map<Long, Float> refreshProjectPriorities(Collection<Long> projectIds, String userId) {
+        if (projectIds.isEmpty()) {
+            return Map.of();
         }
 
-        if (!changedProjects.isEmpty()) {
-            projectRepository.saveAll(changedProjects);
+        List<ProjectView> projects = projectRepository.findViewsByProjectIdsAndUserId(projectIds, userId);
+        Map<Long, Float> priorities = new LinkedHashMap<>();
+        for (ProjectView project : applyFreshPriorities(projects, loadTasksByProject(projects),
+                bulkTriggeredPriorityWrites)) {
+            priorities.put(project.projectId(), project.priority());
         }
+        return priorities;
+    }
+
+    /**
+     * Recalculates and persists the priorities of projects queued for write-behind, in one transaction
+     * @param projectIds the ids of the projects whose tasks changed
+     */
+    public void recalculatePriorities(Collection<Long> projectIds) {
+        List<ProjectView> projects = projectRepository.findViewsByProjectIds(projectIds);
+        applyFreshPriorities(projects, loadTasksByProject(projects), writeBehindTriggeredPriorityWrites);
+    }
+
+    /**
+     * Gets the priority refresh timer, bucketed by project count to keep tag cardinality low
+     * @param count the number of projects refreshed
+     * @return the timer for the bucket
+     */
+    private Timer priorityRefreshTimer(int count) {
+        String bucket = count <= 10 ? "0-10" : count <= 50 ? "11-50" : count <= 200 ? "51-200" : "200+";
+        return meterRegistry.timer("projects.priority.refresh", "projects", bucket);
     }
 
     /**
      * Deletes a project in the database
      * @param id the id of the project to delete
+     * @param expectedVersion the project version from If-Match, null for an unconditional delete
      */
-    public void deleteProject(Long id, String userId) {
-        Project project = projectRepository.findByProjectIdAndUserId(id, userId)
-                .orElseThrow(() -> new NoSuchElementException("Project with id: " + id + " not found!"));
-        projectRepository.delete(project);
+    public void deleteProject(Long id, String userId, Long expectedVersion) {
+        if (expectedVersion != null) {
+            Long currentVersion = projectRepository.findVersionByProjectIdAndUserId(id, userId)
+                    .orElseThrow(() -> new NoSuchElementException("Project with id: " + id + " not found!"));
+            ETags.checkPrecondition(expectedVersion, currentVersion, "Project with id " + id);
+        }
+
+        // Set-based deletes instead of loading the project and removing each task through orphan removal
+        taskRepository.deleteByProjectIdAndUserId(id, userId);
+        if (expectedVersion == null) {
+            if (projectRepository.deleteByProjectIdAndUserId(id, userId) == 0) {
+                throw new NoSuchElementException("Project with id: " + id + " not found!");
+            }
+        } else if (projectRepository.deleteByProjectIdAndUserIdAndVersion(id, userId, expectedVersion) == 0) {
+            // A concurrent update won between the check and the delete, rolling back the task delete too
+            throw new PreconditionFailedException("Project with id " + id + " has been modified");
+        }
+        reminderScheduler.projectDeleted(id);
+        studyPlanner.projectDeleted(userId, id);
+        dependencyGraphs.projectChanged(id);
+    }
+
+    /**
+     * Deletes every completed project, and its tasks, that was completed more than X days ago
+     * @param days the minimum number of days since completion
+     * @return the number of projects and tasks deleted
+     */
+    public BulkDeleteResultDTO deleteCompletedProjectsOlderThan(int days, String userId) {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusDays(days);
+        List<Long> projectIds = projectRepository.lockIdsByUserIdAndStatusCompletedBefore(userId,
+                Status.COMPLETED.name(), cutoff);
+        if (projectIds.isEmpty()) {
+            return new BulkDeleteResultDTO(0, 0);
+        }
+
+        int deletedTasks = taskRepository.deleteByProjectIds(projectIds);
+        int deletedProjects = projectRepository.deleteByProjectIds(projectIds);
+        for (Long projectId : projectIds) {
+            reminderScheduler.projectDeleted(projectId);
+            studyPlanner.projectDeleted(userId, projectId);
+            dependencyGraphs.projectChanged(projectId);
+        }
+        return new BulkDeleteResultDTO(deletedProjects, deletedTasks);
     }
 
     /**
@@ -298,21 +638,61 @@ public class ProjectService {
      * @return a priority score from 0-10, rounded to 1 decimal place
      */
     public float calculatePriority(Project project) {
+        return calculatePriority(project.getDueDate(), project.getDifficulty(), project.getEstimatedHours(),
+                ProjectWorkload.ofTasks(project.getTasks())
+                        .withDependencyChainHours(dependencyGraphs.dependencyChainHours(project.getProjectId())));
+    }
+
+    /**
+     * Calculates a priority score for a read-only project projection and its task projections
+     * @param project the project projection to calculate the priority score for
+     * @param tasks the task projections belonging to the project
+     * @return a priority score from 0-10, rounded to 1 decimal place
+     */
+    public float calculatePriority(ProjectView project, List<TaskView> tasks) {
+        return calculatePriority(project.dueDate(), project.difficulty(), project.estimatedHours(),
+                ProjectWorkload.ofViews(tasks)
+                        .withDependencyChainHours(dependencyGraphs.dependencyChainHours(project.projectId())));
+    }
+
+    /**
+     * Calculates a priority score from a project's scheduling fields and task totals
+     * @param dueDate the project's due date
+     * @param difficulty the project's difficulty, may be null
+     * @param estimatedHours the project's own estimate, used when it has no tasks
+     * @param workload the totals of the project's tasks
+     * @return a priority score from 0-10, rounded to 1 decimal place
+     */
+    public float calculatePriority(LocalDate dueDate, Integer difficulty, Float estimatedHours,
+                                   ProjectWorkload workload) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return computePriority(dueDate, difficulty, estimatedHours, workload);
+        } finally {
+            sample.stop(priorityCalculationTimer);
+        }
+    }
+
+    private float computePriority(LocalDate dueDate, Integer difficulty, Float estimatedHours,
+                                  ProjectWorkload workload) {
         LocalDate today = LocalDate.now();
-        long daysLeft = ChronoUnit.DAYS.between(today, project.getDueDate());
+        long daysLeft = ChronoUnit.DAYS.between(today, dueDate);
 
         // Calculate estimated hours remaining across all incomplete tasks
-        double hoursRemaining = calculateRemainingWork(project);
+        double hoursRemaining = calculateRemainingWork(estimatedHours, workload);
+
+        // A chain of dependent tasks cannot be worked in parallel, so the days it needs come off the time left
+        long chainDays = (long) (workload.dependencyChainHours() / CHAIN_HOURS_PER_DAY);
 
         // Get scores for time pressure, work pressure, and progress
-        double timePressure  = calculateTimePressure(daysLeft);
+        double timePressure  = calculateTimePressure(daysLeft - chainDays);
         double workPressure  = calculateWorkPressure(hoursRemaining, daysLeft);
-        double progressScore = calculateProgressScore(project, daysLeft);
+        double progressScore = calculateProgressScore(workload, daysLeft);
 
         double baseScore = (timePressure * 0.50) + (workPressure * 0.30) + (progressScore * 0.20);
 
         // Adjust the base score by a difficulty multiplier to get the final priority score
-        double priority = baseScore * getDifficultyMultiplier(project);
+        double priority = baseScore * getDifficultyMultiplier(difficulty);
 
         // Ensure the final priority score is between 0 and 10, and round to 1 decimal place
         return (float) (Math.round(Math.min(priority, 10.0) * 10.0) / 10.0);
@@ -320,26 +700,20 @@ public class ProjectService {
 
     /**
      * Used to calculate the total estimated hours across all tasks
-     * @param project the project to calculate the total for
-     * @return the total estimated hours across all tasks, or 5.0 if none
+     * @param estimatedHours the project's own estimate
+     * @param workload the totals of the project's tasks
+     * @return the total estimated hours across all incomplete tasks, or the project estimate if none
      */
-    private double calculateRemainingWork(Project project) {
+    private double calculateRemainingWork(Float estimatedHours, ProjectWorkload workload) {
         // If no tasks, use estimated hours from project or default to 5.0 if not provided
-        if (project.getTasks() == null || project.getTasks().isEmpty()) {
-            return project.getEstimatedHours() != null
-                ? Math.max(project.getEstimatedHours(), 0.5)
+        if (workload.totalTasks() == 0) {
+            return estimatedHours != null
+                ? Math.max(estimatedHours, 0.5)
                 : 5.0;
         }
 
-        double totalHours = 0.0;
-
-        // Sum estimated hours for all incomplete tasks
-        for (Task task : project.getTasks()) {
-            if (task.getStatus() != Status.COMPLETED) {
-                totalHours += task.getEstimatedHours();
-            }
-        }
-        return totalHours;
+        // Sum of estimated hours for all incomplete tasks
+        return workload.incompleteHours();
     }
 
     /**
@@ -383,24 +757,17 @@ public class ProjectService {
 
     /**
      * Calculates a progress score based on the number of completed tasks, or 5.0 if none
-     * @param project the project to calculate the score for
+     * @param workload the totals of the project's tasks
      * @return a score based on estimated progress
      */
-    private double calculateProgressScore(Project project, long daysLeft) {
-        List<Task> tasks = project.getTasks();
-
+    private double calculateProgressScore(ProjectWorkload workload, long daysLeft) {
         // If no tasks, use time pressure score
-        if (tasks == null || tasks.isEmpty()) {
+        if (workload.totalTasks() == 0) {
             return daysLeft <= 7 ? 7.0 : 5.0;
         }
 
         // Calculate completion ratio of tasks
-        long total = tasks.size();
-        long completed = tasks.stream()
-            .filter(t -> t.getStatus() == Status.COMPLETED)
-            .count();
-
-        double completionRatio = (double) completed / total;
+        double completionRatio = (double) workload.completedTasks() / workload.totalTasks();
 
         double rawScore = 10.0 * (1.0 - completionRatio);
 
@@ -416,14 +783,14 @@ public class ProjectService {
 
     /**
      * Calculates a difficulty multiplier to adjust the priority score based on the project's difficulty
-     * @param project the project to calculate the multiplier for
+     * @param projectDifficulty the project's difficulty, may be null
      * @return a multiplier where higher difficulty results in a higher multiplier
      */
-    private double getDifficultyMultiplier(Project project) {
-        if (project.getDifficulty() == null) return 1.25;
+    private double getDifficultyMultiplier(Integer projectDifficulty) {
+        if (projectDifficulty == null) return 1.25;
 
         // Clamp difficulty to a range of 1-10 to avoid extreme multipliers
-        double difficulty = Math.min(Math.max(project.getDifficulty(), 1), 10);
+        double difficulty = Math.min(Math.max(projectDifficulty, 1), 10);
         return 1.0 + (difficulty / 15.0);
     }
 }
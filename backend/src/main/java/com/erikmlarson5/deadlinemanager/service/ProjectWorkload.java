@@ -0,0 +1,68 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
+import com.erikmlarson5.deadlinemanager.entity.Task;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+
+import java.util.List;
+
+/**
+ * The task totals a project's priority score depends on, so priority can be calculated the same
+ * way from managed entities, read-only projections or aggregate queries
+ * @param totalTasks the number of tasks in the project
+ * @param completedTasks the number of completed tasks in the project
+ * @param incompleteHours the estimated hours summed across incomplete tasks
+ * @param dependencyChainHours the hours of the longest chain of incomplete tasks that depend on each other
+ */
+public record ProjectWorkload(long totalTasks, long completedTasks, double incompleteHours,
+                              double dependencyChainHours) {
+
+    /**
+     * Totals the tasks of a managed project
+     * @param tasks the project's tasks, may be null
+     * @return the workload of the tasks
+     */
+    public static ProjectWorkload ofTasks(List<Task> tasks) {
+        if (tasks == null) {
+            return new ProjectWorkload(0, 0, 0.0, 0.0);
+        }
+
+        long completed = 0;
+        double incompleteHours = 0.0;
+        for (Task task : tasks) {
+            if (task.getStatus() == Status.COMPLETED) {
+                completed++;
+            } else {
+                incompleteHours += task.getEstimatedHours();
+            }
+        }
+        return new ProjectWorkload(tasks.size(), completed, incompleteHours, 0.0);
+    }
+
+    /**
+     * Totals the task projections of a project
+     * @param tasks the project's task projections
+     * @return the workload of the tasks
+     */
+    public static ProjectWorkload ofViews(List<TaskView> tasks) {
+        long completed = 0;
+        double incompleteHours = 0.0;
+        for (TaskView task : tasks) {
+            if (task.status() == Status.COMPLETED) {
+                completed++;
+            } else {
+                incompleteHours += task.estimatedHours();
+            }
+        }
+        return new ProjectWorkload(tasks.size(), completed, incompleteHours, 0.0);
+    }
+
+    /**
+     * Gets this workload with the project's longest dependency chain, which the task totals do not show
+     * @param dependencyChainHours the hours of the longest chain of dependent incomplete tasks
+     * @return the workload with the chain hours set
+     */
+    public ProjectWorkload withDependencyChainHours(double dependencyChainHours) {
+        return new ProjectWorkload(totalTasks, completedTasks, incompleteHours, dependencyChainHours);
+    }
+}
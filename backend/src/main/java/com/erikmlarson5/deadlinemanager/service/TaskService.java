@@ -1,22 +1,42 @@
 package com.erikmlarson5.deadlinemanager.service;
 
+import com.erikmlarson5.deadlinemanager.dependency.DependencyGraphs;
+import com.erikmlarson5.deadlinemanager.dto.CriticalPathDTO;
+import com.erikmlarson5.deadlinemanager.dto.DependencyView;
 import com.erikmlarson5.deadlinemanager.dto.TaskInputDTO;
 import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectPriorityDTO;
 import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskStatusBulkInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskStatusBulkResultDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
 import com.erikmlarson5.deadlinemanager.entity.Project;
 import com.erikmlarson5.deadlinemanager.entity.Task;
+import com.erikmlarson5.deadlinemanager.entity.TaskDependency;
+import com.erikmlarson5.deadlinemanager.planner.StudyPlanner;
+import com.erikmlarson5.deadlinemanager.reminder.ReminderScheduler;
 import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.SparseFieldRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskDependencyRepository;
 import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
-import com.erikmlarson5.deadlinemanager.utils.ProjectMapper;
+import com.erikmlarson5.deadlinemanager.utils.ETags;
 import com.erikmlarson5.deadlinemanager.utils.Status;
 import com.erikmlarson5.deadlinemanager.utils.TaskMapper;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.NoSuchElementException;
 
 /**
@@ -28,19 +48,40 @@ public class TaskService {
     private final TaskRepository taskRepository;
     private final ProjectRepository projectRepository;
     private final ProjectService projectService;
+    private final PriorityRecalculationQueue priorityQueue;
+    private final SparseFieldRepository sparseFieldRepository;
+    private final ReminderScheduler reminderScheduler;
+    private final StudyPlanner studyPlanner;
+    private final TaskDependencyRepository dependencyRepository;
+    private final DependencyGraphs dependencyGraphs;
 
     /**
      * Task service which connects to the repository layer
      * @param taskRepository injected repository to manage tasks
      * @param projectRepository injected repository for priority recalculation
      * @param projectService injected service for priority recalculation
+     * @param priorityQueue injected write-behind queue that persists project priorities after task writes
+     * @param sparseFieldRepository injected repository selecting only requested task fields
+     * @param reminderScheduler injected scheduler whose due-date reminders follow task writes
+     * @param studyPlanner injected planner whose held study plans follow task writes
+     * @param dependencyRepository injected repository to manage dependencies between tasks
+     * @param dependencyGraphs injected holder of the dependency graphs whose critical paths follow task writes
      */
     @Autowired
     public TaskService(TaskRepository taskRepository, ProjectRepository projectRepository,
-                       ProjectService projectService) {
+                       ProjectService projectService, PriorityRecalculationQueue priorityQueue,
+                       SparseFieldRepository sparseFieldRepository, ReminderScheduler reminderScheduler,
+                       StudyPlanner studyPlanner, TaskDependencyRepository dependencyRepository,
+                       DependencyGraphs dependencyGraphs) {
         this.taskRepository = taskRepository;
         this.projectRepository = projectRepository;
         this.projectService = projectService;
+        this.priorityQueue = priorityQueue;
+        this.sparseFieldRepository = sparseFieldRepository;
+        this.reminderScheduler = reminderScheduler;
+        this.studyPlanner = studyPlanner;
+        this.dependencyRepository = dependencyRepository;
+        this.dependencyGraphs = dependencyGraphs;
     }
 
     /**
@@ -53,6 +94,7 @@ public class TaskService {
         validateDueDateForCreate(dto.getDueDate());
         validateStatusForCreate(dto.getStatus());
 
+        projectRepository.incrementAggregateRevision(projectId, userId);
         Project project = projectRepository.findByProjectIdAndUserId(projectId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Project with id: " + projectId + " not " + "found!"));
 
@@ -63,11 +105,12 @@ public class TaskService {
         }
         project.getTasks().add(task);
 
-        float newPriority = projectService.calculatePriority(project);
-        project.setPriority(newPriority);
-        Project savedProject = projectRepository.saveAndFlush(project);
+        projectRepository.saveAndFlush(project);
+        markPriorityStale(project);
+        reminderScheduler.projectTasksChanged(projectId);
+        studyPlanner.projectChanged(userId, projectId);
 
-        return ProjectMapper.toOutputDto(savedProject);
+        return projectService.getProjectDetail(projectId, userId);
     }
 
     /**
@@ -76,9 +119,10 @@ public class TaskService {
      * @param taskId the id of the task to be found
      * @return an outputDTO of the found task
      */
+    @Transactional(readOnly = true)
     public TaskOutputDTO getTaskById(Long projectId, Long taskId, String userId) {
-        Task task = taskRepository
-            .findByTaskIdAndProject_ProjectIdAndProject_UserId(taskId, projectId, userId)
+        TaskView task = taskRepository
+            .findViewByTaskIdAndProjectIdAndUserId(taskId, projectId, userId)
             .orElseThrow(() -> new IllegalArgumentException("Task not found"));
 
         return TaskMapper.toOutputDto(task);
@@ -88,13 +132,34 @@ public class TaskService {
      * Gets a list of all tasks across all projects
      * @return a list of all tasks, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<TaskOutputDTO> getAllTasks(String userId) {
-        List<Task> allTasks = taskRepository.findByProject_UserId(userId);
-        List<TaskOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Task task : allTasks) {
-            allOutputDTOs.add(TaskMapper.toOutputDto(task));
+        return toOutputDtos(taskRepository.findViewsByUserId(userId));
+    }
+
+    /**
+     * Gets many tasks by id in one round trip
+     * @param taskIds the ids of the tasks, ids not owned by the user are left out of the result
+     * @return a list of the found tasks, converted to outputDTOs
+     */
+    @Transactional(readOnly = true)
+    public List<TaskOutputDTO> getTasksByIds(Collection<Long> taskIds, String userId) {
+        if (taskIds.isEmpty()) {
+            return List.of();
         }
-        return allOutputDTOs;
+        return toOutputDtos(taskRepository.findViewsByTaskIdsAndUserId(taskIds, userId));
+    }
+
+    /**
+     * Gets only the requested fields of tasks, selecting just those columns
+     * @param taskIds the ids of the tasks, null for all of the user's tasks
+     * @param fields the names of the fields to return, taskId is always included
+     * @return one map of field name to value per task found
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTaskFields(Collection<Long> taskIds, Collection<String> fields,
+                                                   String userId) {
+        return sparseFieldRepository.findTaskFields(userId, taskIds, fields);
     }
 
     /**
@@ -102,13 +167,9 @@ public class TaskService {
      * @param status the status query to search by
      * @return a list of all tasks by specific status, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<TaskOutputDTO> getAllTasksByStatus(Status status, String userId) {
-        List<Task> allTasks = taskRepository.findByStatusAndProject_UserId(status, userId);
-        List<TaskOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Task task : allTasks) {
-            allOutputDTOs.add(TaskMapper.toOutputDto(task));
-        }
-        return allOutputDTOs;
+        return toOutputDtos(taskRepository.findViewsByStatusAndUserId(status, userId));
     }
 
     /**
@@ -116,17 +177,12 @@ public class TaskService {
      * @param projectId the project to get all tasks from
      * @return a list of all tasks in a project, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<TaskOutputDTO> getTasksInProject(Long projectId, String userId) {
         // ensures project belongs to user and returns tasks for that project
-        projectRepository.findByProjectIdAndUserId(projectId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Project with id: " + projectId + " not found!"));
+        requireProjectOwnedBy(projectId, userId);
 
-        List<Task> allTasks = taskRepository.findByProject_ProjectIdAndProject_UserId(projectId, userId);
-        List<TaskOutputDTO> allOutputDTOs = new ArrayList<>();
-        for (Task task : allTasks) {
-            allOutputDTOs.add(TaskMapper.toOutputDto(task));
-        }
-        return allOutputDTOs;
+        return toOutputDtos(taskRepository.findViewsByProjectIdAndUserId(projectId, userId));
     }
 
     /**
@@ -134,20 +190,36 @@ public class TaskService {
      * @param projectId the project to get all incomplete tasks from
      * @return a list of all incomplete tasks in a project, converted to outputDTOs
      */
+    @Transactional(readOnly = true)
     public List<TaskOutputDTO> getIncompleteTasksInProject(Long projectId, String userId) {
-        projectRepository.findByProjectIdAndUserId(projectId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Project with id: " + projectId + " not found!"));
+        requireProjectOwnedBy(projectId, userId);
 
-        List<Task> allTasks = taskRepository.findByProject_ProjectIdAndProject_UserId(projectId, userId);
-        List<TaskOutputDTO> incompleteTasks = new ArrayList<>();
+        return toOutputDtos(taskRepository.findViewsByProjectIdAndUserIdAndStatusNot(projectId, userId,
+                Status.COMPLETED));
+    }
 
-        for (Task task : allTasks) {
-            if (task.getStatus() != Status.COMPLETED) {
-                incompleteTasks.add(TaskMapper.toOutputDto(task));
-            }
+    /**
+     * Checks that a project exists and belongs to the user without loading it
+     * @param projectId the id of the project
+     * @param userId the id of the user
+     */
+    private void requireProjectOwnedBy(Long projectId, String userId) {
+        if (!projectRepository.existsByProjectIdAndUserId(projectId, userId)) {
+            throw new IllegalArgumentException("Project with id: " + projectId + " not found!");
         }
+    }
 
-        return incompleteTasks;
+    /**
+     * Maps task projections to outputDTOs
+     * @param tasks the task projections to map
+     * @return the tasks, converted to outputDTOs
+     */
+    private List<TaskOutputDTO> toOutputDtos(List<TaskView> tasks) {
+        List<TaskOutputDTO> allOutputDTOs = new ArrayList<>(tasks.size());
+        for (TaskView task : tasks) {
+            allOutputDTOs.add(TaskMapper.toOutputDto(task));
+        }
+        return allOutputDTOs;
     }
 
     /**
@@ -155,13 +227,17 @@ public class TaskService {
      * @param projectId the id of the associated project
      * @param taskId the id of the task to update
      * @param dto an inputDTO object of all fields to replace
+     * @param expectedVersion the task version from If-Match, null for an unconditional update
      * @return an outputDTO of the updated and saved task
      */
-    public ProjectOutputDTO updateTask(Long projectId, Long taskId, TaskInputDTO dto, String userId) {
+    public ProjectOutputDTO updateTask(Long projectId, Long taskId, TaskInputDTO dto, String userId,
+                                       Long expectedVersion) {
+        projectRepository.incrementAggregateRevision(projectId, userId);
         Task existingTask = taskRepository
                 .findByTaskIdAndProject_ProjectIdAndProject_UserId(taskId, projectId, userId)
                 .orElseThrow(() -> new NoSuchElementException("Task with id " + taskId + " not " +
                         "found"));
+        ETags.checkPrecondition(expectedVersion, existingTask.getVersion(), "Task with id " + taskId);
 
         Project project = existingTask.getProject();
 
@@ -176,12 +252,12 @@ public class TaskService {
         existingTask.setProject(project);
 
         taskRepository.saveAndFlush(existingTask);
+        dependencyGraphs.taskChanged(projectId, taskId, existingTask.getEstimatedHours(), existingTask.getStatus());
+        markPriorityStale(project);
+        reminderScheduler.taskChanged(existingTask);
+        studyPlanner.tasksChanged(userId, List.of(taskId));
 
-        float newPriority = projectService.calculatePriority(project);
-        project.setPriority(newPriority);
-        Project savedProject = projectRepository.saveAndFlush(project);
-
-        return ProjectMapper.toOutputDto(savedProject);
+        return projectService.getProjectDetail(projectId, userId);
     }
 
     /**
@@ -233,41 +309,177 @@ public class TaskService {
      * @param projectId the id of the associated project
      * @param taskId the id of the task to update
      * @param newStatus the new status to change to
+     * @param expectedVersion the task version from If-Match, null for an unconditional update
      * @return an outputDTO of the updated and saved task
      */
-    public ProjectOutputDTO updateTaskStatus(Long projectId, Long taskId, String newStatus, String userId) {
+    public ProjectOutputDTO updateTaskStatus(Long projectId, Long taskId, String newStatus, String userId,
+                                             Long expectedVersion) {
+        projectRepository.incrementAggregateRevision(projectId, userId);
         Task task = taskRepository
             .findByTaskIdAndProject_ProjectIdAndProject_UserId(taskId, projectId, userId)
             .orElseThrow(() -> new NoSuchElementException("Task with id " + taskId + " not found!"));
+        ETags.checkPrecondition(expectedVersion, task.getVersion(), "Task with id " + taskId);
 
         task.setStatus(Status.valueOf(newStatus.toUpperCase()));
         taskRepository.saveAndFlush(task);
+        dependencyGraphs.taskChanged(projectId, taskId, task.getEstimatedHours(), task.getStatus());
+        markPriorityStale(task.getProject());
+        reminderScheduler.taskChanged(task);
+        studyPlanner.tasksChanged(userId, List.of(taskId));
 
-        Project project = task.getProject();
-        project.setPriority(projectService.calculatePriority(project));
-        Project savedProject = projectRepository.saveAndFlush(project);
+        return projectService.getProjectDetail(projectId, userId);
+    }
+
+    /**
+     * Updates the status of many tasks with one set-based update, then recalculates each affected project's
+     * priority once instead of once per task
+     * @param dto the inputDTO of task ids and the status to apply to all of them
+     * @return a compact result of the update counts and the affected projects' priorities
+     */
+    public TaskStatusBulkResultDTO updateTaskStatuses(TaskStatusBulkInputDTO dto, String userId) {
+        Status status = Status.valueOf(dto.getStatus().toUpperCase());
+        Set<Long> taskIds = new LinkedHashSet<>(dto.getTaskIds());
+
+        // All tasks must exist and belong to the user, otherwise nothing is updated
+        List<Long> ownedProjectIds = taskRepository.findProjectIdsByTaskIdsAndUserId(taskIds, userId);
+        if (ownedProjectIds.size() != taskIds.size()) {
+            throw new NoSuchElementException((taskIds.size() - ownedProjectIds.size()) + " of " + taskIds.size() +
+                    " tasks not found!");
+        }
 
-        return ProjectMapper.toOutputDto(savedProject);
+        // One project at a time in id order, so two bulk updates over overlapping projects cannot deadlock
+        for (Long projectId : new TreeSet<>(ownedProjectIds)) {
+            projectRepository.incrementAggregateRevision(projectId, userId);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime completedAt = status == Status.COMPLETED ? now : null;
+        int updatedTasks = taskRepository.updateStatusByTaskIds(taskIds, status, completedAt, now);
+        for (Long projectId : new LinkedHashSet<>(ownedProjectIds)) {
+            dependencyGraphs.projectChanged(projectId);
+        }
+        reminderScheduler.tasksChanged(taskIds);
+        studyPlanner.tasksChanged(userId, taskIds);
+
+        Map<Long, Float> priorities = projectService.refreshProjectPriorities(new LinkedHashSet<>(ownedProjectIds),
+                userId);
+        List<ProjectPriorityDTO> projects = new ArrayList<>(priorities.size());
+        priorities.forEach((projectId, priority) -> projects.add(new ProjectPriorityDTO(projectId, priority)));
+
+        return new TaskStatusBulkResultDTO(status.name(), taskIds.size(), updatedTasks, projects);
     }
 
     /**
      * Deletes a task in the database
      * @param projectId the id of the associated project
      * @param taskId the id of the task to delete
+     * @param expectedVersion the task version from If-Match, null for an unconditional delete
      */
-    public ProjectOutputDTO deleteTask(Long projectId, Long taskId, String userId) {
+    public ProjectOutputDTO deleteTask(Long projectId, Long taskId, String userId, Long expectedVersion) {
+        projectRepository.incrementAggregateRevision(projectId, userId);
         Task task = taskRepository
             .findByTaskIdAndProject_ProjectIdAndProject_UserId(taskId, projectId, userId)
             .orElseThrow(() -> new NoSuchElementException("Task with id " + taskId + " not found!"));
+        ETags.checkPrecondition(expectedVersion, task.getVersion(), "Task with id " + taskId);
 
         Project project = task.getProject();
 
         // Orphan removal handles the deletion of the task when removed from the project
         project.removeTask(task);
 
-        float newPriority = projectService.calculatePriority(project);
-        project.setPriority(newPriority);
-        Project savedProject = projectRepository.saveAndFlush(project);
-        return ProjectMapper.toOutputDto(savedProject);
+        projectRepository.saveAndFlush(project);
+        dependencyGraphs.taskDeleted(projectId, taskId);
+        markPriorityStale(project);
+        reminderScheduler.taskDeleted(taskId);
+        studyPlanner.tasksChanged(userId, List.of(taskId));
+        return projectService.getProjectDetail(projectId, userId);
+    }
+
+    /**
+     * Makes a task depend on another task of the same project, so it cannot start until that task is done
+     * @param projectId the id of the project of both tasks
+     * @param taskId the id of the dependent task
+     * @param dependsOnId the id of the task it depends on
+     * @return the project's critical path with the dependency
+     */
+    public CriticalPathDTO addDependency(Long projectId, Long taskId, Long dependsOnId, String userId) {
+        if (taskId.equals(dependsOnId)) {
+            throw new IllegalArgumentException("A task cannot depend on itself");
+        }
+
+        // Serializes with the project's other writes, so two concurrent dependencies cannot close a cycle
+        projectRepository.incrementAggregateRevision(projectId, userId);
+        Task task = findTask(projectId, taskId, userId);
+        Task dependsOn = findTask(projectId, dependsOnId, userId);
+
+        if (!dependencyRepository.existsByTask_TaskIdAndDependsOn_TaskId(taskId, dependsOnId)) {
+            if (dependencyRepository.dependsOnTransitively(dependsOnId, taskId)) {
+                throw new IllegalStateException("Task with id " + dependsOnId + " already depends on task with id " +
+                        taskId);
+            }
+            dependencyRepository.saveAndFlush(new TaskDependency(task, dependsOn));
+            dependencyGraphs.dependencyAdded(new DependencyView(projectId, taskId, task.getEstimatedHours(),
+                    task.getStatus(), dependsOnId, dependsOn.getEstimatedHours(), dependsOn.getStatus()));
+            markPriorityStale(task.getProject());
+        }
+        return schedule(projectId, userId);
+    }
+
+    /**
+     * Removes a dependency between two tasks of a project
+     * @param projectId the id of the project of both tasks
+     * @param taskId the id of the dependent task
+     * @param dependsOnId the id of the task it depends on
+     * @return the project's critical path without the dependency
+     */
+    public CriticalPathDTO removeDependency(Long projectId, Long taskId, Long dependsOnId, String userId) {
+        projectRepository.incrementAggregateRevision(projectId, userId);
+        Task task = findTask(projectId, taskId, userId);
+        findTask(projectId, dependsOnId, userId);
+
+        if (dependencyRepository.deleteByTaskIdAndDependsOnTaskId(taskId, dependsOnId) == 0) {
+            throw new NoSuchElementException("Task with id " + taskId + " does not depend on task with id " +
+                    dependsOnId);
+        }
+        dependencyGraphs.dependencyRemoved(projectId, taskId, dependsOnId);
+        markPriorityStale(task.getProject());
+        return schedule(projectId, userId);
+    }
+
+    /**
+     * Gets a project's critical path: the least hours its tasks need when each starts once its dependencies are
+     * done, with every task's earliest start and slack
+     * @param projectId the id of the project
+     * @return the project's critical path
+     */
+    @Transactional(readOnly = true)
+    public CriticalPathDTO getCriticalPath(Long projectId, String userId) {
+        requireProjectOwnedBy(projectId, userId);
+        return schedule(projectId, userId);
+    }
+
+    private CriticalPathDTO schedule(Long projectId, String userId) {
+        List<TaskView> tasks = new ArrayList<>(taskRepository.findViewsByProjectIdAndUserId(projectId, userId));
+        tasks.sort(Comparator.comparing(TaskView::taskId));
+        return dependencyGraphs.schedule(projectId, tasks);
+    }
+
+    private Task findTask(Long projectId, Long taskId, String userId) {
+        return taskRepository.findByTaskIdAndProject_ProjectIdAndProject_UserId(taskId, projectId, userId)
+                .orElseThrow(() -> new NoSuchElementException("Task with id " + taskId + " not found!"));
+    }
+
+    /**
+     * Queues a project's priority for write-behind recalculation after one of its tasks changed, or
+     * recalculates and saves it now when the queue is disabled or full
+     * @param project the project whose tasks changed, already flushed
+     */
+    private void markPriorityStale(Project project) {
+        if (priorityQueue.offer(project.getProjectId())) {
+            return;
+        }
+
+        project.setPriority(projectService.calculatePriority(project));
+        projectRepository.saveAndFlush(project);
     }
 }
@@ -0,0 +1,86 @@
+package com.erikmlarson5.deadlinemanager.utils;
+
+import com.erikmlarson5.deadlinemanager.exception.PreconditionFailedException;
+
+/**
+ * Helpers for version based entity tags, the ETag of a project or task is its optimistic lock version. A project
+ * read is tagged with its whole aggregate instead, see {@link #ofAggregate}
+ */
+public class ETags {
+    private static final char AGGREGATE_SEPARATOR = '-';
+
+    private ETags() {
+
+    }
+
+    /**
+     * Formats a version as a strong entity tag
+     * @param version the optimistic lock version of the resource
+     * @return the quoted entity tag
+     */
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Formats the entity tag of a project read with its tasks. Task writes and priority recalculations leave the
+     * project version alone, so the tag also covers the aggregate revision and the priority as served, which ages
+     * with the due date, and a matching If-None-Match cannot hide them. The version comes first, so the tag is
+     * still accepted by If-Match
+     * @param version the optimistic lock version of the project
+     * @param aggregateRevision the revision bumped by every write to the project's tasks
+     * @param priority the priority in the response
+     * @return the quoted entity tag
+     */
+    public static String ofAggregate(Long version, Long aggregateRevision, float priority) {
+        return "\"" + version + AGGREGATE_SEPARATOR + aggregateRevision + AGGREGATE_SEPARATOR +
+                Integer.toHexString(Float.floatToIntBits(priority)) + "\"";
+    }
+
+    /**
+     * Parses the version expected by an If-Match header
+     * @param ifMatch the raw header value, may be null
+     * @return the expected version, or null when the header is absent or matches any version
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+
+        // Weak tags never satisfy If-Match, which always uses strong comparison
+        if (tag.startsWith("W/")) {
+            throw new PreconditionFailedException("If-Match requires a strong entity tag");
+        }
+
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new IllegalArgumentException("If-Match must be a single quoted entity tag");
+        }
+
+        String value = tag.substring(1, tag.length() - 1);
+        int separator = value.indexOf(AGGREGATE_SEPARATOR);
+        try {
+            // Writes are checked against the version alone, the rest of an aggregate tag is ignored
+            return Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match entity tag " + tag + " is not a valid version");
+        }
+    }
+
+    /**
+     * Checks an expected version against the current version of a resource
+     * @param expectedVersion the version from If-Match, null when the write is unconditional
+     * @param currentVersion the current version of the resource
+     * @param resource a description of the resource for the error message
+     */
+    public static void checkPrecondition(Long expectedVersion, Long currentVersion, String resource) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new PreconditionFailedException(resource + " has been modified, current version is "
+                    + currentVersion);
+        }
+    }
+}
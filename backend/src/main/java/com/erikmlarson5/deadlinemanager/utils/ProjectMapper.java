@@ -2,7 +2,9 @@ package com.erikmlarson5.deadlinemanager.utils;
 
 import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
 import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectView;
 import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
 import com.erikmlarson5.deadlinemanager.entity.Project;
 import com.erikmlarson5.deadlinemanager.entity.Task;
 
@@ -15,7 +17,8 @@ import java.util.List;
 public class ProjectMapper {
 
     /**
-     * Maps an input DTO to a Postgres database entity
+     * Maps an input DTO to a Postgres database entity, the category is resolved against the user's dictionary
+     * by the service layer
      * @param dto the input DTO
      * @return the DTO in entity form
      */
@@ -23,7 +26,6 @@ public class ProjectMapper {
         Project project = new Project();
         project.setTitle(dto.getTitle());
         project.setDescription(dto.getDescription());
-        project.setCategory(dto.getCategory());
         project.setDueDate(dto.getDueDate());
         project.setEstimatedHours(dto.getEstimatedHours());
         project.setDifficulty(dto.getDifficulty());
@@ -41,7 +43,7 @@ public class ProjectMapper {
         dto.setProjectId(project.getProjectId());
         dto.setTitle(project.getTitle());
         dto.setDescription(project.getDescription());
-        dto.setCategory(project.getCategory());
+        dto.setCategory(project.getCategory() != null ? project.getCategory().getName() : null);
         dto.setDueDate(project.getDueDate());
         dto.setEstimatedHours(project.getEstimatedHours());
         dto.setDifficulty(project.getDifficulty());
@@ -50,6 +52,8 @@ public class ProjectMapper {
         dto.setCreatedAt(project.getCreatedAt());
         dto.setUpdatedAt(project.getUpdatedAt());
         dto.setCompletedAt(project.getCompletedAt());
+        dto.setVersion(project.getVersion());
+        dto.setAggregateRevision(project.getAggregateRevision());
 
         if (project.getTasks() != null) {
             List<TaskOutputDTO> taskDtos = new ArrayList<>();
@@ -61,4 +65,35 @@ public class ProjectMapper {
         }
         return dto;
     }
+
+    /**
+     * Maps a read-only project projection and its task projections to an output DTO
+     * @param project the project projection to be converted
+     * @param tasks the task projections belonging to the project
+     * @return the projection in outputDTO form
+     */
+    public static ProjectOutputDTO toOutputDto(ProjectView project, List<TaskView> tasks) {
+        ProjectOutputDTO dto = new ProjectOutputDTO();
+        dto.setProjectId(project.projectId());
+        dto.setTitle(project.title());
+        dto.setDescription(project.description());
+        dto.setCategory(project.category());
+        dto.setDueDate(project.dueDate());
+        dto.setEstimatedHours(project.estimatedHours());
+        dto.setDifficulty(project.difficulty());
+        dto.setStatus(project.status() != null ? project.status().name() : null);
+        dto.setPriority(project.priority());
+        dto.setCreatedAt(project.createdAt());
+        dto.setUpdatedAt(project.updatedAt());
+        dto.setCompletedAt(project.completedAt());
+        dto.setVersion(project.version());
+        dto.setAggregateRevision(project.aggregateRevision());
+
+        List<TaskOutputDTO> taskDtos = new ArrayList<>(tasks.size());
+        for (TaskView task : tasks) {
+            taskDtos.add(TaskMapper.toOutputDto(task));
+        }
+        dto.setTasks(taskDtos);
+        return dto;
+    }
 }
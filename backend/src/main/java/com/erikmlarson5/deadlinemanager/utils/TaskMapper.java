@@ -2,6 +2,7 @@ package com.erikmlarson5.deadlinemanager.utils;
 
 import com.erikmlarson5.deadlinemanager.dto.TaskInputDTO;
 import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskView;
 import com.erikmlarson5.deadlinemanager.entity.Project;
 import com.erikmlarson5.deadlinemanager.entity.Task;
 
@@ -45,6 +46,29 @@ public class TaskMapper {
         dto.setUpdatedAt(task.getUpdatedAt());
         dto.setCompletedAt(task.getCompletedAt());
         dto.setProjectId(task.getProject().getProjectId());
+        dto.setVersion(task.getVersion());
+        return dto;
+    }
+
+    /**
+     * Maps a read-only task projection to an output DTO
+     * @param task the task projection to be converted
+     * @return the projection in outputDTO form
+     */
+    public static TaskOutputDTO toOutputDto(TaskView task) {
+        TaskOutputDTO dto = new TaskOutputDTO();
+        dto.setTaskId(task.taskId());
+        dto.setTitle(task.title());
+        dto.setDescription(task.description());
+        dto.setDueDate(task.dueDate());
+        dto.setEstimatedHours(task.estimatedHours());
+        dto.setDifficulty(task.difficulty());
+        dto.setStatus(task.status().toString());
+        dto.setCreatedAt(task.createdAt());
+        dto.setUpdatedAt(task.updatedAt());
+        dto.setCompletedAt(task.completedAt());
+        dto.setProjectId(task.projectId());
+        dto.setVersion(task.version());
         return dto;
     }
 }
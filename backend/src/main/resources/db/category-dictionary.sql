@@ -0,0 +1,32 @@
+-- Moves free-text project categories into the per-user category dictionary. Run once after the first start of
+-- the version that maps Project.category to category_id, so Hibernate has already created the category table
+-- and the category_id columns: psql "$DATABASE_URL" -f category-dictionary.sql
+BEGIN;
+
+-- Replaces a generated search vector over the old category column with the trigger-maintained one before the
+-- column is dropped. Startup has normally done this already, then it only re-checks
+\ir search.sql
+
+INSERT INTO category (user_id, name, normalized_name)
+SELECT DISTINCT ON (user_id, lower(trim(category))) user_id, trim(category), lower(trim(category))
+FROM (
+    SELECT user_id, category FROM project
+    UNION ALL
+    SELECT user_id, category FROM project_archive
+) legacy
+WHERE category IS NOT NULL AND trim(category) <> ''
+ORDER BY user_id, lower(trim(category)), trim(category)
+ON CONFLICT (user_id, normalized_name) DO NOTHING;
+
+UPDATE project p SET category_id = c.category_id
+FROM category c
+WHERE p.category_id IS NULL AND c.user_id = p.user_id AND c.normalized_name = lower(trim(p.category));
+
+UPDATE project_archive a SET category_id = c.category_id
+FROM category c
+WHERE a.category_id IS NULL AND c.user_id = a.user_id AND c.normalized_name = lower(trim(a.category));
+
+ALTER TABLE project DROP COLUMN category;
+ALTER TABLE project_archive DROP COLUMN category;
+
+COMMIT;
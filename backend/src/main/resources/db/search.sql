@@ -0,0 +1,50 @@
+-- Full-text search columns for GET /api/v1/search, maintained by Postgres on every insert and update so no
+-- application write path has to keep them in sync. Every statement is idempotent and the whole script runs
+-- at startup through SearchSchemaInitializer.
+
+-- Project vectors include the category name from the dictionary table, which a generated column cannot
+-- reference, so a trigger maintains them. Category names never change once created.
+
+-- Databases from before the category dictionary have a generated project vector over the old category column.
+-- The trigger cannot assign a generated column and the column blocks dropping category, so it is replaced by a
+-- plain column, which the backfill below fills. Plain columns are kept, so later starts do not rebuild them
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'project'
+                 AND column_name = 'search_vector' AND is_generated = 'ALWAYS') THEN
+        ALTER TABLE project DROP COLUMN search_vector;
+    END IF;
+END
+$$;
+
+ALTER TABLE project ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE OR REPLACE FUNCTION project_search_vector_update() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('english', coalesce(NEW.title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(
+            (SELECT c.name FROM category c WHERE c.category_id = NEW.category_id), '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(NEW.description, '')), 'C');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS project_search_vector_trigger ON project;
+
+CREATE TRIGGER project_search_vector_trigger
+    BEFORE INSERT OR UPDATE OF title, description, category_id ON project
+    FOR EACH ROW EXECUTE FUNCTION project_search_vector_update();
+
+-- Backfills rows written before the trigger existed, a no-op once every row has a vector
+UPDATE project SET title = title WHERE search_vector IS NULL;
+
+ALTER TABLE task ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(description, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_project_search_vector ON project USING gin (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_task_search_vector ON task USING gin (search_vector);
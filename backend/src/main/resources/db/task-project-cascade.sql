@@ -0,0 +1,20 @@
+-- Recreates the task.project_id foreign key with ON DELETE CASCADE.
+-- spring.jpa.hibernate.ddl-auto=update never alters an existing constraint, so databases created before
+-- Task.project was mapped with @OnDelete need this run once: psql "$DATABASE_URL" -f task-project-cascade.sql
+DO $$
+DECLARE
+    fk_name text;
+BEGIN
+    FOR fk_name IN
+        SELECT con.conname
+        FROM pg_constraint con
+        JOIN pg_class rel ON rel.oid = con.conrelid
+        JOIN pg_attribute att ON att.attrelid = con.conrelid AND att.attnum = ANY (con.conkey)
+        WHERE rel.relname = 'task' AND con.contype = 'f' AND att.attname = 'project_id'
+    LOOP
+        EXECUTE format('ALTER TABLE task DROP CONSTRAINT %I', fk_name);
+    END LOOP;
+
+    ALTER TABLE task ADD CONSTRAINT fk_task_project
+        FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE;
+END $$;
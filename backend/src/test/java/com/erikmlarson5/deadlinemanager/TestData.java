@@ -0,0 +1,60 @@
+package com.erikmlarson5.deadlinemanager;
+
+import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskInputDTO;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Valid input DTOs for integration tests, each test builds on fresh users and titles so tests sharing a
+ * database do not see each other's rows
+ */
+public final class TestData {
+
+    private TestData() {
+
+    }
+
+    /**
+     * Creates a user id no other test uses
+     * @return the new user id
+     */
+    public static String newUserId() {
+        return "test|" + UUID.randomUUID();
+    }
+
+    /**
+     * Creates a project input due in two weeks
+     * @param title the project title, unique per user
+     * @return the project input
+     */
+    public static ProjectInputDTO project(String title) {
+        ProjectInputDTO dto = new ProjectInputDTO();
+        dto.setTitle(title);
+        dto.setDescription("Description of " + title);
+        dto.setCategory("Coursework");
+        dto.setDueDate(LocalDate.now().plusDays(14));
+        dto.setEstimatedHours(10f);
+        dto.setDifficulty(5);
+        dto.setStatus("NOT_STARTED");
+        return dto;
+    }
+
+    /**
+     * Creates a task input due in a week
+     * @param title the task title
+     * @param estimatedHours the task estimate
+     * @return the task input
+     */
+    public static TaskInputDTO task(String title, float estimatedHours) {
+        TaskInputDTO dto = new TaskInputDTO();
+        dto.setTitle(title);
+        dto.setDescription("Description of " + title);
+        dto.setDueDate(LocalDate.now().plusDays(7));
+        dto.setEstimatedHours(estimatedHours);
+        dto.setDifficulty(5);
+        dto.setStatus("NOT_STARTED");
+        return dto;
+    }
+}
@@ -0,0 +1,87 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The gradient limit fed with synthetic latencies, so growth and backoff do not depend on real request timing
+ */
+class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200,
+            new SimpleMeterRegistry());
+
+    @Test
+    void shrinksWhenLatencyRisesAboveTheBaseline() {
+        for (int i = 0; i < 50; i++) {
+            runRequests(1, FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+
+        for (int i = 0; i < 20; i++) {
+            runRequests(1, SLOW);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(20).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void backsOffOnServerErrorsDownToTheMinimum() {
+        assertThat(limiter.tryAcquire(1)).isTrue();
+        limiter.release(1, FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(18);
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(limiter.tryAcquire(1)).isTrue();
+            limiter.release(1, FAST, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        for (int i = 0; i < 200; i++) {
+            runRequests(1, FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void growsWhileTheLimitIsInUseAndLatencyHolds() {
+        for (int i = 0; i < 20; i++) {
+            runRequests(15, FAST);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(20).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    void rejectsPermitsOverTheLimitButAlwaysAdmitsOneRequest() {
+        AdaptiveConcurrencyLimiter small = new AdaptiveConcurrencyLimiter(4, 4, 4, new SimpleMeterRegistry());
+        assertThat(small.tryAcquire(2)).isTrue();
+        assertThat(small.tryAcquire(2)).isTrue();
+        assertThat(small.tryAcquire(1)).isFalse();
+
+        small.release(2, FAST, false);
+        small.release(2, FAST, false);
+        // Nothing in flight, so even a request costing more than the limit gets through
+        assertThat(small.tryAcquire(10)).isTrue();
+    }
+
+    // Takes permits for the given number of concurrent requests, then releases them all with the same latency
+    private void runRequests(int concurrent, long rttNanos) {
+        for (int i = 0; i < concurrent; i++) {
+            assertThat(limiter.tryAcquire(1)).isTrue();
+        }
+        for (int i = 0; i < concurrent; i++) {
+            limiter.release(1, rttNanos, false);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The filter in front of a stub chain, with a user allowed a burst of 4 tokens and writes costing 2
+ */
+class ConcurrencyLimitFilterTest {
+    private static final String USER_ID = "alice";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 10, meterRegistry);
+    private final UserRateLimiter userRateLimiter = new UserRateLimiter(1, 4, 100);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, userRateLimiter,
+            new ObjectMapper().findAndRegisterModules(), 2, 3, meterRegistry);
+    private final AtomicInteger chainCalls = new AtomicInteger();
+
+    @BeforeEach
+    void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(USER_ID, null, "ROLE_USER"));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void answersTooManyRequestsOnceTheUserSpentTheirTokens() throws Exception {
+        assertThat(perform("POST", HttpServletResponse.SC_OK).getStatus()).isEqualTo(200);
+        assertThat(perform("POST", HttpServletResponse.SC_OK).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = perform("GET", HttpServletResponse.SC_OK);
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        // One token refills per second
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(chainCalls).hasValue(2);
+        assertThat(rejectedFor("user-rate")).isEqualTo(1);
+    }
+
+    @Test
+    void answersServiceUnavailableAtCapacityAndRefundsTheTokens() throws Exception {
+        assertThat(limiter.tryAcquire(4)).isTrue();
+
+        MockHttpServletResponse rejected = perform("POST", HttpServletResponse.SC_OK);
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(rejected.getContentAsString()).contains("Server is at capacity");
+        assertThat(chainCalls).hasValue(0);
+        assertThat(rejectedFor("capacity")).isEqualTo(1);
+
+        // The rejected write paid 2 tokens and got them back, so two more writes still fit in the burst
+        limiter.release(4, 1_000_000, false);
+        assertThat(perform("POST", HttpServletResponse.SC_OK).getStatus()).isEqualTo(200);
+        assertThat(perform("POST", HttpServletResponse.SC_OK).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void serverErrorsBackTheLimitOff() throws Exception {
+        perform("GET", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+
+        assertThat(limiter.getLimit()).isLessThan(4);
+        assertThat(meterRegistry.get("api.concurrency.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void leavesRequestsOutsideTheApiAlone() throws Exception {
+        assertThat(limiter.tryAcquire(4)).isTrue();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> chainCalls.incrementAndGet());
+
+        assertThat(chainCalls).hasValue(1);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse perform(String method, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/projects");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            chainCalls.incrementAndGet();
+            ((HttpServletResponse) res).setStatus(status);
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private double rejectedFor(String reason) {
+        return meterRegistry.get("api.concurrency.rejected").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,92 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The filter around a stub chain, with flights of the authenticated user held open on a latch
+ */
+class SingleFlightInvalidationFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(true, 100, Duration.ofSeconds(5), meterRegistry);
+    private final SingleFlightInvalidationFilter filter = new SingleFlightInvalidationFilter(singleFlight);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("alice", null, "ROLE_USER"));
+    }
+
+    @AfterEach
+    void shutdown() {
+        SecurityContextHolder.clearContext();
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void writeDetachesFlightsStartedBeforeAndDuringIt() throws Exception {
+        startBlocked("projects");
+        double[] inFlightInChain = new double[1];
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/projects"), new MockHttpServletResponse(),
+                (req, res) -> {
+                    inFlightInChain[0] = inFlight();
+                    // A read that started while the write was running, before it committed
+                    startBlocked("tasks");
+                });
+
+        assertThat(inFlightInChain[0]).isZero();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void readsAndNonApiRequestsLeaveFlightsAlone() throws Exception {
+        startBlocked("projects");
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/projects"), new MockHttpServletResponse(),
+                (req, res) -> { });
+        filter.doFilter(new MockHttpServletRequest("POST", "/logout"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        assertThat(inFlight()).isEqualTo(1);
+    }
+
+    private void startBlocked(String operation) {
+        double before = inFlight();
+        Future<String> leader = executor.submit(() -> singleFlight.execute("alice", operation, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return operation;
+        }));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight() == before && !leader.isDone() && System.nanoTime() - deadline < 0) {
+            Thread.onSpinWait();
+        }
+        assertThat(inFlight()).isEqualTo(before + 1);
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("singleflight.inflight").gauge().value();
+    }
+}
@@ -0,0 +1,194 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Single-flight groups whose leaders block on a latch, so followers can be lined up behind a running flight
+ */
+class SingleFlightTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneResult() throws Exception {
+        SingleFlight singleFlight = singleFlight(100, Duration.ofSeconds(5));
+        Future<String> leader = startBlocked(singleFlight, "alice", "projects", "result");
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute("alice", "projects", () -> work("other"))));
+        }
+        await(() -> calls("shared"), 3);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get());
+        }
+        // Only the leader ran, none of the followers' own work
+        assertThat(runs).hasValue(0);
+        assertThat(calls("leader")).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void failurePropagatesToFollowers() throws Exception {
+        SingleFlight singleFlight = singleFlight(100, Duration.ofSeconds(5));
+        NoSuchElementException failure = new NoSuchElementException("Project not found");
+        Future<String> leader = executor.submit(() -> singleFlight.execute("alice", "projects", () -> {
+            awaitRelease();
+            throw failure;
+        }));
+        await(this::inFlight, 1);
+        Future<String> follower = executor.submit(() -> singleFlight.execute("alice", "projects", () -> work("own")));
+        await(() -> calls("shared"), 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .cause().isSameAs(failure);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .cause().isSameAs(failure);
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void invalidateDetachesOnlyThatUsersFlights() throws Exception {
+        SingleFlight singleFlight = singleFlight(100, Duration.ofSeconds(5));
+        Future<String> aliceLeader = startBlocked(singleFlight, "alice", "projects", "before write");
+        Future<String> bobLeader = startBlocked(singleFlight, "bob", "projects", "bob's");
+        await(this::inFlight, 2);
+
+        singleFlight.invalidate("alice");
+
+        assertThat(inFlight()).isEqualTo(1);
+        assertThat(singleFlight.execute("alice", "projects", () -> work("after write"))).isEqualTo("after write");
+        release.countDown();
+        assertThat(aliceLeader.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+        assertThat(bobLeader.get(5, TimeUnit.SECONDS)).isEqualTo("bob's");
+        assertThat(calls("shared")).isZero();
+    }
+
+    @Test
+    void bypassesCoalescingAtMaxKeys() throws Exception {
+        SingleFlight singleFlight = singleFlight(1, Duration.ofSeconds(5));
+        Future<String> leader = startBlocked(singleFlight, "alice", "projects", "projects");
+
+        assertThat(singleFlight.execute("alice", "tasks", () -> work("tasks"))).isEqualTo("tasks");
+
+        assertThat(calls("bypassed")).isEqualTo(1);
+        assertThat(inFlight()).isEqualTo(1);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("projects");
+    }
+
+    @Test
+    void takesOverAFlightOlderThanTheTimeout() throws Exception {
+        SingleFlight singleFlight = singleFlight(100, Duration.ofMillis(100));
+        Future<String> stuck = startBlocked(singleFlight, "alice", "projects", "stuck");
+        Thread.sleep(150);
+
+        assertThat(singleFlight.execute("alice", "projects", () -> work("fresh"))).isEqualTo("fresh");
+
+        assertThat(calls("leader")).isEqualTo(2);
+        assertThat(calls("shared")).isZero();
+        release.countDown();
+        assertThat(stuck.get(5, TimeUnit.SECONDS)).isEqualTo("stuck");
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void followerRunsItsOwnWorkAfterWaitingTheTimeout() throws Exception {
+        SingleFlight singleFlight = singleFlight(100, Duration.ofMillis(200));
+        Future<String> slow = startBlocked(singleFlight, "alice", "projects", "slow");
+
+        long started = System.nanoTime();
+        assertThat(singleFlight.execute("alice", "projects", () -> work("own"))).isEqualTo("own");
+
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(150));
+        assertThat(calls("timeout")).isEqualTo(1);
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    @Test
+    void runsEveryCallWhenDisabled() {
+        SingleFlight singleFlight = new SingleFlight(false, 100, Duration.ofSeconds(5), meterRegistry);
+
+        singleFlight.execute("alice", "projects", () -> work("first"));
+        singleFlight.execute("alice", "projects", () -> work("second"));
+
+        assertThat(runs).hasValue(2);
+        assertThat(calls("leader")).isZero();
+    }
+
+    private SingleFlight singleFlight(int maxKeys, Duration timeout) {
+        return new SingleFlight(true, maxKeys, timeout, meterRegistry);
+    }
+
+    // Starts a leader which holds its flight open until the test releases it
+    private Future<String> startBlocked(SingleFlight singleFlight, String userId, String operation, String result)
+            throws InterruptedException {
+        double before = calls("leader");
+        Future<String> leader = executor.submit(() -> singleFlight.execute(userId, operation, () -> {
+            awaitRelease();
+            return result;
+        }));
+        await(() -> calls("leader"), before + 1);
+        return leader;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String work(String result) {
+        runs.incrementAndGet();
+        return result;
+    }
+
+    private double calls(String result) {
+        return meterRegistry.get("singleflight.calls").tag("result", result).counter().count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("singleflight.inflight").gauge().value();
+    }
+
+    private static void await(DoubleSupplier value, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (value.getAsDouble() != expected && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        assertThat(value.getAsDouble()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,48 @@
+package com.erikmlarson5.deadlinemanager.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-user token buckets refilling at 20 tokens a second up to a burst of 4
+ */
+class UserRateLimiterTest {
+    private final UserRateLimiter limiter = new UserRateLimiter(20, 4, 100);
+
+    @Test
+    void spendsTheBurstThenReportsTheWait() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryConsume("alice", 1)).isZero();
+        }
+
+        // One token refills every 50ms
+        assertThat(limiter.tryConsume("alice", 1)).isPositive()
+                .isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(limiter.tryConsume("bob", 4)).isZero();
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        assertThat(limiter.tryConsume("alice", 4)).isZero();
+        assertThat(limiter.tryConsume("alice", 2)).isPositive();
+
+        Thread.sleep(120);
+
+        assertThat(limiter.tryConsume("alice", 2)).isZero();
+    }
+
+    @Test
+    void refundReturnsTokensUpToTheBurst() {
+        assertThat(limiter.tryConsume("alice", 4)).isZero();
+
+        limiter.refund("alice", 2);
+        assertThat(limiter.tryConsume("alice", 2)).isZero();
+
+        limiter.refund("alice", 100);
+        assertThat(limiter.tryConsume("alice", 4)).isZero();
+        assertThat(limiter.tryConsume("alice", 4)).isPositive();
+    }
+}
@@ -0,0 +1,181 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the production decoder chain against a local JWKS stub standing in for the Auth0 issuer
+ */
+class JwtDecoderTest {
+    private static final String ISSUER = "https://issuer.test/";
+    private static final String AUDIENCE = "deadline-manager";
+
+    private final AtomicInteger jwksFetches = new AtomicInteger();
+    private HttpServer issuer;
+    private URL jwksUrl;
+    private RSAKey signingKey;
+    private volatile JWKSet servedKeys;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startIssuer() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        servedKeys = new JWKSet(signingKey.toPublicJWK());
+        issuer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        issuer.createContext("/.well-known/jwks.json", exchange -> {
+            jwksFetches.incrementAndGet();
+            byte[] body = servedKeys.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        issuer.start();
+        jwksUrl = URI.create("http://127.0.0.1:" + issuer.getAddress().getPort() + "/.well-known/jwks.json")
+                .toURL();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopIssuer() {
+        issuer.stop(0);
+    }
+
+    @Test
+    void fetchesKeysOnFirstDecodeNotAtConstruction() throws Exception {
+        JwtDecoder decoder = decoder(null);
+        assertThat(jwksFetches).hasValue(0);
+
+        Jwt jwt = decoder.decode(token(signingKey, "user-1", AUDIENCE));
+
+        assertThat(jwt.getSubject()).isEqualTo("user-1");
+        assertThat(jwksFetches).hasValue(1);
+    }
+
+    @Test
+    void servesRepeatedTokensFromTheCacheWithoutVerifyingAgain() throws Exception {
+        JwtDecoder decoder = decoder(null);
+        String token = token(signingKey, "user-1", AUDIENCE);
+
+        decoder.decode(token);
+        decoder.decode(token);
+        decoder.decode(token);
+        decoder.decode(token(signingKey, "user-2", AUDIENCE));
+
+        assertThat(decodes("verified")).isEqualTo(2);
+        assertThat(decodes("cache_hit")).isEqualTo(2);
+        // Keys are fetched once and reused for every token signed with a known key id
+        assertThat(jwksFetches).hasValue(1);
+    }
+
+    @Test
+    void refetchesKeysWhenATokenReferencesAKeyIdMissingFromTheCacheFile(@TempDir Path directory) throws Exception {
+        Path cacheFile = directory.resolve("jwks.json");
+        Files.writeString(cacheFile, new JWKSet(signingKey.toPublicJWK()).toString());
+        RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        servedKeys = new JWKSet(List.of(signingKey.toPublicJWK(), rotatedKey.toPublicJWK()));
+        JwtDecoder decoder = decoder(cacheFile);
+
+        decoder.decode(token(signingKey, "user-1", AUDIENCE));
+        assertThat(jwksFetches).hasValue(0);
+
+        Jwt jwt = decoder.decode(token(rotatedKey, "user-2", AUDIENCE));
+
+        assertThat(jwt.getSubject()).isEqualTo("user-2");
+        assertThat(jwksFetches).hasValue(1);
+        assertThat(Files.readString(cacheFile)).contains("key-2");
+    }
+
+    @Test
+    void doesNotRefetchForAnUnknownKeyIdRightAfterAFetch() throws Exception {
+        JwtDecoder decoder = decoder(null);
+        decoder.decode(token(signingKey, "user-1", AUDIENCE));
+
+        RSAKey bogusKey = new RSAKeyGenerator(2048).keyID("bogus").generate();
+        String token = token(bogusKey, "user-1", AUDIENCE);
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+        assertThat(jwksFetches).hasValue(1);
+    }
+
+    @Test
+    void rejectsWrongAudienceAndDoesNotCacheIt() throws Exception {
+        JwtDecoder decoder = decoder(null);
+        String token = token(signingKey, "user-1", "someone-else");
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+
+        assertThat(decodes("rejected")).isEqualTo(2);
+        assertThat(decodes("cache_hit")).isZero();
+    }
+
+    @Test
+    void restartsFromTheCacheFileWithoutReachingTheIssuer(@TempDir Path directory) throws Exception {
+        Path cacheFile = directory.resolve("jwks.json");
+        decoder(cacheFile).decode(token(signingKey, "user-1", AUDIENCE));
+        assertThat(cacheFile).exists();
+        assertThat(Files.readString(cacheFile)).doesNotContain("\"d\"");
+
+        issuer.stop(0);
+        Jwt jwt = decoder(cacheFile).decode(token(signingKey, "user-2", AUDIENCE));
+
+        assertThat(jwt.getSubject()).isEqualTo("user-2");
+        assertThat(jwksFetches).hasValue(1);
+    }
+
+    private JwtDecoder decoder(Path cacheFile) {
+        return SecurityConfig.buildJwtDecoder(jwksUrl, cacheFile, ISSUER, AUDIENCE, 100, meterRegistry);
+    }
+
+    private long decodes(String result) {
+        return meterRegistry.get("auth.jwt.decode").tag("result", result).timer().count();
+    }
+
+    private static String token(RSAKey key, String subject, String audience) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .audience(audience)
+                .subject(subject)
+                .issueTime(Date.from(Instant.now()))
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,196 @@
+package com.erikmlarson5.deadlinemanager.config;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.entity.Project;
+import com.erikmlarson5.deadlinemanager.metrics.QueryCount;
+import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.erikmlarson5.deadlinemanager.service.TaskService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The second-level and query caches against a real database: a repeated read is answered without SQL, and a
+ * task write evicts the cached state it makes stale, so the next read sees the write
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class SecondLevelCacheTest {
+    private static final String TASKS_ROLE = Project.class.getName() + ".tasks";
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Cache cache;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        cache = sessionFactory.getCache();
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void repeatedProjectReadIssuesNoStatements() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Thesis", 3);
+        projectService.getProjectById(project.getProjectId(), userId);
+        long queryCacheHits = statistics.getQueryCacheHitCount();
+
+        ProjectOutputDTO cached = QueryCount.assertStatementsAtMost(0,
+                () -> projectService.getProjectById(project.getProjectId(), userId));
+
+        assertThat(cached.getTasks()).hasSize(3);
+        // The project view and the task views
+        assertThat(statistics.getQueryCacheHitCount() - queryCacheHits).isEqualTo(2);
+    }
+
+    @Test
+    void taskWriteEvictsTheCachedFinderResults() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Lab report", 3);
+        TaskOutputDTO task = project.getTasks().get(0);
+        projectService.getProjectById(project.getProjectId(), userId);
+
+        taskService.updateTask(project.getProjectId(), task.getTaskId(), TestData.task("Renamed", 4f), userId, null);
+
+        long queryCacheMisses = statistics.getQueryCacheMissCount();
+        long rereadStatements = QueryCount.measure(
+                () -> projectService.getProjectById(project.getProjectId(), userId)).getStatements();
+        assertThat(rereadStatements).isPositive();
+        assertThat(statistics.getQueryCacheMissCount()).isGreaterThan(queryCacheMisses);
+
+        // The reread cached the fresh results again
+        ProjectOutputDTO cached = QueryCount.assertStatementsAtMost(0,
+                () -> projectService.getProjectById(project.getProjectId(), userId));
+        assertThat(cached.getTasks()).extracting(TaskOutputDTO::getTitle).contains("Renamed");
+    }
+
+    @Test
+    void addingATaskEvictsTheProjectTasksCollection() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Portfolio", 2);
+        Long projectId = project.getProjectId();
+        assertThat(loadTaskCount(projectId, userId)).isEqualTo(2);
+        assertThat(cache.containsCollection(TASKS_ROLE, projectId)).isTrue();
+
+        taskService.createTask(projectId, TestData.task("Added", 1f), userId);
+
+        assertRereadMissesThenHits(projectId, userId, 3);
+    }
+
+    @Test
+    void deletingATaskEvictsTheProjectTasksCollection() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Essay", 3);
+        Long projectId = project.getProjectId();
+        assertThat(loadTaskCount(projectId, userId)).isEqualTo(3);
+        assertThat(cache.containsCollection(TASKS_ROLE, projectId)).isTrue();
+
+        taskService.deleteTask(projectId, project.getTasks().get(0).getTaskId(), userId, null);
+
+        assertRereadMissesThenHits(projectId, userId, 2);
+    }
+
+    @Test
+    void newCategoryKeepsCachedProjects() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Cached"), userId);
+        assertThat(loadTaskCount(project.getProjectId(), userId)).isZero();
+        assertThat(cache.containsEntity(Project.class, project.getProjectId())).isTrue();
+
+        ProjectInputDTO newCategory = TestData.project("Elective");
+        newCategory.setCategory("Elective " + UUID.randomUUID());
+        projectService.createProject(newCategory, userId);
+
+        assertThat(cache.containsEntity(Project.class, project.getProjectId())).isTrue();
+    }
+
+    @Test
+    void priorityWriteKeepsOtherProjectsCached() {
+        String cachedUser = TestData.newUserId();
+        ProjectOutputDTO cached = projectService.createProject(TestData.project("Cached"), cachedUser);
+        assertThat(loadTaskCount(cached.getProjectId(), cachedUser)).isZero();
+        assertThat(cache.containsEntity(Project.class, cached.getProjectId())).isTrue();
+
+        // A stored priority that aged, so the next read of the other user's project writes the current one
+        String readingUser = TestData.newUserId();
+        ProjectOutputDTO aged = projectService.createProject(TestData.project("Aged"), readingUser);
+        jdbcTemplate.update("update project set priority = -1 where project_id = ?", aged.getProjectId());
+
+        ProjectOutputDTO read = projectService.getProjectById(aged.getProjectId(), readingUser);
+
+        assertThat(jdbcTemplate.queryForObject("select priority from project where project_id = ?", Float.class,
+                aged.getProjectId())).isEqualTo(read.getPriority()).isNotEqualTo(-1f);
+        assertThat(cache.containsEntity(Project.class, cached.getProjectId())).isTrue();
+    }
+
+    // The write replaced the cached task ids with a soft lock, so the first reread loads them from the database
+    // and caches them again, and the second is served from the cache
+    private void assertRereadMissesThenHits(Long projectId, String userId, int expectedTasks) {
+        CollectionStatistics tasks = statistics.getCollectionStatistics(TASKS_ROLE);
+        long misses = tasks.getCacheMissCount();
+        assertThat(loadTaskCount(projectId, userId)).isEqualTo(expectedTasks);
+        assertThat(tasks.getCacheMissCount()).isEqualTo(misses + 1);
+
+        long hits = tasks.getCacheHitCount();
+        assertThat(QueryCount.assertStatementsAtMost(0, () -> loadTaskCount(projectId, userId)))
+                .isEqualTo(expectedTasks);
+        assertThat(tasks.getCacheHitCount()).isEqualTo(hits + 1);
+    }
+
+    // Loads the project entity and initializes its tasks collection, which caches both
+    private int loadTaskCount(Long projectId, String userId) {
+        return readOnly.execute(status -> projectRepository.findByProjectIdAndUserId(projectId, userId)
+                .orElseThrow()
+                .getTasks()
+                .size());
+    }
+
+    private ProjectOutputDTO projectWithTasks(String userId, String title, int taskCount) {
+        ProjectOutputDTO project = projectService.createProject(TestData.project(title), userId);
+        for (int i = 0; i < taskCount; i++) {
+            project = taskService.createTask(project.getProjectId(), TestData.task(title + " task " + i, 2f),
+                    userId);
+        }
+        return project;
+    }
+}
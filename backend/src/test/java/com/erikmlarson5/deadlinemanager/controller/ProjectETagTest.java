@@ -0,0 +1,89 @@
+package com.erikmlarson5.deadlinemanager.controller;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.erikmlarson5.deadlinemanager.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional reads of a project, whose tag has to change with its tasks even though the project version does not
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+class ProjectETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Test
+    void answersNotModifiedUntilATaskIsAdded() throws Exception {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Thesis"), userId);
+        String eTag = getETag(project.getProjectId(), userId);
+
+        mockMvc.perform(get("/api/v1/projects/{id}", project.getProjectId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .with(jwt().jwt(token -> token.subject(userId))))
+                .andExpect(status().isNotModified());
+
+        ProjectOutputDTO withTask = taskService.createTask(project.getProjectId(), TestData.task("Outline", 2f),
+                userId);
+        assertThat(withTask.getVersion()).isEqualTo(project.getVersion());
+
+        mockMvc.perform(get("/api/v1/projects/{id}", project.getProjectId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .with(jwt().jwt(token -> token.subject(userId))))
+                .andExpect(status().isOk());
+        assertThat(getETag(project.getProjectId(), userId)).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void acceptsTheReadTagInIfMatch() throws Exception {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Lab report"), userId);
+        String eTag = getETag(project.getProjectId(), userId);
+
+        mockMvc.perform(patch("/api/v1/projects/{id}/status", project.getProjectId())
+                        .param("newStatus", "IN_PROGRESS")
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .with(jwt().jwt(token -> token.subject(userId))))
+                .andExpect(status().isOk());
+
+        // The version moved on, so the same tag is now a stale precondition
+        mockMvc.perform(patch("/api/v1/projects/{id}/status", project.getProjectId())
+                        .param("newStatus", "NOT_STARTED")
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .with(jwt().jwt(token -> token.subject(userId))))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    private String getETag(Long projectId, String userId) throws Exception {
+        return mockMvc.perform(get("/api/v1/projects/{id}", projectId)
+                        .with(jwt().jwt(token -> token.subject(userId))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,155 @@
+package com.erikmlarson5.deadlinemanager.dependency;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.CriticalPathDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.erikmlarson5.deadlinemanager.service.TaskService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Task dependencies against a real database: the cycle check made under the project's row lock, and the held
+ * graph edited by each write against one rebuilt from the stored dependencies
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+class DependencyGraphsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private DependencyGraphs dependencyGraphs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rejectsADependencyClosingACycleWithConflict() throws Exception {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Thesis", 3);
+        List<Long> taskIds = taskIds(project);
+        Long first = taskIds.get(0);
+        Long second = taskIds.get(1);
+        Long third = taskIds.get(2);
+
+        mockMvc.perform(addDependency(userId, project, second, first)).andExpect(status().isOk());
+        mockMvc.perform(addDependency(userId, project, third, second)).andExpect(status().isOk());
+        CriticalPathDTO before = taskService.getCriticalPath(project.getProjectId(), userId);
+
+        mockMvc.perform(addDependency(userId, project, first, second)).andExpect(status().isConflict());
+        mockMvc.perform(addDependency(userId, project, first, third)).andExpect(status().isConflict());
+        mockMvc.perform(addDependency(userId, project, first, first)).andExpect(status().isBadRequest());
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from task_dependency where task_id = ?",
+                Long.class, first)).isZero();
+        assertThat(taskService.getCriticalPath(project.getProjectId(), userId))
+                .usingRecursiveComparison()
+                .isEqualTo(before);
+    }
+
+    @Test
+    void heldGraphMatchesARebuildAfterWrites() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Lab report", 5);
+        Long projectId = project.getProjectId();
+        List<Long> taskIds = taskIds(project);
+        taskService.getCriticalPath(projectId, userId);
+        double fullLoads = graphChanges("full");
+
+        // A diamond with a tail: 0 before 1 and 2, both before 3, and 3 before 4
+        taskService.addDependency(projectId, taskIds.get(1), taskIds.get(0), userId);
+        taskService.addDependency(projectId, taskIds.get(2), taskIds.get(0), userId);
+        taskService.addDependency(projectId, taskIds.get(3), taskIds.get(1), userId);
+        taskService.addDependency(projectId, taskIds.get(3), taskIds.get(2), userId);
+        taskService.addDependency(projectId, taskIds.get(4), taskIds.get(3), userId);
+        taskService.updateTask(projectId, taskIds.get(2), TestData.task("Longer", 7f), userId, null);
+        taskService.updateTaskStatus(projectId, taskIds.get(0), "COMPLETED", userId, null);
+        taskService.removeDependency(projectId, taskIds.get(3), taskIds.get(1), userId);
+        taskService.deleteTask(projectId, taskIds.get(4), userId, null);
+        CriticalPathDTO incremental = taskService.getCriticalPath(projectId, userId);
+        assertThat(graphChanges("full")).isEqualTo(fullLoads);
+
+        dependencyGraphs.projectChanged(projectId);
+        CriticalPathDTO rebuilt = taskService.getCriticalPath(projectId, userId);
+
+        assertThat(graphChanges("full")).isEqualTo(fullLoads + 1);
+        assertThat(incremental).usingRecursiveComparison().isEqualTo(rebuilt);
+        // 7h for the longer task after the completed first one, then 2h for the fourth
+        assertThat(rebuilt.getCriticalPathHours()).isEqualTo(9.0);
+    }
+
+    @Test
+    void bulkDeleteDropsTheDeletedProjectsGraphs() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Finished", 2);
+        List<Long> taskIds = taskIds(project);
+        taskService.addDependency(project.getProjectId(), taskIds.get(1), taskIds.get(0), userId);
+        projectService.updateProjectStatus(project.getProjectId(), "COMPLETED", userId, null);
+        taskService.getCriticalPath(project.getProjectId(), userId);
+        jdbcTemplate.update("update project set completed_at = now() - interval '60 days' where project_id = ?",
+                project.getProjectId());
+        double heldGraphs = meterRegistry.get("dependencies.projects").gauge().value();
+
+        projectService.deleteCompletedProjectsOlderThan(30, userId);
+
+        assertThat(meterRegistry.get("dependencies.projects").gauge().value()).isEqualTo(heldGraphs - 1);
+    }
+
+    private MockHttpServletRequestBuilder addDependency(String userId, ProjectOutputDTO project, Long taskId,
+                                                        Long dependsOnId) {
+        return put("/api/v1/projects/{projectId}/tasks/{taskId}/dependencies/{dependsOnId}",
+                project.getProjectId(), taskId, dependsOnId)
+                .with(jwt().jwt(token -> token.subject(userId)));
+    }
+
+    private double graphChanges(String result) {
+        return meterRegistry.get("dependencies.graph.changes").tag("result", result).counter().count();
+    }
+
+    private ProjectOutputDTO projectWithTasks(String userId, String title, int taskCount) {
+        ProjectOutputDTO project = projectService.createProject(TestData.project(title), userId);
+        for (int i = 0; i < taskCount; i++) {
+            project = taskService.createTask(project.getProjectId(), TestData.task(title + " task " + i, 2f),
+                    userId);
+        }
+        return project;
+    }
+
+    private static List<Long> taskIds(ProjectOutputDTO project) {
+        List<Long> taskIds = new ArrayList<>();
+        for (TaskOutputDTO task : project.getTasks()) {
+            taskIds.add(task.getTaskId());
+        }
+        taskIds.sort(null);
+        return taskIds;
+    }
+}
@@ -0,0 +1,155 @@
+package com.erikmlarson5.deadlinemanager.dependency;
+
+import com.erikmlarson5.deadlinemanager.dto.DependencyView;
+import com.erikmlarson5.deadlinemanager.utils.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The incrementally edited graph against one rebuilt from the same dependencies after every edit, over random
+ * sequences of added and removed dependencies, changed estimates and statuses, and deleted tasks
+ */
+class TaskGraphTest {
+    private static final int TASKS = 12;
+    private static final Status[] STATUSES = {Status.NOT_STARTED, Status.IN_PROGRESS, Status.COMPLETED};
+
+    private record Edge(long taskId, long dependsOnId) {
+    }
+
+    private record Attributes(Float estimatedHours, Status status) {
+    }
+
+    @Test
+    void incrementalEditsMatchARebuild() {
+        for (long seed = 0; seed < 200; seed++) {
+            runRandomEdits(new Random(seed), 150);
+        }
+    }
+
+    @Test
+    void rejectsADependencyClosingACycle() {
+        TaskGraph graph = new TaskGraph();
+        assertThat(graph.addDependency(2L, 1f, Status.NOT_STARTED, 1L, 2f, Status.NOT_STARTED)).isTrue();
+        assertThat(graph.addDependency(3L, 1f, Status.NOT_STARTED, 2L, 1f, Status.NOT_STARTED)).isTrue();
+
+        assertThat(graph.addDependency(1L, 2f, Status.NOT_STARTED, 3L, 1f, Status.NOT_STARTED)).isFalse();
+        assertThat(graph.addDependency(1L, 2f, Status.NOT_STARTED, 1L, 2f, Status.NOT_STARTED)).isFalse();
+
+        // Task 1 (2h), then task 2 (1h), then task 3 (1h)
+        assertThat(graph.criticalPathMinutes()).isEqualTo(240);
+        assertThat(graph.prerequisites(1L)).isEmpty();
+    }
+
+    @Test
+    void rebuildRejectsStoredCycles() {
+        List<DependencyView> cycle = List.of(
+                new DependencyView(1L, 1L, 1f, Status.NOT_STARTED, 2L, 1f, Status.NOT_STARTED),
+                new DependencyView(1L, 2L, 1f, Status.NOT_STARTED, 1L, 1f, Status.NOT_STARTED));
+
+        assertThatThrownBy(() -> TaskGraph.of(cycle)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void runRandomEdits(Random random, int edits) {
+        TaskGraph graph = new TaskGraph();
+        Map<Long, Attributes> tasks = new HashMap<>();
+        for (long taskId = 1; taskId <= TASKS; taskId++) {
+            tasks.put(taskId, randomAttributes(random));
+        }
+        Set<Edge> edges = new LinkedHashSet<>();
+
+        for (int i = 0; i < edits; i++) {
+            List<Long> taskIds = new ArrayList<>(tasks.keySet());
+            if (taskIds.size() < 2) {
+                return;
+            }
+            long taskId = taskIds.get(random.nextInt(taskIds.size()));
+            long otherId = taskIds.get(random.nextInt(taskIds.size()));
+            int edit = random.nextInt(20);
+            if (edit < 10) {
+                Attributes task = tasks.get(taskId);
+                Attributes other = tasks.get(otherId);
+                boolean closesCycle = taskId == otherId || reaches(edges, otherId, taskId);
+                assertThat(graph.addDependency(taskId, task.estimatedHours(), task.status(), otherId,
+                        other.estimatedHours(), other.status())).isEqualTo(!closesCycle);
+                if (!closesCycle) {
+                    edges.add(new Edge(taskId, otherId));
+                }
+            } else if (edit < 14 && !edges.isEmpty()) {
+                Edge edge = new ArrayList<>(edges).get(random.nextInt(edges.size()));
+                graph.removeDependency(edge.taskId(), edge.dependsOnId());
+                edges.remove(edge);
+            } else if (edit < 19) {
+                Attributes attributes = randomAttributes(random);
+                graph.updateTask(taskId, attributes.estimatedHours(), attributes.status());
+                tasks.put(taskId, attributes);
+            } else {
+                graph.removeTask(taskId);
+                tasks.remove(taskId);
+                edges.removeIf(edge -> edge.taskId() == taskId || edge.dependsOnId() == taskId);
+            }
+            assertMatchesRebuild(graph, tasks, edges);
+        }
+    }
+
+    private static void assertMatchesRebuild(TaskGraph graph, Map<Long, Attributes> tasks, Set<Edge> edges) {
+        List<DependencyView> views = new ArrayList<>(edges.size());
+        for (Edge edge : edges) {
+            Attributes task = tasks.get(edge.taskId());
+            Attributes dependsOn = tasks.get(edge.dependsOnId());
+            views.add(new DependencyView(1L, edge.taskId(), task.estimatedHours(), task.status(),
+                    edge.dependsOnId(), dependsOn.estimatedHours(), dependsOn.status()));
+        }
+        TaskGraph rebuilt = TaskGraph.of(views);
+
+        assertThat(graph.size()).isEqualTo(rebuilt.size());
+        assertThat(graph.criticalPathMinutes()).isEqualTo(rebuilt.criticalPathMinutes());
+        for (long taskId = 1; taskId <= TASKS; taskId++) {
+            assertThat(graph.contains(taskId)).isEqualTo(rebuilt.contains(taskId));
+            if (rebuilt.contains(taskId)) {
+                assertThat(graph.earliestStartMinutes(taskId)).isEqualTo(rebuilt.earliestStartMinutes(taskId));
+                assertThat(graph.longestPathMinutes(taskId)).isEqualTo(rebuilt.longestPathMinutes(taskId));
+                assertThat(graph.isBlocked(taskId)).isEqualTo(rebuilt.isBlocked(taskId));
+                assertThat(graph.prerequisites(taskId)).isEqualTo(rebuilt.prerequisites(taskId));
+            }
+        }
+    }
+
+    // Whether the task transitively depends on the target
+    private static boolean reaches(Set<Edge> edges, long from, long target) {
+        Deque<Long> stack = new ArrayDeque<>();
+        Set<Long> seen = new HashSet<>();
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            long taskId = stack.pop();
+            if (taskId == target) {
+                return true;
+            }
+            if (seen.add(taskId)) {
+                for (Edge edge : edges) {
+                    if (edge.taskId() == taskId) {
+                        stack.push(edge.dependsOnId());
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Attributes randomAttributes(Random random) {
+        Float estimatedHours = random.nextInt(10) == 0 ? null : random.nextInt(17) / 2f;
+        return new Attributes(estimatedHours, STATUSES[random.nextInt(STATUSES.length)]);
+    }
+}
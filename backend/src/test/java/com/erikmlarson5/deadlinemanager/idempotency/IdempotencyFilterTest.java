@@ -0,0 +1,168 @@
+package com.erikmlarson5.deadlinemanager.idempotency;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.entity.Project;
+import com.erikmlarson5.deadlinemanager.repository.IdempotencyRecordRepository;
+import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Retries of a project create sent with an Idempotency-Key, against the persistent store so claims are real rows
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+class IdempotencyFilterTest {
+    private static final String PROJECTS = "/api/v1/projects";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void retryReplaysTheStoredResponseWithoutCreatingAgain() throws Exception {
+        String userId = TestData.newUserId();
+        String key = UUID.randomUUID().toString();
+        byte[] body = objectMapper.writeValueAsBytes(TestData.project("Thesis"));
+
+        MvcResult first = mockMvc.perform(create(userId, key, body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED))
+                .andReturn();
+        MvcResult retry = mockMvc.perform(create(userId, key, body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true"))
+                .andReturn();
+
+        assertThat(retry.getResponse().getContentAsString()).isEqualTo(first.getResponse().getContentAsString());
+        assertThat(retry.getResponse().getHeader(HttpHeaders.ETAG))
+                .isEqualTo(first.getResponse().getHeader(HttpHeaders.ETAG));
+        assertThat(projectCount(userId)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAReusedKeyForADifferentRequest() throws Exception {
+        String userId = TestData.newUserId();
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(create(userId, key, objectMapper.writeValueAsBytes(TestData.project("Thesis"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(create(userId, key, objectMapper.writeValueAsBytes(TestData.project("Lab report"))))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(projectCount(userId)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsTheSameWriteAskingForAnotherEncoding() throws Exception {
+        String userId = TestData.newUserId();
+        String key = UUID.randomUUID().toString();
+        byte[] body = objectMapper.writeValueAsBytes(TestData.project("Thesis"));
+        mockMvc.perform(create(userId, key, body))
+                .andExpect(status().isCreated());
+
+        // A replay would hand the JSON body to a client that asked for CBOR
+        mockMvc.perform(create(userId, key, body).accept("application/cbor"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void rejectsARetryWhileTheFirstRequestIsStillRunning() throws Exception {
+        String userId = TestData.newUserId();
+        String key = UUID.randomUUID().toString();
+        byte[] body = objectMapper.writeValueAsBytes(TestData.project("Thesis"));
+        MockHttpServletRequest running = create(userId, key, body).buildRequest(new MockHttpServletRequest()
+                .getServletContext());
+        assertThat(store.claim(userId, key, IdempotencyFilter.fingerprint(running, body)).outcome())
+                .isEqualTo(IdempotencyStore.Outcome.ACQUIRED);
+
+        mockMvc.perform(create(userId, key, body))
+                .andExpect(status().isConflict())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        assertThat(projectCount(userId)).isZero();
+    }
+
+    @Test
+    void claimingAKeyKeepsCachedEntities() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Cached"), userId);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> projectRepository.findByProjectIdAndUserId(
+                project.getProjectId(), userId).orElseThrow());
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertThat(cache.containsEntity(Project.class, project.getProjectId())).isTrue();
+
+        assertThat(repository.insertIfAbsent(userId, UUID.randomUUID().toString(), "fingerprint",
+                OffsetDateTime.now(ZoneOffset.UTC))).isEqualTo(1);
+
+        assertThat(cache.containsEntity(Project.class, project.getProjectId())).isTrue();
+    }
+
+    private static MockHttpServletRequestBuilder create(String userId, String key, byte[] body) {
+        return post(PROJECTS)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(body)
+                .with(jwt().jwt(token -> token.subject(userId)));
+    }
+
+    private long projectCount(String userId) {
+        return jdbcTemplate.queryForObject("select count(*) from project where user_id = ?", Long.class, userId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Measures the database work done by a block of code, for tests that guard against query-count
+ * regressions. Usage: {@code QueryCount.assertStatementsAtMost(3, () -> taskService.updateTask(...))}
+ */
+public final class QueryCount {
+
+    private QueryCount() {
+
+    }
+
+    /**
+     * Runs the work and collects the statements, JDBC time, entity loads and flushes it caused.
+     * Counts are also added to any enclosing request or measurement.
+     * @param work the code to measure
+     * @return the statistics collected while the work ran
+     */
+    public static RequestStatistics measure(Runnable work) {
+        RequestStatistics outer = RequestStatistics.current();
+        RequestStatistics measured = RequestStatistics.begin();
+        try {
+            work.run();
+        } finally {
+            RequestStatistics.bind(outer);
+            if (outer != null) {
+                outer.add(measured);
+            }
+        }
+        return measured;
+    }
+
+    /**
+     * Runs the work and fails when it issues more statements than allowed
+     * @param maxStatements the statement budget of the work
+     * @param work the code to measure
+     * @return the result of the work
+     * @throws AssertionError when the budget is exceeded
+     */
+    public static <T> T assertStatementsAtMost(long maxStatements, Supplier<T> work) {
+        Object[] result = new Object[1];
+        RequestStatistics statistics = measure(() -> result[0] = work.get());
+        if (statistics.getStatements() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " statements but " +
+                    statistics.getStatements() + " were executed: " + statistics);
+        }
+        @SuppressWarnings("unchecked")
+        T typed = (T) result[0];
+        return typed;
+    }
+
+    /**
+     * Runs the work and fails unless it issues exactly the expected number of statements
+     * @param expectedStatements the exact number of statements the work should issue
+     * @param work the code to measure
+     * @throws AssertionError when the count differs
+     */
+    public static void assertStatements(long expectedStatements, Runnable work) {
+        RequestStatistics statistics = measure(work);
+        if (statistics.getStatements() != expectedStatements) {
+            throw new AssertionError("Expected " + expectedStatements + " statements but " +
+                    statistics.getStatements() + " were executed: " + statistics);
+        }
+    }
+}
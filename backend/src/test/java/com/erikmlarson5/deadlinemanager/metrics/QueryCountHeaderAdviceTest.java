@@ -0,0 +1,36 @@
+package com.erikmlarson5.deadlinemanager.metrics;
+
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The dev profile turns on the query-count response headers which stay off by default
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+@Import(TestcontainersConfiguration.class)
+class QueryCountHeaderAdviceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void addsStatementCountAndJdbcTimeHeadersInTheDevProfile() throws Exception {
+        mockMvc.perform(get("/api/v1/projects").with(jwt().jwt(token -> token.subject("test|headers"))))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(QueryCountHeaderAdvice.QUERY_COUNT_HEADER))
+                .andExpect(header().exists(QueryCountHeaderAdvice.QUERY_TIME_HEADER));
+    }
+}
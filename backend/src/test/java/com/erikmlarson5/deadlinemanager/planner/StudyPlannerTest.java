@@ -0,0 +1,105 @@
+package com.erikmlarson5.deadlinemanager.planner;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.StudyPlanDTO;
+import com.erikmlarson5.deadlinemanager.service.ArchiveService;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.erikmlarson5.deadlinemanager.service.TaskService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes updating a held plan after their transaction commits, without reloading the user's other tasks
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class StudyPlannerTest {
+
+    @Autowired
+    private StudyPlanner studyPlanner;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void taskWritesUpdateTheHeldPlanAfterCommit() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Thesis"), userId);
+        project = taskService.createTask(project.getProjectId(), TestData.task("Outline", 3f), userId);
+        assertThat(studyPlanner.plan(userId, 4, 7).getTotalTasks()).isEqualTo(1);
+        double fullReplans = replans("full");
+
+        project = taskService.createTask(project.getProjectId(), TestData.task("Draft", 5f), userId);
+        Long outlineId = project.getTasks().stream()
+                .filter(task -> "Outline".equals(task.getTitle()))
+                .findFirst()
+                .orElseThrow()
+                .getTaskId();
+        taskService.updateTaskStatus(project.getProjectId(), outlineId, "COMPLETED", userId, null);
+
+        StudyPlanDTO plan = studyPlanner.plan(userId, 4, 7);
+        assertThat(plan.getTotalTasks()).isEqualTo(1);
+        assertThat(plan.getTotalHours()).isEqualTo(5);
+        assertThat(replans("full")).isEqualTo(fullReplans);
+    }
+
+    @Test
+    void archiveAndBulkDeleteDropTasksFromTheHeldPlan() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO kept = projectService.createProject(TestData.project("Kept"), userId);
+        taskService.createTask(kept.getProjectId(), TestData.task("Kept task", 2f), userId);
+        Long archivedId = projectWithTask(userId, "Archived");
+        Long deletedId = projectWithTask(userId, "Deleted");
+        assertThat(studyPlanner.plan(userId, 4, 7).getTotalTasks()).isEqualTo(3);
+
+        // Completed long ago on another node, so this node's plan still holds their tasks
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        complete(archivedId, now.minusDays(400));
+        complete(deletedId, now.minusDays(200));
+        assertThat(studyPlanner.plan(userId, 4, 7).getTotalTasks()).isEqualTo(3);
+
+        archiveService.archiveCompletedBefore(now.minusDays(300), 1000);
+        assertThat(studyPlanner.plan(userId, 4, 7).getTotalTasks()).isEqualTo(2);
+
+        projectService.deleteCompletedProjectsOlderThan(100, userId);
+        assertThat(studyPlanner.plan(userId, 4, 7).getTotalTasks()).isEqualTo(1);
+    }
+
+    private void complete(Long projectId, OffsetDateTime completedAt) {
+        jdbcTemplate.update("update project set status = 'COMPLETED', completed_at = ? where project_id = ?",
+                completedAt, projectId);
+    }
+
+    private Long projectWithTask(String userId, String title) {
+        ProjectOutputDTO project = projectService.createProject(TestData.project(title), userId);
+        taskService.createTask(project.getProjectId(), TestData.task(title + " task", 2f), userId);
+        return project.getProjectId();
+    }
+
+    private double replans(String result) {
+        return meterRegistry.get("plan.replans").tag("result", result).counter().count();
+    }
+}
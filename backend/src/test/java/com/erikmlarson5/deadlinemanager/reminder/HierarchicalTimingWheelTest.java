@@ -0,0 +1,119 @@
+package com.erikmlarson5.deadlinemanager.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The timing wheel against a reference that keeps every timer in a map and scans it on each advance. A small
+ * wheel (4 slots, 3 levels) makes random deadlines cross level boundaries and cascade often
+ */
+class HierarchicalTimingWheelTest {
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 4;
+    private static final int LEVELS = 3;
+    private static final long SPAN_MILLIS = TICK * 64;
+
+    private record Fired(int key, long deadlineTick) {
+    }
+
+    @Test
+    void firesTheSameTimersAsAReferenceOverRandomOperations() {
+        for (long seed = 0; seed < 50; seed++) {
+            runRandomOperations(new Random(seed), 2_000);
+        }
+    }
+
+    @Test
+    void firesEveryTimerOfAnAdvanceInDeadlineOrder() {
+        HierarchicalTimingWheel<Integer, Integer> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, LEVELS,
+                100, 0);
+        int[] deadlines = {630, 10, 170, 40, 41, 320, 0};
+        for (int key = 0; key < deadlines.length; key++) {
+            assertThat(wheel.schedule(key, deadlines[key], deadlines[key])).isTrue();
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(SPAN_MILLIS, fired::add);
+
+        // 41ms rounds up to the 50ms tick, so it still fires after 40
+        assertThat(fired).containsExactly(0, 10, 40, 41, 170, 320, 630);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rejectsTimersBeyondTheHorizonOrCapacity() {
+        HierarchicalTimingWheel<Integer, Integer> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, LEVELS,
+                2, 0);
+        assertThat(wheel.horizonMillis()).isEqualTo(SPAN_MILLIS - TICK);
+
+        assertThat(wheel.schedule(1, SPAN_MILLIS, 1)).isFalse();
+        assertThat(wheel.schedule(1, 100, 1)).isTrue();
+        assertThat(wheel.schedule(2, 200, 2)).isTrue();
+        assertThat(wheel.schedule(3, 300, 3)).isFalse();
+        // Replacing an existing key does not need room
+        assertThat(wheel.schedule(2, 250, 2)).isTrue();
+        // Moving an existing key beyond the horizon cancels it
+        assertThat(wheel.schedule(1, SPAN_MILLIS, 1)).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    private static void runRandomOperations(Random random, int operations) {
+        long now = random.nextInt(1_000);
+        HierarchicalTimingWheel<Integer, Fired> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, LEVELS,
+                Integer.MAX_VALUE, now);
+        // The reference holds the deadline tick of every pending timer
+        Map<Integer, Long> reference = new HashMap<>();
+        long currentTick = now / TICK;
+
+        for (int i = 0; i < operations; i++) {
+            int operation = random.nextInt(10);
+            int key = random.nextInt(40);
+            if (operation < 5) {
+                // Some deadlines are already past and some are beyond the horizon
+                long deadline = now - 50 + random.nextInt((int) SPAN_MILLIS + 100);
+                long deadlineTick = Math.max(currentTick, Math.ceilDiv(deadline, TICK));
+                boolean fits = deadline <= (currentTick + 63) * TICK;
+                assertThat(wheel.schedule(key, deadline, new Fired(key, deadlineTick))).isEqualTo(fits);
+                if (fits) {
+                    reference.put(key, deadlineTick);
+                } else {
+                    reference.remove(key);
+                }
+            } else if (operation < 7) {
+                assertThat(wheel.cancel(key)).isEqualTo(reference.remove(key) != null);
+            } else {
+                now += random.nextInt(operation == 9 ? 400 : 40);
+                long targetTick = now / TICK;
+                List<Fired> fired = new ArrayList<>();
+                wheel.advance(now, fired::add);
+
+                Map<Integer, Long> expected = new HashMap<>();
+                reference.forEach((k, deadlineTick) -> {
+                    if (deadlineTick <= targetTick) {
+                        expected.put(k, deadlineTick);
+                    }
+                });
+                reference.keySet().removeAll(expected.keySet());
+                assertThat(fired).hasSize(expected.size());
+                assertThat(new HashSet<>(fired)).isEqualTo(firedSet(expected));
+                assertThat(fired).isSortedAccordingTo((a, b) -> Long.compare(a.deadlineTick(), b.deadlineTick()));
+                currentTick = Math.max(currentTick, targetTick);
+            }
+            assertThat(wheel.size()).isEqualTo(reference.size());
+        }
+    }
+
+    private static HashSet<Fired> firedSet(Map<Integer, Long> timers) {
+        HashSet<Fired> fired = new HashSet<>();
+        timers.forEach((key, deadlineTick) -> fired.add(new Fired(key, deadlineTick)));
+        return fired;
+    }
+}
@@ -0,0 +1,188 @@
+package com.erikmlarson5.deadlinemanager.reminder;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.DueDateView;
+import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.erikmlarson5.deadlinemanager.service.TaskService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * A scheduler of its own, fed from the real database and delivering to a file, whose reminders are due a few
+ * seconds after the test starts. The application's scheduler is disabled in tests, so writes made through the
+ * services reach this one only through its refill, as writes made on another node would
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class ReminderSchedulerTest {
+    private static final Duration LEAD_TIME = Duration.ofSeconds(1);
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    private Path directory;
+
+    private Path reminderFile;
+    private LocalDateTime dueAt;
+
+    @BeforeEach
+    void setUp() {
+        reminderFile = directory.resolve("reminders.log");
+        dueAt = LocalDateTime.now(ZONE).plusSeconds(4).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Test
+    void sendsOnlyRemindersStillCurrentWhenTheyFire() throws Exception {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(project("Thesis"), userId);
+        Long keptId = createTask(project.getProjectId(), "Kept", userId);
+        Long completedId = createTask(project.getProjectId(), "Completed", userId);
+        Long movedId = createTask(project.getProjectId(), "Moved", userId);
+        ReminderScheduler scheduler = scheduler(1, 0);
+        scheduler.refill();
+
+        taskService.updateTaskStatus(project.getProjectId(), completedId, "COMPLETED", userId, null);
+        TaskInputDTO moved = task("Moved");
+        moved.setDueDate(dueAt.toLocalDate().plusDays(1));
+        taskService.updateTask(project.getProjectId(), movedId, moved, userId, null);
+
+        List<Reminder> sent = runUntilDue(scheduler, userId);
+
+        assertThat(sent).extracting(Reminder::type, Reminder::id)
+                .containsExactlyInAnyOrder(tuple(DueDateView.PROJECT, project.getProjectId()),
+                        tuple(DueDateView.TASK, keptId));
+        assertThat(sent).allSatisfy(reminder -> {
+            assertThat(reminder.leadTime()).isEqualTo(LEAD_TIME);
+            assertThat(reminder.dueDate()).isEqualTo(dueAt.toLocalDate());
+            assertThat(reminder.projectId()).isEqualTo(project.getProjectId());
+        });
+    }
+
+    @Test
+    void refillPicksUpDueDatesWrittenAfterTheFirstLoad() throws Exception {
+        ReminderScheduler scheduler = scheduler(1, 0);
+        scheduler.refill();
+
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(project("Lab report"), userId);
+        Long taskId = createTask(project.getProjectId(), "Outline", userId);
+        scheduler.refill();
+
+        assertThat(runUntilDue(scheduler, userId)).extracting(Reminder::id)
+                .containsExactlyInAnyOrder(project.getProjectId(), taskId);
+    }
+
+    @Test
+    void remindsOnlyTheUsersOfItsShard() throws Exception {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(project("Essay"), userId);
+        int userShard = Math.floorMod(userId.hashCode(), 2);
+        ReminderScheduler owner = scheduler(2, userShard);
+        ReminderScheduler other = scheduler(2, 1 - userShard);
+        owner.refill();
+        other.refill();
+
+        List<Reminder> sent = runUntilDue(List.of(owner, other), userId);
+
+        assertThat(sent).extracting(Reminder::id).containsExactly(project.getProjectId());
+    }
+
+    private ReminderScheduler scheduler(int shardCount, int shardIndex) {
+        return new ReminderScheduler(projectRepository, taskRepository,
+                new FileReminderSender(reminderFile, objectMapper), transactionManager, new SimpleMeterRegistry(), true,
+                new Duration[] {LEAD_TIME}, dueAt.toLocalTime().toString(), ZONE.getId(), Duration.ofDays(7),
+                Duration.ofMillis(100), 100_000, shardCount, shardIndex);
+    }
+
+    private List<Reminder> runUntilDue(ReminderScheduler scheduler, String userId)
+            throws IOException, InterruptedException {
+        return runUntilDue(List.of(scheduler), userId);
+    }
+
+    // Ticks until a second after the reminders were due, then reads back the ones sent to this test's user
+    private List<Reminder> runUntilDue(List<ReminderScheduler> schedulers, String userId)
+            throws IOException, InterruptedException {
+        LocalDateTime end = dueAt.minus(LEAD_TIME).plusSeconds(1);
+        while (LocalDateTime.now(ZONE).isBefore(end)) {
+            schedulers.forEach(ReminderScheduler::tick);
+            Thread.sleep(100);
+        }
+        schedulers.forEach(ReminderScheduler::tick);
+
+        List<Reminder> sent = new ArrayList<>();
+        if (Files.exists(reminderFile)) {
+            for (String line : Files.readAllLines(reminderFile)) {
+                Reminder reminder = objectMapper.readValue(line, Reminder.class);
+                if (userId.equals(reminder.userId())) {
+                    sent.add(reminder);
+                }
+            }
+        }
+        return sent;
+    }
+
+    private Long createTask(Long projectId, String title, String userId) {
+        return taskService.createTask(projectId, task(title), userId).getTasks().stream()
+                .filter(task -> title.equals(task.getTitle()))
+                .map(TaskOutputDTO::getTaskId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ProjectInputDTO project(String title) {
+        ProjectInputDTO dto = TestData.project(title);
+        dto.setDueDate(dueAt.toLocalDate());
+        return dto;
+    }
+
+    private TaskInputDTO task(String title) {
+        TaskInputDTO dto = TestData.task(title, 2f);
+        dto.setDueDate(dueAt.toLocalDate());
+        return dto;
+    }
+}
@@ -0,0 +1,94 @@
+package com.erikmlarson5.deadlinemanager.search;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectInputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.SearchResultDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskInputDTO;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import com.erikmlarson5.deadlinemanager.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Full-text search through the tsvector columns and triggers that db/search.sql installs at startup
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class PostgresSearchBackendTest {
+
+    @Autowired
+    private SearchBackend searchBackend;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatchesAndScopesToTheUser() {
+        String userId = TestData.newUserId();
+        ProjectInputDTO titled = TestData.project("Chemistry final");
+        titled.setDescription("Revise every chapter");
+        ProjectOutputDTO titleMatch = projectService.createProject(titled, userId);
+        ProjectInputDTO described = TestData.project("Lab week");
+        described.setDescription("Write up the chemistry lab");
+        ProjectOutputDTO descriptionMatch = projectService.createProject(described, userId);
+        projectService.createProject(TestData.project("Chemistry elsewhere"), TestData.newUserId());
+
+        List<SearchResultDTO> results = searchBackend.search(userId, "chemistry", 0, 10);
+
+        assertThat(results).extracting(SearchResultDTO::getId)
+                .containsExactly(titleMatch.getProjectId(), descriptionMatch.getProjectId());
+        assertThat(results.get(0).getTitle()).isEqualTo("<mark>Chemistry</mark> final");
+    }
+
+    @Test
+    void findsTasksThroughTheirGeneratedVector() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Thesis"), userId);
+        TaskInputDTO task = TestData.task("Draft bibliography", 3f);
+        taskService.createTask(project.getProjectId(), task, userId);
+
+        List<SearchResultDTO> results = searchBackend.search(userId, "bibliography", 0, 10);
+
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.getType()).isEqualTo("TASK");
+            assertThat(result.getProjectId()).isEqualTo(project.getProjectId());
+        });
+    }
+
+    @Test
+    void escapesUserTextAroundTheHighlights() {
+        String userId = TestData.newUserId();
+        ProjectInputDTO input = TestData.project("Physics <img src=x onerror=alert(1)> & \"optics\"");
+        input.setDescription("Physics notes <script>alert(document.cookie)</script> for the <3 exam");
+        projectService.createProject(input, userId);
+
+        SearchResultDTO result = searchBackend.search(userId, "physics", 0, 10).get(0);
+
+        assertThat(result.getTitle()).startsWith("<mark>Physics</mark>");
+        assertThat(withoutMarks(result.getTitle())).doesNotContain("<", ">", "\"");
+        assertThat(result.getSnippet()).contains("<mark>Physics</mark>");
+        assertThat(withoutMarks(result.getSnippet())).doesNotContain("<", ">");
+    }
+
+    @Test
+    void highlightEscapesTextAndConvertsOnlyMatchMarkers() {
+        assertThat(PostgresSearchBackend.highlight("\u0002Tom\u0003 & <b>Jerry</b> \"<mark>\""))
+                .isEqualTo("<mark>Tom</mark> &amp; &lt;b&gt;Jerry&lt;/b&gt; &quot;&lt;mark&gt;&quot;");
+        assertThat(PostgresSearchBackend.highlight(null)).isEmpty();
+    }
+
+    private static String withoutMarks(String html) {
+        return html.replace("<mark>", "").replace("</mark>", "");
+    }
+}
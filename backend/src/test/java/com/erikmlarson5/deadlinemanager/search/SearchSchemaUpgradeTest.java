@@ -0,0 +1,77 @@
+package com.erikmlarson5.deadlinemanager.search;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.service.ProjectService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Upgrades a database whose project vector is still the generated column over the free-text category, as
+ * the first full-text search release created it, and checks the category column can then be dropped
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class SearchSchemaUpgradeTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private SearchBackend searchBackend;
+
+    @Test
+    void replacesTheGeneratedProjectVectorAndReleasesTheCategoryColumn() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Astronomy"), userId);
+
+        jdbcTemplate.execute("drop trigger project_search_vector_trigger on project");
+        jdbcTemplate.execute("alter table project drop column search_vector");
+        jdbcTemplate.execute("alter table project add column category varchar(20)");
+        jdbcTemplate.update("update project set category = 'Science' where project_id = ?", project.getProjectId());
+        jdbcTemplate.execute("""
+                alter table project add column search_vector tsvector generated always as (
+                    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('english', coalesce(category, '')), 'B') ||
+                    setweight(to_tsvector('english', coalesce(description, '')), 'C')
+                ) stored""");
+
+        applySearchSchema();
+
+        assertThat(jdbcTemplate.queryForObject("select is_generated from information_schema.columns " +
+                "where table_schema = current_schema() and table_name = 'project' and column_name = 'search_vector'",
+                String.class)).isEqualTo("NEVER");
+        assertThat(searchBackend.search(userId, "astronomy", 0, 10)).singleElement()
+                .satisfies(result -> assertThat(result.getId()).isEqualTo(project.getProjectId()));
+        assertThatCode(() -> jdbcTemplate.execute("alter table project drop column category"))
+                .doesNotThrowAnyException();
+
+        // A second start keeps the plain column and its vectors
+        applySearchSchema();
+        assertThat(searchBackend.search(userId, "astronomy", 0, 10)).hasSize(1);
+    }
+
+    private void applySearchSchema() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("db/search.sql"));
+        populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+        populator.execute(dataSource);
+    }
+}
@@ -0,0 +1,157 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectView;
+import com.erikmlarson5.deadlinemanager.entity.Project;
+import com.erikmlarson5.deadlinemanager.repository.ProjectRepository;
+import com.erikmlarson5.deadlinemanager.repository.TaskRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The project row lock taken by every task write, against a real database where concurrent writers really block.
+ * Write-behind is on as in production, so priorities are persisted by the queue's workers after each write
+ */
+@SpringBootTest(properties = {"priority.write-behind.enabled=true", "priority.write-behind.debounce=50ms",
+        "priority.write-behind.flush-interval=50ms"})
+@Import(TestcontainersConfiguration.class)
+class AggregateRevisionTest {
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentTaskWritesToOneProjectSerialize() throws Exception {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Thesis"), userId);
+        Long projectId = project.getProjectId();
+        int writers = 8;
+        int tasksPerWriter = 5;
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Callable<Void>> runs = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                int id = writer;
+                runs.add(() -> {
+                    start.await();
+                    for (int i = 0; i < tasksPerWriter; i++) {
+                        taskService.createTask(projectId, TestData.task("Writer " + id + " task " + i, 1f), userId);
+                    }
+                    return null;
+                });
+            }
+            List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> run : runs) {
+                results.add(pool.submit(run));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                // Rethrows a deadlock or lost update from any of the writers
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // Each write read the revision under the lock, two writers bumping from the same value would lose one
+        int writes = writers * tasksPerWriter;
+        assertThat(jdbcTemplate.queryForObject("select aggregate_revision from project where project_id = ?",
+                Long.class, projectId)).isEqualTo(writes);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from task where project_id = ?",
+                Long.class, projectId)).isEqualTo(writes);
+
+        // The write-behind batch after the last writer recalculated from every task, so the stored priority
+        // ends up the current one
+        awaitStoredPriorityCurrent(projectId, userId);
+    }
+
+    @Test
+    void taskWriteKeepsOtherProjectsCached() throws Exception {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO cached = projectService.createProject(TestData.project("Cached"), userId);
+        ProjectOutputDTO written = projectService.createProject(TestData.project("Written"), userId);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> projectRepository.findByProjectIdAndUserId(
+                cached.getProjectId(), userId).orElseThrow());
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertThat(cache.containsEntity(Project.class, cached.getProjectId())).isTrue();
+
+        long persistedBatches = writeBehindStaleness().count();
+
+        taskService.createTask(written.getProjectId(), TestData.task("Outline", 2f), userId);
+        awaitStoredPriorityCurrent(written.getProjectId(), userId);
+        assertThat(writeBehindStaleness().count()).isGreaterThan(persistedBatches);
+
+        assertThat(cache.containsEntity(Project.class, cached.getProjectId())).isTrue();
+        assertThat(cache.containsEntity(Project.class, written.getProjectId())).isTrue();
+    }
+
+    private Timer writeBehindStaleness() {
+        return meterRegistry.get("projects.priority.write-behind.staleness").timer();
+    }
+
+    // Polls until the write-behind workers persisted the priority a fresh calculation gives, without the write a
+    // project read would make itself
+    private void awaitStoredPriorityCurrent(Long projectId, String userId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            ProjectView project = projectRepository.findViewByProjectIdAndUserId(projectId, userId).orElseThrow();
+            float current = projectService.calculatePriority(project, taskRepository.findDetailViewsByProjectId(
+                    projectId));
+            Float stored = jdbcTemplate.queryForObject("select priority from project where project_id = ?",
+                    Float.class, projectId);
+            if (Float.valueOf(current).equals(stored) || System.nanoTime() - deadline > 0) {
+                assertThat(stored).isEqualTo(current);
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.CriticalPathDTO;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskScheduleDTO;
+import com.erikmlarson5.deadlinemanager.entity.Category;
+import com.erikmlarson5.deadlinemanager.repository.CategoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Archiving against a real database, where concurrent batches and foreign keys behave as in production
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class ArchiveServiceTest {
+    private static final OffsetDateTime CUTOFF = OffsetDateTime.now(ZoneOffset.UTC).minusDays(90);
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentSchedulersArchiveEachProjectOnce() throws Exception {
+        String userId = TestData.newUserId();
+        int projectCount = 40;
+        for (int i = 0; i < projectCount; i++) {
+            completedLongAgo(userId, "Finished " + i);
+        }
+
+        // Four nodes draining the backlog in small batches at the same time
+        ExecutorService nodes = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Integer>> runs = new ArrayList<>();
+            for (int node = 0; node < 4; node++) {
+                runs.add(() -> {
+                    int total = 0;
+                    int archived;
+                    do {
+                        archived = archiveService.archiveCompletedBefore(CUTOFF, 3);
+                        total += archived;
+                    } while (archived == 3);
+                    return total;
+                });
+            }
+            for (Future<Integer> run : nodes.invokeAll(runs)) {
+                // Rethrows a duplicate key or deadlock from any of the nodes
+                run.get();
+            }
+        } finally {
+            nodes.shutdown();
+        }
+
+        assertThat(count("select count(*) from project where user_id = ?", userId)).isZero();
+        assertThat(count("select count(*) from project_archive where user_id = ?", userId)).isEqualTo(projectCount);
+    }
+
+    @Test
+    void leavesProjectsCompletedAfterTheCutoffActive() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO recent = projectService.createProject(TestData.project("Recent"), userId);
+        projectService.updateProjectStatus(recent.getProjectId(), "COMPLETED", userId, null);
+
+        archiveService.archiveCompletedBefore(CUTOFF, 1000);
+
+        assertThat(count("select count(*) from project where user_id = ?", userId)).isEqualTo(1);
+    }
+
+    @Test
+    void restoreBringsBackTaskDependencies() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Dependent"), userId);
+        Long projectId = project.getProjectId();
+        taskService.createTask(projectId, TestData.task("Dependent first", 2f), userId);
+        List<Long> taskIds = taskService.createTask(projectId, TestData.task("Dependent second", 3f), userId)
+                .getTasks().stream()
+                .map(TaskOutputDTO::getTaskId)
+                .sorted()
+                .toList();
+        Long first = taskIds.get(0);
+        Long second = taskIds.get(1);
+        taskService.addDependency(projectId, second, first, userId);
+        CriticalPathDTO before = taskService.getCriticalPath(projectId, userId);
+        projectService.updateProjectStatus(projectId, "COMPLETED", userId, null);
+        jdbcTemplate.update("update project set completed_at = ? where project_id = ?", CUTOFF.minusDays(30),
+                projectId);
+
+        archiveService.archiveCompletedBefore(CUTOFF, 1000);
+
+        assertThat(countForProject("select count(*) from task_dependency_archive where project_id = ?", projectId))
+                .isEqualTo(1);
+        assertThat(countForProject("select count(*) from task_dependency where task_id = ?", second)).isZero();
+
+        archiveService.restoreProject(projectId, userId);
+
+        assertThat(countForProject("select count(*) from task_dependency_archive where project_id = ?", projectId))
+                .isZero();
+        CriticalPathDTO after = taskService.getCriticalPath(projectId, userId);
+        assertThat(after.getTasks())
+                .filteredOn(task -> task.getTaskId().equals(second))
+                .singleElement()
+                .extracting(TaskScheduleDTO::getDependsOn)
+                .isEqualTo(List.of(first));
+        assertThat(after).usingRecursiveComparison().isEqualTo(before);
+    }
+
+    @Test
+    void archiveAndRestoreKeepCachedCategories() {
+        String userId = TestData.newUserId();
+        Long projectId = completedLongAgo(userId, "Categorized").getProjectId();
+        Long categoryId = jdbcTemplate.queryForObject("select category_id from project where project_id = ?",
+                Long.class, projectId);
+        categoryRepository.findById(categoryId).orElseThrow();
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertThat(cache.containsEntity(Category.class, categoryId)).isTrue();
+
+        archiveService.archiveCompletedBefore(CUTOFF, 1000);
+        assertThat(cache.containsEntity(Category.class, categoryId)).isTrue();
+
+        archiveService.restoreProject(projectId, userId);
+        assertThat(cache.containsEntity(Category.class, categoryId)).isTrue();
+    }
+
+    /**
+     * Creates a project with a task, completes it and moves its completion before the cutoff
+     */
+    ProjectOutputDTO completedLongAgo(String userId, String title) {
+        ProjectOutputDTO project = projectService.createProject(TestData.project(title), userId);
+        project = taskService.createTask(project.getProjectId(), TestData.task(title + " task", 2f), userId);
+        projectService.updateProjectStatus(project.getProjectId(), "COMPLETED", userId, null);
+        jdbcTemplate.update("update project set completed_at = ? where project_id = ?", CUTOFF.minusDays(30),
+                project.getProjectId());
+        return project;
+    }
+
+    long countForProject(String sql, Long id) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, id);
+        return count == null ? 0 : count;
+    }
+
+    long count(String sql, String userId) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, userId);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,200 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The write-behind queue in front of a project service that records each batch it is handed, and fails the
+ * first failures-left of them. The queue's scheduled flush does not run here, each test flushes by hand
+ */
+class PriorityRecalculationQueueTest {
+    private final ProjectService projectService = mock(ProjectService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingQueue<List<Long>> batches = new LinkedBlockingQueue<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private PriorityRecalculationQueue queue;
+
+    @BeforeEach
+    void recordBatches() {
+        doAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            return null;
+        }).when(projectService).recalculatePriorities(anyCollection());
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    @Test
+    void coalescesRepeatedMarksIntoOneRecalculation() throws Exception {
+        queue = queue(Duration.ofMillis(50), 100, 5);
+        queue.offer(1L);
+        queue.offer(1L);
+        queue.offer(2L);
+        queue.offer(1L);
+        Thread.sleep(60);
+
+        queue.flush();
+
+        assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactlyInAnyOrder(1L, 2L);
+        queue.flush();
+        assertThat(batches.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(events("queued")).isEqualTo(2);
+        assertThat(events("coalesced")).isEqualTo(2);
+    }
+
+    @Test
+    void windowRunsFromTheFirstMark() throws Exception {
+        queue = queue(Duration.ofMillis(300), 100, 5);
+        queue.offer(1L);
+        queue.flush();
+        assertThat(batches.poll(100, TimeUnit.MILLISECONDS)).isNull();
+
+        // Marked again inside the window, which does not push it back
+        Thread.sleep(150);
+        queue.offer(1L);
+        Thread.sleep(100);
+        queue.flush();
+
+        assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(1L);
+    }
+
+    @Test
+    void requeuesAFailedBatchAfterABackoff() throws Exception {
+        failuresLeft.set(1);
+        queue = queue(Duration.ofMillis(100), 100, 5);
+        queue.offer(1L);
+        Thread.sleep(110);
+
+        queue.flush();
+        assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(1L);
+        await(() -> gauge("projects.priority.write-behind.pending"), 1);
+
+        // Still inside the first backoff, one debounce window after the failure
+        queue.flush();
+        assertThat(batches.poll(50, TimeUnit.MILLISECONDS)).isNull();
+
+        Thread.sleep(120);
+        queue.flush();
+        assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(1L);
+        await(() -> meterRegistry.get("projects.priority.write-behind.staleness").timer().count(), 1);
+        assertThat(meterRegistry.get("projects.priority.write-behind.failures").counter().count()).isEqualTo(1);
+        assertThat(gauge("projects.priority.write-behind.pending")).isZero();
+    }
+
+    @Test
+    void givesUpOnAProjectAfterMaxAttempts() throws Exception {
+        failuresLeft.set(Integer.MAX_VALUE);
+        queue = queue(Duration.ofMillis(20), 100, 3);
+        queue.offer(1L);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("projects.priority.write-behind.abandoned").counter().count() == 0
+                && System.nanoTime() - deadline < 0) {
+            queue.flush();
+            Thread.sleep(20);
+        }
+
+        assertThat(batches).hasSize(3);
+        assertThat(gauge("projects.priority.write-behind.pending")).isZero();
+        Thread.sleep(200);
+        queue.flush();
+        assertThat(batches).hasSize(3);
+    }
+
+    @Test
+    void neverHandsAProjectInProgressToASecondWorker() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+            release.await();
+            return null;
+        }).when(projectService).recalculatePriorities(anyCollection());
+        queue = queue(Duration.ofMillis(20), 100, 5);
+        queue.offer(1L);
+        Thread.sleep(30);
+        queue.flush();
+        assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(1L);
+
+        // Marked again while the first batch is still running on one of the two workers
+        queue.offer(1L);
+        Thread.sleep(30);
+        queue.flush();
+        assertThat(batches.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        release.countDown();
+        List<Long> next = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (next == null && System.nanoTime() - deadline < 0) {
+            queue.flush();
+            next = batches.poll(50, TimeUnit.MILLISECONDS);
+        }
+        assertThat(next).containsExactly(1L);
+    }
+
+    @Test
+    void fallsBackToSynchronousWhenFull() {
+        queue = queue(Duration.ofHours(1), 1, 5);
+
+        assertThat(queue.offer(1L)).isTrue();
+        assertThat(queue.offer(2L)).isFalse();
+        assertThat(events("synchronous")).isEqualTo(1);
+    }
+
+    @Test
+    void shutdownPersistsEverythingStillPending() throws Exception {
+        queue = queue(Duration.ofHours(1), 100, 5);
+        queue.offer(1L);
+        queue.offer(2L);
+
+        queue.shutdown();
+
+        assertThat(batches.poll()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(gauge("projects.priority.write-behind.pending")).isZero();
+    }
+
+    private PriorityRecalculationQueue queue(Duration debounce, int maxPending, int maxAttempts) {
+        return new PriorityRecalculationQueue(projectService, meterRegistry, true, debounce, 100, 2, maxPending,
+                maxAttempts);
+    }
+
+    private double events(String result) {
+        return meterRegistry.get("projects.priority.write-behind.events").tag("result", result).counter().count();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    // Waits for a worker to finish what follows a recorded batch, which happens after the batch was handed over
+    private static void await(DoubleSupplier value, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (value.getAsDouble() != expected && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        assertThat(value.getAsDouble()).isEqualTo(expected);
+    }
+}
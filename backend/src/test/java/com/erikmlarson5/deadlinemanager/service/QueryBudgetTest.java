@@ -0,0 +1,146 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dependency.DependencyGraphs;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskOutputDTO;
+import com.erikmlarson5.deadlinemanager.dto.TaskStatusBulkInputDTO;
+import com.erikmlarson5.deadlinemanager.metrics.QueryCount;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement budgets of the hot service paths, so a lazy load or per-row query slipping in fails the build
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class QueryBudgetTest {
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private DependencyGraphs dependencyGraphs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void updateTaskStaysWithinItsBudget() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Thesis", 3);
+        TaskOutputDTO task = project.getTasks().get(0);
+
+        // Project lock and revision bump, task load, task update, priority recalculation with the dependency graph
+        // loaded if not held, priority save, detail response
+        ProjectOutputDTO updated = QueryCount.assertStatementsAtMost(10, () -> taskService.updateTask(
+                project.getProjectId(), task.getTaskId(), TestData.task("Renamed", 4f), userId, null));
+
+        assertThat(updated.getTasks()).extracting(TaskOutputDTO::getTitle).contains("Renamed");
+    }
+
+    @Test
+    void updateTaskStatusStaysWithinItsBudget() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Lab report", 3);
+        TaskOutputDTO task = project.getTasks().get(0);
+
+        QueryCount.assertStatementsAtMost(10, () -> taskService.updateTaskStatus(project.getProjectId(),
+                task.getTaskId(), "IN_PROGRESS", userId, null));
+    }
+
+    @Test
+    void droppedDependencyGraphIsLoadedOncePerWrite() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Reading list", 3);
+        TaskOutputDTO task = project.getTasks().get(0);
+        dependencyGraphs.projectChanged(project.getProjectId());
+        double fullLoads = fullGraphLoads();
+
+        // The write loads the graph for its priority and keeps it on commit, so the read that follows uses it
+        taskService.updateTask(project.getProjectId(), task.getTaskId(), TestData.task("Renamed", 4f), userId, null);
+        projectService.getProjectById(project.getProjectId(), userId);
+
+        assertThat(fullGraphLoads()).isEqualTo(fullLoads + 1);
+    }
+
+    @Test
+    void warmProjectReadStaysWithinItsBudget() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectWithTasks(userId, "Portfolio", 3);
+        projectService.getProjectById(project.getProjectId(), userId);
+
+        // Project and tasks, the priority is already current and the dependency graph is held
+        QueryCount.assertStatementsAtMost(2, () -> projectService.getProjectById(project.getProjectId(), userId));
+    }
+
+    @Test
+    void bulkStatusUpdateDoesNotGrowWithTheNumberOfTasks() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO small = projectWithTasks(userId, "Small", 2);
+        ProjectOutputDTO large = projectWithTasks(userId, "Large", 8);
+
+        long smallStatements = QueryCount.measure(() -> taskService.updateTaskStatuses(
+                completeAll(small), userId)).getStatements();
+        long largeStatements = QueryCount.measure(() -> taskService.updateTaskStatuses(
+                completeAll(large), userId)).getStatements();
+
+        assertThat(largeStatements).isEqualTo(smallStatements);
+    }
+
+    @Test
+    void priorityListDoesNotGrowWithTheNumberOfProjects() {
+        String oneProjectUser = TestData.newUserId();
+        projectWithTasks(oneProjectUser, "Only", 3);
+        String manyProjectsUser = TestData.newUserId();
+        for (int i = 0; i < 6; i++) {
+            projectWithTasks(manyProjectsUser, "Project " + i, 3);
+        }
+        // The first read may still write priorities that aged, the measured reads only select
+        projectService.getProjectsSortedByPriority(oneProjectUser);
+        projectService.getProjectsSortedByPriority(manyProjectsUser);
+
+        long oneProject = QueryCount.measure(() -> projectService.getProjectsSortedByPriority(oneProjectUser))
+                .getStatements();
+        long manyProjects = QueryCount.measure(() -> projectService.getProjectsSortedByPriority(manyProjectsUser))
+                .getStatements();
+
+        assertThat(manyProjects).isEqualTo(oneProject);
+    }
+
+    private double fullGraphLoads() {
+        return meterRegistry.get("dependencies.graph.changes").tag("result", "full").counter().count();
+    }
+
+    private ProjectOutputDTO projectWithTasks(String userId, String title, int taskCount) {
+        ProjectOutputDTO project = projectService.createProject(TestData.project(title), userId);
+        for (int i = 0; i < taskCount; i++) {
+            project = taskService.createTask(project.getProjectId(), TestData.task(title + " task " + i, 2f),
+                    userId);
+        }
+        return project;
+    }
+
+    private static TaskStatusBulkInputDTO completeAll(ProjectOutputDTO project) {
+        List<Long> taskIds = new ArrayList<>();
+        for (TaskOutputDTO task : project.getTasks()) {
+            taskIds.add(task.getTaskId());
+        }
+        TaskStatusBulkInputDTO dto = new TaskStatusBulkInputDTO();
+        dto.setTaskIds(taskIds);
+        dto.setStatus("COMPLETED");
+        return dto;
+    }
+}
@@ -0,0 +1,58 @@
+package com.erikmlarson5.deadlinemanager.service;
+
+import com.erikmlarson5.deadlinemanager.TestData;
+import com.erikmlarson5.deadlinemanager.TestcontainersConfiguration;
+import com.erikmlarson5.deadlinemanager.dto.ProjectOutputDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sparse project reads against a real database
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class SparseFieldsTest {
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void recalculatesAStoredPriorityThatAged() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Thesis"), userId);
+        project = taskService.createTask(project.getProjectId(), TestData.task("Outline", 3f), userId);
+        // Stands in for a priority last written days ago, before the due date came closer
+        jdbcTemplate.update("update project set priority = 0 where project_id = ?", project.getProjectId());
+
+        List<Map<String, Object>> rows = projectService.getProjectFields(List.of(project.getProjectId()),
+                List.of("title", "priority"), userId);
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0)).containsOnlyKeys("projectId", "title", "priority");
+        assertThat(rows.get(0).get("priority")).isEqualTo(project.getPriority());
+    }
+
+    @Test
+    void returnsOnlyTheRequestedFields() {
+        String userId = TestData.newUserId();
+        ProjectOutputDTO project = projectService.createProject(TestData.project("Lab report"), userId);
+
+        List<Map<String, Object>> rows = projectService.getProjectFields(null, List.of("dueDate"), userId);
+
+        assertThat(rows).containsExactly(Map.of("projectId", project.getProjectId(), "dueDate", project.getDueDate()));
+    }
+}
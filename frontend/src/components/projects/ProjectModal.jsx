@@ -42,6 +42,10 @@ function ProjectModal({ mode, onClose, onProjectSaved, project = null }) {
   // Form to be passed to API when creating/updating a project
   const [form, setForm] = useState(getDefaultForm)
 
+  // Description fetched from the detail endpoint when the project came from a list view
+  const [loadedDescription, setLoadedDescription] = useState(null)
+  const [descriptionError, setDescriptionError] = useState(null)
+
   // On mount, Load selected project data in edit mode, or reset to default form in create mode
   useEffect(() => {
     if (mode === "edit") {
@@ -49,12 +53,42 @@ function ProjectModal({ mode, onClose, onProjectSaved, project = null }) {
 
       // Pre-fill the form with project data
       setForm(getFormFromProject(project))
-      return
+      setLoadedDescription(null)
+      setDescriptionError(null)
+
+      // List endpoints omit descriptions, so load it before editing to avoid clearing it on save
+      if (project.description !== undefined) return
+
+      let isCancelled = false
+      async function fetchDescription() {
+        try {
+          const accessToken = await getAccessTokenSilently()
+          const response = await fetch(`${import.meta.env.VITE_API_URL}/projects/${project.projectId}`, {
+            headers: {
+              Authorization: `Bearer ${accessToken}`,
+            },
+          })
+          if (!response.ok) throw new Error()
+
+          const detail = await response.json()
+          if (isCancelled) return
+          setLoadedDescription(detail.description || "")
+          setForm((prev) => ({ ...prev, description: detail.description || "" }))
+        } catch {
+          // Saving without the description would clear it, so the form stays locked
+          if (!isCancelled) setDescriptionError("Could not load the description. Close and reopen to edit.")
+        }
+      }
+
+      fetchDescription()
+      return () => {
+        isCancelled = true
+      }
     }
 
     // Set the form to default values in create mode
     setForm(getDefaultForm())
-  }, [mode, project])
+  }, [mode, project, getAccessTokenSilently])
 
   if (mode === "edit" && !project) return null
 
@@ -83,6 +117,7 @@ function ProjectModal({ mode, onClose, onProjectSaved, project = null }) {
   // Sends form data to API to create or update project, then closes modal on success
   async function handleFormSubmit(e) {
     e.preventDefault()
+    if (isSubmitDisabled) return
     setSubmitError(null)
     setIsLoading(true)
 
@@ -103,6 +138,8 @@ function ProjectModal({ mode, onClose, onProjectSaved, project = null }) {
         headers: {
           "Content-Type": "application/json",
           Authorization: `Bearer ${accessToken}`,
+          // Rejects the edit with 412 if the project changed since this modal loaded it
+          ...(isEditMode && project.version != null && { "If-Match": `"${project.version}"` }),
         },
         body: JSON.stringify({
           title: form.title,
@@ -150,13 +187,18 @@ function ProjectModal({ mode, onClose, onProjectSaved, project = null }) {
   const minDateStr = isEditMode ? getLocalDateString(project.createdAt) : getLocalDateString()
 
   // In edit mode, only enable submission after at least one field differs from the original project values
+  const originalProject = loadedDescription !== null ? { ...project, description: loadedDescription } : project
   const hasFormChanges = isEditMode
     ? JSON.stringify(normalizeFormForComparison(form)) !==
-      JSON.stringify(normalizeFormForComparison(getFormFromProject(project)))
+      JSON.stringify(normalizeFormForComparison(getFormFromProject(originalProject)))
     : true
 
-  // Disable submit button if required values are missing, or if edit mode has no form changes
-  const isSubmitDisabled = !isValid || (isEditMode && !hasFormChanges)
+  // The full update replaces the description, so an edit waits until the one omitted by list views has loaded
+  const isDescriptionPending = isEditMode && project.description === undefined && loadedDescription === null
+
+  // Disable submit button if required values are missing, the description is still loading, or if edit mode has
+  // no form changes
+  const isSubmitDisabled = !isValid || isDescriptionPending || (isEditMode && !hasFormChanges)
 
   const formId = `${mode}-project-form`
 
@@ -263,7 +305,8 @@ function ProjectModal({ mode, onClose, onProjectSaved, project = null }) {
                     maxLength={2000}
                     value={form.description}
                     onChange={handleInputChange}
-                    placeholder="Add notes about this project"
+                    disabled={isDescriptionPending}
+                    placeholder={isDescriptionPending ? "Loading description..." : "Add notes about this project"}
                     className="w-full resize-none rounded-md border border-gray-300 px-3 py-2 text-sm text-gray-900 focus:border-indigo-500 focus:outline-none focus:ring-2 focus:ring-indigo-200"
                   />
                 </div>
@@ -308,9 +351,9 @@ function ProjectModal({ mode, onClose, onProjectSaved, project = null }) {
             </form>
           </div>
 
-          {/** Display an error message if submission fails */}
-          {submitError && (
-            <p className="text-sm text-red-500 px-6 py-2 border-t border-red-100">{submitError}</p>
+          {/** Display an error message if submission fails or the description could not be loaded */}
+          {(submitError || descriptionError) && (
+            <p className="text-sm text-red-500 px-6 py-2 border-t border-red-100">{submitError || descriptionError}</p>
           )}
 
           {/** Bottom section of form: Action buttons */}